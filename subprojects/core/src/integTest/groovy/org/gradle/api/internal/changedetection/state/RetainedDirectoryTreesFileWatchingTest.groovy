@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.filewatch.AbstractFileWatcherTest
+import org.gradle.internal.filewatch.DefaultFileWatcherFactory
+import org.gradle.internal.nativeintegration.filesystem.Chmod
+import org.gradle.internal.nativeintegration.filesystem.Stat
+import org.gradle.internal.os.OperatingSystem
+import spock.lang.IgnoreIf
+
+import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicBoolean
+
+@IgnoreIf({ OperatingSystem.current().macOsX })
+class RetainedDirectoryTreesFileWatchingTest extends AbstractFileWatcherTest {
+    def fileWatcherFactory = new DefaultFileWatcherFactory(new DefaultExecutorFactory())
+    def trees = new RetainedDirectoryTrees(fileWatcherFactory)
+
+    void cleanup() {
+        trees.stop()
+        fileWatcherFactory.stop()
+        super.cleanup()
+    }
+
+    def "reuses retained tree without checking the file system and sees the changes made before syncing"() {
+        given:
+        def dir = testDir.createDir("dir")
+        def files = (1..100).collect { dir.createFile("file${it}.txt") << "content" }
+        def walk = trees.startWalk(dir, null)
+        def entries = files.collect { entry(it) }
+        trees.retain(walk, entries)
+
+        expect:
+        trees.sync()
+        trees.get(dir, null, true).is(entries)
+        trees.fileChecks == 0
+
+        when:
+        files[50] << "more content"
+
+        then:
+        trees.sync()
+        trees.get(dir, null, true) == null
+    }
+
+    private FileTreeElement entry(File file) {
+        long lastModified = Files.getLastModifiedTime(file.toPath()).toMillis()
+        return new DefaultFileVisitDetails(file, RelativePath.parse(true, file.name), new AtomicBoolean(), Stub(Chmod), Stub(Stat), false, lastModified, file.length())
+    }
+}
@@ -19,8 +19,28 @@ package org.gradle.api.internal;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.tasks.TaskInputs;
 
+import java.util.Set;
 import java.util.SortedMap;
 
 public interface TaskInputsInternal extends TaskInputs {
     SortedMap<String, FileCollection> getFileProperties();
+
+    /**
+     * Returns the names of the file properties that are Java compile classpaths.
+     *
+     * @see org.gradle.api.tasks.CompileClasspath
+     */
+    Set<String> getCompileClasspathPropertyNames();
+
+    /**
+     * Declares that the task registers discovered inputs while it executes.
+     *
+     * @see org.gradle.api.internal.changedetection.changes.DiscoveredInputRecorder
+     */
+    void discoversInputs();
+
+    /**
+     * Returns true when the task has declared that it registers discovered inputs while it executes.
+     */
+    boolean getDiscoversInputs();
 }
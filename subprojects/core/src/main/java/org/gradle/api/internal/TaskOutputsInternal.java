@@ -27,6 +27,11 @@ public interface TaskOutputsInternal extends TaskOutputs {
 
     SortedMap<String, FileCollection> getFileProperties();
 
+    /**
+     * Returns true if the outputs of the task should be cached, as specified by {@link #cacheIf(Spec)}.
+     */
+    boolean isCacheEnabled();
+
     FileCollection getPreviousFiles();
 
     void setHistory(TaskExecutionHistory history);
@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 
@@ -33,6 +35,17 @@ public interface TaskArtifactState {
 
     IncrementalTaskInputs getInputChanges();
 
+    /**
+     * Returns the key to use to cache the outputs of the task, or null when the outputs of the task cannot be cached.
+     */
+    @Nullable
+    HashCode calculateCacheKey();
+
+    /**
+     * Returns true when the current execution of the task has registered discovered inputs. The outputs of such an execution cannot be cached.
+     */
+    boolean hasDiscoveredInputs();
+
     /**
      * Called before the task is to be executed. Note that {@link #isUpToDate(java.util.Collection)} may not necessarily have been called.
      */
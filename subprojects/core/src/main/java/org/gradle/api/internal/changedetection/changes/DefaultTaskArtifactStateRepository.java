@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.changes;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.TaskInternal;
@@ -43,6 +44,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private final TaskHistoryRepository taskHistoryRepository;
     private final OutputFilesCollectionSnapshotter outputFilesSnapshotter;
     private final FileCollectionSnapshotter inputFilesSnapshotter;
+    private final FileCollectionSnapshotter classpathSnapshotter;
     private final FileCollectionSnapshotter discoveredInputsSnapshotter;
     private final Instantiator instantiator;
     private final FileCollectionFactory fileCollectionFactory;
@@ -50,12 +52,13 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, Instantiator instantiator,
                                               OutputFilesCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
-                                              FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory,
+                                              FileCollectionSnapshotter classpathSnapshotter, FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory,
                                               ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
         this.taskHistoryRepository = taskHistoryRepository;
         this.instantiator = instantiator;
         this.outputFilesSnapshotter = outputFilesSnapshotter;
         this.inputFilesSnapshotter = inputFilesSnapshotter;
+        this.classpathSnapshotter = classpathSnapshotter;
         this.discoveredInputsSnapshotter = discoveredInputsSnapshotter;
         this.fileCollectionFactory = fileCollectionFactory;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
@@ -109,6 +112,14 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return taskInputs;
         }
 
+        public HashCode calculateCacheKey() {
+            return getStates().calculateCacheKey();
+        }
+
+        public boolean hasDiscoveredInputs() {
+            return taskInputs != null && !taskInputs.getDiscoveredInputs().isEmpty();
+        }
+
         private boolean canPerformIncrementalBuild() {
             return collectChangedMessages(null, getStates().getRebuildChanges());
         }
@@ -153,7 +164,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         private TaskUpToDateState getStates() {
             if (states == null) {
                 // Calculate initial state - note this is potentially expensive
-                states = new TaskUpToDateState(task, history, outputFilesSnapshotter, inputFilesSnapshotter, discoveredInputsSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher);
+                states = new TaskUpToDateState(task, history, outputFilesSnapshotter, inputFilesSnapshotter, classpathSnapshotter, discoveredInputsSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher);
             }
             return states;
         }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.changes;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
@@ -35,6 +36,14 @@ class NoHistoryArtifactState implements TaskArtifactState, TaskExecutionHistory
         throw new UnsupportedOperationException();
     }
 
+    public HashCode calculateCacheKey() {
+        return null;
+    }
+
+    public boolean hasDiscoveredInputs() {
+        return false;
+    }
+
     public TaskExecutionHistory getExecutionHistory() {
         return this;
     }
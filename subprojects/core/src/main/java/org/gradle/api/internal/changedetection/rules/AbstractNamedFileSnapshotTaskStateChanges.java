@@ -37,6 +37,7 @@ import org.gradle.util.ChangeListener;
 import org.gradle.util.DiffUtil;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -52,28 +53,37 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
     protected final SortedMap<String, FileCollection> fileProperties;
     private final boolean noChanges;
     private final FileCollectionSnapshotter snapshotter;
+    private final Map<String, FileCollectionSnapshotter> propertySnapshotters;
     protected final TaskExecution previous;
     protected final TaskExecution current;
 
     protected AbstractNamedFileSnapshotTaskStateChanges(String taskName, TaskExecution previous, TaskExecution current, FileCollectionSnapshotter snapshotter, boolean allowSnapshotReuse, String title, SortedMap<String, FileCollection> fileProperties) {
+        this(taskName, previous, current, snapshotter, Collections.<String, FileCollectionSnapshotter>emptyMap(), allowSnapshotReuse, title, fileProperties);
+    }
+
+    /**
+     * @param propertySnapshotters The snapshotters to use for specific properties, instead of the given default snapshotter.
+     */
+    protected AbstractNamedFileSnapshotTaskStateChanges(String taskName, TaskExecution previous, TaskExecution current, FileCollectionSnapshotter snapshotter, Map<String, FileCollectionSnapshotter> propertySnapshotters, boolean allowSnapshotReuse, String title, SortedMap<String, FileCollection> fileProperties) {
         this.taskName = taskName;
         this.previous = previous;
         this.current = current;
         this.snapshotter = snapshotter;
+        this.propertySnapshotters = propertySnapshotters;
         this.allowSnapshotReuse = allowSnapshotReuse;
         this.title = title;
         this.fileProperties = fileProperties;
-        this.preChecksBefore = buildPreCheckSet(taskName, snapshotter, allowSnapshotReuse, title, fileProperties);
+        this.preChecksBefore = buildPreCheckSet(taskName, snapshotter, propertySnapshotters, allowSnapshotReuse, title, fileProperties);
         this.noChanges = previous != null
             && getPreviousPreCheckHash() != null
             && getPreviousPreCheckHash() == getPreCheckHash();
     }
 
     protected PreCheckSet buildPreCheckSet() {
-        return buildPreCheckSet(taskName, snapshotter, allowSnapshotReuse, title, fileProperties);
+        return buildPreCheckSet(taskName, snapshotter, propertySnapshotters, allowSnapshotReuse, title, fileProperties);
     }
 
-    private static PreCheckSet buildPreCheckSet(String taskName, FileCollectionSnapshotter snapshotter, boolean allowSnapshotReuse, String title, SortedMap<String, FileCollection> fileProperties) {
+    private static PreCheckSet buildPreCheckSet(String taskName, FileCollectionSnapshotter snapshotter, Map<String, FileCollectionSnapshotter> propertySnapshotters, boolean allowSnapshotReuse, String title, SortedMap<String, FileCollection> fileProperties) {
         Hasher hasher = Hashing.md5().newHasher();
         ImmutableMap.Builder<String, FileCollectionSnapshot.PreCheck> builder = ImmutableMap.builder();
         for (Map.Entry<String, FileCollection> entry : fileProperties.entrySet()) {
@@ -81,7 +91,7 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
             FileCollection files = entry.getValue();
             FileCollectionSnapshot.PreCheck result;
             try {
-                result = snapshotter.preCheck(files, allowSnapshotReuse);
+                result = snapshotterFor(propertyName, snapshotter, propertySnapshotters).preCheck(files, allowSnapshotReuse);
             } catch (UncheckedIOException e) {
                 throw new UncheckedIOException(String.format("Failed to capture snapshot of %s files for task '%s' property '%s' during up-to-date check.", title.toLowerCase(), taskName, propertyName), e);
             }
@@ -110,17 +120,17 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
     }
 
     protected Map<String, FileCollectionSnapshot> buildSnapshots(PreCheckSet preCheckSet) {
-        return buildSnapshots(taskName, snapshotter, title, preCheckSet);
+        return buildSnapshots(taskName, snapshotter, propertySnapshotters, title, preCheckSet);
     }
 
-    private static Map<String, FileCollectionSnapshot> buildSnapshots(String taskName, FileCollectionSnapshotter snapshotter, String title, PreCheckSet preCheckSet) {
+    private static Map<String, FileCollectionSnapshot> buildSnapshots(String taskName, FileCollectionSnapshotter snapshotter, Map<String, FileCollectionSnapshotter> propertySnapshotters, String title, PreCheckSet preCheckSet) {
         ImmutableMap.Builder<String, FileCollectionSnapshot> builder = ImmutableMap.builder();
         for (Map.Entry<String, FileCollectionSnapshot.PreCheck> entry : preCheckSet.getPreChecks().entrySet()) {
             String propertyName = entry.getKey();
             FileCollectionSnapshot.PreCheck preCheck = entry.getValue();
             FileCollectionSnapshot result;
             try {
-                result = snapshotter.snapshot(preCheck);
+                result = snapshotterFor(propertyName, snapshotter, propertySnapshotters).snapshot(preCheck);
             } catch (UncheckedIOException e) {
                 throw new UncheckedIOException(String.format("Failed to capture snapshot of %s files for task '%s' property '%s' during up-to-date check.", title.toLowerCase(), taskName, propertyName), e);
             }
@@ -129,6 +139,11 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
         return builder.build();
     }
 
+    private static FileCollectionSnapshotter snapshotterFor(String propertyName, FileCollectionSnapshotter snapshotter, Map<String, FileCollectionSnapshotter> propertySnapshotters) {
+        FileCollectionSnapshotter propertySnapshotter = propertySnapshotters.get(propertyName);
+        return propertySnapshotter != null ? propertySnapshotter : snapshotter;
+    }
+
     protected HashCode getPreCheckHash() {
         return preChecksBefore.getHash();
     }
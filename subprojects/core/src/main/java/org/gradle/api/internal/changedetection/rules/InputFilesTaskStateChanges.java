@@ -23,12 +23,21 @@ import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 public class InputFilesTaskStateChanges extends AbstractNamedFileSnapshotTaskStateChanges {
-    public InputFilesTaskStateChanges(TaskExecution previous, TaskExecution current, TaskInternal task, FileCollectionSnapshotter snapshotter) {
-        super(task.getName(), previous, current, snapshotter, true, "Input", task.getInputs().getFileProperties());
+    public InputFilesTaskStateChanges(TaskExecution previous, TaskExecution current, TaskInternal task, FileCollectionSnapshotter snapshotter, FileCollectionSnapshotter classpathSnapshotter) {
+        super(task.getName(), previous, current, snapshotter, classpathSnapshotters(task, classpathSnapshotter), true, "Input", task.getInputs().getFileProperties());
+    }
+
+    private static Map<String, FileCollectionSnapshotter> classpathSnapshotters(TaskInternal task, FileCollectionSnapshotter classpathSnapshotter) {
+        Map<String, FileCollectionSnapshotter> snapshotters = new HashMap<String, FileCollectionSnapshotter>();
+        for (String propertyName : task.getInputs().getCompileClasspathPropertyNames()) {
+            snapshotters.put(propertyName, classpathSnapshotter);
+        }
+        return snapshotters;
     }
 
     @Override
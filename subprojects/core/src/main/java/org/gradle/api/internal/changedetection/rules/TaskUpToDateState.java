@@ -16,10 +16,13 @@
 
 package org.gradle.api.internal.changedetection.rules;
 
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
 import org.gradle.api.internal.changedetection.state.OutputFilesCollectionSnapshotter;
+import org.gradle.api.internal.changedetection.state.TaskCacheKeyCalculator;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.file.FileCollectionFactory;
@@ -34,6 +37,9 @@ import java.util.Set;
 public class TaskUpToDateState {
     private static final int MAX_OUT_OF_DATE_MESSAGES = 3;
     private final InputFilesTaskStateChanges directInputFileChanges;
+    private final TaskExecution thisExecution;
+    private final TaskExecution lastExecution;
+    private final TaskInternal task;
 
     private TaskStateChanges inputFileChanges;
     private DiscoveredInputsListener discoveredInputsListener;
@@ -42,10 +48,11 @@ public class TaskUpToDateState {
 
     public TaskUpToDateState(TaskInternal task, TaskHistoryRepository.History history,
                              OutputFilesCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
-                             FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory,
+                             FileCollectionSnapshotter classpathSnapshotter, FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory,
                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
-        TaskExecution thisExecution = history.getCurrentExecution();
-        TaskExecution lastExecution = history.getPreviousExecution();
+        this.thisExecution = history.getCurrentExecution();
+        this.lastExecution = history.getPreviousExecution();
+        this.task = task;
 
         TaskStateChanges noHistoryState = new NoHistoryTaskStateChanges(lastExecution);
         TaskStateChanges taskTypeState = new TaskTypeTaskStateChanges(lastExecution, thisExecution, task.getPath(), task.getClass(), task.getActionClassLoaders(), classLoaderHierarchyHasher);
@@ -55,7 +62,7 @@ public class TaskUpToDateState {
         TaskStateChanges outputFileChanges = caching(new OutputFilesTaskStateChanges(lastExecution, thisExecution, task, outputFilesSnapshotter));
 
         // Capture inputs state
-        this.directInputFileChanges = new InputFilesTaskStateChanges(lastExecution, thisExecution, task, inputFilesSnapshotter);
+        this.directInputFileChanges = new InputFilesTaskStateChanges(lastExecution, thisExecution, task, inputFilesSnapshotter, classpathSnapshotter);
         this.inputFileChanges = caching(directInputFileChanges);
 
         // Capture discovered inputs state from previous execution
@@ -87,6 +94,18 @@ public class TaskUpToDateState {
         return directInputFileChanges.getUnifiedSnapshot();
     }
 
+    /**
+     * Returns the key to use for caching the outputs of the task, or null when the outputs cannot be cached.
+     */
+    @Nullable
+    public HashCode calculateCacheKey() {
+        if (task.getInputs().getDiscoversInputs()) {
+            // The task reads inputs it does not declare up front
+            return null;
+        }
+        return TaskCacheKeyCalculator.calculate(thisExecution, directInputFileChanges.getCurrent());
+    }
+
     public void newInputs(Set<File> discoveredInputs) {
         discoveredInputsListener.newInputs(discoveredInputs);
     }
@@ -80,6 +80,7 @@ abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapsh
             return emptySnapshot();
         }
 
+        final FileSnapshotter snapshotter = selectSnapshotter(preCheck);
         final List<TreeSnapshot> treeSnapshots = new ArrayList<TreeSnapshot>();
         cacheAccess.useCache("Create file snapshot", new Runnable() {
             public void run() {
@@ -100,6 +101,13 @@ abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapsh
         return new FileCollectionSnapshotImpl(treeSnapshots);
     }
 
+    /**
+     * Selects the snapshotter to hash the files visited by the given pre-check with.
+     */
+    protected FileSnapshotter selectSnapshotter(FileCollectionSnapshot.PreCheck preCheck) {
+        return snapshotter;
+    }
+
     private Collection<FileSnapshotWithKey> createMissingFileSnapshots(Collection<File> missingFiles) {
         List<FileSnapshotWithKey> missingFileSnapshots = new ArrayList<FileSnapshotWithKey>();
         for (File missingFile : missingFiles) {
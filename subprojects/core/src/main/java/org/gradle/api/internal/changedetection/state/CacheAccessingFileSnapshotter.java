@@ -23,12 +23,15 @@ import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.TextResource;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class CacheAccessingFileSnapshotter implements FileSnapshotter {
-    private final FileSnapshotter delegate;
+    private final CachingFileSnapshotter delegate;
     private final CacheAccess cacheAccess;
 
-    public CacheAccessingFileSnapshotter(FileSnapshotter delegate, CacheAccess cacheAccess) {
+    public CacheAccessingFileSnapshotter(CachingFileSnapshotter delegate, CacheAccess cacheAccess) {
         this.delegate = delegate;
         this.cacheAccess = cacheAccess;
     }
@@ -45,10 +48,23 @@ public class CacheAccessingFileSnapshotter implements FileSnapshotter {
 
     @Override
     public FileSnapshot snapshot(final File file) {
+        // Only hold the cache lock while looking up and storing the hash, not while hashing the file
+        final long length = file.length();
+        final long timestamp = file.lastModified();
+        FileSnapshot snapshot = cacheAccess.useCache("snapshot(File)", new Factory<FileSnapshot>() {
+            @Override
+            public FileSnapshot create() {
+                return delegate.lookup(file.getAbsolutePath(), length, timestamp);
+            }
+        });
+        if (snapshot != null) {
+            return snapshot;
+        }
+        final HashValue hash = delegate.hashContent(file);
         return cacheAccess.useCache("snapshot(File)", new Factory<FileSnapshot>() {
             @Override
             public FileSnapshot create() {
-                return delegate.snapshot(file);
+                return delegate.store(file, hash, length, timestamp);
             }
         });
     }
@@ -64,12 +80,29 @@ public class CacheAccessingFileSnapshotter implements FileSnapshotter {
     }
 
     @Override
-    public HashValue hash(final File file) {
-        return cacheAccess.useCache("hash(File)", new Factory<HashValue>() {
+    public List<FileSnapshot> snapshotAll(final List<? extends FileTreeElement> files) {
+        // Only hold the cache lock while looking up and storing the hashes, not while hashing the cache misses
+        final List<Integer> misses = new ArrayList<Integer>();
+        final FileSnapshot[] snapshots = cacheAccess.useCache("snapshotAll(List<FileTreeElement>)", new Factory<FileSnapshot[]>() {
             @Override
-            public HashValue create() {
-                return delegate.hash(file);
+            public FileSnapshot[] create() {
+                return delegate.lookupAll(files, misses);
             }
         });
+        if (!misses.isEmpty()) {
+            final List<HashValue> hashes = delegate.hashAll(files, misses);
+            cacheAccess.useCache("snapshotAll(List<FileTreeElement>)", new Runnable() {
+                @Override
+                public void run() {
+                    delegate.storeAll(files, misses, hashes, snapshots);
+                }
+            });
+        }
+        return Arrays.asList(snapshots);
+    }
+
+    @Override
+    public HashValue hash(File file) {
+        return snapshot(file).getHash();
     }
 }
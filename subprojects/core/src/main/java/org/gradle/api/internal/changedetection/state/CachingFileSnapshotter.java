@@ -15,12 +15,18 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
-import net.jcip.annotations.NotThreadSafe;
+import net.jcip.annotations.ThreadSafe;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.hash.DefaultHasher;
 import org.gradle.api.internal.hash.Hasher;
+import org.gradle.cache.CacheAccess;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.TextResource;
@@ -30,17 +36,55 @@ import org.gradle.internal.serialize.HashValueSerializer;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
-@NotThreadSafe
-public class CachingFileSnapshotter implements FileSnapshotter {
+/**
+ * A {@link FileSnapshotter} that caches the hash of each file, keyed on its absolute path, and only hashes a file again when its length or timestamp has changed.
+ *
+ * <p>The cache is guarded by the lock of the store it was created in. The public methods, and the methods documented as needing the cache
+ * lock, must be called while holding that lock, which is what {@link CacheAccessingFileSnapshotter} does. When an executor is provided, the
+ * cache misses of {@link #snapshotAll(List)} are hashed concurrently using that executor, as a long running operation of the store so that
+ * its lock is released meanwhile, while the cache itself is only used from the calling thread. The hasher must be thread-safe in this case.</p>
+ *
+ * <p>Each cache entry records the schema version of the hasher that produced it, and entries produced by a different kind of hasher are ignored.</p>
+ */
+@ThreadSafe
+public class CachingFileSnapshotter implements FileSnapshotter, Stoppable {
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final Hasher hasher;
     private final StringInterner stringInterner;
+    private final byte cacheSchemaVersion;
+    private final Factory<? extends StoppableExecutor> hashingExecutorFactory;
+    private final CacheAccess cacheAccess;
+    private StoppableExecutor hashingExecutor;
+    private boolean stopped;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
+        this(hasher, DefaultHasher.CACHE_SCHEMA_VERSION, store, stringInterner, null);
+    }
+
+    public CachingFileSnapshotter(Hasher hasher, byte cacheSchemaVersion, PersistentStore store, StringInterner stringInterner, Factory<? extends StoppableExecutor> hashingExecutorFactory) {
+        this(hasher, cacheSchemaVersion, "fileHashes", store, stringInterner, hashingExecutorFactory);
+    }
+
+    /**
+     * @param cacheSchemaVersion Identifies the kind of hash produced by the hasher.
+     * @param cacheName The name of the cache to store the hashes in. Snapshotters whose hashers hash the same file differently must use different caches.
+     * @param hashingExecutorFactory Creates the executor to hash cache misses with, or null to hash them on the calling thread. The executor is created the
+     * first time there are several files to hash, and is stopped when this snapshotter is stopped.
+     */
+    public CachingFileSnapshotter(Hasher hasher, byte cacheSchemaVersion, String cacheName, PersistentStore store, StringInterner stringInterner, Factory<? extends StoppableExecutor> hashingExecutorFactory) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", String.class, new FileInfoSerializer());
+        this.cacheSchemaVersion = cacheSchemaVersion;
+        this.cache = store.createCache(cacheName, String.class, new FileInfoSerializer());
         this.stringInterner = stringInterner;
+        this.hashingExecutorFactory = hashingExecutorFactory;
+        this.cacheAccess = store;
     }
 
     @Override
@@ -71,29 +115,185 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         return snapshot(file.getFile(), file.getSize(), file.getLastModified());
     }
 
+    @Override
+    public List<FileSnapshot> snapshotAll(final List<? extends FileTreeElement> files) {
+        final List<Integer> misses = new ArrayList<Integer>();
+        FileSnapshot[] snapshots = lookupAll(files, misses);
+        if (misses.isEmpty()) {
+            return Arrays.asList(snapshots);
+        }
+
+        List<HashValue> hashes;
+        if (!hashConcurrently(misses)) {
+            hashes = hashAll(files, misses);
+        } else {
+            // Release the cache lock while the files are hashed, so that other users of the cache are not blocked
+            hashes = cacheAccess.longRunningOperation("Hash files", new Factory<List<HashValue>>() {
+                @Override
+                public List<HashValue> create() {
+                    return hashAll(files, misses);
+                }
+            });
+        }
+        storeAll(files, misses, hashes, snapshots);
+        return Arrays.asList(snapshots);
+    }
+
+    /**
+     * Looks up the cached snapshot of each of the given files. Must be called while holding the cache lock.
+     *
+     * @param misses Receives the index of each file that has no up-to-date cache entry.
+     * @return The snapshots of the files, with a null element for each cache miss.
+     */
+    FileSnapshot[] lookupAll(List<? extends FileTreeElement> files, List<Integer> misses) {
+        FileSnapshot[] snapshots = new FileSnapshot[files.size()];
+        for (int i = 0; i < snapshots.length; i++) {
+            FileTreeElement file = files.get(i);
+            FileInfo info = lookup(file.getFile().getAbsolutePath(), file.getSize(), file.getLastModified());
+            if (info != null) {
+                snapshots[i] = info;
+            } else {
+                misses.add(i);
+            }
+        }
+        return snapshots;
+    }
+
+    private boolean hashConcurrently(List<Integer> misses) {
+        return hashingExecutorFactory != null && misses.size() > 1;
+    }
+
+    /**
+     * Hashes the files at the given indexes, concurrently when an executor is available. Does not use the cache, so does not need the cache lock.
+     */
+    List<HashValue> hashAll(List<? extends FileTreeElement> files, List<Integer> misses) {
+        List<HashValue> hashes = new ArrayList<HashValue>(misses.size());
+        if (!hashConcurrently(misses)) {
+            for (Integer index : misses) {
+                hashes.add(hasher.hash(files.get(index).getFile()));
+            }
+            return hashes;
+        }
+
+        StoppableExecutor hashingExecutor = getHashingExecutor();
+        List<Future<HashValue>> results = new ArrayList<Future<HashValue>>(misses.size());
+        for (Integer index : misses) {
+            final File file = files.get(index).getFile();
+            results.add(hashingExecutor.submit(new Callable<HashValue>() {
+                @Override
+                public HashValue call() {
+                    return hasher.hash(file);
+                }
+            }));
+        }
+        // Wait for all of the files to be hashed, even when one of them fails, so that no work is left running in the background
+        Throwable failure = null;
+        for (Future<HashValue> result : results) {
+            try {
+                hashes.add(result.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+        return hashes;
+    }
+
+    private synchronized StoppableExecutor getHashingExecutor() {
+        if (stopped) {
+            throw new IllegalStateException("This file snapshotter has been stopped.");
+        }
+        if (hashingExecutor == null) {
+            hashingExecutor = hashingExecutorFactory.create();
+        }
+        return hashingExecutor;
+    }
+
+    /**
+     * Stores the hashes of the files at the given indexes in the cache and fills in their snapshots. Must be called while holding the cache lock.
+     */
+    void storeAll(List<? extends FileTreeElement> files, List<Integer> misses, List<HashValue> hashes, FileSnapshot[] snapshots) {
+        for (int i = 0; i < misses.size(); i++) {
+            int index = misses.get(i);
+            FileTreeElement file = files.get(index);
+            snapshots[index] = store(file.getFile(), hashes.get(i), file.getSize(), file.getLastModified());
+        }
+    }
+
     private FileInfo snapshot(File file, long length, long timestamp) {
-        String absolutePath = file.getAbsolutePath();
-        FileInfo info = cache.get(absolutePath);
+        FileInfo info = lookup(file.getAbsolutePath(), length, timestamp);
+        if (info != null) {
+            return info;
+        }
+        return hashAndStore(file, length, timestamp);
+    }
 
-        if (info != null && length == info.length && timestamp == info.timestamp) {
+    /**
+     * Returns the cached snapshot of the given file, or null when there is no up-to-date cache entry. Must be called while holding the cache lock.
+     */
+    FileInfo lookup(String absolutePath, long length, long timestamp) {
+        FileInfo info = cache.get(absolutePath);
+        if (info != null && cacheSchemaVersion == info.cacheSchemaVersion && length == info.length && timestamp == info.timestamp) {
             return info;
         }
+        return null;
+    }
+
+    private FileInfo hashAndStore(File file, long length, long timestamp) {
+        return store(file, hashContent(file), length, timestamp);
+    }
 
-        HashValue hash = hasher.hash(file);
-        info = new FileInfo(hash, length, timestamp);
-        cache.put(stringInterner.intern(absolutePath), info);
+    /**
+     * Hashes the given file without using the cache.
+     */
+    HashValue hashContent(File file) {
+        return hasher.hash(file);
+    }
+
+    /**
+     * Stores the given hash of a file in the cache. Must be called while holding the cache lock.
+     */
+    FileInfo store(File file, HashValue hash, long length, long timestamp) {
+        FileInfo info = new FileInfo(hash, length, timestamp, cacheSchemaVersion);
+        String absolutePath = stringInterner.intern(file.getAbsolutePath());
+        cache.put(absolutePath, info);
         return info;
     }
 
+    @Override
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (this) {
+            stopped = true;
+            executor = hashingExecutor;
+            hashingExecutor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
     public static class FileInfo implements FileSnapshot {
         private final HashValue hash;
         private final long timestamp;
         private final long length;
+        private final byte cacheSchemaVersion;
 
         public FileInfo(HashValue hash, long length, long timestamp) {
+            this(hash, length, timestamp, DefaultHasher.CACHE_SCHEMA_VERSION);
+        }
+
+        public FileInfo(HashValue hash, long length, long timestamp, byte cacheSchemaVersion) {
             this.hash = hash;
             this.length = length;
             this.timestamp = timestamp;
+            this.cacheSchemaVersion = cacheSchemaVersion;
         }
 
         public HashValue getHash() {
@@ -105,13 +305,15 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         private final HashValueSerializer hashValueSerializer = new HashValueSerializer();
 
         public FileInfo read(Decoder decoder) throws Exception {
+            byte cacheSchemaVersion = decoder.readByte();
             HashValue hash = hashValueSerializer.read(decoder);
             long timestamp = decoder.readLong();
             long length = decoder.readLong();
-            return new FileInfo(hash, length, timestamp);
+            return new FileInfo(hash, length, timestamp, cacheSchemaVersion);
         }
 
         public void write(Encoder encoder, FileInfo value) throws Exception {
+            encoder.writeByte(value.cacheSchemaVersion);
             hashValueSerializer.write(encoder, value.hash);
             encoder.writeLong(value.timestamp);
             encoder.writeLong(value.length);
@@ -48,9 +48,20 @@ public class CachingTreeVisitor {
     public static final int VISITED_TREES_CACHE_MAX_SIZE = 500;
     private final Cache<String, VisitedTreeCacheEntry> cachedTrees;
     private final AtomicLong nextId = new AtomicLong(System.currentTimeMillis());
+    private final RetainedDirectoryTrees retainedTrees;
+    private final Object retainedTreesSyncLock = new Object();
+    private Boolean retainedTreesSynced;
     private HashSet<String> cacheableFilePaths;
 
     public CachingTreeVisitor() {
+        this(null);
+    }
+
+    /**
+     * @param retainedTrees the directory trees retained between builds, or null to walk each tree at least once per build.
+     */
+    public CachingTreeVisitor(RetainedDirectoryTrees retainedTrees) {
+        this.retainedTrees = retainedTrees;
         HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
         cachedTrees = CacheBuilder.newBuilder().maximumSize(cacheSizer.scaleCacheSize(VISITED_TREES_CACHE_MAX_SIZE, 10)).build();
     }
@@ -79,7 +90,7 @@ public class CachingTreeVisitor {
                         return cachedTree;
                     } else {
                         recordCacheMiss(directoryFileTree, allowReuse);
-                        cachedTree = doVisitTree(treePath, treePattern, fileTree, true);
+                        cachedTree = visitDirectoryTree(directoryFileTree, treePath, treePattern, fileTree, true, allowReuse);
                         cacheEntry.put(treePattern, cachedTree);
                         return cachedTree;
                     }
@@ -87,10 +98,41 @@ public class CachingTreeVisitor {
                     cacheEntry.unlock();
                 }
             }
+            return visitDirectoryTree(directoryFileTree, treePath, treePattern, fileTree, false, allowReuse);
         }
         return doVisitTree(treePath, treePattern, fileTree, false);
     }
 
+    private VisitedTree visitDirectoryTree(DirectoryFileTree directoryFileTree, String treePath, PatternSet treePattern, FileTreeInternal fileTree, boolean shareable, boolean allowReuse) {
+        if (retainedTrees == null || !RetainedDirectoryTrees.canRetain(treePattern)) {
+            return doVisitTree(treePath, treePattern, fileTree, shareable);
+        }
+        File dir = directoryFileTree.getDir();
+        if (allowReuse) {
+            List<FileTreeElement> entries = retainedTrees.get(dir, treePattern, syncRetainedTrees());
+            if (entries != null) {
+                LOG.debug("Reusing retained tree {}", directoryFileTree);
+                return new DefaultVisitedTree(treePath, treePattern, entries, shareable, nextId.incrementAndGet(), null);
+            }
+        }
+        RetainedDirectoryTrees.Walk walk = retainedTrees.startWalk(dir, treePattern);
+        VisitedTree visitedTree = doVisitTree(treePath, treePattern, fileTree, shareable);
+        retainedTrees.retain(walk, ImmutableList.copyOf(visitedTree.getEntries()));
+        return visitedTree;
+    }
+
+    /**
+     * Syncs with the file system events once per build, before the first retained tree is reused.
+     */
+    private boolean syncRetainedTrees() {
+        synchronized (retainedTreesSyncLock) {
+            if (retainedTreesSynced == null) {
+                retainedTreesSynced = retainedTrees.sync();
+            }
+            return retainedTreesSynced;
+        }
+    }
+
     private VisitedTreeCacheEntry findOrCreateCacheEntry(String treePath) {
         VisitedTreeCacheEntry cacheEntry;
         try {
@@ -177,6 +219,25 @@ public class CachingTreeVisitor {
         cachedTrees.invalidateAll(filePaths);
     }
 
+    public boolean isRetainingTrees() {
+        return retainedTrees != null;
+    }
+
+    /**
+     * Discards the trees retained between builds that may have been changed by the build.
+     */
+    public void invalidateRetainedTrees(Iterable<String> changedFilePaths) {
+        if (retainedTrees != null) {
+            retainedTrees.invalidate(changedFilePaths);
+        }
+    }
+
+    public void invalidateRetainedTrees() {
+        if (retainedTrees != null) {
+            retainedTrees.invalidateAll();
+        }
+    }
+
     private static class VisitedTreeCacheEntry {
         private final ReentrantLock lock = new ReentrantLock();
         private final AtomicLong nextId;
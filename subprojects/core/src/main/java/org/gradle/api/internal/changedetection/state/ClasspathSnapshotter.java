@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
+import org.gradle.api.internal.hash.ClassAbiHasher;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.cache.CacheAccess;
+import org.gradle.internal.serialize.SerializerRegistry;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Snapshots a Java compile classpath using a {@link FileSnapshotter} that hashes the ABI of the classpath entries, see {@link org.gradle.api.internal.hash.ClassAbiHasher}.
+ *
+ * <p>Unlike the default file collection snapshotter, this snapshotter always visits the files on disk and never shares its trees,
+ * as the trees cached by the default snapshotter hold snapshots made from the full contents of the files.</p>
+ *
+ * <p>When the classpath provides an annotation processor, the whole classpath is hashed by content instead, as the processor may use the
+ * implementation of any of the classpath entries.</p>
+ */
+public class ClasspathSnapshotter extends AbstractFileCollectionSnapshotter {
+    private final FileSnapshotter contentSnapshotter;
+
+    public ClasspathSnapshotter(FileSnapshotter abiSnapshotter, FileSnapshotter contentSnapshotter, CacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver) {
+        super(abiSnapshotter, cacheAccess, stringInterner, fileResolver);
+        this.contentSnapshotter = contentSnapshotter;
+    }
+
+    @Override
+    protected FileSnapshotter selectSnapshotter(FileCollectionSnapshot.PreCheck preCheck) {
+        for (VisitedTree tree : preCheck.getVisitedTrees()) {
+            if (providesAnnotationProcessor(tree)) {
+                return contentSnapshotter;
+            }
+        }
+        return snapshotter;
+    }
+
+    private static boolean providesAnnotationProcessor(VisitedTree tree) {
+        for (FileTreeElement entry : tree.getEntries()) {
+            if (tree.getAbsolutePath() != null) {
+                if (!entry.isDirectory() && entry.getRelativePath().getPathString().equals(ClassAbiHasher.ANNOTATION_PROCESSOR_SERVICE)) {
+                    return true;
+                }
+            } else if (ClassAbiHasher.providesAnnotationProcessor(entry.getFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    VisitedTree createJoinedTree(List<VisitedTree> nonShareableTrees, Collection<File> missingFiles) {
+        return CachingTreeVisitor.createJoinedTree(-1, nonShareableTrees, missingFiles);
+    }
+
+    @Override
+    protected void visitFiles(FileCollection input, List<VisitedTree> visitedTrees, List<File> missingFiles, boolean allowReuse) {
+        DefaultFileCollectionResolveContext context = new DefaultFileCollectionResolveContext(fileResolver);
+        context.add(input);
+        List<FileTreeInternal> fileTrees = context.resolveAsFileTrees();
+
+        for (FileTreeInternal fileTree : fileTrees) {
+            String treePath = null;
+            PatternSet treePattern = null;
+            if (fileTree instanceof FileTreeAdapter && ((FileTreeAdapter) fileTree).getTree() instanceof DirectoryFileTree) {
+                DirectoryFileTree directoryFileTree = (DirectoryFileTree) ((FileTreeAdapter) fileTree).getTree();
+                treePath = directoryFileTree.getDir().getAbsolutePath();
+                treePattern = directoryFileTree.getPatternSet();
+            }
+            final ImmutableList.Builder<FileTreeElement> entries = ImmutableList.builder();
+            fileTree.visitTreeOrBackingFile(new FileVisitor() {
+                @Override
+                public void visitDir(FileVisitDetails dirDetails) {
+                    entries.add(dirDetails);
+                }
+
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    entries.add(fileDetails);
+                }
+            });
+            visitedTrees.add(new DefaultVisitedTree(treePath, treePattern, entries.build(), false, -1, null));
+        }
+    }
+
+    @Override
+    public void registerSerializers(SerializerRegistry registry) {
+        // Produces the same snapshots as the default file collection snapshotter, whose serializer is used
+    }
+}
@@ -28,7 +28,6 @@ import java.util.Map;
 class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnapshotImpl> {
     private final StringInterner stringInterner;
     private final TreeSnapshotRepository treeSnapshotRepository;
-    private final IncrementalFileSnapshotSerializer incrementalFileSnapshotSerializer = new IncrementalFileSnapshotSerializer();
 
     public DefaultFileSnapshotterSerializer(StringInterner stringInterner, TreeSnapshotRepository treeSnapshotRepository) {
         this.stringInterner = stringInterner;
@@ -42,7 +41,7 @@ class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnaps
             long treeId = decoder.readLong();
             treeSnapshots.add(treeSnapshotRepository.getTreeSnapshot(treeId));
         }
-        TreeSnapshot nonShared = TreeSnapshotSerializer.readStoredTreeSnapshot(-1, decoder, incrementalFileSnapshotSerializer, stringInterner);
+        TreeSnapshot nonShared = TreeSnapshotSerializer.readStoredTreeSnapshot(-1, decoder, stringInterner);
         if (!nonShared.getFileSnapshots().isEmpty()) {
             treeSnapshots.add(nonShared);
         }
@@ -68,17 +67,17 @@ class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnaps
                 }
             }
             if (nonShared != null) {
-                TreeSnapshotSerializer.writeTreeSnapshot(nonShared, encoder, incrementalFileSnapshotSerializer);
+                TreeSnapshotSerializer.writeTreeSnapshot(nonShared, encoder);
             } else {
                 encoder.writeSmallInt(0);
             }
         } else {
             encoder.writeSmallInt(0);
-            encoder.writeSmallInt(value.snapshots.size());
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : value.snapshots.entrySet()) {
-                encoder.writeString(entry.getKey());
-                incrementalFileSnapshotSerializer.write(encoder, entry.getValue());
+            List<FileSnapshotWithKey> fileSnapshots = new ArrayList<FileSnapshotWithKey>(value.getSnapshots().size());
+            for (Map.Entry<String, IncrementalFileSnapshot> entry : value.getSnapshots().entrySet()) {
+                fileSnapshots.add(new FileSnapshotWithKey(entry.getKey(), entry.getValue()));
             }
+            FileSnapshotTable.write(encoder, fileSnapshots);
         }
     }
 
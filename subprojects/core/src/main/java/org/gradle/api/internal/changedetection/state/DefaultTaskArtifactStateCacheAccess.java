@@ -22,7 +22,10 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.cache.internal.WriteBehindCacheAccess;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
@@ -30,26 +33,42 @@ import java.io.Closeable;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
+    /**
+     * When set, updates to the task history and file hash caches are queued and written by a background thread.
+     */
+    public static final String WRITE_BEHIND_PROPERTY = "org.gradle.cache.tasks.writebehind";
+
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
+    private final WriteBehindCacheAccess writeBehindCacheAccess;
 
     public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
+        this(gradle, cacheRepository, decorator, null);
+    }
+
+    /**
+     * @param writeBehindExecutor the executor to write cache updates from, or null to write them synchronously.
+     */
+    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator, StoppableExecutor writeBehindExecutor) {
         this.inMemoryDecorator = decorator;
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
                 .open();
+        writeBehindCacheAccess = writeBehindExecutor == null ? null : new WriteBehindCacheAccess("task history cache", cache, writeBehindExecutor);
     }
 
     public void close() {
-        cache.close();
+        // Write any pending updates before the cache is closed
+        CompositeStoppable.stoppable(writeBehindCacheAccess, cache).stop();
     }
 
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
                 .cacheDecorator(inMemoryDecorator);
-        return cache.createCache(parameters);
+        PersistentIndexedCache<K, V> indexedCache = cache.createCache(parameters);
+        return writeBehindCacheAccess == null ? indexedCache : writeBehindCacheAccess.decorate(indexedCache);
     }
 
     public <T> T useCache(String operationDisplayName, Factory<? extends T> action) {
@@ -61,10 +80,19 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
     }
 
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
+        flushPendingUpdates();
         return cache.longRunningOperation(operationDisplayName, action);
     }
 
     public void longRunningOperation(String operationDisplayName, Runnable action) {
+        flushPendingUpdates();
         cache.longRunningOperation(operationDisplayName, action);
     }
+
+    private void flushPendingUpdates() {
+        // Don't hold updates in memory while the cache lock may be released to other processes
+        if (writeBehindCacheAccess != null) {
+            writeBehindCacheAccess.flush();
+        }
+    }
 }
\ No newline at end of file
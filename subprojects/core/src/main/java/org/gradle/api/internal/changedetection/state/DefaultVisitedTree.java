@@ -19,17 +19,17 @@ package org.gradle.api.internal.changedetection.state;
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang.builder.CompareToBuilder;
 import org.gradle.api.Action;
-import org.gradle.api.Transformer;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileTreeElementHasher;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.util.PatternSet;
-import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 
 class DefaultVisitedTree implements VisitedTree {
@@ -97,19 +97,26 @@ class DefaultVisitedTree implements VisitedTree {
 
 
     private TreeSnapshot createTreeSnapshot(final FileSnapshotter fileSnapshotter, final StringInterner stringInterner) {
-        final Collection<FileSnapshotWithKey> fileSnapshots = CollectionUtils.collect(getEntries(), new Transformer<FileSnapshotWithKey, FileTreeElement>() {
-            @Override
-            public FileSnapshotWithKey transform(FileTreeElement fileTreeElement) {
-                String absolutePath = getInternedAbsolutePath(fileTreeElement.getFile(), stringInterner);
-                IncrementalFileSnapshot incrementalFileSnapshot;
-                if (fileTreeElement.isDirectory()) {
-                    incrementalFileSnapshot = DirSnapshot.getInstance();
-                } else {
-                    incrementalFileSnapshot = new FileHashSnapshot(fileSnapshotter.snapshot(fileTreeElement).getHash(), fileTreeElement.getLastModified());
-                }
-                return new FileSnapshotWithKey(absolutePath, incrementalFileSnapshot);
+        List<FileTreeElement> files = new ArrayList<FileTreeElement>();
+        for (FileTreeElement fileTreeElement : entries) {
+            if (!fileTreeElement.isDirectory()) {
+                files.add(fileTreeElement);
             }
-        });
+        }
+        // Snapshot all of the files in one go, so that the snapshotter can hash them concurrently
+        Iterator<FileSnapshot> fileContentSnapshots = fileSnapshotter.snapshotAll(files).iterator();
+
+        final Collection<FileSnapshotWithKey> fileSnapshots = new ArrayList<FileSnapshotWithKey>(entries.size());
+        for (FileTreeElement fileTreeElement : entries) {
+            String absolutePath = getInternedAbsolutePath(fileTreeElement.getFile(), stringInterner);
+            IncrementalFileSnapshot incrementalFileSnapshot;
+            if (fileTreeElement.isDirectory()) {
+                incrementalFileSnapshot = DirSnapshot.getInstance();
+            } else {
+                incrementalFileSnapshot = new FileHashSnapshot(fileContentSnapshots.next().getHash(), fileTreeElement.getLastModified());
+            }
+            fileSnapshots.add(new FileSnapshotWithKey(absolutePath, incrementalFileSnapshot));
+        }
         if (missingFiles != null) {
             for (File file : missingFiles) {
                 fileSnapshots.add(new FileSnapshotWithKey(getInternedAbsolutePath(file, stringInterner), MissingFileSnapshot.getInstance()));
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 
+import com.google.common.hash.Hasher;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 
@@ -49,6 +50,11 @@ public interface FileCollectionSnapshot {
 
     FilesSnapshotSet getSnapshot();
 
+    /**
+     * Adds the paths and contents of the files in this snapshot to the given hasher, in a stable order.
+     */
+    void appendToHasher(Hasher hasher);
+
     interface PreCheck {
         Integer getHash();
 
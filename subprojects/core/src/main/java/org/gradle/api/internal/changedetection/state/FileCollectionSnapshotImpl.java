@@ -18,7 +18,9 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.changedetection.rules.ChangeType;
 import org.gradle.api.internal.changedetection.rules.FileChange;
@@ -32,17 +34,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 class FileCollectionSnapshotImpl implements FileCollectionSnapshot, FilesSnapshotSet {
-    final Map<String, IncrementalFileSnapshot> snapshots;
     final List<TreeSnapshot> treeSnapshots;
+    private Map<String, IncrementalFileSnapshot> snapshots;
 
     public FileCollectionSnapshotImpl(List<TreeSnapshot> treeSnapshots) {
+        // The entries of the tree snapshots are only indexed once the snapshot is queried, as the trees may be lazily decoded
         this.treeSnapshots = ImmutableList.copyOf(treeSnapshots);
-        this.snapshots = new HashMap<String, IncrementalFileSnapshot>();
-        for(TreeSnapshot treeSnapshot : treeSnapshots) {
-            addSnapshots(treeSnapshot.getFileSnapshots());
-        }
     }
 
     public FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots) {
@@ -51,7 +52,7 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot, FilesSnapsho
     }
 
 
-    private void addSnapshots(Collection<FileSnapshotWithKey> fileSnapshots) {
+    private void addSnapshots(Map<String, IncrementalFileSnapshot> snapshots, Collection<FileSnapshotWithKey> fileSnapshots) {
         for(FileSnapshotWithKey fileSnapshotWithKey : fileSnapshots) {
             snapshots.put(fileSnapshotWithKey.getKey(), fileSnapshotWithKey.getIncrementalFileSnapshot());
         }
@@ -59,7 +60,7 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot, FilesSnapsho
 
     public List<File> getFiles() {
         List<File> files = Lists.newArrayList();
-        for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
+        for (Map.Entry<String, IncrementalFileSnapshot> entry : getSnapshots().entrySet()) {
             if (!(entry.getValue() instanceof DirSnapshot)) {
                 files.add(new File(entry.getKey()));
             }
@@ -68,14 +69,21 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot, FilesSnapsho
     }
 
     @Override
-    public Map<String, IncrementalFileSnapshot> getSnapshots() {
+    public synchronized Map<String, IncrementalFileSnapshot> getSnapshots() {
+        if (snapshots == null) {
+            Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+            for (TreeSnapshot treeSnapshot : treeSnapshots) {
+                addSnapshots(snapshots, treeSnapshot.getFileSnapshots());
+            }
+            this.snapshots = snapshots;
+        }
         return snapshots;
     }
 
     @Nullable
     @Override
     public FileSnapshot findSnapshot(File file) {
-        IncrementalFileSnapshot s = snapshots.get(file.getAbsolutePath());
+        IncrementalFileSnapshot s = getSnapshots().get(file.getAbsolutePath());
         if (s instanceof FileSnapshot) {
             return (FileSnapshot) s;
         }
@@ -87,6 +95,24 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot, FilesSnapsho
         return this;
     }
 
+    @Override
+    public void appendToHasher(Hasher hasher) {
+        SortedMap<String, IncrementalFileSnapshot> sortedSnapshots = new TreeMap<String, IncrementalFileSnapshot>(getSnapshots());
+        hasher.putInt(sortedSnapshots.size());
+        for (Map.Entry<String, IncrementalFileSnapshot> entry : sortedSnapshots.entrySet()) {
+            hasher.putString(entry.getKey(), Charsets.UTF_8);
+            IncrementalFileSnapshot snapshot = entry.getValue();
+            if (snapshot instanceof FileHashSnapshot) {
+                hasher.putByte((byte) 1);
+                hasher.putBytes(((FileHashSnapshot) snapshot).getHash().asByteArray());
+            } else if (snapshot instanceof DirSnapshot) {
+                hasher.putByte((byte) 2);
+            } else {
+                hasher.putByte((byte) 3);
+            }
+        }
+    }
+
     @Override
     public Collection<Long> getTreeSnapshotIds() {
         List<Long> snapshotIds = new ArrayList<Long>();
@@ -101,14 +127,23 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot, FilesSnapsho
     }
 
     @Override
-    public boolean isEmpty() {
-        return snapshots.isEmpty();
+    public synchronized boolean isEmpty() {
+        if (snapshots != null) {
+            return snapshots.isEmpty();
+        }
+        for (TreeSnapshot treeSnapshot : treeSnapshots) {
+            if (!treeSnapshot.getFileSnapshots().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
     @Override
     public Iterator<TaskStateChange> iterateContentChangesSince(FileCollectionSnapshot oldSnapshot, final String fileType, final Set<ChangeFilter> filters) {
         final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(oldSnapshot.getSnapshots());
+        final Map<String, IncrementalFileSnapshot> snapshots = getSnapshots();
         final Iterator<String> currentFiles = snapshots.keySet().iterator();
         final boolean includeAdded = !filters.contains(ChangeFilter.IgnoreAddedFiles);
         return new AbstractIterator<TaskStateChange>() {
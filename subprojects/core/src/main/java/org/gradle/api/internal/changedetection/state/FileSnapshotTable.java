@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A compact, columnar encoding of the entries of a tree snapshot.
+ *
+ * <p>The entries are sorted by path and stored as three columns: a front-coded path table, where each path only stores the suffix
+ * it doesn't share with the previous path, one kind byte per entry and a fixed-width array of the file content hashes.
+ * The encoded table is kept as a byte array when read and only decoded once the entries are actually iterated, so loading the
+ * history of a task whose snapshots are never compared doesn't materialize any paths or hashes.</p>
+ */
+class FileSnapshotTable extends AbstractCollection<FileSnapshotWithKey> {
+    private static final byte DIR_SNAPSHOT = 1;
+    private static final byte MISSING_FILE_SNAPSHOT = 2;
+    private static final byte FILE_HASH_SNAPSHOT = 3;
+
+    private static final Comparator<FileSnapshotWithKey> BY_KEY = new Comparator<FileSnapshotWithKey>() {
+        @Override
+        public int compare(FileSnapshotWithKey o1, FileSnapshotWithKey o2) {
+            return o1.getKey().compareTo(o2.getKey());
+        }
+    };
+
+    private final int size;
+    private final StringInterner stringInterner;
+    private byte[] encoded;
+    private List<FileSnapshotWithKey> entries;
+
+    private FileSnapshotTable(int size, byte[] encoded, StringInterner stringInterner) {
+        this.size = size;
+        this.encoded = encoded;
+        this.stringInterner = stringInterner;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<FileSnapshotWithKey> iterator() {
+        return getEntries().iterator();
+    }
+
+    private synchronized List<FileSnapshotWithKey> getEntries() {
+        if (entries == null) {
+            try {
+                entries = decode(encoded, size, stringInterner);
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            encoded = null;
+        }
+        return entries;
+    }
+
+    public static void write(Encoder encoder, Collection<FileSnapshotWithKey> fileSnapshots) throws Exception {
+        encoder.writeSmallInt(fileSnapshots.size());
+        if (fileSnapshots.isEmpty()) {
+            return;
+        }
+        encoder.writeBinary(encode(fileSnapshots));
+    }
+
+    public static Collection<FileSnapshotWithKey> read(Decoder decoder, StringInterner stringInterner) throws Exception {
+        int size = decoder.readSmallInt();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        return new FileSnapshotTable(size, decoder.readBinary(), stringInterner);
+    }
+
+    private static byte[] encode(Collection<FileSnapshotWithKey> fileSnapshots) throws Exception {
+        FileSnapshotWithKey[] sorted = fileSnapshots.toArray(new FileSnapshotWithKey[0]);
+        Arrays.sort(sorted, BY_KEY);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+
+        String previous = "";
+        for (FileSnapshotWithKey entry : sorted) {
+            String key = entry.getKey();
+            int common = commonPrefixLength(previous, key);
+            encoder.writeSmallInt(common);
+            encoder.writeString(key.substring(common));
+            previous = key;
+        }
+
+        byte[] kinds = new byte[sorted.length];
+        int hashWidth = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            IncrementalFileSnapshot snapshot = sorted[i].getIncrementalFileSnapshot();
+            if (snapshot instanceof DirSnapshot) {
+                kinds[i] = DIR_SNAPSHOT;
+            } else if (snapshot instanceof MissingFileSnapshot) {
+                kinds[i] = MISSING_FILE_SNAPSHOT;
+            } else if (snapshot instanceof FileHashSnapshot) {
+                kinds[i] = FILE_HASH_SNAPSHOT;
+                hashWidth = Math.max(hashWidth, unsignedLength(((FileHashSnapshot) snapshot).hash));
+            } else {
+                throw new IllegalArgumentException(String.format("Unsupported file snapshot %s.", snapshot));
+            }
+        }
+        encoder.writeBytes(kinds);
+
+        encoder.writeSmallInt(hashWidth);
+        byte[] slot = new byte[hashWidth];
+        for (int i = 0; i < sorted.length; i++) {
+            if (kinds[i] == FILE_HASH_SNAPSHOT) {
+                byte[] hash = ((FileHashSnapshot) sorted[i].getIncrementalFileSnapshot()).hash.asByteArray();
+                // Right align the magnitude of the hash, dropping any sign byte and padding with leading zeroes
+                int length = Math.min(hash.length, hashWidth);
+                Arrays.fill(slot, 0, hashWidth - length, (byte) 0);
+                System.arraycopy(hash, hash.length - length, slot, hashWidth - length, length);
+                encoder.writeBytes(slot);
+            }
+        }
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static List<FileSnapshotWithKey> decode(byte[] encoded, int size, StringInterner stringInterner) throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encoded));
+
+        String[] keys = new String[size];
+        String previous = "";
+        for (int i = 0; i < size; i++) {
+            int common = decoder.readSmallInt();
+            String suffix = decoder.readString();
+            String key = common == 0 ? suffix : previous.substring(0, common).concat(suffix);
+            keys[i] = stringInterner.intern(key);
+            previous = key;
+        }
+
+        byte[] kinds = new byte[size];
+        decoder.readBytes(kinds);
+
+        int hashWidth = decoder.readSmallInt();
+        FileSnapshotWithKey[] entries = new FileSnapshotWithKey[size];
+        for (int i = 0; i < size; i++) {
+            IncrementalFileSnapshot snapshot;
+            if (kinds[i] == DIR_SNAPSHOT) {
+                snapshot = DirSnapshot.getInstance();
+            } else if (kinds[i] == MISSING_FILE_SNAPSHOT) {
+                snapshot = MissingFileSnapshot.getInstance();
+            } else if (kinds[i] == FILE_HASH_SNAPSHOT) {
+                byte[] hash = new byte[hashWidth];
+                decoder.readBytes(hash);
+                snapshot = new FileHashSnapshot(new HashValue(hash));
+            } else {
+                throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
+            }
+            entries[i] = new FileSnapshotWithKey(keys[i], snapshot);
+        }
+        return Arrays.asList(entries);
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int max = Math.min(first.length(), second.length());
+        int i = 0;
+        while (i < max && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int unsignedLength(HashValue hash) {
+        return Math.max(1, (hash.asBigInteger().bitLength() + 7) / 8);
+    }
+}
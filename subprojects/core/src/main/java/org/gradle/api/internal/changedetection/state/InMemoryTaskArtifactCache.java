@@ -47,6 +47,7 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             DEFAULT_CAP_SIZES.put("treeSnapshotUsage", 20000);
             DEFAULT_CAP_SIZES.put("taskArtifacts", 2000);
             DEFAULT_CAP_SIZES.put("fileHashes", 400000);
+            DEFAULT_CAP_SIZES.put("classAbiHashes", 100000);
             DEFAULT_CAP_SIZES.put("compilationState", 1000);
         }
 
@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
+import com.google.common.hash.Hasher;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.rules.ChangeType;
@@ -142,6 +143,11 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
             return filesSnapshot.getSnapshot();
         }
 
+        @Override
+        public void appendToHasher(Hasher hasher) {
+            filesSnapshot.appendToHasher(hasher);
+        }
+
         @Override
         public Collection<Long> getTreeSnapshotIds() {
             return filesSnapshot.getTreeSnapshotIds();
@@ -0,0 +1,567 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.ImmutableSet;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Action;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.internal.cache.HeapProportionalCacheSizer;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retains the entries of visited directory trees across builds in the same process, and keeps them valid by watching the directories for changes.
+ *
+ * <p>A directory is watched before it is walked, so any change made while or after the tree is walked invalidates the retained entries. As file watch
+ * events are delivered asynchronously, a build calls {@link #sync()} before it reads the retained trees. This waits until the watcher has reported a marker
+ * file created in a watched directory, so that the events of all changes made before the build started have been handled. A retained tree is then reused
+ * without touching the file system at all. When the marker is not reported in time, as with watchers that only poll for changes, the watch is considered
+ * unreliable and each retained file is checked with a single attribute read before its tree is reused. Changes made by the build itself are expected to be
+ * reported through {@link #invalidate(Iterable)} and {@link #invalidateAll()} as soon as they happen.</p>
+ *
+ * <p>Watching a directory registers a watch for each of its subdirectories on most platforms, and these are a limited resource. Once the retained trees
+ * cover 4096 directories, or the number given by {@link #MAX_WATCHED_DIRECTORIES_PROPERTY}, no further trees are watched or retained.</p>
+ *
+ * <p>Only trees filtered by include and exclude patterns are retained, as trees filtered by arbitrary specs can't be matched across builds.</p>
+ */
+@ThreadSafe
+public class RetainedDirectoryTrees implements Stoppable {
+    /**
+     * When set, a long lived process retains the directory trees visited for snapshotting between builds.
+     */
+    public static final String ENABLE_PROPERTY = "org.gradle.filewatch.retainTrees";
+    /**
+     * The number of directories the retained trees may cover, as each of them may need a watch of its own.
+     */
+    public static final String MAX_WATCHED_DIRECTORIES_PROPERTY = "org.gradle.filewatch.retainTrees.maxWatchedDirectories";
+    private static final Logger LOGGER = Logging.getLogger(RetainedDirectoryTrees.class);
+    private static final int MAX_RETAINED_TREES = 2000;
+    private static final int MAX_WATCHED_DIRECTORIES = 4096;
+    private static final long SYNC_TIMEOUT_MILLIS = 500;
+    private static final String SYNC_MARKER_PREFIX = "sync-";
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final int maxRetainedTrees;
+    private final int maxWatchedDirectories;
+    private final Object lock = new Object();
+    private final Map<TreeKey, RetainedTree> trees;
+    private final Set<Walk> walksInProgress = new HashSet<Walk>();
+    private final Set<String> watchedDirs = new HashSet<String>();
+    private final Map<String, Integer> watchedDirectoryCounts = new HashMap<String, Integer>();
+    private final AtomicLong fileChecks = new AtomicLong();
+    private FileWatcher watcher;
+    private boolean reliableWatch;
+    private File syncDir;
+    private long syncMarkersCreated;
+    private long syncMarkersSeen;
+
+    public RetainedDirectoryTrees(FileWatcherFactory fileWatcherFactory) {
+        this(fileWatcherFactory, Integer.getInteger(MAX_WATCHED_DIRECTORIES_PROPERTY, MAX_WATCHED_DIRECTORIES));
+    }
+
+    RetainedDirectoryTrees(FileWatcherFactory fileWatcherFactory, int maxWatchedDirectories) {
+        this.fileWatcherFactory = fileWatcherFactory;
+        this.maxWatchedDirectories = maxWatchedDirectories;
+        this.maxRetainedTrees = new HeapProportionalCacheSizer().scaleCacheSize(MAX_RETAINED_TREES);
+        this.trees = new LinkedHashMap<TreeKey, RetainedTree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TreeKey, RetainedTree> eldest) {
+                if (size() > maxRetainedTrees) {
+                    remove(eldest.getKey());
+                    discarded(eldest.getKey().path);
+                }
+                return false;
+            }
+        };
+    }
+
+    public static boolean canRetain(PatternSet patternSet) {
+        return patternSet == null || (patternSet.getIncludeSpecs().isEmpty() && patternSet.getExcludeSpecs().isEmpty());
+    }
+
+    /**
+     * Waits until the watcher has reported the changes made before this call. Must be called before a build reads the retained trees.
+     *
+     * @return true when the retained trees can be reused as they are, false when the watch is unreliable and the trees need to be checked against the file
+     * system before they are reused.
+     */
+    public boolean sync() {
+        synchronized (lock) {
+            if (watcher == null) {
+                // Nothing is retained until a tree has been watched
+                return true;
+            }
+            if (!reliableWatch) {
+                return false;
+            }
+        }
+        // A watcher may hand out the events of a directory that were reported while an earlier batch of the same directory was being handled after
+        // the events of the marker, so wait for a second marker to make sure that such a batch has been handled as well
+        for (int i = 0; i < 2; i++) {
+            if (!awaitSyncMarker()) {
+                LOGGER.info("File system events are not reported in time, checking retained directory trees against the file system before reusing them.");
+                synchronized (lock) {
+                    reliableWatch = false;
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean awaitSyncMarker() {
+        File marker;
+        long markerId;
+        synchronized (lock) {
+            if (syncDir == null) {
+                return false;
+            }
+            markerId = ++syncMarkersCreated;
+            marker = new File(syncDir, SYNC_MARKER_PREFIX + markerId);
+        }
+        try {
+            if (!marker.createNewFile()) {
+                return false;
+            }
+            synchronized (lock) {
+                long deadline = System.currentTimeMillis() + SYNC_TIMEOUT_MILLIS;
+                while (syncMarkersSeen < markerId) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 || watcher == null) {
+                        return false;
+                    }
+                    lock.wait(remaining);
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not create file system sync marker {}.", marker, e);
+            return false;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            GFileUtils.deleteQuietly(marker);
+        }
+    }
+
+    /**
+     * Returns the retained entries of the given tree, or null when the tree hasn't been retained or has changed.
+     *
+     * @param synced the result of {@link #sync()} for the current build. When false, the entries are checked against the file system before they are
+     * returned, as the events for changes made before the build started may not have been delivered yet.
+     */
+    public List<FileTreeElement> get(File dir, PatternSet patternSet, boolean synced) {
+        TreeKey key = new TreeKey(dir.getAbsolutePath(), patternSet);
+        RetainedTree tree;
+        synchronized (lock) {
+            tree = trees.get(key);
+        }
+        if (tree == null) {
+            return null;
+        }
+        if (synced || FileChecks.isUpToDate(tree, dir, fileChecks)) {
+            return tree.entries;
+        }
+        LOGGER.debug("Discarding retained tree {} as it has changed.", dir);
+        synchronized (lock) {
+            if (trees.get(key) == tree) {
+                trees.remove(key);
+                discarded(key.path);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts watching the given directory for changes. Must be called before the tree is walked.
+     *
+     * @return the walk to pass to {@link #retain(Walk, List)} once the tree has been walked.
+     */
+    public Walk startWalk(File dir, PatternSet patternSet) {
+        String path = dir.getAbsolutePath();
+        // Capture the timestamp of the root before it is walked, so that a change made while it is walked is detected when the tree is next reused
+        Walk walk = new Walk(new TreeKey(path, patternSet), FileChecks.lastModified(dir));
+        synchronized (lock) {
+            trees.remove(walk.key);
+            if (!watchedDirectoryCounts.containsKey(path) && getWatchedDirectoryCount() >= maxWatchedDirectories) {
+                LOGGER.debug("Not retaining {} as {} directories are watched already.", dir, maxWatchedDirectories);
+                return walk;
+            }
+            try {
+                watch(dir);
+            } catch (Exception e) {
+                LOGGER.info("Could not watch {} for changes, not retaining its contents.", dir, e);
+                return walk;
+            }
+            walksInProgress.add(walk);
+            walk.valid = true;
+        }
+        return walk;
+    }
+
+    /**
+     * Retains the given entries of a walked tree, unless the tree has changed since the walk was started.
+     */
+    public void retain(Walk walk, List<FileTreeElement> entries) {
+        synchronized (lock) {
+            walksInProgress.remove(walk);
+            if (walk.valid) {
+                trees.put(walk.key, new RetainedTree(entries, walk.rootLastModified));
+                watchedDirectoryCounts.put(walk.key.path, Math.max(countDirectories(entries), getWatchedDirectoryCount(walk.key.path)));
+            } else {
+                discarded(walk.key.path);
+            }
+        }
+    }
+
+    /**
+     * Discards the retained trees that contain or are contained by any of the given paths.
+     */
+    public void invalidate(Iterable<String> paths) {
+        synchronized (lock) {
+            for (String path : paths) {
+                invalidate(path);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of retained files checked against the file system, as a measure of the file system access saved by watching.
+     */
+    long getFileChecks() {
+        return fileChecks.get();
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            trees.clear();
+            watchedDirs.clear();
+            for (Walk walk : walksInProgress) {
+                walk.valid = false;
+                watchedDirs.add(walk.key.path);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        FileWatcher watcher;
+        synchronized (lock) {
+            watcher = this.watcher;
+            this.watcher = null;
+            resetWatch();
+            lock.notifyAll();
+        }
+        if (watcher != null) {
+            watcher.stop();
+        }
+    }
+
+    private void resetWatch() {
+        watchedDirs.clear();
+        watchedDirectoryCounts.clear();
+        invalidateAll();
+        if (syncDir != null) {
+            GFileUtils.deleteQuietly(syncDir);
+            syncDir = null;
+        }
+    }
+
+    private void watch(File dir) throws Exception {
+        if (watcher == null) {
+            watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                @Override
+                public void execute(Throwable throwable) {
+                    onWatchFailure(throwable);
+                }
+            }, new FileWatcherListener() {
+                @Override
+                public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                    onFileChange(event);
+                }
+            });
+            reliableWatch = !OperatingSystem.current().isMacOsX();
+            watchSyncDir();
+        }
+        String path = dir.getAbsolutePath();
+        if (watchedDirs.add(path)) {
+            watcher.watch(FileSystemSubset.builder().add(dir).build());
+        }
+    }
+
+    private void watchSyncDir() {
+        // The JDK watch service only polls for changes on OS X, so don't wait for its events
+        if (!reliableWatch) {
+            return;
+        }
+        try {
+            File dir = File.createTempFile("gradle-retained-trees", "");
+            GFileUtils.forceDelete(dir);
+            GFileUtils.mkdirs(dir);
+            watcher.watch(FileSystemSubset.builder().add(dir).build());
+            syncDir = dir;
+        } catch (Exception e) {
+            LOGGER.debug("Could not watch a directory to sync with the file system events, checking retained directory trees against the file system instead.", e);
+            reliableWatch = false;
+        }
+    }
+
+    private void onFileChange(FileWatcherEvent event) {
+        if (event.getType() == FileWatcherEvent.Type.UNDEFINED || event.getFile() == null) {
+            LOGGER.debug("Discarding retained directory trees due to an undefined file system event.");
+            invalidateAll();
+            return;
+        }
+        File file = event.getFile();
+        String path = file.getAbsolutePath();
+        synchronized (lock) {
+            if (syncDir != null && syncDir.equals(file.getParentFile())) {
+                onSyncMarker(event);
+                return;
+            }
+            invalidate(path);
+            if (event.getType() == FileWatcherEvent.Type.DELETE) {
+                // Watching stops when a watched directory is deleted, so watch it again when it is next walked
+                Iterator<String> dirs = watchedDirs.iterator();
+                while (dirs.hasNext()) {
+                    if (isSameOrAncestor(path, dirs.next())) {
+                        dirs.remove();
+                    }
+                }
+                Iterator<String> counted = watchedDirectoryCounts.keySet().iterator();
+                while (counted.hasNext()) {
+                    if (isSameOrAncestor(path, counted.next())) {
+                        counted.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private void onSyncMarker(FileWatcherEvent event) {
+        String name = event.getFile().getName();
+        if (event.getType() != FileWatcherEvent.Type.CREATE || !name.startsWith(SYNC_MARKER_PREFIX)) {
+            return;
+        }
+        long markerId = Long.parseLong(name.substring(SYNC_MARKER_PREFIX.length()));
+        // Markers are created in order, so seeing a marker means that the events of the earlier ones have been handled as well
+        if (markerId > syncMarkersSeen) {
+            syncMarkersSeen = markerId;
+            lock.notifyAll();
+        }
+    }
+
+    private void onWatchFailure(Throwable failure) {
+        LOGGER.info("Stopped watching directory trees for changes, discarding the retained trees.", failure);
+        synchronized (lock) {
+            // Start over with a new watcher the next time a tree is walked
+            watcher = null;
+            resetWatch();
+            lock.notifyAll();
+        }
+    }
+
+    private int getWatchedDirectoryCount() {
+        int count = 0;
+        for (Integer directories : watchedDirectoryCounts.values()) {
+            count += directories;
+        }
+        return count;
+    }
+
+    private int getWatchedDirectoryCount(String path) {
+        Integer count = watchedDirectoryCounts.get(path);
+        return count == null ? 0 : count;
+    }
+
+    private static int countDirectories(List<FileTreeElement> entries) {
+        int count = 1;
+        for (FileTreeElement entry : entries) {
+            if (entry.isDirectory()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void invalidate(String path) {
+        Set<String> discardedPaths = new HashSet<String>();
+        Iterator<TreeKey> keys = trees.keySet().iterator();
+        while (keys.hasNext()) {
+            TreeKey key = keys.next();
+            if (overlaps(key.path, path)) {
+                keys.remove();
+                discardedPaths.add(key.path);
+            }
+        }
+        for (Walk walk : walksInProgress) {
+            if (overlaps(walk.key.path, path)) {
+                walk.valid = false;
+            }
+        }
+        for (String discardedPath : discardedPaths) {
+            discarded(discardedPath);
+        }
+    }
+
+    /**
+     * Forgets that the given directory is watched once no retained tree or walk in progress needs it, so that the set of watched directories does not
+     * keep growing. The watcher can't stop watching a directory, so it simply watches the directory again the next time the directory is walked.
+     */
+    private void discarded(String path) {
+        for (TreeKey key : trees.keySet()) {
+            if (key.path.equals(path)) {
+                return;
+            }
+        }
+        for (Walk walk : walksInProgress) {
+            if (walk.key.path.equals(path)) {
+                return;
+            }
+        }
+        watchedDirs.remove(path);
+    }
+
+    private static boolean overlaps(String dir, String path) {
+        return isSameOrAncestor(dir, path) || isSameOrAncestor(path, dir);
+    }
+
+    private static boolean isSameOrAncestor(String ancestor, String path) {
+        return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == File.separatorChar);
+    }
+
+    public static class Walk {
+        private final TreeKey key;
+        private final long rootLastModified;
+        private boolean valid;
+
+        private Walk(TreeKey key, long rootLastModified) {
+            this.key = key;
+            this.rootLastModified = rootLastModified;
+        }
+    }
+
+    private static class RetainedTree {
+        private final List<FileTreeElement> entries;
+        private final long rootLastModified;
+
+        RetainedTree(List<FileTreeElement> entries, long rootLastModified) {
+            this.entries = entries;
+            this.rootLastModified = rootLastModified;
+        }
+    }
+
+    /**
+     * Checks retained trees against the file system, reading the attributes of each file once as the walker does. Kept apart, as it needs Java 7.
+     */
+    private static class FileChecks {
+        static long lastModified(File file) {
+            try {
+                return Files.readAttributes(file.toPath(), BasicFileAttributes.class).lastModifiedTime().toMillis();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        /**
+         * Checks that no entry has been added, removed or changed since the tree was walked. Adding or removing an entry changes the timestamp of its
+         * parent directory.
+         */
+        static boolean isUpToDate(RetainedTree tree, File dir, AtomicLong fileChecks) {
+            if (lastModified(dir) != tree.rootLastModified) {
+                return false;
+            }
+            for (FileTreeElement entry : tree.entries) {
+                fileChecks.incrementAndGet();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry.getFile().toPath(), BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // Most likely the file has been deleted
+                    return false;
+                }
+                if (attributes.lastModifiedTime().toMillis() != entry.getLastModified()) {
+                    return false;
+                }
+                if (!entry.isDirectory() && attributes.size() != entry.getSize()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class TreeKey {
+        private final String path;
+        private final Set<String> includes;
+        private final Set<String> excludes;
+        private final boolean caseSensitive;
+
+        TreeKey(String path, PatternSet patternSet) {
+            this.path = path;
+            // Copy the patterns, as the pattern set is mutable and belongs to the build that walked the tree
+            this.includes = patternSet == null ? ImmutableSet.<String>of() : ImmutableSet.copyOf(patternSet.getIncludes());
+            this.excludes = patternSet == null ? ImmutableSet.<String>of() : ImmutableSet.copyOf(patternSet.getExcludes());
+            this.caseSensitive = patternSet == null || patternSet.isCaseSensitive();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TreeKey other = (TreeKey) o;
+            return caseSensitive == other.caseSensitive && path.equals(other.path) && includes.equals(other.includes) && excludes.equals(other.excludes);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + includes.hashCode();
+            result = 31 * result + excludes.hashCode();
+            return result;
+        }
+    }
+}
@@ -16,16 +16,15 @@
 
 package org.gradle.api.internal.changedetection.state;
 
-import com.google.common.collect.ImmutableList;
 import org.gradle.api.Action;
 
 import java.util.Collection;
 
 class StoredTreeSnapshot implements TreeSnapshot {
-    private final ImmutableList<FileSnapshotWithKey> fileSnapshotWithKeyList;
+    private final Collection<FileSnapshotWithKey> fileSnapshotWithKeyList;
     private final long assignedId;
 
-    public StoredTreeSnapshot(ImmutableList<FileSnapshotWithKey> fileSnapshotWithKeyList, long assignedId) {
+    public StoredTreeSnapshot(Collection<FileSnapshotWithKey> fileSnapshotWithKeyList, long assignedId) {
         this.fileSnapshotWithKeyList = fileSnapshotWithKeyList;
         this.assignedId = assignedId;
     }
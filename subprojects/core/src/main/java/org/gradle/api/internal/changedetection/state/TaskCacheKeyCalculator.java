@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Calculates the key under which the outputs of a task execution can be stored in and loaded from a task output cache.
+ *
+ * <p>The key is derived from the task type, the class loaders of the task and its actions, the input properties and the contents of the input files.</p>
+ */
+public class TaskCacheKeyCalculator {
+    private static final int CACHE_KEY_VERSION = 1;
+
+    /**
+     * Returns the cache key for the given execution, or null when the execution cannot be cached.
+     */
+    @Nullable
+    public static HashCode calculate(TaskExecution execution, Map<String, FileCollectionSnapshot> inputFilesSnapshot) {
+        if (execution.getTaskClassLoaderHash() == null || execution.getTaskActionsClassLoaderHash() == null) {
+            // Task or action implementation loaded from an unknown class path
+            return null;
+        }
+
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putInt(CACHE_KEY_VERSION);
+        hasher.putString(execution.getTaskClass(), Charsets.UTF_8);
+        hasher.putBytes(execution.getTaskClassLoaderHash().asBytes());
+        hasher.putBytes(execution.getTaskActionsClassLoaderHash().asBytes());
+
+        SortedMap<String, Object> inputProperties = new TreeMap<String, Object>(execution.getInputProperties());
+        InputPropertiesSerializer serializer = new InputPropertiesSerializer(TaskCacheKeyCalculator.class.getClassLoader());
+        OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(Funnels.asOutputStream(hasher));
+        try {
+            serializer.write(encoder, inputProperties);
+            encoder.flush();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+
+        SortedMap<String, FileCollectionSnapshot> sortedInputFiles = new TreeMap<String, FileCollectionSnapshot>(inputFilesSnapshot);
+        for (Map.Entry<String, FileCollectionSnapshot> entry : sortedInputFiles.entrySet()) {
+            hasher.putString(entry.getKey(), Charsets.UTF_8);
+            entry.getValue().appendToHasher(hasher);
+        }
+        return hasher.hash();
+    }
+}
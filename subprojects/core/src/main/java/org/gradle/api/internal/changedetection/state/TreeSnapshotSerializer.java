@@ -16,7 +16,6 @@
 
 package org.gradle.api.internal.changedetection.state;
 
-import com.google.common.collect.ImmutableList;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -24,7 +23,6 @@ import org.gradle.internal.serialize.Encoder;
 import java.io.EOFException;
 
 class TreeSnapshotSerializer implements org.gradle.internal.serialize.Serializer<TreeSnapshot> {
-    private final IncrementalFileSnapshotSerializer incrementalFileSnapshotSerializer = new IncrementalFileSnapshotSerializer();
     private final StringInterner stringInterner;
 
     public TreeSnapshotSerializer(StringInterner stringInterner) {
@@ -34,31 +32,20 @@ class TreeSnapshotSerializer implements org.gradle.internal.serialize.Serializer
     @Override
     public TreeSnapshot read(Decoder decoder) throws EOFException, Exception {
         final long assignedId = decoder.readLong();
-        return readStoredTreeSnapshot(assignedId, decoder, incrementalFileSnapshotSerializer, stringInterner);
+        return readStoredTreeSnapshot(assignedId, decoder, stringInterner);
     }
 
     @Override
     public void write(Encoder encoder, TreeSnapshot value) throws Exception {
         encoder.writeLong(value.getAssignedId());
-        writeTreeSnapshot(value, encoder, incrementalFileSnapshotSerializer);
+        writeTreeSnapshot(value, encoder);
     }
 
-    static void writeTreeSnapshot(TreeSnapshot treeSnapshot, Encoder encoder, IncrementalFileSnapshotSerializer incrementalFileSnapshotSerializer) throws Exception {
-        encoder.writeSmallInt(treeSnapshot.getFileSnapshots().size());
-        for (FileSnapshotWithKey fileSnapshotWithKey : treeSnapshot.getFileSnapshots()) {
-            encoder.writeString(fileSnapshotWithKey.getKey());
-            incrementalFileSnapshotSerializer.write(encoder, fileSnapshotWithKey.getIncrementalFileSnapshot());
-        }
+    static void writeTreeSnapshot(TreeSnapshot treeSnapshot, Encoder encoder) throws Exception {
+        FileSnapshotTable.write(encoder, treeSnapshot.getFileSnapshots());
     }
 
-    static TreeSnapshot readStoredTreeSnapshot(long assignedId, Decoder decoder, IncrementalFileSnapshotSerializer incrementalFileSnapshotSerializer, StringInterner stringInterner) throws Exception {
-        final int entryCount = decoder.readSmallInt();
-        ImmutableList.Builder<FileSnapshotWithKey> fileSnapshotWithKeyListBuilder = ImmutableList.builder();
-        for (int i = 0; i < entryCount; i++) {
-            String key = stringInterner.intern(decoder.readString());
-            fileSnapshotWithKeyListBuilder.add(new FileSnapshotWithKey(key, incrementalFileSnapshotSerializer.read(decoder)));
-        }
-        final ImmutableList<FileSnapshotWithKey> fileSnapshotWithKeyList = fileSnapshotWithKeyListBuilder.build();
-        return new StoredTreeSnapshot(fileSnapshotWithKeyList, assignedId);
+    static TreeSnapshot readStoredTreeSnapshot(long assignedId, Decoder decoder, StringInterner stringInterner) throws Exception {
+        return new StoredTreeSnapshot(FileSnapshotTable.read(decoder, stringInterner), assignedId);
     }
 }
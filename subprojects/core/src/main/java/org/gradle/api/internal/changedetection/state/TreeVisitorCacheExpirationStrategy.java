@@ -152,10 +152,17 @@ class TreeVisitorCacheExpirationStrategy implements TaskExecutionGraphListener,
         if (tasksWithUnknownOutputs != null && tasksWithUnknownOutputs.contains(taskPath)) {
             LOG.info("Flushing directory cache because task {} has unknown outputs at configuration time.", taskPath);
             cachingTreeVisitor.clearCache();
-        } else if (lastTaskToHandleInputFile != null) {
-            Collection<String> filePaths = lastTaskToHandleInputFile.get(taskPath);
-            if (filePaths != null) {
-                cachingTreeVisitor.invalidateFilePaths(filePaths);
+            cachingTreeVisitor.invalidateRetainedTrees();
+        } else {
+            if (cachingTreeVisitor.isRetainingTrees()) {
+                // Don't wait for the file system events, the outputs may be snapshotted by the next task
+                cachingTreeVisitor.invalidateRetainedTrees(extractFilePaths(task.getOutputs().getFiles()));
+            }
+            if (lastTaskToHandleInputFile != null) {
+                Collection<String> filePaths = lastTaskToHandleInputFile.get(taskPath);
+                if (filePaths != null) {
+                    cachingTreeVisitor.invalidateFilePaths(filePaths);
+                }
             }
         }
     }
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.util.internal.Java9ClassReader;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.TypePath;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A {@link Hasher} for the entries of a Java compile classpath, which hashes only the ABI of class files and of the classes in jar files.
+ * The ABI of a class consists of its signature and the signatures, annotations and constant values of its non-private members, including the annotations
+ * of method parameters and type annotations, which annotation processors can see.
+ * Method bodies, private members, debug information and classes that cannot be referenced by name, such as anonymous classes, do not contribute to the hash.
+ *
+ * <p>The other entries of a jar file contribute their full contents, except for the manifest. Jar files that provide an annotation processor,
+ * and files that are neither jar nor class files, are hashed with the content hasher. The hashes are not comparable with those of the content hasher.
+ * A classpath that provides an annotation processor should be hashed by content as a whole, see {@link #providesAnnotationProcessor(File)}.</p>
+ */
+public class ClassAbiHasher implements Hasher {
+    public static final byte CACHE_SCHEMA_VERSION = 4;
+    public static final String ANNOTATION_PROCESSOR_SERVICE = "META-INF/services/javax.annotation.processing.Processor";
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final HashFunction HASH_FUNCTION = Hashing.md5();
+    private static final HashCode INACCESSIBLE_CLASS = HASH_FUNCTION.hashString("inaccessible class", Charsets.UTF_8);
+
+    private final Hasher contentHasher;
+
+    public ClassAbiHasher(Hasher contentHasher) {
+        this.contentHasher = contentHasher;
+    }
+
+    @Override
+    public HashValue hash(File file) {
+        String name = file.getName();
+        try {
+            if (name.endsWith(".class")) {
+                return toHashValue(hashClass(Files.toByteArray(file)));
+            }
+            if (name.endsWith(".jar")) {
+                HashCode hash = hashJar(file);
+                if (hash != null) {
+                    return toHashValue(hash);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create ABI hash for file %s.", file.getAbsolutePath()), e);
+        }
+        return contentHasher.hash(file);
+    }
+
+    /**
+     * Returns true when the given file is a jar that provides an annotation processor.
+     */
+    public static boolean providesAnnotationProcessor(File file) {
+        if (!file.getName().endsWith(".jar") || !file.isFile()) {
+            return false;
+        }
+        try {
+            ZipFile zipFile = new ZipFile(file);
+            try {
+                return zipFile.getEntry(ANNOTATION_PROCESSOR_SERVICE) != null;
+            } finally {
+                zipFile.close();
+            }
+        } catch (ZipException e) {
+            // Not a jar, so javac will not find a processor in it
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to read jar file %s.", file.getAbsolutePath()), e);
+        }
+    }
+
+    /**
+     * Returns the hash of the class entries and resources of the given jar, or null when the jar must be hashed by its content.
+     */
+    private static HashCode hashJar(File file) throws IOException {
+        SortedMap<String, HashCode> entries = new TreeMap<String, HashCode>();
+        ZipInputStream input = new ZipInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                String entryName = entry.getName();
+                if (entryName.equals(ANNOTATION_PROCESSOR_SERVICE)) {
+                    // Changes to the implementation of the processor can change the generated sources
+                    return null;
+                }
+                if (entry.isDirectory() || entryName.equals(MANIFEST)) {
+                    continue;
+                }
+                byte[] content = ByteStreams.toByteArray(input);
+                if (entryName.endsWith(".class")) {
+                    HashCode hash = hashClass(content);
+                    if (hash != INACCESSIBLE_CLASS) {
+                        entries.put(entryName, hash);
+                    }
+                } else {
+                    entries.put(entryName, HASH_FUNCTION.hashBytes(content));
+                }
+            }
+        } finally {
+            input.close();
+        }
+        if (entries.isEmpty()) {
+            // Not a jar, or a jar without any content that matters to the compiler
+            return null;
+        }
+        com.google.common.hash.Hasher hasher = HASH_FUNCTION.newHasher();
+        for (Map.Entry<String, HashCode> entry : entries.entrySet()) {
+            hasher.putString(entry.getKey(), Charsets.UTF_8);
+            hasher.putBytes(entry.getValue().asBytes());
+        }
+        return hasher.hash();
+    }
+
+    private static HashCode hashClass(byte[] content) {
+        AbiCollector collector = new AbiCollector();
+        try {
+            new Java9ClassReader(content).accept(collector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            // Not a class file ASM can read, so let the compiler deal with it
+            return HASH_FUNCTION.hashBytes(content);
+        }
+        if (!collector.accessible) {
+            return INACCESSIBLE_CLASS;
+        }
+        com.google.common.hash.Hasher hasher = HASH_FUNCTION.newHasher();
+        hasher.putString(collector.header, Charsets.UTF_8);
+        // Members are sorted, so that reordering the members of a class does not change its ABI
+        for (String member : collector.members) {
+            hasher.putString(member, Charsets.UTF_8);
+        }
+        return hasher.hash();
+    }
+
+    private static HashValue toHashValue(HashCode hash) {
+        return new HashValue(hash.asBytes());
+    }
+
+    private static boolean isPrivate(int access) {
+        return (access & Opcodes.ACC_PRIVATE) != 0;
+    }
+
+    private static boolean isSynthetic(int access) {
+        return (access & Opcodes.ACC_SYNTHETIC) != 0;
+    }
+
+    private static String[] sorted(String[] names) {
+        if (names == null) {
+            return new String[0];
+        }
+        String[] sorted = names.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static class AbiCollector extends ClassVisitor {
+        private final SortedSet<String> members = new TreeSet<String>();
+        private String className;
+        private String header;
+        private boolean accessible = true;
+
+        AbiCollector() {
+            super(Opcodes.ASM5);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name;
+            header = "class " + access + " " + name + " " + signature + " " + superName + " " + Arrays.toString(sorted(interfaces));
+            if (isSynthetic(access)) {
+                accessible = false;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            return new AnnotationCollector("annotation " + desc, members);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+            return new AnnotationCollector(typeAnnotation("", typeRef, typePath, desc), members);
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (!name.equals(className)) {
+                // Nested classes contribute their ABI through their own class files
+                return;
+            }
+            if (outerName == null || innerName == null || isPrivate(access)) {
+                // A local, anonymous or private class, which cannot be referenced from other classes
+                accessible = false;
+            } else {
+                members.add("inner " + access + " " + outerName + " " + innerName);
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            if (isPrivate(access) || isSynthetic(access)) {
+                return null;
+            }
+            // The values of constants are inlined by the compiler
+            final String field = "field " + access + " " + name + " " + desc + " " + signature + " " + value;
+            members.add(field);
+            return new FieldVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return new AnnotationCollector(field + " annotation " + desc, members);
+                }
+
+                @Override
+                public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+                    return new AnnotationCollector(typeAnnotation(field, typeRef, typePath, desc), members);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if (isPrivate(access) || isSynthetic(access) || name.equals("<clinit>")) {
+                return null;
+            }
+            final String method = "method " + access + " " + name + " " + desc + " " + signature + " " + Arrays.toString(sorted(exceptions));
+            members.add(method);
+            return new MethodVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return new AnnotationCollector(method + " default", members);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return new AnnotationCollector(method + " annotation " + desc, members);
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                    return new AnnotationCollector(method + " parameter " + parameter + " annotation " + desc, members);
+                }
+
+                @Override
+                public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+                    // Only the type annotations of the signature are visited, as the code is skipped
+                    return new AnnotationCollector(typeAnnotation(method, typeRef, typePath, desc), members);
+                }
+            };
+        }
+    }
+
+    private static String typeAnnotation(String member, int typeRef, TypePath typePath, String desc) {
+        return member + " type annotation " + typeRef + " " + typePath + " " + desc;
+    }
+
+    private static class AnnotationCollector extends AnnotationVisitor {
+        private final String key;
+        private final SortedSet<String> members;
+        private final StringBuilder values = new StringBuilder();
+
+        AnnotationCollector(String key, SortedSet<String> members) {
+            super(Opcodes.ASM5);
+            this.key = key;
+            this.members = members;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            values.append(name).append('=').append(Arrays.deepToString(new Object[]{value})).append(';');
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            values.append(name).append('=').append(desc).append('.').append(value).append(';');
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            return new AnnotationCollector(key + " " + name + "=@" + desc, members);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return new AnnotationCollector(key + " " + name + "=[]", members);
+        }
+
+        @Override
+        public void visitEnd() {
+            members.add(key + " (" + values + ")");
+        }
+    }
+}
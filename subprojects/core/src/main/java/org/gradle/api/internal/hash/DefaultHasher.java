@@ -21,6 +21,8 @@ import org.gradle.internal.hash.HashValue;
 import java.io.File;
 
 public class DefaultHasher implements Hasher {
+    public static final byte CACHE_SCHEMA_VERSION = 1;
+
     public HashValue hash(File file) {
         return HashUtil.createHash(file, "MD5");
     }
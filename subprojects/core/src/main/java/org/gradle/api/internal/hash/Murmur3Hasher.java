@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.HashValue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link Hasher} that uses the 128-bit Murmur3 hash function, which is considerably cheaper to calculate than MD5.
+ *
+ * <p>The hashes are not suitable for any security related purpose, and are not comparable with the hashes of {@link DefaultHasher}.
+ * Each thread reads files into its own reusable buffer, so this hasher can be used concurrently.</p>
+ */
+public class Murmur3Hasher implements Hasher {
+    public static final String ENABLE_PROPERTY = "org.gradle.hashing.murmur3";
+    public static final byte CACHE_SCHEMA_VERSION = 2;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    @Override
+    public HashValue hash(File file) {
+        try {
+            FileInputStream input = new FileInputStream(file);
+            try {
+                return hash(input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create Murmur3 hash for file %s.", file.getAbsolutePath()), e);
+        }
+    }
+
+    private HashValue hash(InputStream input) throws IOException {
+        byte[] buffer = buffers.get();
+        com.google.common.hash.Hasher hasher = HASH_FUNCTION.newHasher();
+        while (true) {
+            int read = input.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            hasher.putBytes(buffer, 0, read);
+        }
+        return new HashValue(hasher.hash().asBytes());
+    }
+}
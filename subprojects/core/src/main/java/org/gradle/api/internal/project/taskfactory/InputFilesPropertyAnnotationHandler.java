@@ -16,6 +16,7 @@
 package org.gradle.api.internal.project.taskfactory;
 
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.tasks.CompileClasspath;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.SkipWhenEmpty;
 
@@ -29,9 +30,10 @@ public class InputFilesPropertyAnnotationHandler implements PropertyAnnotationHa
 
     public boolean attachActions(final TaskPropertyActionContext context) {
         final boolean skipWhenEmpty = context.isAnnotationPresent(SkipWhenEmpty.class);
+        final boolean compileClasspath = context.isAnnotationPresent(CompileClasspath.class);
         context.setConfigureAction(new UpdateAction() {
             public void update(TaskInternal task, Callable<Object> futureValue) {
-                task.getInputs().files(futureValue).withPropertyName(context.getName()).skipWhenEmpty(skipWhenEmpty);
+                task.getInputs().files(futureValue).withPropertyName(context.getName()).skipWhenEmpty(skipWhenEmpty).compileClasspath(compileClasspath);
             }
         });
         return true;
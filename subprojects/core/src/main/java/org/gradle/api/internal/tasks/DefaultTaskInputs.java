@@ -29,7 +29,9 @@ import org.gradle.util.DeprecationLogger;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 
 import static org.gradle.util.GUtil.uncheckedCall;
@@ -43,6 +45,7 @@ public class DefaultTaskInputs extends FilePropertyContainer implements TaskInpu
     private final Map<String, Object> properties = new HashMap<String, Object>();
     private final List<PropertySpec> fileProperties = Lists.newArrayList();
     private SortedMap<String, FileCollection> filePropertiesMap;
+    private boolean discoversInputs;
 
     public DefaultTaskInputs(FileResolver resolver, String taskName, TaskMutator taskMutator) {
         super("input");
@@ -72,6 +75,28 @@ public class DefaultTaskInputs extends FilePropertyContainer implements TaskInpu
         return filePropertiesMap;
     }
 
+    @Override
+    public Set<String> getCompileClasspathPropertyNames() {
+        ensurePropertiesHaveNames(fileProperties);
+        Set<String> propertyNames = new TreeSet<String>();
+        for (PropertySpec propertySpec : fileProperties) {
+            if (propertySpec.isCompileClasspath()) {
+                propertyNames.add(propertySpec.getPropertyName());
+            }
+        }
+        return propertyNames;
+    }
+
+    @Override
+    public void discoversInputs() {
+        discoversInputs = true;
+    }
+
+    @Override
+    public boolean getDiscoversInputs() {
+        return discoversInputs;
+    }
+
     @Override
     public TaskInputFilePropertyBuilder files(final Object... paths) {
         return taskMutator.mutate("TaskInputs.files(Object...)", new Callable<TaskInputFilePropertyBuilder>() {
@@ -213,6 +238,7 @@ public class DefaultTaskInputs extends FilePropertyContainer implements TaskInpu
         private final TaskPropertyFileCollection files;
         private boolean skipWhenEmpty;
         private boolean optional;
+        private boolean compileClasspath;
 
         public PropertySpec(String taskName, boolean skipWhenEmpty, FileResolver resolver, Object paths) {
             this.files = new TaskPropertyFileCollection(taskName, "input", this, resolver, paths);
@@ -260,6 +286,21 @@ public class DefaultTaskInputs extends FilePropertyContainer implements TaskInpu
             return optional(true);
         }
 
+        public boolean isCompileClasspath() {
+            return compileClasspath;
+        }
+
+        @Override
+        public TaskInputFilePropertyBuilder compileClasspath(boolean compileClasspath) {
+            this.compileClasspath = compileClasspath;
+            return this;
+        }
+
+        @Override
+        public TaskInputFilePropertyBuilder compileClasspath() {
+            return compileClasspath(true);
+        }
+
         // --- Deprecated delegate methods
 
         private TaskInputs getTaskInputs(String method) {
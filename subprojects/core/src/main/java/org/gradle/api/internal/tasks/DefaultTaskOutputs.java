@@ -51,11 +51,13 @@ public class DefaultTaskOutputs extends FilePropertyContainer implements TaskOut
 
     private final FileCollection allOutputFiles;
     private AndSpec<TaskInternal> upToDateSpec = EMPTY_AND_SPEC;
+    private AndSpec<TaskInternal> cacheIfSpec;
     private TaskExecutionHistory history;
     private final List<BasePropertySpec> fileProperties = Lists.newArrayList();
     private final FileResolver resolver;
     private final String taskName;
     private final TaskMutator taskMutator;
+    private final TaskInternal task;
     private SortedMap<String, FileCollection> filePropertiesMap;
 
     public DefaultTaskOutputs(FileResolver resolver, final TaskInternal task, TaskMutator taskMutator) {
@@ -63,6 +65,7 @@ public class DefaultTaskOutputs extends FilePropertyContainer implements TaskOut
         this.resolver = resolver;
         this.taskName = task.getName();
         this.taskMutator = taskMutator;
+        this.task = task;
 
         final DefaultTaskDependency buildDependencies = new DefaultTaskDependency();
         buildDependencies.add(task);
@@ -110,6 +113,20 @@ public class DefaultTaskOutputs extends FilePropertyContainer implements TaskOut
         });
     }
 
+    @Override
+    public void cacheIf(final Spec<? super Task> spec) {
+        taskMutator.mutate("TaskOutputs.cacheIf(Spec)", new Runnable() {
+            public void run() {
+                cacheIfSpec = cacheIfSpec == null ? new AndSpec<TaskInternal>(spec) : cacheIfSpec.and(spec);
+            }
+        });
+    }
+
+    @Override
+    public boolean isCacheEnabled() {
+        return cacheIfSpec != null && cacheIfSpec.isSatisfiedBy(task);
+    }
+
     @Override
     public boolean getHasOutput() {
         return !fileProperties.isEmpty() || !upToDateSpec.isEmpty();
@@ -271,6 +288,11 @@ public class DefaultTaskOutputs extends FilePropertyContainer implements TaskOut
             getTaskOutputs("upToDateWhen(Spec)").upToDateWhen(upToDateSpec);
         }
 
+        @Override
+        public void cacheIf(Spec<? super Task> spec) {
+            getTaskOutputs("cacheIf(Spec)").cacheIf(spec);
+        }
+
         @Override
         public boolean getHasOutput() {
             return getTaskOutputs("getHasOutput()").getHasOutput();
@@ -83,6 +83,13 @@ public class TaskStateInternal implements TaskState {
         upToDate = true;
     }
 
+    /**
+     * Marks this task as skipped because its outputs were loaded from the task output cache.
+     */
+    public void cached() {
+        skipped("FROM-CACHE");
+    }
+
     public boolean getExecuting() {
         return executing;
     }
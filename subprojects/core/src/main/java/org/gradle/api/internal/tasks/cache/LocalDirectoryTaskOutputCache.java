@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.hash.HashCode;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A {@link TaskOutputCache} that stores each entry as a file in a local directory.
+ *
+ * <p>The total size of the entries is bounded. When a new entry takes the directory over the limit, the least recently used entries are removed.
+ * The modification time of an entry file is used to track when it was last used, so that the directory can be shared between processes.</p>
+ */
+public class LocalDirectoryTaskOutputCache implements TaskOutputCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalDirectoryTaskOutputCache.class);
+    private static final String TEMP_FILE_SUFFIX = ".part";
+    private static final FileFilter ENTRY_FILTER = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            return file.isFile() && !file.getName().endsWith(TEMP_FILE_SUFFIX);
+        }
+    };
+    private static final Comparator<File> LEAST_RECENTLY_USED_FIRST = new Comparator<File>() {
+        @Override
+        public int compare(File o1, File o2) {
+            long diff = o1.lastModified() - o2.lastModified();
+            return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+        }
+    };
+
+    private final File directory;
+    private final long maxSizeInBytes;
+    private final Object evictionLock = new Object();
+
+    public LocalDirectoryTaskOutputCache(File directory, long maxSizeInBytes) {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    @Override
+    public boolean load(HashCode key, TaskOutputReader reader) throws IOException {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return false;
+        }
+        // Mark the entry as recently used
+        file.setLastModified(System.currentTimeMillis());
+        InputStream input = new BufferedInputStream(new FileInputStream(file));
+        try {
+            reader.readFrom(input);
+        } finally {
+            input.close();
+        }
+        return true;
+    }
+
+    @Override
+    public void store(HashCode key, TaskOutputWriter writer) throws IOException {
+        GFileUtils.mkdirs(directory);
+        File tempFile = File.createTempFile(key.toString(), TEMP_FILE_SUFFIX, directory);
+        try {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                writer.writeTo(output);
+            } finally {
+                output.close();
+            }
+            File file = getFile(key);
+            // Another process may have stored the same entry in the meantime, which is fine
+            if (!tempFile.renameTo(file) && !file.isFile()) {
+                throw new IOException(String.format("Could not move cache entry '%s' to '%s'.", tempFile, file));
+            }
+        } finally {
+            GFileUtils.deleteQuietly(tempFile);
+        }
+        evictLeastRecentlyUsed();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        synchronized (evictionLock) {
+            File[] entries = directory.listFiles(ENTRY_FILTER);
+            if (entries == null) {
+                return;
+            }
+            long totalSize = 0;
+            for (File entry : entries) {
+                totalSize += entry.length();
+            }
+            if (totalSize <= maxSizeInBytes) {
+                return;
+            }
+            Arrays.sort(entries, LEAST_RECENTLY_USED_FIRST);
+            for (File entry : entries) {
+                if (totalSize <= maxSizeInBytes) {
+                    break;
+                }
+                long length = entry.length();
+                if (entry.delete()) {
+                    LOGGER.debug("Removed entry {} from {}.", entry.getName(), getDescription());
+                    totalSize -= length;
+                }
+            }
+        }
+    }
+
+    private File getFile(HashCode key) {
+        return new File(directory, key.toString());
+    }
+
+    @Override
+    public String getDescription() {
+        return "local task output cache in " + directory;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.hash.HashCode;
+
+import java.io.IOException;
+
+/**
+ * A store for the packed outputs of task executions, keyed by the cache key of the execution.
+ */
+public interface TaskOutputCache {
+    /**
+     * Loads the outputs stored for the given key, if any.
+     *
+     * @return true if an entry was found and passed to the reader, false otherwise.
+     */
+    boolean load(HashCode key, TaskOutputReader reader) throws IOException;
+
+    /**
+     * Stores the outputs for the given key, replacing any existing entry.
+     */
+    void store(HashCode key, TaskOutputWriter writer) throws IOException;
+
+    String getDescription();
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.SortedMap;
+
+/**
+ * Packs the outputs of a task into a single stream and restores them from it.
+ * Outputs are given as a map from output property name to the root file or directory of the property.
+ */
+public interface TaskOutputPacker {
+    void pack(SortedMap<String, File> outputRoots, OutputStream output) throws IOException;
+
+    /**
+     * Replaces the current contents of the given output roots with the packed outputs read from the given stream.
+     */
+    void unpack(SortedMap<String, File> outputRoots, InputStream input) throws IOException;
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs task outputs into a zip stream.
+ *
+ * <p>Each output property is stored under its name: a property with a single output file is stored as an entry named after the property,
+ * and a property with an output directory is stored as a directory entry named after the property followed by the contents of the directory.
+ * Output roots that do not exist are not stored, and are removed when unpacking.</p>
+ */
+public class ZipTaskOutputPacker implements TaskOutputPacker {
+    @Override
+    public void pack(SortedMap<String, File> outputRoots, OutputStream output) throws IOException {
+        ZipOutputStream zipOutput = new ZipOutputStream(output);
+        for (Map.Entry<String, File> entry : outputRoots.entrySet()) {
+            String propertyName = entry.getKey();
+            if (propertyName.indexOf('/') >= 0) {
+                throw new IllegalArgumentException(String.format("Cannot pack output property '%s' as its name contains '/'.", propertyName));
+            }
+            File root = entry.getValue();
+            if (root.isDirectory()) {
+                zipOutput.putNextEntry(new ZipEntry(propertyName + "/"));
+                zipOutput.closeEntry();
+                packDirectory(root, propertyName + "/", zipOutput);
+            } else if (root.isFile()) {
+                packFile(root, propertyName, zipOutput);
+            }
+        }
+        zipOutput.finish();
+    }
+
+    private static void packDirectory(File directory, String prefix, ZipOutputStream zipOutput) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new IOException(String.format("Could not list contents of directory '%s'.", directory));
+        }
+        // Keep the packed output stable between executions
+        Arrays.sort(children);
+        for (File child : children) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                zipOutput.putNextEntry(new ZipEntry(path + "/"));
+                zipOutput.closeEntry();
+                packDirectory(child, path + "/", zipOutput);
+            } else {
+                packFile(child, path, zipOutput);
+            }
+        }
+    }
+
+    private static void packFile(File file, String path, ZipOutputStream zipOutput) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(path);
+        zipEntry.setTime(file.lastModified());
+        zipOutput.putNextEntry(zipEntry);
+        Files.copy(file, zipOutput);
+        zipOutput.closeEntry();
+    }
+
+    @Override
+    public void unpack(SortedMap<String, File> outputRoots, InputStream input) throws IOException {
+        for (File root : outputRoots.values()) {
+            if (root.exists() && !GFileUtils.deleteQuietly(root)) {
+                throw new IOException(String.format("Could not remove existing output '%s'.", root));
+            }
+        }
+
+        ZipInputStream zipInput = new ZipInputStream(input);
+        ZipEntry zipEntry;
+        while ((zipEntry = zipInput.getNextEntry()) != null) {
+            String name = zipEntry.getName();
+            int separator = name.indexOf('/');
+            String propertyName = separator < 0 ? name : name.substring(0, separator);
+            File root = outputRoots.get(propertyName);
+            if (root == null) {
+                throw new IOException(String.format("Cached entry '%s' does not belong to any output property.", name));
+            }
+            File target = separator < 0 ? root : resolveChild(root, name.substring(separator + 1));
+            if (zipEntry.isDirectory()) {
+                GFileUtils.mkdirs(target);
+            } else {
+                GFileUtils.parentMkdirs(target);
+                OutputStream fileOutput = new FileOutputStream(target);
+                try {
+                    ByteStreams.copy(zipInput, fileOutput);
+                } finally {
+                    fileOutput.close();
+                }
+                if (zipEntry.getTime() != -1) {
+                    target.setLastModified(zipEntry.getTime());
+                }
+            }
+        }
+    }
+
+    private static File resolveChild(File root, String relativePath) throws IOException {
+        if (relativePath.length() == 0) {
+            return root;
+        }
+        File child = new File(root, relativePath);
+        if (!child.getCanonicalPath().startsWith(root.getCanonicalPath() + File.separator)) {
+            throw new IOException(String.format("Cached entry '%s' is outside of output directory '%s'.", relativePath, root));
+        }
+        return child;
+    }
+}
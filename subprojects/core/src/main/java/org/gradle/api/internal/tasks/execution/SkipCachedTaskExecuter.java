@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker;
+import org.gradle.api.internal.tasks.cache.TaskOutputReader;
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter;
+import org.gradle.util.Clock;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A {@link TaskExecuter} which loads the outputs of a task from a {@link TaskOutputCache} instead of executing the task, when the cache contains
+ * an entry for the inputs of the task. After the task has been executed, its outputs are stored in the cache.
+ */
+public class SkipCachedTaskExecuter implements TaskExecuter {
+    public static final String ENABLE_PROPERTY = "org.gradle.cache.tasks";
+    public static final String DIRECTORY_PROPERTY = "org.gradle.cache.tasks.directory";
+    public static final String MAX_SIZE_PROPERTY = "org.gradle.cache.tasks.maxsize";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkipCachedTaskExecuter.class);
+
+    private final TaskOutputCache cache;
+    private final TaskOutputPacker packer;
+    private final TaskExecuter executer;
+
+    public SkipCachedTaskExecuter(TaskOutputCache cache, TaskOutputPacker packer, TaskExecuter executer) {
+        this.cache = cache;
+        this.packer = packer;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        Clock clock = new Clock();
+        HashCode cacheKey = null;
+        SortedMap<String, File> outputRoots = null;
+        TaskOutputsInternal outputs = task.getOutputs();
+        if (outputs.isCacheEnabled()) {
+            outputRoots = getOutputRoots(task);
+            if (outputRoots != null) {
+                cacheKey = context.getTaskArtifactState().calculateCacheKey();
+            }
+            if (cacheKey != null) {
+                LOGGER.debug("Cache key for {} is {}", task, cacheKey);
+                if (load(task, cacheKey, outputRoots)) {
+                    LOGGER.info("Loaded outputs of {} from {} (took {}).", task, cache.getDescription(), clock.getTime());
+                    state.cached();
+                    return;
+                }
+            }
+        }
+
+        executer.execute(task, state, context);
+
+        if (cacheKey != null && state.getFailure() == null) {
+            if (context.getTaskArtifactState().hasDiscoveredInputs()) {
+                LOGGER.info("Not caching {} as it registered discovered inputs during execution.", task);
+            } else {
+                store(task, cacheKey, outputRoots);
+            }
+        }
+    }
+
+    private boolean load(TaskInternal task, HashCode cacheKey, final SortedMap<String, File> outputRoots) {
+        try {
+            return cache.load(cacheKey, new TaskOutputReader() {
+                @Override
+                public void readFrom(InputStream input) throws IOException {
+                    packer.unpack(outputRoots, input);
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Could not load cached outputs for %s from %s, executing the task instead.", task, cache.getDescription()), e);
+            // Do not leave partially restored outputs behind
+            for (File root : outputRoots.values()) {
+                GFileUtils.deleteQuietly(root);
+            }
+            return false;
+        }
+    }
+
+    private void store(TaskInternal task, HashCode cacheKey, final SortedMap<String, File> outputRoots) {
+        try {
+            cache.store(cacheKey, new TaskOutputWriter() {
+                @Override
+                public void writeTo(OutputStream output) throws IOException {
+                    packer.pack(outputRoots, output);
+                }
+            });
+            LOGGER.debug("Stored outputs of {} in {}.", task, cache.getDescription());
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Could not store outputs of %s in %s.", task, cache.getDescription()), e);
+        }
+    }
+
+    /**
+     * Returns the root file of each output property, or null when the outputs cannot be cached.
+     */
+    private static SortedMap<String, File> getOutputRoots(TaskInternal task) {
+        SortedMap<String, File> outputRoots = new TreeMap<String, File>();
+        for (Map.Entry<String, FileCollection> entry : task.getOutputs().getFileProperties().entrySet()) {
+            Set<File> files = entry.getValue().getFiles();
+            if (files.size() != 1) {
+                LOGGER.info("Not caching {} as output property '{}' does not declare exactly one file or directory.", task, entry.getKey());
+                return null;
+            }
+            outputRoots.put(entry.getKey(), files.iterator().next());
+        }
+        if (outputRoots.isEmpty()) {
+            LOGGER.info("Not caching {} as it does not declare any output files.", task);
+            return null;
+        }
+        return outputRoots;
+    }
+}
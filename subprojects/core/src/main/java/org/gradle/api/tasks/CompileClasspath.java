@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks;
+
+import org.gradle.api.Incubating;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>Attached to a task property to indicate that the property specifies a Java compile classpath. Only the ABI of the classes
+ * on the classpath, that is the signatures of their non-private members and the values of their constants, is considered
+ * when checking whether the task is up-to-date. Changes to method bodies or private members do not cause the task to run again.</p>
+ *
+ * <p>Jars that provide annotation processors are always compared by their full contents.</p>
+ *
+ * <p>This annotation can be used with the following annotations:</p>
+ *
+ * <ul><li>{@link org.gradle.api.tasks.InputFiles}</li></ul>
+ *
+ * @since 3.0
+ */
+@Incubating
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.FIELD})
+public @interface CompileClasspath {
+}
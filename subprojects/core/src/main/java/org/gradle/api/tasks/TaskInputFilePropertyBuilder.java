@@ -58,6 +58,24 @@ public interface TaskInputFilePropertyBuilder extends TaskPropertyBuilder, TaskI
      */
     TaskInputFilePropertyBuilder optional(boolean optional);
 
+    /**
+     * Marks the property as a Java compile classpath. Only the ABI of the classes on the classpath is considered when checking
+     * whether the task is up-to-date.
+     *
+     * @see CompileClasspath
+     * @since 3.0
+     */
+    TaskInputFilePropertyBuilder compileClasspath();
+
+    /**
+     * Sets whether the property is a Java compile classpath. Only the ABI of the classes on a compile classpath is considered
+     * when checking whether the task is up-to-date.
+     *
+     * @see CompileClasspath
+     * @since 3.0
+     */
+    TaskInputFilePropertyBuilder compileClasspath(boolean compileClasspath);
+
     /**
      * {@inheritDoc}
      *
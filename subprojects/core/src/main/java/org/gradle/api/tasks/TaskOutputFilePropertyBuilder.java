@@ -65,6 +65,15 @@ public interface TaskOutputFilePropertyBuilder extends TaskPropertyBuilder, Task
     @Override
     void upToDateWhen(Spec<? super Task> upToDateSpec);
 
+    /**
+     * {@inheritDoc}
+     *
+     * @deprecated Use {@link TaskOutputs#cacheIf(Spec)} instead.
+     */
+    @Deprecated
+    @Override
+    void cacheIf(Spec<? super Task> spec);
+
     /**
      * {@inheritDoc}
      *
@@ -17,6 +17,7 @@
 package org.gradle.api.tasks;
 
 import groovy.lang.Closure;
+import org.gradle.api.Incubating;
 import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.specs.Spec;
@@ -56,6 +57,20 @@ public interface TaskOutputs {
      */
     void upToDateWhen(Spec<? super Task> upToDateSpec);
 
+    /**
+     * <p>Cache the outputs of this task only if the given spec is satisfied. The spec is evaluated at task execution time,
+     * and only when task output caching is enabled for the build. The outputs are stored under a key calculated from the
+     * task type and its inputs, and are loaded from the cache instead of executing the task when the same inputs are
+     * seen again.</p>
+     *
+     * <p>You can add multiple such predicates. The task outputs are cached only when all predicates return true.</p>
+     *
+     * @param spec specifies if the outputs of the task should be cached.
+     * @since 3.0
+     */
+    @Incubating
+    void cacheIf(Spec<? super Task> spec);
+
     /**
      * Returns true if this task has declared any outputs. Note that a task may be able to produce output files and
      * still have an empty set of output files.
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheAccess;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Defers the updates made to a set of indexed caches, so that they can be written in batches by a background thread instead of by the thread
+ * that made the update.
+ *
+ * <p>Pending updates are visible to readers of the decorated caches immediately. The updates are applied in the order they were made, from within
+ * {@link CacheAccess#useCache(String, org.gradle.internal.Factory)}, so the backing caches see exactly the same sequence of writes under the same locking as
+ * when the updates are made synchronously. Updates to the same key that are superseded before they are written are skipped.</p>
+ *
+ * <p>Call {@link #flush()} to write all pending updates from the calling thread, for example before the cache lock is released for a long running
+ * operation. {@link #stop()} flushes and then stops the background thread. A failure to write an update is rethrown from the next flush.</p>
+ */
+@ThreadSafe
+public class WriteBehindCacheAccess implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(WriteBehindCacheAccess.class);
+    private static final int MAX_PENDING_UPDATES = 10000;
+
+    private final String displayName;
+    private final CacheAccess cacheAccess;
+    private final StoppableExecutor executor;
+    private final Object lock = new Object();
+    private final Runnable writePendingUpdates = new Runnable() {
+        public void run() {
+            writePendingUpdates();
+        }
+    };
+    private List<Runnable> pendingUpdates = new ArrayList<Runnable>();
+    private boolean flushScheduled;
+    private Throwable failure;
+
+    public WriteBehindCacheAccess(String displayName, CacheAccess cacheAccess, StoppableExecutor executor) {
+        this.displayName = displayName;
+        this.cacheAccess = cacheAccess;
+        this.executor = executor;
+    }
+
+    public <K, V> PersistentIndexedCache<K, V> decorate(PersistentIndexedCache<K, V> cache) {
+        return new WriteBehindIndexedCache<K, V>(cache);
+    }
+
+    /**
+     * Writes all pending updates to the backing caches, blocking until done.
+     */
+    public void flush() {
+        cacheAccess.useCache("Flush pending updates to " + displayName, writePendingUpdates);
+        rethrowFailure();
+    }
+
+    public void stop() {
+        try {
+            flush();
+        } finally {
+            executor.stop();
+        }
+    }
+
+    private void enqueue(Runnable update) {
+        boolean schedule;
+        boolean flushNow;
+        synchronized (lock) {
+            pendingUpdates.add(update);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+            flushNow = pendingUpdates.size() >= MAX_PENDING_UPDATES;
+        }
+        if (flushNow) {
+            // The background thread isn't keeping up, apply back pressure to the thread making the updates
+            flush();
+        } else if (schedule) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        cacheAccess.useCache("Write pending updates to " + displayName, writePendingUpdates);
+                    } catch (Throwable t) {
+                        recordFailure(t);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Called with the cache lock held, by either the background thread or a thread flushing the updates.
+     */
+    private void writePendingUpdates() {
+        while (true) {
+            List<Runnable> updates;
+            synchronized (lock) {
+                flushScheduled = false;
+                if (pendingUpdates.isEmpty()) {
+                    return;
+                }
+                updates = pendingUpdates;
+                pendingUpdates = new ArrayList<Runnable>();
+            }
+            LOGGER.debug("Writing {} pending updates to {}.", updates.size(), displayName);
+            for (Runnable update : updates) {
+                try {
+                    update.run();
+                } catch (Throwable t) {
+                    recordFailure(t);
+                }
+            }
+        }
+    }
+
+    private void recordFailure(Throwable t) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable failure;
+        synchronized (lock) {
+            failure = this.failure;
+            this.failure = null;
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
+    private class WriteBehindIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+        private final PersistentIndexedCache<K, V> delegate;
+        private final ConcurrentMap<K, PendingUpdate<V>> pending = new ConcurrentHashMap<K, PendingUpdate<V>>();
+
+        WriteBehindIndexedCache(PersistentIndexedCache<K, V> delegate) {
+            this.delegate = delegate;
+        }
+
+        public V get(K key) {
+            PendingUpdate<V> update = pending.get(key);
+            if (update != null) {
+                return update.value;
+            }
+            return delegate.get(key);
+        }
+
+        public void put(K key, V value) {
+            enqueue(key, new PendingUpdate<V>(value));
+        }
+
+        public void remove(K key) {
+            enqueue(key, new PendingUpdate<V>(null));
+        }
+
+        private void enqueue(final K key, final PendingUpdate<V> update) {
+            pending.put(key, update);
+            WriteBehindCacheAccess.this.enqueue(new Runnable() {
+                public void run() {
+                    if (pending.get(key) != update) {
+                        // Superseded by a later update to the same key
+                        return;
+                    }
+                    try {
+                        if (update.value == null) {
+                            delegate.remove(key);
+                        } else {
+                            delegate.put(key, update.value);
+                        }
+                    } finally {
+                        pending.remove(key, update);
+                    }
+                }
+            });
+        }
+    }
+
+    private static class PendingUpdate<V> {
+        final V value;
+
+        PendingUpdate(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -20,13 +20,19 @@ import org.apache.commons.collections.map.LRUMap;
 import java.util.*;
 
 public class CachingBlockStore implements BlockStore {
+    public static final int DEFAULT_MAX_CACHED_BLOCKS = 100;
     private final BlockStore store;
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
-    private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
+    private final Map<BlockPointer, BlockPayload> indexBlockCache;
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
 
     public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
+        this(store, DEFAULT_MAX_CACHED_BLOCKS, cacheableBlockTypes);
+    }
+
+    public CachingBlockStore(BlockStore store, int maxCachedBlocks, Class<? extends BlockPayload>... cacheableBlockTypes) {
         this.store = store;
+        this.indexBlockCache = new LRUMap(maxCachedBlocks);
         cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
     }
 
@@ -0,0 +1,537 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link BlockStore} that reads and writes blocks through memory mapped regions of the backing file, rather than
+ * through seek and read calls on a {@link RandomAccessFile}. Uses the same block format as {@link FileBackedBlockStore}.
+ *
+ * <p>The file is mapped in fixed size regions, which are mapped on first use and remapped when the file grows.
+ * The file is grown in chunks to avoid remapping the last region on every write, and is truncated back to the
+ * size of its content when the store is closed. While the file is larger than its content, the size of the content is kept in a footer
+ * at the end of the file, so that the padding is not taken for content when the store is reopened after it was not closed.</p>
+ *
+ * <p>A mapping that is replaced by a larger one is released the next time the write lock is taken, as no reader can use it by then.</p>
+ *
+ * <p>Blocks can be read concurrently by multiple threads. Writes and changes to the size of the file are exclusive.</p>
+ */
+public class MemoryMappedBlockStore implements BlockStore {
+    static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+    private static final int MIN_GROWTH = 1024 * 1024;
+    private static final long FOOTER_MARKER = 0x4d4d4253697a65L;
+    private static final int FOOTER_SIZE = 16;
+    private static final Logger LOGGER = Logging.getLogger(MemoryMappedBlockStore.class);
+
+    private final File cacheFile;
+    private final int regionSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+    private final List<MappedByteBuffer> replacedRegions = new ArrayList<MappedByteBuffer>();
+    private long nextBlock;
+    private long currentFileSize;
+    private long capacity;
+    private Factory factory;
+
+    public MemoryMappedBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MemoryMappedBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            capacity = file.length();
+            currentFileSize = readContentSize(capacity);
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the size of the content of a file of the given length, which is smaller than the length when the file still has a footer.
+     */
+    private long readContentSize(long length) throws IOException {
+        if (length < FOOTER_SIZE) {
+            return length;
+        }
+        file.seek(length - FOOTER_SIZE);
+        long marker = file.readLong();
+        long contentSize = file.readLong();
+        if (marker == FOOTER_MARKER && contentSize >= 0 && contentSize <= length - FOOTER_SIZE) {
+            return contentSize;
+        }
+        return length;
+    }
+
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            unmapAll();
+            if (capacity != currentFileSize) {
+                file.setLength(currentFileSize);
+            }
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            unmapAll();
+            file.setLength(0);
+            currentFileSize = 0;
+            capacity = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        lock.readLock().lock();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        lock.writeLock().lock();
+        try {
+            releaseReplacedRegions();
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Makes sure the file is at least the given size, and updates the footer when the size of the content changes. Must be called while holding the write lock.
+     */
+    private void ensureSize(long size) throws IOException {
+        boolean changed = false;
+        if (size + FOOTER_SIZE > capacity) {
+            long newCapacity = Math.max(size + FOOTER_SIZE, capacity + Math.max(MIN_GROWTH, capacity / 8));
+            file.setLength(newCapacity);
+            capacity = newCapacity;
+            changed = true;
+        }
+        if (size > currentFileSize) {
+            currentFileSize = size;
+            changed = true;
+        }
+        if (changed) {
+            writeFooter();
+        }
+    }
+
+    private void writeFooter() throws IOException {
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        footer.putLong(FOOTER_MARKER);
+        footer.putLong(currentFileSize);
+        footer.flip();
+        long pos = capacity - FOOTER_SIZE;
+        while (footer.hasRemaining()) {
+            ByteBuffer region = regionAt(pos);
+            int count = Math.min(footer.remaining(), region.remaining());
+            ByteBuffer chunk = footer.duplicate();
+            chunk.limit(chunk.position() + count);
+            region.put(chunk);
+            footer.position(footer.position() + count);
+            pos += count;
+        }
+    }
+
+    /**
+     * Returns a buffer for the region containing the given position, positioned at that position and limited to the end of the region.
+     * The returned buffer is private to the caller.
+     */
+    private ByteBuffer regionAt(long pos) throws IOException {
+        int index = (int) (pos / regionSize);
+        int offset = (int) (pos % regionSize);
+        MappedByteBuffer[] current = regions;
+        MappedByteBuffer region = index < current.length ? current[index] : null;
+        if (region == null || region.capacity() <= offset) {
+            region = map(index, offset);
+        }
+        ByteBuffer buffer = region.duplicate();
+        buffer.position(offset);
+        return buffer;
+    }
+
+    private synchronized MappedByteBuffer map(int index, int offset) throws IOException {
+        MappedByteBuffer[] current = regions;
+        if (index < current.length && current[index] != null && current[index].capacity() > offset) {
+            // Mapped by another thread
+            return current[index];
+        }
+        long start = (long) index * regionSize;
+        long size = Math.min(regionSize, capacity - start);
+        if (size <= offset) {
+            throw new EOFException();
+        }
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+        if (index < current.length && current[index] != null) {
+            // Do not release the previous mapping of the region here, as other threads may still be reading from it
+            replacedRegions.add(current[index]);
+        }
+        MappedByteBuffer[] updated = new MappedByteBuffer[Math.max(index + 1, current.length)];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[index] = region;
+        regions = updated;
+        return region;
+    }
+
+    /**
+     * Releases the mappings that were replaced by larger ones. Must be called while holding the write lock, so that no reader still uses them.
+     */
+    private synchronized void releaseReplacedRegions() {
+        for (MappedByteBuffer region : replacedRegions) {
+            unmap(region);
+        }
+        replacedRegions.clear();
+    }
+
+    private void unmapAll() {
+        releaseReplacedRegions();
+        for (MappedByteBuffer region : regions) {
+            unmap(region);
+        }
+        regions = new MappedByteBuffer[0];
+    }
+
+    /**
+     * Releases the mapping eagerly, so that the file can be resized or deleted on platforms that do not allow this for mapped files.
+     * Uses {@code sun.misc.Unsafe.invokeCleaner()} on Java 9 and later, and the cleaner of the buffer on earlier versions. When neither is accessible,
+     * the mapping is only released when the buffer is garbage collected, and the address space and file handle are held until then.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            Object unsafe = getUnsafe();
+            Method invokeCleaner = unsafe == null ? null : findMethod(unsafe.getClass(), "invokeCleaner", ByteBuffer.class);
+            if (invokeCleaner != null) {
+                invokeCleaner.invoke(unsafe, buffer);
+                return;
+            }
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not release memory mapping eagerly, it will be released when garbage collected.", e);
+        }
+    }
+
+    private static Object getUnsafe() {
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return field.get(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long pos;
+        private ByteBuffer buffer;
+
+        RegionInputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureBuffer()) {
+                return -1;
+            }
+            pos++;
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!ensureBuffer()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            pos += count;
+            return count;
+        }
+
+        private boolean ensureBuffer() throws IOException {
+            if (pos >= currentFileSize) {
+                return false;
+            }
+            if (buffer == null || !buffer.hasRemaining()) {
+                buffer = regionAt(pos);
+            }
+            return true;
+        }
+    }
+
+    private class RegionOutputStream extends OutputStream {
+        private long pos;
+        private ByteBuffer buffer;
+
+        RegionOutputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureBuffer(1);
+            buffer.put((byte) b);
+            pos++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensureBuffer(length);
+                int count = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, count);
+                pos += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        private void ensureBuffer(int length) throws IOException {
+            ensureSize(pos + length);
+            if (buffer == null || !buffer.hasRemaining()) {
+                buffer = regionAt(pos);
+            }
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 2 + INT_SIZE;
+        private static final int TAIL_SIZE = LONG_SIZE;
+        static final int BLOCK_MARKER = 0xCC;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+            BlockPayload payload = getPayload();
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+            ensureSize(finalSize);
+
+            CountingOutputStream countingOutputStream = new CountingOutputStream(new BufferedOutputStream(new RegionOutputStream(pos)));
+            DataOutputStream outputStream = new DataOutputStream(countingOutputStream);
+
+            // Write header
+            outputStream.writeByte(BLOCK_MARKER);
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            outputStream.writeLong(countingOutputStream.getCount());
+            outputStream.close();
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            CountingInputStream countingInputStream = new CountingInputStream(new BufferedInputStream(new RegionInputStream(pos)));
+            DataInputStream inputStream = new DataInputStream(countingInputStream);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != (byte) BLOCK_MARKER) {
+                throw blockCorruptedException();
+            }
+            type = inputStream.readByte();
+            if (type != (byte) payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = countingInputStream.getCount();
+            long count = inputStream.readLong();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+            inputStream.close();
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MemoryMappedBlockStore.this));
+        }
+    }
+}
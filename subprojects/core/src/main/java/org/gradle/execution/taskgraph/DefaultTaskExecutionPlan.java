@@ -33,6 +33,8 @@ import org.gradle.execution.MultipleBuildFailures;
 import org.gradle.execution.TaskFailureHandler;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.Pair;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.graph.CachingDirectedGraphWalker;
 import org.gradle.internal.graph.DirectedGraph;
@@ -57,11 +59,13 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     public static final String INTRA_PROJECT_TOGGLE = "org.gradle.parallel.intra";
+    public static final String PRIORITY_SCHEDULING_TOGGLE = "org.gradle.parallel.priority";
 
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
+    private final Condition completion = lock.newCondition();
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
@@ -78,16 +82,43 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
+    private final TimeProvider timeProvider;
+    private long executionStartTime;
 
     private final boolean intraProjectParallelization;
+    private final ReadyTaskQueue readyQueue;
+    private int waitingWorkers;
+    private final Spec<TaskInfo> canRunWithCurrentlyExecutedTasks = new Spec<TaskInfo>() {
+        @Override
+        public boolean isSatisfiedBy(TaskInfo taskInfo) {
+            return canRunWithWithCurrentlyExecutedTasks(taskInfo);
+        }
+    };
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, boolean prioritySchedulingEnabled, TimeProvider timeProvider) {
         this.cancellationToken = cancellationToken;
+        this.timeProvider = timeProvider;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.readyQueue = prioritySchedulingEnabled ? new ReadyTaskQueue() : null;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
+        if (prioritySchedulingEnabled) {
+            LOGGER.info("critical path task scheduling is enabled");
+        }
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, boolean prioritySchedulingEnabled) {
+        this(cancellationToken, intraProjectParallelization, prioritySchedulingEnabled, new TrueTimeProvider());
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, TimeProvider timeProvider) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), Boolean.getBoolean(PRIORITY_SCHEDULING_TOGGLE), timeProvider);
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, Boolean.getBoolean(PRIORITY_SCHEDULING_TOGGLE));
     }
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
@@ -307,6 +338,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         executionQueue.clear();
         executionQueue.addAll(executionPlan.values());
+        if (readyQueue != null) {
+            readyQueue.initialize(executionPlan.values());
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -434,6 +468,10 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            executionStartTime = 0;
+            if (readyQueue != null) {
+                readyQueue.clear();
+            }
         } finally {
             lock.unlock();
         }
@@ -443,6 +481,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         return new ArrayList<Task>(executionPlan.keySet());
     }
 
+    /**
+     * Returns the nodes of this plan, in execution order.
+     */
+    public List<TaskInfo> getTaskInfos() {
+        return new ArrayList<TaskInfo>(executionPlan.values());
+    }
+
     public void useFilter(Spec<? super Task> filter) {
         this.filter = filter;
     }
@@ -454,6 +499,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     public TaskInfo getTaskToExecute() {
         lock.lock();
         try {
+            if (executionStartTime == 0) {
+                executionStartTime = timeProvider.getCurrentTime();
+            }
             while (true) {
                 if (cancellationToken.isCancellationRequested()) {
                     if (abortExecution()) {
@@ -462,33 +510,49 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
                 TaskInfo nextMatching = null;
                 boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
-                while (iterator.hasNext()) {
-                    TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
-                        nextMatching = taskInfo;
-                        iterator.remove();
-                        break;
+                if (readyQueue != null) {
+                    nextMatching = readyQueue.poll(canRunWithCurrentlyExecutedTasks);
+                    // Every waiting task can run when no other task is running
+                    allTasksComplete = nextMatching == null && runningTasks.isEmpty() && readyQueue.isExhausted();
+                } else {
+                    Iterator<TaskInfo> iterator = executionQueue.iterator();
+                    while (iterator.hasNext()) {
+                        TaskInfo taskInfo = iterator.next();
+                        allTasksComplete = allTasksComplete && taskInfo.isComplete();
+                        if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
+                            nextMatching = taskInfo;
+                            iterator.remove();
+                            break;
+                        }
                     }
                 }
                 if (allTasksComplete) {
                     return null;
                 }
                 if (nextMatching == null) {
+                    waitingWorkers++;
                     try {
                         condition.await();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
+                    } finally {
+                        waitingWorkers--;
                     }
                 } else {
                     if (nextMatching.allDependenciesSuccessful()) {
-                        nextMatching.startExecution();
+                        if (nextMatching.getDependencySuccessors().isEmpty() && nextMatching.getMustSuccessors().isEmpty()) {
+                            nextMatching.markReady(executionStartTime);
+                        }
+                        nextMatching.startExecution(timeProvider.getCurrentTime());
                         recordTaskStarted(nextMatching);
                         return nextMatching;
                     } else {
                         nextMatching.skipExecution();
-                        condition.signalAll();
+                        markDependentsReady(nextMatching);
+                        if (readyQueue != null) {
+                            readyQueue.completed(nextMatching);
+                        }
+                        signalWaitingThreads();
                     }
                 }
             }
@@ -635,18 +699,56 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 handleFailure(taskInfo);
             }
 
-            taskInfo.finishExecution();
+            taskInfo.finishExecution(timeProvider.getCurrentTime());
             recordTaskCompleted(taskInfo);
-            condition.signalAll();
+            markDependentsReady(taskInfo);
+            if (readyQueue != null) {
+                readyQueue.completed(taskInfo);
+            }
+            signalWaitingThreads();
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Records the time at which the tasks that were only waiting for the given task became ready, whether or not they can be picked up straight away.
+     */
+    private void markDependentsReady(TaskInfo taskInfo) {
+        long now = 0;
+        for (TaskInfo dependent : Iterables.concat(taskInfo.getDependencyPredecessors(), taskInfo.getMustPredecessors())) {
+            if (dependent.isReady() && dependent.allDependenciesComplete()) {
+                if (now == 0) {
+                    now = timeProvider.getCurrentTime();
+                }
+                dependent.markReady(now);
+            }
+        }
+    }
+
+    private void signalWaitingThreads() {
+        if (readyQueue == null) {
+            condition.signalAll();
+            return;
+        }
+        if (runningTasks.isEmpty()) {
+            condition.signalAll();
+            completion.signalAll();
+            return;
+        }
+        // Only wake up as many workers as there are tasks that can run alongside the running ones, rather than have every worker contend for the lock
+        for (int i = readyQueue.countRunnable(canRunWithCurrentlyExecutedTasks, waitingWorkers); i > 0; i--) {
+            condition.signal();
+        }
+    }
+
     private void enforceFinalizerTasks(TaskInfo taskInfo) {
         for (TaskInfo finalizerNode : taskInfo.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
                 enforceWithDependencies(finalizerNode, Sets.<TaskInfo>newHashSet());
+                if (readyQueue != null) {
+                    readyQueue.invalidate();
+                }
             }
         }
     }
@@ -695,15 +797,20 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 aborted = true;
             }
         }
+        if (aborted && readyQueue != null) {
+            readyQueue.invalidate();
+        }
         return aborted;
     }
 
     public void awaitCompletion() {
         lock.lock();
         try {
+            // With priority scheduling, workers are woken up selectively, so wait separately for the plan to complete
+            Condition awaited = readyQueue != null ? completion : condition;
             while (!allTasksComplete()) {
                 try {
-                    condition.await();
+                    awaited.await();
                 } catch (InterruptedException e) {
                     throw new RuntimeException(e);
                 }
@@ -16,9 +16,11 @@
 
 package org.gradle.execution.taskgraph;
 
+import com.google.common.base.Charsets;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.Task;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.execution.internal.InternalTaskExecutionListener;
@@ -35,20 +37,32 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.progress.BuildOperationDetails;
 import org.gradle.internal.progress.BuildOperationExecutor;
 import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.internal.progress.OperationResult;
 import org.gradle.internal.progress.OperationStartEvent;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.util.Clock;
+import org.gradle.util.GFileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
+    /**
+     * The file to write a {@link TaskExecutionAnalysis} of each task graph execution to. Relative paths are resolved against the root project directory.
+     */
+    public static final String EXECUTION_REPORT_PROPERTY = "org.gradle.parallel.report";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTaskGraphExecuter.class);
 
     private enum TaskGraphState {
@@ -74,7 +88,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
         internalTaskListeners = listenerManager.createAnonymousBroadcaster(InternalTaskExecutionListener.class);
-        taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken);
+        taskExecutionPlan = new DefaultTaskExecutionPlan(cancellationToken, timeProvider);
     }
 
     public void useFailureHandler(TaskFailureHandler handler) {
@@ -106,14 +120,62 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         ensurePopulated();
 
         graphListeners.getSource().graphPopulated(this);
+        String executionReport = System.getProperty(EXECUTION_REPORT_PROPERTY);
+        long startTime = timeProvider.getCurrentTime();
         try {
             taskPlanExecutor.process(taskExecutionPlan, new EventFiringTaskWorker(taskExecuter.create(), buildOperationExecutor.getCurrentOperationId()));
             LOGGER.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
+            if (executionReport != null) {
+                analyzeExecution(startTime, executionReport);
+            }
             taskExecutionPlan.clear();
         }
     }
 
+    private void analyzeExecution(long startTime, String executionReport) {
+        List<TaskInfo> taskInfos = taskExecutionPlan.getTaskInfos();
+        final TaskExecutionAnalysis analysis = TaskExecutionAnalysis.analyze(taskInfos, startTime, timeProvider.getCurrentTime());
+        File reportFile = new File(executionReport);
+        if (!reportFile.isAbsolute() && !taskInfos.isEmpty()) {
+            reportFile = new File(taskInfos.get(0).getTask().getProject().getRootDir(), executionReport);
+        }
+        final File absoluteReportFile = reportFile;
+        try {
+            // Make the analysis available to build operation listeners
+            buildOperationExecutor.run(BuildOperationDetails.displayName("Analyze task execution").operationDescriptor(analysis).build(), new Runnable() {
+                @Override
+                public void run() {
+                    writeExecutionReport(analysis, absoluteReportFile);
+                }
+            });
+        } catch (Exception e) {
+            // Do not hide the outcome of the build
+            LOGGER.warn("Could not write task execution report to " + absoluteReportFile + ".", e);
+        }
+    }
+
+    private static void writeExecutionReport(TaskExecutionAnalysis analysis, File reportFile) {
+        GFileUtils.parentMkdirs(reportFile);
+        try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), Charsets.UTF_8);
+            try {
+                analysis.writeJson(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Critical path of task execution: {} (waited {} for workers)", analysis.getCriticalPath(), Clock.prettyTime(analysis.getCriticalPathWaitTime()));
+            for (TaskExecutionAnalysis.WorkerUsage worker : analysis.getWorkers()) {
+                LOGGER.info("Task worker [{}] executed {} tasks, busy: {}, idle: {}", worker.getName(), worker.getTaskCount(), Clock.prettyTime(worker.getBusyTime()), Clock.prettyTime(worker.getIdleTime()));
+            }
+            LOGGER.info("Task execution report written to {}", reportFile);
+        }
+    }
+
     public void addTaskExecutionGraphListener(TaskExecutionGraphListener listener) {
         graphListeners.add(listener);
     }
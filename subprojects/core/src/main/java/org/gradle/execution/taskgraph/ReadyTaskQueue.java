@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.Iterables;
+import org.gradle.api.Nullable;
+import org.gradle.api.specs.Spec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps track of the tasks of an execution plan whose dependencies have all completed, so that the next task to execute can be found
+ * without scanning the whole plan.
+ *
+ * <p>Ready tasks are ranked by the length of their critical path, that is the longest chain of tasks that depend on them, so that the tasks
+ * which hold up the most work are started first. Ties are broken using the order of the plan.</p>
+ *
+ * <p>The number of incomplete dependencies of each task is maintained as tasks complete. Changes to the state of tasks that cannot be tracked
+ * this way, such as tasks being skipped when execution is aborted or finalizers being enforced, require the queue to be invalidated, in which
+ * case it is rebuilt from the state of the tasks the next time it is used. The number of tasks still waiting to start is maintained the same
+ * way, so that the plan can tell whether it has been exhausted without visiting every task.</p>
+ *
+ * <p>This class is not thread-safe, and is guarded by the lock of the owning plan.</p>
+ */
+class ReadyTaskQueue {
+    private static final Comparator<Node> HIGHEST_PRIORITY_FIRST = new Comparator<Node>() {
+        @Override
+        public int compare(Node o1, Node o2) {
+            if (o1.criticalPathLength != o2.criticalPathLength) {
+                return o1.criticalPathLength > o2.criticalPathLength ? -1 : 1;
+            }
+            return o1.index < o2.index ? -1 : o1.index > o2.index ? 1 : 0;
+        }
+    };
+
+    private final List<Node> nodes = new ArrayList<Node>();
+    private final Map<TaskInfo, Node> nodesByTask = new HashMap<TaskInfo, Node>();
+    private final TreeSet<Node> ready = new TreeSet<Node>(HIGHEST_PRIORITY_FIRST);
+    private int pendingTasks;
+    private boolean stale = true;
+
+    /**
+     * Sets up the queue for the given plan, which must list every task after the tasks it depends on.
+     */
+    public void initialize(Collection<TaskInfo> plan) {
+        clear();
+        for (TaskInfo task : plan) {
+            Node node = new Node(task, nodes.size());
+            nodes.add(node);
+            nodesByTask.put(task, node);
+        }
+        for (Node node : nodes) {
+            for (TaskInfo dependency : Iterables.concat(node.task.getDependencySuccessors(), node.task.getMustSuccessors())) {
+                Node dependencyNode = nodesByTask.get(dependency);
+                if (dependencyNode != null) {
+                    node.dependencies.add(dependencyNode);
+                    dependencyNode.dependents.add(node);
+                }
+            }
+        }
+        // Walk the plan backwards, so that the critical path of the dependents of each task is known by the time the task is visited
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            int longestDependentPath = 0;
+            for (Node dependent : node.dependents) {
+                longestDependentPath = Math.max(longestDependentPath, dependent.criticalPathLength);
+            }
+            node.criticalPathLength = longestDependentPath + 1;
+        }
+    }
+
+    public void clear() {
+        nodes.clear();
+        nodesByTask.clear();
+        ready.clear();
+        pendingTasks = 0;
+        stale = true;
+    }
+
+    /**
+     * Discards the tracked state, to be rebuilt from the state of the tasks when next required.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Removes and returns the highest priority ready task that can run, or null when there is no such task.
+     */
+    @Nullable
+    public TaskInfo poll(Spec<? super TaskInfo> canRun) {
+        refresh();
+        Iterator<Node> iterator = ready.iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (!node.task.isReady()) {
+                // Has been skipped or is no longer required
+                iterator.remove();
+            } else if (canRun.isSatisfiedBy(node.task)) {
+                iterator.remove();
+                pendingTasks--;
+                return node.task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of ready tasks that can run, up to the given maximum.
+     */
+    public int countRunnable(Spec<? super TaskInfo> canRun, int max) {
+        refresh();
+        int count = 0;
+        for (Node node : ready) {
+            if (count >= max) {
+                break;
+            }
+            if (node.task.isReady() && canRun.isSatisfiedBy(node.task)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true when no task is waiting to start, whether or not its dependencies have completed.
+     */
+    public boolean isExhausted() {
+        refresh();
+        return pendingTasks == 0;
+    }
+
+    /**
+     * Signals that the given task has completed, making the tasks that were only waiting for it ready.
+     */
+    public void completed(TaskInfo task) {
+        if (stale) {
+            return;
+        }
+        Node node = nodesByTask.get(task);
+        if (node == null) {
+            return;
+        }
+        for (Node dependent : node.dependents) {
+            if (dependent.pendingDependencies > 0 && dependent.task.isReady()) {
+                dependent.pendingDependencies--;
+                if (dependent.pendingDependencies == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+    }
+
+    private void refresh() {
+        if (!stale) {
+            return;
+        }
+        ready.clear();
+        pendingTasks = 0;
+        for (Node node : nodes) {
+            node.pendingDependencies = 0;
+            if (!node.task.isReady()) {
+                continue;
+            }
+            pendingTasks++;
+            for (Node dependency : node.dependencies) {
+                if (!dependency.task.isComplete()) {
+                    node.pendingDependencies++;
+                }
+            }
+            if (node.pendingDependencies == 0) {
+                ready.add(node);
+            }
+        }
+        stale = false;
+    }
+
+    private static class Node {
+        final TaskInfo task;
+        final int index;
+        final List<Node> dependencies = new ArrayList<Node>();
+        final List<Node> dependents = new ArrayList<Node>();
+        int criticalPathLength;
+        int pendingDependencies;
+
+        Node(TaskInfo task, int index) {
+            this.task = task;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.Iterables;
+import groovy.json.JsonOutput;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Describes how the tasks of an execution plan were executed: when each task became ready to execute, when it started and completed, and which
+ * worker executed it. From this, the critical path of the execution and the time each worker spent idle are calculated.
+ *
+ * <p>A task becomes ready when the last of its dependencies and must run after tasks completes, or when execution starts for a task without any,
+ * as recorded by the execution plan. The time between becoming ready and starting includes time spent waiting for a worker, and for other tasks
+ * of the same project or with overlapping outputs to complete. The critical path starts with the task that completed last, and repeatedly steps to the dependency that completed last. The time a task on
+ * the critical path spent waiting between becoming ready and starting is time that could be saved with more workers.</p>
+ */
+public class TaskExecutionAnalysis {
+    private final long startTime;
+    private final long endTime;
+    private final List<TaskExecution> tasks;
+    private final List<TaskExecution> criticalPath;
+    private final List<WorkerUsage> workers;
+
+    private TaskExecutionAnalysis(long startTime, long endTime, List<TaskExecution> tasks, List<TaskExecution> criticalPath, List<WorkerUsage> workers) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.tasks = tasks;
+        this.criticalPath = criticalPath;
+        this.workers = workers;
+    }
+
+    /**
+     * Analyzes the given tasks, executed between the given start and end time. Tasks that were not executed are ignored.
+     */
+    public static TaskExecutionAnalysis analyze(Collection<TaskInfo> plan, long startTime, long endTime) {
+        Map<TaskInfo, TaskExecution> executions = new LinkedHashMap<TaskInfo, TaskExecution>();
+        for (TaskInfo taskInfo : plan) {
+            if (taskInfo.isExecuted()) {
+                executions.put(taskInfo, new TaskExecution(taskInfo.getTask().getPath(), taskInfo.getWorker(), taskInfo.getReadyTime(), taskInfo.getExecutionStartTime(), taskInfo.getExecutionEndTime(), taskInfo.isFailed()));
+            }
+        }
+
+        TaskExecution last = null;
+        Map<TaskExecution, TaskExecution> readyAfter = new HashMap<TaskExecution, TaskExecution>();
+        for (Map.Entry<TaskInfo, TaskExecution> entry : executions.entrySet()) {
+            TaskExecution execution = entry.getValue();
+            TaskExecution lastDependency = null;
+            for (TaskInfo dependency : Iterables.concat(entry.getKey().getDependencySuccessors(), entry.getKey().getMustSuccessors())) {
+                TaskExecution dependencyExecution = executions.get(dependency);
+                if (dependencyExecution != null && (lastDependency == null || dependencyExecution.endTime > lastDependency.endTime)) {
+                    lastDependency = dependencyExecution;
+                }
+            }
+            if (lastDependency != null) {
+                readyAfter.put(execution, lastDependency);
+            }
+            if (last == null || execution.endTime > last.endTime) {
+                last = execution;
+            }
+        }
+
+        LinkedList<TaskExecution> criticalPath = new LinkedList<TaskExecution>();
+        for (TaskExecution execution = last; execution != null; execution = readyAfter.get(execution)) {
+            criticalPath.addFirst(execution);
+        }
+
+        Map<String, WorkerUsage> workers = new TreeMap<String, WorkerUsage>();
+        for (TaskExecution execution : executions.values()) {
+            WorkerUsage worker = workers.get(execution.worker);
+            if (worker == null) {
+                worker = new WorkerUsage(execution.worker, endTime - startTime);
+                workers.put(execution.worker, worker);
+            }
+            worker.taskCount++;
+            worker.busyTime += execution.getDuration();
+        }
+
+        List<TaskExecution> tasks = new ArrayList<TaskExecution>(executions.values());
+        Collections.sort(tasks);
+        return new TaskExecutionAnalysis(startTime, endTime, tasks, criticalPath, new ArrayList<WorkerUsage>(workers.values()));
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Returns the executed tasks, in the order they were started.
+     */
+    public List<TaskExecution> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the tasks on the critical path, in execution order.
+     */
+    public List<TaskExecution> getCriticalPath() {
+        return criticalPath;
+    }
+
+    /**
+     * Returns the total time that the tasks on the critical path spent waiting for a worker after they became ready.
+     */
+    public long getCriticalPathWaitTime() {
+        long waitTime = 0;
+        for (TaskExecution execution : criticalPath) {
+            waitTime += execution.getWaitTime();
+        }
+        return waitTime;
+    }
+
+    /**
+     * Returns the workers that executed at least one task, by name.
+     */
+    public List<WorkerUsage> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Writes this analysis as JSON. All times are in milliseconds, and are relative to the start of execution unless noted otherwise.
+     */
+    public void writeJson(Writer writer) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<String, Object>();
+        report.put("startTimestamp", startTime);
+        report.put("duration", endTime - startTime);
+
+        List<Object> taskEntries = new ArrayList<Object>(tasks.size());
+        for (TaskExecution execution : tasks) {
+            taskEntries.add(toMap(execution));
+        }
+        report.put("tasks", taskEntries);
+
+        Map<String, Object> criticalPathEntry = new LinkedHashMap<String, Object>();
+        List<String> criticalPathTasks = new ArrayList<String>(criticalPath.size());
+        for (TaskExecution execution : criticalPath) {
+            criticalPathTasks.add(execution.path);
+        }
+        criticalPathEntry.put("tasks", criticalPathTasks);
+        criticalPathEntry.put("waitTime", getCriticalPathWaitTime());
+        report.put("criticalPath", criticalPathEntry);
+
+        List<Object> workerEntries = new ArrayList<Object>(workers.size());
+        for (WorkerUsage worker : workers) {
+            Map<String, Object> workerEntry = new LinkedHashMap<String, Object>();
+            workerEntry.put("name", worker.name);
+            workerEntry.put("tasks", worker.taskCount);
+            workerEntry.put("busyTime", worker.busyTime);
+            workerEntry.put("idleTime", worker.getIdleTime());
+            workerEntries.add(workerEntry);
+        }
+        report.put("workers", workerEntries);
+
+        writer.write(JsonOutput.prettyPrint(JsonOutput.toJson(report)));
+    }
+
+    private Map<String, Object> toMap(TaskExecution execution) {
+        Map<String, Object> entry = new LinkedHashMap<String, Object>();
+        entry.put("path", execution.path);
+        entry.put("worker", execution.worker);
+        entry.put("readyTime", execution.readyTime - startTime);
+        entry.put("startTime", execution.startTime - startTime);
+        entry.put("endTime", execution.endTime - startTime);
+        entry.put("failed", execution.failed);
+        return entry;
+    }
+
+    /**
+     * The execution of a single task.
+     */
+    public static class TaskExecution implements Comparable<TaskExecution> {
+        private final String path;
+        private final String worker;
+        private final long startTime;
+        private final long endTime;
+        private final boolean failed;
+        private final long readyTime;
+
+        TaskExecution(String path, String worker, long readyTime, long startTime, long endTime, boolean failed) {
+            this.path = path;
+            this.worker = worker;
+            this.readyTime = readyTime;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.failed = failed;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getWorker() {
+            return worker;
+        }
+
+        public long getReadyTime() {
+            return readyTime;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public long getWaitTime() {
+            return startTime - readyTime;
+        }
+
+        public long getDuration() {
+            return endTime - startTime;
+        }
+
+        @Override
+        public int compareTo(TaskExecution other) {
+            if (startTime != other.startTime) {
+                return startTime < other.startTime ? -1 : 1;
+            }
+            return path.compareTo(other.path);
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+
+    /**
+     * The time a worker spent executing tasks.
+     */
+    public static class WorkerUsage {
+        private final String name;
+        private final long totalTime;
+        private int taskCount;
+        private long busyTime;
+
+        WorkerUsage(String name, long totalTime) {
+            this.name = name;
+            this.totalTime = totalTime;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        public long getBusyTime() {
+            return busyTime;
+        }
+
+        public long getIdleTime() {
+            return Math.max(0, totalTime - busyTime);
+        }
+    }
+}
@@ -34,8 +34,13 @@ public class TaskInfo implements Comparable<TaskInfo> {
     private final TreeSet<TaskInfo> dependencyPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> dependencySuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> mustSuccessors = new TreeSet<TaskInfo>();
+    private final TreeSet<TaskInfo> mustPredecessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> shouldSuccessors = new TreeSet<TaskInfo>();
     private final TreeSet<TaskInfo> finalizers = new TreeSet<TaskInfo>();
+    private long readyTime;
+    private long executionStartTime;
+    private long executionEndTime;
+    private String worker;
 
     public TaskInfo(TaskInternal task) {
         this.task = task;
@@ -84,14 +89,59 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return getTaskFailure() != null || getExecutionFailure() != null;
     }
 
-    public void startExecution() {
+    /**
+     * Records the time at which the dependencies of this task completed, so that it could be executed. Only the first time is kept.
+     */
+    public void markReady(long time) {
+        if (readyTime == 0) {
+            readyTime = time;
+        }
+    }
+
+    public void startExecution(long time) {
         assert isReady();
         state = TaskExecutionState.EXECUTING;
+        markReady(time);
+        executionStartTime = time;
+        worker = Thread.currentThread().getName();
     }
 
-    public void finishExecution() {
+    public void finishExecution(long time) {
         assert state == TaskExecutionState.EXECUTING;
         state = TaskExecutionState.EXECUTED;
+        executionEndTime = time;
+    }
+
+    public boolean isExecuted() {
+        return state == TaskExecutionState.EXECUTED;
+    }
+
+    /**
+     * Returns the time at which this task became ready to execute, or 0 when it has not.
+     */
+    public long getReadyTime() {
+        return readyTime;
+    }
+
+    /**
+     * Returns the time at which this task was handed to a worker, or 0 when it has not been.
+     */
+    public long getExecutionStartTime() {
+        return executionStartTime;
+    }
+
+    /**
+     * Returns the time at which this task completed execution, or 0 when it has not.
+     */
+    public long getExecutionEndTime() {
+        return executionEndTime;
+    }
+
+    /**
+     * Returns the name of the worker thread that executed this task, or null when it has not been executed.
+     */
+    public String getWorker() {
+        return worker;
     }
 
     public void skipExecution() {
@@ -159,6 +209,10 @@ public class TaskInfo implements Comparable<TaskInfo> {
         return mustSuccessors;
     }
 
+    public TreeSet<TaskInfo> getMustPredecessors() {
+        return mustPredecessors;
+    }
+
     public TreeSet<TaskInfo> getFinalizers() {
         return finalizers;
     }
@@ -182,6 +236,7 @@ public class TaskInfo implements Comparable<TaskInfo> {
 
     public void addMustSuccessor(TaskInfo toNode) {
         mustSuccessors.add(toNode);
+        toNode.mustPredecessors.add(this);
     }
 
     public void addFinalizer(TaskInfo finalizerNode) {
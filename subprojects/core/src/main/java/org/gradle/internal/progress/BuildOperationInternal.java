@@ -21,11 +21,17 @@ public final class BuildOperationInternal {
     private final Object id;
     private final Object parentId;
     private final String displayName;
+    private final Object operationDescriptor;
 
     public BuildOperationInternal(Object id, Object parentId, String displayName) {
+        this(id, parentId, displayName, null);
+    }
+
+    public BuildOperationInternal(Object id, Object parentId, String displayName, Object operationDescriptor) {
         this.id = id;
         this.parentId = parentId;
         this.displayName = displayName;
+        this.operationDescriptor = operationDescriptor;
     }
 
     public Object getId() {
@@ -40,4 +46,12 @@ public final class BuildOperationInternal {
     public String getDisplayName() {
         return displayName;
     }
+
+    /**
+     * See {@link BuildOperationDetails#getOperationDescriptor()}.
+     */
+    @Nullable
+    public Object getOperationDescriptor() {
+        return operationDescriptor;
+    }
 }
@@ -24,6 +24,7 @@ import org.gradle.api.internal.file.IdentityFileResolver;
 import org.gradle.api.internal.file.collections.MinimalFileTree;
 import org.gradle.api.internal.file.collections.SingleIncludePatternFileTree;
 import org.gradle.api.internal.file.delete.Deleter;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
@@ -72,6 +73,11 @@ public class PathKeyFileStore implements FileStore<String>, FileStoreSearcher<St
         return saveIntoFileStore(source, getFile(path), true);
     }
 
+    public LocallyAvailableResource move(String path, File source, HashValue sha1) {
+        move(path, source);
+        return entryAt(path, sha1);
+    }
+
     public LocallyAvailableResource copy(String path, File source) {
         return saveIntoFileStore(source, getFile(path), false);
     }
@@ -183,7 +189,11 @@ public class PathKeyFileStore implements FileStore<String>, FileStoreSearcher<St
     }
 
     protected LocallyAvailableResource entryAt(final String path) {
-        return new AbstractLocallyAvailableResource() {
+        return entryAt(path, null);
+    }
+
+    private LocallyAvailableResource entryAt(final String path, HashValue sha1) {
+        return new AbstractLocallyAvailableResource(sha1) {
             public File getFile() {
                 // Calculated on demand to deal with moves
                 return new File(baseDir, path);
@@ -31,6 +31,7 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CacheAccessingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.changedetection.state.RetainedDirectoryTrees;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -341,6 +342,10 @@ public class GlobalScopeServices {
         return new DefaultFileWatcherFactory(executorFactory);
     }
 
+    RetainedDirectoryTrees createRetainedDirectoryTrees(FileWatcherFactory fileWatcherFactory) {
+        return new RetainedDirectoryTrees(fileWatcherFactory);
+    }
+
     StringInterner createStringInterner() {
         return new StringInterner();
     }
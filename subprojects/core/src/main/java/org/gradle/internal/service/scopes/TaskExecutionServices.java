@@ -27,6 +27,7 @@ import org.gradle.api.internal.changedetection.state.CacheBackedTaskHistoryRepos
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.CachingTreeVisitor;
 import org.gradle.api.internal.changedetection.state.CachingTreeVisitorCleaner;
+import org.gradle.api.internal.changedetection.state.ClasspathSnapshotter;
 import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.DefaultTaskArtifactStateCacheAccess;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
@@ -36,16 +37,23 @@ import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.internal.changedetection.state.MinimalFileSetSnapshotter;
 import org.gradle.api.internal.changedetection.state.NoOpDecorator;
 import org.gradle.api.internal.changedetection.state.OutputFilesCollectionSnapshotter;
+import org.gradle.api.internal.changedetection.state.RetainedDirectoryTrees;
 import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.changedetection.state.TreeSnapshotRepository;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.hash.ClassAbiHasher;
 import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.Murmur3Hasher;
 import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.cache.LocalDirectoryTaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker;
 import org.gradle.api.internal.tasks.execution.ExecuteActionsTaskExecuter;
 import org.gradle.api.internal.tasks.execution.ExecuteAtMostOnceTaskExecuter;
 import org.gradle.api.internal.tasks.execution.PostExecutionAnalysisTaskExecuter;
+import org.gradle.api.internal.tasks.execution.SkipCachedTaskExecuter;
 import org.gradle.api.internal.tasks.execution.SkipEmptySourceFilesTaskExecuter;
 import org.gradle.api.internal.tasks.execution.SkipOnlyIfTaskExecuter;
 import org.gradle.api.internal.tasks.execution.SkipTaskWithNoActionsExecuter;
@@ -56,8 +64,10 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
+import org.gradle.internal.Factory;
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
 import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.id.RandomLongIdGenerator;
@@ -69,9 +79,12 @@ import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
 
+import java.io.File;
+
 public class TaskExecutionServices {
+    private static final long DEFAULT_TASK_OUTPUT_CACHE_SIZE_IN_MEGABYTES = 5 * 1024;
 
-    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle) {
+    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle, StartParameter startParameter) {
         // TODO - need a more comprehensible way to only collect inputs for the outer build
         //      - we are trying to ignore buildSrc here, but also avoid weirdness with use of GradleBuild tasks
         boolean isOuterBuild = gradle.getParent() == null;
@@ -79,6 +92,19 @@ public class TaskExecutionServices {
             ? listenerManager.getBroadcaster(TaskInputsListener.class)
             : TaskInputsListener.NOOP;
 
+        TaskExecuter executer = new PostExecutionAnalysisTaskExecuter(
+            new ExecuteActionsTaskExecuter(
+                listenerManager.getBroadcaster(TaskActionListener.class)
+            )
+        );
+        if (Boolean.getBoolean(SkipCachedTaskExecuter.ENABLE_PROPERTY)) {
+            executer = new SkipCachedTaskExecuter(
+                localTaskOutputCache(startParameter),
+                new ZipTaskOutputPacker(),
+                executer
+            );
+        }
+
         return new ExecuteAtMostOnceTaskExecuter(
             new SkipOnlyIfTaskExecuter(
                 new SkipTaskWithNoActionsExecuter(
@@ -87,11 +113,7 @@ public class TaskExecutionServices {
                         new ValidatingTaskExecuter(
                             new SkipUpToDateTaskExecuter(
                                 repository,
-                                new PostExecutionAnalysisTaskExecuter(
-                                    new ExecuteActionsTaskExecuter(
-                                        listenerManager.getBroadcaster(TaskActionListener.class)
-                                    )
-                                )
+                                executer
                             )
                         )
                     )
@@ -100,21 +122,47 @@ public class TaskExecutionServices {
         );
     }
 
-    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
+    private static TaskOutputCache localTaskOutputCache(StartParameter startParameter) {
+        String directory = System.getProperty(SkipCachedTaskExecuter.DIRECTORY_PROPERTY);
+        File cacheDirectory = directory != null ? new File(directory) : new File(startParameter.getGradleUserHomeDir(), "task-cache");
+        long maxSizeInMegabytes = Long.getLong(SkipCachedTaskExecuter.MAX_SIZE_PROPERTY, DEFAULT_TASK_OUTPUT_CACHE_SIZE_IN_MEGABYTES);
+        return new LocalDirectoryTaskOutputCache(cacheDirectory, maxSizeInMegabytes * 1024 * 1024);
+    }
+
+    TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment, ExecutorFactory executorFactory) {
         CacheDecorator decorator;
         if (environment.isLongLivingProcess()) {
             decorator = inMemoryTaskArtifactCache;
         } else {
             decorator = new NoOpDecorator();
         }
+        if (Boolean.getBoolean(DefaultTaskArtifactStateCacheAccess.WRITE_BEHIND_PROPERTY)) {
+            return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator, executorFactory.create("Task history cache writer"));
+        }
         return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
     }
 
-    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, StartParameter startParameter, final ExecutorFactory executorFactory) {
+        final int hashingThreads = startParameter.getMaxWorkerCount();
+        Factory<StoppableExecutor> hashingExecutorFactory = null;
+        if (startParameter.isParallelProjectExecutionEnabled() && hashingThreads > 1) {
+            hashingExecutorFactory = new Factory<StoppableExecutor>() {
+                @Override
+                public StoppableExecutor create() {
+                    return executorFactory.create("File hashing", hashingThreads);
+                }
+            };
+        }
+        if (Boolean.getBoolean(Murmur3Hasher.ENABLE_PROPERTY)) {
+            return new CachingFileSnapshotter(new Murmur3Hasher(), Murmur3Hasher.CACHE_SCHEMA_VERSION, cacheAccess, stringInterner, hashingExecutorFactory);
+        }
+        return new CachingFileSnapshotter(new DefaultHasher(), DefaultHasher.CACHE_SCHEMA_VERSION, cacheAccess, stringInterner, hashingExecutorFactory);
     }
 
-    CachingTreeVisitor createTreeVisitor() {
+    CachingTreeVisitor createTreeVisitor(RetainedDirectoryTrees retainedDirectoryTrees, GradleBuildEnvironment environment) {
+        if (environment.isLongLivingProcess() && Boolean.getBoolean(RetainedDirectoryTrees.ENABLE_PROPERTY)) {
+            return new CachingTreeVisitor(retainedDirectoryTrees);
+        }
         return new CachingTreeVisitor();
     }
 
@@ -131,6 +179,8 @@ public class TaskExecutionServices {
                                                                   CachingTreeVisitor treeVisitor, TreeSnapshotRepository treeSnapshotRepository, CachingTreeVisitorCleaner treeVisitorCleaner, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
         FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, treeVisitor, treeSnapshotRepository);
         FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, fileSystem);
+        FileSnapshotter abiSnapshotter = new CachingFileSnapshotter(new ClassAbiHasher(fileSnapshotter), ClassAbiHasher.CACHE_SCHEMA_VERSION, "classAbiHashes", cacheAccess, stringInterner, null);
+        FileCollectionSnapshotter classpathSnapshotter = new ClasspathSnapshotter(abiSnapshotter, fileSnapshotter, cacheAccess, stringInterner, fileResolver);
 
         OutputFilesCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, stringInterner);
 
@@ -154,6 +204,7 @@ public class TaskExecutionServices {
                 instantiator,
                 outputFilesSnapshotter,
                 fileCollectionSnapshotter,
+                classpathSnapshotter,
                 discoveredFileCollectionSnapshotter,
                 fileCollectionFactory,
                 classLoaderHierarchyHasher
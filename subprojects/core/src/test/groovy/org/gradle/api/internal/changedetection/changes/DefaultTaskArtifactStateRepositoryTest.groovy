@@ -25,6 +25,7 @@ import org.gradle.api.internal.changedetection.state.CacheBackedFileSnapshotRepo
 import org.gradle.api.internal.changedetection.state.CacheBackedTaskHistoryRepository
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter
 import org.gradle.api.internal.changedetection.state.CachingTreeVisitor
+import org.gradle.api.internal.changedetection.state.ClasspathSnapshotter
 import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.DefaultTaskArtifactStateCacheAccess
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
@@ -36,6 +37,7 @@ import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAcces
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository
 import org.gradle.api.internal.changedetection.state.TreeSnapshotRepository
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.hash.ClassAbiHasher
 import org.gradle.api.internal.hash.DefaultHasher
 import org.gradle.api.tasks.incremental.InputFileDetails
 import org.gradle.cache.CacheRepository
@@ -51,6 +53,8 @@ import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.testfixtures.internal.InMemoryCacheFactory
 import org.gradle.util.TestUtil
 import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
 import spock.lang.Specification
 
 import static org.gradle.util.WrapUtil.toMap
@@ -93,6 +97,8 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         def treeSnapshotRepository = new TreeSnapshotRepository(cacheAccess, stringInterner)
         FileCollectionSnapshotter inputFilesSnapshotter = new DefaultFileCollectionSnapshotter(snapshotter, cacheAccess, stringInterner, TestFiles.resolver(), treeVisitor, treeSnapshotRepository)
         FileCollectionSnapshotter discoveredFilesSnapshotter = new MinimalFileSetSnapshotter(snapshotter, cacheAccess, stringInterner, TestFiles.resolver(), TestFiles.fileSystem())
+        def abiSnapshotter = new CachingFileSnapshotter(new ClassAbiHasher(snapshotter), ClassAbiHasher.CACHE_SCHEMA_VERSION, "classAbiHashes", cacheAccess, stringInterner, null)
+        FileCollectionSnapshotter classpathSnapshotter = new ClasspathSnapshotter(abiSnapshotter, snapshotter, cacheAccess, stringInterner, TestFiles.resolver())
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(inputFilesSnapshotter, stringInterner)
         def classLoaderHierarchyHasher = Mock(ConfigurableClassLoaderHierarchyHasher) // new ConfigurableClassLoaderHierarchyHasher([:], Mock(ClassLoaderHasher))
         SerializerRegistry<FileCollectionSnapshot> serializerRegistry = new DefaultSerializerRegistry<FileCollectionSnapshot>();
@@ -100,7 +106,7 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         outputFilesSnapshotter.registerSerializers(serializerRegistry);
         discoveredFilesSnapshotter.registerSerializers(serializerRegistry);
         TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess, new CacheBackedFileSnapshotRepository(cacheAccess, serializerRegistry.build(FileCollectionSnapshot), new RandomLongIdGenerator(), treeSnapshotRepository), stringInterner)
-        repository = new DefaultTaskArtifactStateRepository(taskHistoryRepository, DirectInstantiator.INSTANCE, outputFilesSnapshotter, inputFilesSnapshotter, discoveredFilesSnapshotter, TestFiles.fileCollectionFactory(), classLoaderHierarchyHasher)
+        repository = new DefaultTaskArtifactStateRepository(taskHistoryRepository, DirectInstantiator.INSTANCE, outputFilesSnapshotter, inputFilesSnapshotter, classpathSnapshotter, discoveredFilesSnapshotter, TestFiles.fileCollectionFactory(), classLoaderHierarchyHasher)
     }
 
     def artifactsAreNotUpToDateWhenCacheIsEmpty() {
@@ -235,6 +241,55 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         inputsOutOfDate(task).withModifiedFile(inputFile)
     }
 
+    def artifactsAreUpToDateWhenOnlyTheImplementationOfAClassOnTheCompileClasspathHasChanged() {
+        final classFile = tmpDir.createDir("classes").file("Foo.class")
+        classFile.bytes = classWithMethod("get", 1)
+        TaskInternal task = builder.withCompileClasspath(classFile.parentFile).task()
+
+        given:
+        execute(task)
+
+        when:
+        classFile.bytes = classWithMethod("get", 2)
+        classFile.makeOlder()
+
+        then:
+        upToDate task
+    }
+
+    def artifactsAreNotUpToDateWhenTheAbiOfAClassOnTheCompileClasspathHasChanged() {
+        final classFile = tmpDir.createDir("classes").file("Foo.class")
+        classFile.bytes = classWithMethod("get", 1)
+        TaskInternal task = builder.withCompileClasspath(classFile.parentFile).task()
+
+        given:
+        execute(task)
+
+        when:
+        classFile.bytes = classWithMethod("getValue", 1)
+
+        then:
+        inputsOutOfDate(task).withModifiedFile(classFile)
+    }
+
+    def artifactsAreNotUpToDateWhenTheImplementationOfAClassOnACompileClasspathWithAnAnnotationProcessorHasChanged() {
+        final classesDir = tmpDir.createDir("classes")
+        final classFile = classesDir.file("Foo.class")
+        classFile.bytes = classWithMethod("get", 1)
+        classesDir.file(ClassAbiHasher.ANNOTATION_PROCESSOR_SERVICE).text = "Processor"
+        TaskInternal task = builder.withCompileClasspath(classesDir).task()
+
+        given:
+        execute(task)
+
+        when:
+        classFile.bytes = classWithMethod("get", 2)
+        classFile.makeOlder()
+
+        then:
+        inputsOutOfDate(task).withModifiedFile(classFile)
+    }
+
     def artifactsAreNotUpToDateWhenAnyInputFileHasChangedType() {
         given:
         execute(task)
@@ -652,6 +707,19 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         }
     }
 
+    private static byte[] classWithMethod(String methodName, int returnValue) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "Foo", null, "java/lang/Object", null)
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC, methodName, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
     private TaskBuilder getBuilder() {
         return new TaskBuilder()
     }
@@ -660,6 +728,7 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
         private String path = "task"
         private Collection<? extends File> inputs = inputFiles
         private Collection<? extends File> outputs = outputFiles
+        private Collection<? extends File> compileClasspath
         private Collection<? extends TestFile> create = createFiles
         private Class<? extends TaskInternal> type = TaskInternal.class
         private Map<String, Object> inputProperties = new HashMap<String, Object>(toMap("prop", "value"))
@@ -669,6 +738,11 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
             return this
         }
 
+        TaskBuilder withCompileClasspath(File... classpath) {
+            compileClasspath = Arrays.asList(classpath)
+            return this
+        }
+
         TaskBuilder withOutputFiles(File... outputFiles) {
             outputs = Arrays.asList(outputFiles)
             return this
@@ -705,6 +779,9 @@ public class DefaultTaskArtifactStateRepositoryTest extends Specification {
             if (inputs != null) {
                 task.getInputs().files(inputs)
             }
+            if (compileClasspath != null) {
+                task.getInputs().files(compileClasspath).compileClasspath()
+            }
             if (inputProperties != null) {
                 task.getInputs().properties(inputProperties)
             }
@@ -38,6 +38,7 @@ class TaskUpToDateStateTest extends Specification {
     private TaskHistoryRepository.History stubHistory
     private OutputFilesCollectionSnapshotter stubOutputFileSnapshotter
     private FileCollectionSnapshotter stubInputFileSnapshotter
+    private FileCollectionSnapshotter stubClasspathSnapshotter
     private FileCollectionSnapshotter stubDiscoveredInputFileSnapshotter
     private FileCollectionFactory fileCollectionFactory = Mock(FileCollectionFactory)
     private classLoaderHierarchyHasher = Mock(ClassLoaderHierarchyHasher)
@@ -51,7 +52,9 @@ class TaskUpToDateStateTest extends Specification {
         this.stubHistory = Stub(TaskHistoryRepository.History)
         this.stubOutputFileSnapshotter = Stub(OutputFilesCollectionSnapshotter)
         this.stubInputFileSnapshotter = Stub(FileCollectionSnapshotter)
+        this.stubClasspathSnapshotter = Stub(FileCollectionSnapshotter)
         this.stubDiscoveredInputFileSnapshotter = Stub(FileCollectionSnapshotter)
+        _ * mockInputs.getCompileClasspathPropertyNames() >> ([] as Set)
     }
 
     def "constructor invokes snapshots" () {
@@ -63,7 +66,7 @@ class TaskUpToDateStateTest extends Specification {
         FileCollectionSnapshot.PreCheck outputPreCheck = Mock(FileCollectionSnapshot.PreCheck)
 
         when:
-        new TaskUpToDateState(stubTask, stubHistory, mockOutputFileSnapshotter, mockInputFileSnapshotter, mockDiscoveredInputFileSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher)
+        new TaskUpToDateState(stubTask, stubHistory, mockOutputFileSnapshotter, mockInputFileSnapshotter, stubClasspathSnapshotter, mockDiscoveredInputFileSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher)
 
         then:
         noExceptionThrown()
@@ -83,7 +86,7 @@ class TaskUpToDateStateTest extends Specification {
         _ * stubInputFileSnapshotter.preCheck(_, _) >> { throw cause }
 
         when:
-        new TaskUpToDateState(stubTask, stubHistory, stubOutputFileSnapshotter, stubInputFileSnapshotter, stubDiscoveredInputFileSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher)
+        new TaskUpToDateState(stubTask, stubHistory, stubOutputFileSnapshotter, stubInputFileSnapshotter, stubClasspathSnapshotter, stubDiscoveredInputFileSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher)
 
         then:
         1 * mockInputs.getProperties() >> [:]
@@ -109,7 +112,7 @@ class TaskUpToDateStateTest extends Specification {
          _ * stubOutputFileSnapshotter.preCheck(_, _) >> { throw cause }
 
         when:
-        new TaskUpToDateState(stubTask, stubHistory, stubOutputFileSnapshotter, stubInputFileSnapshotter, stubDiscoveredInputFileSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher)
+        new TaskUpToDateState(stubTask, stubHistory, stubOutputFileSnapshotter, stubInputFileSnapshotter, stubClasspathSnapshotter, stubDiscoveredInputFileSnapshotter, fileCollectionFactory, classLoaderHierarchyHasher)
 
         then:
         1 * mockInputs.getProperties() >> [:]
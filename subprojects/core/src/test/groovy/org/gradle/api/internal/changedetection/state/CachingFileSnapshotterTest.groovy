@@ -16,9 +16,17 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.DefaultFileTreeElement
+import org.gradle.api.internal.hash.DefaultHasher
 import org.gradle.api.internal.hash.Hasher
+import org.gradle.api.internal.hash.Murmur3Hasher
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factories
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashUtil
 import org.gradle.internal.resource.TextResource
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -107,6 +115,20 @@ class CachingFileSnapshotterTest extends Specification {
         0 * _._
     }
 
+    def hashesFileWhenCachedHashWasCreatedByDifferentKindOfHasher() {
+        when:
+        def result = hasher.snapshot(file)
+
+        then:
+        result.hash == hash
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified(), Murmur3Hasher.CACHE_SCHEMA_VERSION)
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.getAbsolutePath(), _)
+        0 * _._
+    }
+
     def hashesBackingFileWhenResourceIsBackedByFile() {
         def resource = Mock(TextResource)
 
@@ -136,4 +158,115 @@ class CachingFileSnapshotterTest extends Specification {
         1 * resource.text >> "hello"
         0 * _._
     }
+
+    def snapshotsMultipleFilesOnlyHashingThoseNotCached() {
+        def other = tmpDir.createFile("other")
+        other.write("other-content")
+        def otherHash = HashUtil.createHash("other", "md5")
+
+        when:
+        def result = hasher.snapshotAll([element(file), element(other)])
+
+        then:
+        result*.hash == [hash, otherHash]
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
+        1 * cache.get(other.getAbsolutePath()) >> null
+        1 * target.hash(other) >> otherHash
+        1 * cache.put(other.getAbsolutePath(), _)
+        0 * _._
+    }
+
+    def hashesCacheMissesConcurrentlyWhenExecutorProvided() {
+        def files = (1..20).collect { i ->
+            def f = tmpDir.createFile("file${i}")
+            f.write("content ${i}")
+            f
+        }
+        def executor = new DefaultExecutorFactory().create("hashing", 4)
+        def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+        def cache = Mock(PersistentIndexedCache)
+        cacheAccess.createCache("fileHashes", _, _) >> cache
+        def snapshotter = new CachingFileSnapshotter(new DefaultHasher(), DefaultHasher.CACHE_SCHEMA_VERSION, cacheAccess, new StringInterner(), Factories.constant(executor))
+        def callingThread = Thread.currentThread()
+        def hashing = false
+
+        when:
+        def result = snapshotter.snapshotAll(files.collect { element(it) })
+
+        then:
+        result*.hash == files.collect { HashUtil.createHash(it, "MD5") }
+
+        and:
+        20 * cache.get(_) >> {
+            assert !hashing
+            null
+        }
+        1 * cacheAccess.longRunningOperation(_, _) >> { String name, Factory action ->
+            // The cache lock is released while the files are hashed
+            hashing = true
+            try {
+                return action.create()
+            } finally {
+                hashing = false
+            }
+        }
+        20 * cache.put(_, _) >> {
+            // The cache is only ever used from the thread holding the cache lock
+            assert Thread.currentThread() == callingThread
+            assert !hashing
+        }
+
+        cleanup:
+        snapshotter.stop()
+    }
+
+    def propagatesFailureToHashFileWhenHashingConcurrently() {
+        def executor = new DefaultExecutorFactory().create("hashing", 2)
+        def cacheAccess = Stub(TaskArtifactStateCacheAccess)
+        def cache = Stub(PersistentIndexedCache)
+        cacheAccess.createCache("fileHashes", _, _) >> cache
+        cacheAccess.longRunningOperation(_, _) >> { String name, Factory action -> action.create() }
+        def snapshotter = new CachingFileSnapshotter(target, DefaultHasher.CACHE_SCHEMA_VERSION, cacheAccess, new StringInterner(), Factories.constant(executor))
+        def failure = new RuntimeException("broken")
+        def other = tmpDir.createFile("other")
+
+        given:
+        target.hash(file) >> hash
+        target.hash(other) >> { throw failure }
+
+        when:
+        snapshotter.snapshotAll([element(file), element(other)])
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+
+        cleanup:
+        snapshotter.stop()
+    }
+
+    def doesNotCreateHashingExecutorUntilThereAreSeveralFilesToHash() {
+        def executorFactory = Mock(Factory)
+        def cacheAccess = Stub(TaskArtifactStateCacheAccess)
+        def cache = Stub(PersistentIndexedCache)
+        cacheAccess.createCache("fileHashes", _, _) >> cache
+        def snapshotter = new CachingFileSnapshotter(target, DefaultHasher.CACHE_SCHEMA_VERSION, cacheAccess, new StringInterner(), executorFactory)
+
+        given:
+        target.hash(file) >> hash
+
+        when:
+        snapshotter.snapshotAll([element(file)])
+        snapshotter.snapshot(file)
+        snapshotter.stop()
+
+        then:
+        0 * executorFactory._
+    }
+
+    private static FileTreeElement element(File file) {
+        return new DefaultFileTreeElement(file, RelativePath.parse(true, file.name), null, null)
+    }
 }
@@ -19,6 +19,7 @@ package org.gradle.api.internal.changedetection.state
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.cache.internal.MapBackedInMemoryStore
 import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.hash.HashValue
 import org.gradle.internal.serialize.SerializerSpec
 
 class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
@@ -41,6 +42,58 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
         ((FileHashSnapshot) out.snapshots['3']).hash == hash
     }
 
+    def "reads and writes the non-shared tree snapshot"() {
+        def hash = HashUtil.createHash("foo", "md5")
+        def shortHash = new HashValue("ab")
+        def tree = new StoredTreeSnapshot([
+            new FileSnapshotWithKey("/root/dir/b.txt", new FileHashSnapshot(shortHash)),
+            new FileSnapshotWithKey("/root/dir", DirSnapshot.getInstance()),
+            new FileSnapshotWithKey("/root/dir/a.txt", new FileHashSnapshot(hash)),
+            new FileSnapshotWithKey("/root/other/c.txt", MissingFileSnapshot.getInstance())], -1)
+
+        when:
+        FileCollectionSnapshotImpl out = serialize(new FileCollectionSnapshotImpl([tree]), serializer)
+
+        then:
+        !out.empty
+        out.snapshots.size() == 4
+        out.snapshots['/root/dir'] instanceof DirSnapshot
+        out.snapshots['/root/other/c.txt'] instanceof MissingFileSnapshot
+        ((FileHashSnapshot) out.snapshots['/root/dir/a.txt']).hash == hash
+        ((FileHashSnapshot) out.snapshots['/root/dir/b.txt']).hash == shortHash
+    }
+
+    def "decodes the entries of a tree snapshot only when they are queried"() {
+        def tree = new StoredTreeSnapshot([new FileSnapshotWithKey("/root/dir", DirSnapshot.getInstance())], -1)
+
+        when:
+        FileCollectionSnapshotImpl out = serialize(new FileCollectionSnapshotImpl([tree]), serializer)
+        def fileSnapshots = out.treeSnapshots[0].fileSnapshots
+
+        then:
+        fileSnapshots instanceof FileSnapshotTable
+        fileSnapshots.size() == 1
+        fileSnapshots.encoded != null
+        !out.empty
+        fileSnapshots.encoded != null
+
+        when:
+        out.snapshots
+
+        then:
+        fileSnapshots.encoded == null
+        fileSnapshots.collect { it.key } == ["/root/dir"]
+    }
+
+    def "reads and writes an empty snapshot"() {
+        when:
+        FileCollectionSnapshotImpl out = serialize(new FileCollectionSnapshotImpl([:]), serializer)
+
+        then:
+        out.empty
+        out.treeSnapshots.empty
+    }
+
     private static class InMemoryCache extends MapBackedInMemoryStore implements TaskArtifactStateCacheAccess {
 
     }
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.Action
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.FileSystemSubset
+import org.gradle.api.specs.Specs
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.internal.nativeintegration.filesystem.Chmod
+import org.gradle.internal.nativeintegration.filesystem.Stat
+import org.gradle.internal.os.OperatingSystem
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicBoolean
+
+class RetainedDirectoryTreesTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def watcher = Mock(FileWatcher)
+    def fileWatcherFactory = Mock(FileWatcherFactory)
+    def trees = new RetainedDirectoryTrees(fileWatcherFactory)
+    def dir = tmpDir.createDir("root/dir")
+    def file = dir.createFile("a.txt")
+    List<FileTreeElement> entries
+    FileWatcherListener listener
+    Action<? super Throwable> onError
+
+    def setup() {
+        file.text = "content"
+        entries = [entry(file)]
+        _ * fileWatcherFactory.watch(_, _) >> { Action<? super Throwable> action, FileWatcherListener l ->
+            onError = action
+            listener = l
+            return watcher
+        }
+    }
+
+    def "watches directory before it is walked and retains the entries"() {
+        when:
+        def walk = trees.startWalk(dir, null)
+
+        then:
+        1 * watcher.watch({ FileSystemSubset subset -> subset.roots as List == [dir] })
+
+        when:
+        trees.retain(walk, entries)
+
+        then:
+        trees.get(dir, null, true).is(entries)
+        trees.get(dir, new PatternSet().include("**/*.java"), true) == null
+        trees.get(new File(dir, "child"), null, true) == null
+    }
+
+    def "matches trees by patterns"() {
+        given:
+        trees.retain(trees.startWalk(dir, new PatternSet().include("**/*.java").exclude("**/Test*")), entries)
+
+        expect:
+        trees.get(dir, new PatternSet().include("**/*.java").exclude("**/Test*"), true).is(entries)
+        trees.get(dir, new PatternSet().include("**/*.java"), true) == null
+        trees.get(dir, null, true) == null
+    }
+
+    def "watches each directory once"() {
+        when:
+        trees.retain(trees.startWalk(dir, null), entries)
+        trees.retain(trees.startWalk(dir, new PatternSet().include("**/*.java")), entries)
+
+        then:
+        1 * fileWatcherFactory.watch(_, _) >> watcher
+        1 * watcher.watch({ FileSystemSubset subset -> subset.roots as List == [dir] })
+    }
+
+    def "does not retain tree that changes while it is walked"() {
+        given:
+        def walk = trees.startWalk(dir, null)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.modify(new File(dir, "a/b.txt")))
+        trees.retain(walk, entries)
+
+        then:
+        trees.get(dir, null, true) == null
+    }
+
+    def "discards retained tree when a file in the tree changes"() {
+        given:
+        def other = tmpDir.createDir("root/dir2")
+        trees.retain(trees.startWalk(dir, null), entries)
+        trees.retain(trees.startWalk(other, null), entries)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.create(new File(dir, "a/b.txt")))
+
+        then:
+        trees.get(dir, null, true) == null
+        trees.get(other, null, true).is(entries)
+    }
+
+    def "discards retained tree when an ancestor of the tree is deleted and watches the tree again"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.delete(dir.parentFile))
+
+        then:
+        trees.get(dir, null, true) == null
+
+        when:
+        trees.startWalk(dir, null)
+
+        then:
+        1 * watcher.watch(_)
+    }
+
+    def "discards all retained trees on an undefined event"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+
+        then:
+        trees.get(dir, null, true) == null
+    }
+
+    def "discards all retained trees and starts a new watcher when watching fails"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        onError.execute(new RuntimeException("broken"))
+
+        then:
+        trees.get(dir, null, true) == null
+
+        when:
+        trees.startWalk(dir, null)
+
+        then:
+        1 * fileWatcherFactory.watch(_, _) >> watcher
+        1 * watcher.watch({ FileSystemSubset subset -> subset.roots as List == [dir] })
+    }
+
+    def "does not retain tree that can not be watched"() {
+        given:
+        watcher.watch(_) >> { throw new IOException("broken") }
+
+        when:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        then:
+        trees.get(dir, null, true) == null
+    }
+
+    def "discards trees that overlap with paths changed by the build"() {
+        given:
+        def child = dir.createDir("child")
+        def other = tmpDir.createDir("root/dir2")
+        trees.retain(trees.startWalk(dir, null), entries)
+        trees.retain(trees.startWalk(child, null), entries)
+        trees.retain(trees.startWalk(other, null), entries)
+
+        when:
+        trees.invalidate([new File(dir, "child/some-file").absolutePath])
+
+        then:
+        trees.get(dir, null, true) == null
+        trees.get(child, null, true) == null
+        trees.get(other, null, true).is(entries)
+    }
+
+    def "discards retained tree when a file has changed but the event has not been delivered yet"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        file.text = "new content"
+
+        then:
+        trees.get(dir, null, false) == null
+    }
+
+    def "discards retained tree when a file has been added but the event has not been delivered yet"() {
+        given:
+        def lastModified = dir.lastModified()
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        dir.createFile("b.txt")
+        dir.setLastModified(lastModified - 2000)
+
+        then:
+        trees.get(dir, null, false) == null
+    }
+
+    def "watches directory again once its retained trees have been discarded"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+        trees.retain(trees.startWalk(dir, new PatternSet().include("**/*.java")), entries)
+
+        when:
+        trees.invalidate([file.absolutePath])
+        trees.startWalk(dir, null)
+
+        then:
+        1 * watcher.watch(_)
+    }
+
+    def "keeps watching directory while a retained tree of the directory remains"() {
+        given:
+        def other = tmpDir.createDir("root/dir2")
+        trees.retain(trees.startWalk(dir, null), entries)
+        trees.retain(trees.startWalk(other, null), entries)
+
+        when:
+        file.text = "new content"
+        trees.get(dir, null, false)
+        trees.startWalk(dir, null)
+        trees.startWalk(other, new PatternSet().include("**/*.java"))
+
+        then:
+        1 * watcher.watch({ FileSystemSubset subset -> subset.roots as List == [dir] })
+        0 * watcher.watch(_)
+    }
+
+    def "only retains trees filtered by patterns"() {
+        expect:
+        RetainedDirectoryTrees.canRetain(null)
+        RetainedDirectoryTrees.canRetain(new PatternSet().include("**/*.java"))
+        !RetainedDirectoryTrees.canRetain(new PatternSet().include(Specs.satisfyAll()))
+    }
+
+    def "stops watcher"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        trees.stop()
+
+        then:
+        1 * watcher.stop()
+        trees.get(dir, null, true) == null
+    }
+
+    def "reuses retained tree without reading the file system once synced with the file system events"() {
+        given:
+        def files = (1..10).collect { dir.createFile("file${it}.txt") }
+        entries = files.collect { entry(it) }
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        when:
+        def reused = trees.get(dir, null, true)
+
+        then:
+        reused.is(entries)
+        trees.fileChecks == 0
+
+        when:
+        reused = trees.get(dir, null, false)
+
+        then:
+        reused.is(entries)
+        trees.fileChecks == 10
+    }
+
+    @IgnoreIf({ OperatingSystem.current().macOsX })
+    def "sync waits until the watcher has reported a marker file"() {
+        given:
+        File syncDir = null
+        watcher.watch(_) >> { FileSystemSubset subset ->
+            if (syncDir == null) {
+                syncDir = subset.roots.first()
+            }
+        }
+        trees.retain(trees.startWalk(dir, null), entries)
+        def reported = [] as Set
+        def reporter = Thread.start {
+            while (reported.size() < 2) {
+                syncDir.listFiles().each { File marker ->
+                    if (reported.add(marker.name)) {
+                        listener.onChange(watcher, FileWatcherEvent.create(marker))
+                    }
+                }
+                Thread.sleep(5)
+            }
+        }
+
+        expect:
+        trees.sync()
+
+        cleanup:
+        reporter?.join(5000)
+    }
+
+    def "falls back to checking retained trees against the file system when the watcher does not report the marker file"() {
+        given:
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        expect:
+        !trees.sync()
+        !trees.sync()
+    }
+
+    def "sync does not wait while nothing is watched"() {
+        when:
+        def synced = trees.sync()
+
+        then:
+        synced
+        0 * fileWatcherFactory.watch(_, _)
+    }
+
+    def "stops watching further trees once the maximum number of directories is watched"() {
+        given:
+        trees = new RetainedDirectoryTrees(fileWatcherFactory, 3)
+        def other = tmpDir.createDir("root/dir2")
+        def subDirs = [dir.createDir("a"), dir.createDir("b")]
+        trees.retain(trees.startWalk(dir, null), entries + subDirs.collect { entry(it) })
+
+        when:
+        trees.retain(trees.startWalk(other, null), entries)
+
+        then:
+        0 * watcher.watch(_)
+        trees.get(other, null, true) == null
+        trees.get(dir, null, true) != null
+
+        when:
+        trees.invalidate([dir.absolutePath])
+        trees.retain(trees.startWalk(dir, null), entries)
+
+        then:
+        trees.get(dir, null, true) != null
+    }
+
+    private FileTreeElement entry(File file) {
+        // Use the timestamp with the precision of the directory walker
+        long lastModified = Files.getLastModifiedTime(file.toPath()).toMillis()
+        return new DefaultFileVisitDetails(file, RelativePath.parse(!file.directory, file.name), new AtomicBoolean(), Stub(Chmod), Stub(Stat), file.directory, lastModified, file.length())
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import org.gradle.internal.hash.HashValue
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.TypeReference
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ClassAbiHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def contentHasher = new DefaultHasher()
+    def hasher = new ClassAbiHasher(contentHasher)
+
+    def "class files with the same ABI have the same hash"() {
+        expect:
+        hashClass { method(it, Opcodes.ACC_PUBLIC, "get", 1) } == hashClass { method(it, Opcodes.ACC_PUBLIC, "get", 2) }
+        hashClass { method(it, Opcodes.ACC_PUBLIC, "get", 1) } == hashClass {
+            method(it, Opcodes.ACC_PUBLIC, "get", 1)
+            method(it, Opcodes.ACC_PRIVATE, "helper", 3)
+            it.visitField(Opcodes.ACC_PRIVATE, "cache", "I", null, null).visitEnd()
+        }
+        hashClass {
+            method(it, Opcodes.ACC_PUBLIC, "a", 1)
+            method(it, Opcodes.ACC_PUBLIC, "b", 1)
+        } == hashClass {
+            method(it, Opcodes.ACC_PUBLIC, "b", 1)
+            method(it, Opcodes.ACC_PUBLIC, "a", 1)
+        }
+    }
+
+    def "class files with different ABIs have different hashes"() {
+        def base = hashClass { method(it, Opcodes.ACC_PUBLIC, "get", 1) }
+
+        expect:
+        base != hashClass { method(it, Opcodes.ACC_PUBLIC, "getValue", 1) }
+        base != hashClass { method(it, Opcodes.ACC_PROTECTED, "get", 1) }
+        base != hashClass {
+            method(it, Opcodes.ACC_PUBLIC, "get", 1)
+            method(it, 0, "packagePrivate", 1)
+        }
+        base != hashClass {
+            method(it, Opcodes.ACC_PUBLIC, "get", 1)
+            it.visitAnnotation("Ljava/lang/Deprecated;", true).visitEnd()
+        }
+    }
+
+    def "parameter and type annotations are part of the ABI"() {
+        def annotatedMethod = { String parameterAnnotation, String returnTypeAnnotation ->
+            hashClass {
+                def method = it.visitMethod(Opcodes.ACC_PUBLIC, "set", "(I)V", null, null)
+                if (parameterAnnotation) {
+                    method.visitParameterAnnotation(0, parameterAnnotation, true).visitEnd()
+                }
+                if (returnTypeAnnotation) {
+                    method.visitTypeAnnotation(TypeReference.newTypeReference(TypeReference.METHOD_RETURN).value, null, returnTypeAnnotation, true).visitEnd()
+                }
+                method.visitEnd()
+            }
+        }
+        def base = annotatedMethod(null, null)
+
+        expect:
+        base == annotatedMethod(null, null)
+        base != annotatedMethod("LNonNull;", null)
+        annotatedMethod("LNonNull;", null) != annotatedMethod("LNullable;", null)
+        base != annotatedMethod(null, "LNonNull;")
+        annotatedMethod(null, "LNonNull;") != annotatedMethod("LNonNull;", null)
+    }
+
+    def "constant values are part of the ABI"() {
+        def constant = { value ->
+            hashClass { it.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "VALUE", "I", null, value).visitEnd() }
+        }
+
+        expect:
+        constant(1) == constant(1)
+        constant(1) != constant(2)
+    }
+
+    def "jars with the same ABI have the same hash"() {
+        def jar1 = jar("lib1.jar", ["Foo.class": classBytes { method(it, Opcodes.ACC_PUBLIC, "get", 1) }, "META-INF/MANIFEST.MF": "Built-At: 1".bytes])
+        def jar2 = jar("lib2.jar", ["Foo.class": classBytes { method(it, Opcodes.ACC_PUBLIC, "get", 2) }, "META-INF/MANIFEST.MF": "Built-At: 2".bytes, 'Foo$1.class': anonymousClassBytes()])
+
+        expect:
+        hasher.hash(jar1) == hasher.hash(jar2)
+    }
+
+    def "jars with different ABIs or resources have different hashes"() {
+        def fooBytes = classBytes { method(it, Opcodes.ACC_PUBLIC, "get", 1) }
+        def base = hasher.hash(jar("lib.jar", ["Foo.class": fooBytes, "foo.properties": "a=1".bytes]))
+
+        expect:
+        base != hasher.hash(jar("lib1.jar", ["Foo.class": classBytes { method(it, Opcodes.ACC_PUBLIC, "getValue", 1) }, "foo.properties": "a=1".bytes]))
+        base != hasher.hash(jar("lib2.jar", ["Foo.class": fooBytes, "foo.properties": "a=2".bytes]))
+        base != hasher.hash(jar("lib3.jar", ["Bar.class": fooBytes, "foo.properties": "a=1".bytes]))
+    }
+
+    def "uses content hash for jars that provide an annotation processor"() {
+        def jar = jar("processor.jar", ["Foo.class": classBytes { method(it, Opcodes.ACC_PUBLIC, "get", 1) }, "META-INF/services/javax.annotation.processing.Processor": "Foo".bytes])
+
+        expect:
+        hasher.hash(jar) == contentHasher.hash(jar)
+    }
+
+    def "detects jars that provide an annotation processor"() {
+        def processorJar = jar("processor.jar", ["META-INF/services/javax.annotation.processing.Processor": "Foo".bytes])
+        def libraryJar = jar("lib.jar", ["Foo.class": classBytes { method(it, Opcodes.ACC_PUBLIC, "get", 1) }])
+        def notAJar = tmpDir.file("broken.jar")
+        notAJar.text = "not a jar"
+
+        expect:
+        ClassAbiHasher.providesAnnotationProcessor(processorJar)
+        !ClassAbiHasher.providesAnnotationProcessor(libraryJar)
+        !ClassAbiHasher.providesAnnotationProcessor(notAJar)
+        !ClassAbiHasher.providesAnnotationProcessor(tmpDir.file("missing.jar"))
+    }
+
+    def "uses content hash for other files"() {
+        def file = tmpDir.file("foo.properties")
+        file.text = "a=1"
+        def notAJar = tmpDir.file("broken.jar")
+        notAJar.text = "not a jar"
+
+        expect:
+        hasher.hash(file) == contentHasher.hash(file)
+        hasher.hash(notAJar) == contentHasher.hash(notAJar)
+    }
+
+    private HashValue hashClass(Closure members) {
+        def file = tmpDir.file("classes${System.nanoTime()}/Foo.class")
+        file.parentFile.mkdirs()
+        file.bytes = classBytes(members)
+        return hasher.hash(file)
+    }
+
+    private static byte[] classBytes(Closure members) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "Foo", null, "java/lang/Object", null)
+        members.call(writer)
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static byte[] anonymousClassBytes() {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, 0, 'Foo$1', null, "java/lang/Object", null)
+        writer.visitInnerClass('Foo$1', null, null, 0)
+        method(writer, 0, "run", 1)
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static void method(ClassWriter writer, int access, String name, int returnValue) {
+        def method = writer.visitMethod(access, name, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(1, 1)
+        method.visitEnd()
+    }
+
+    private TestFile jar(String name, Map<String, byte[]> entries) {
+        def file = tmpDir.file(name)
+        def output = new ZipOutputStream(new FileOutputStream(file))
+        try {
+            entries.each { entryName, content ->
+                output.putNextEntry(new ZipEntry(entryName))
+                output.write(content)
+                output.closeEntry()
+            }
+        } finally {
+            output.close()
+        }
+        return file
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.hash
+
+import com.google.common.hash.Hashing
+import org.gradle.api.UncheckedIOException
+import org.gradle.internal.hash.HashValue
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class Murmur3HasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def hasher = new Murmur3Hasher()
+
+    def "hashes content of file"() {
+        def file = tmpDir.file("file")
+        file.bytes = content
+
+        expect:
+        hasher.hash(file) == new HashValue(Hashing.murmur3_128().hashBytes(content).asBytes())
+
+        where:
+        content << [new byte[0], "some content".bytes, largeContent()]
+    }
+
+    def "files with different content have different hashes"() {
+        def file1 = tmpDir.file("file1")
+        file1.text = "content 1"
+        def file2 = tmpDir.file("file2")
+        file2.text = "content 2"
+
+        expect:
+        hasher.hash(file1) != hasher.hash(file2)
+        hasher.hash(file1) == hasher.hash(file1)
+    }
+
+    def "fails when file does not exist"() {
+        def file = tmpDir.file("missing")
+
+        when:
+        hasher.hash(file)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create Murmur3 hash for file ${file.absolutePath}."
+    }
+
+    private static byte[] largeContent() {
+        def bytes = new byte[200 * 1024 + 17]
+        new Random(42).nextBytes(bytes)
+        return bytes
+    }
+}
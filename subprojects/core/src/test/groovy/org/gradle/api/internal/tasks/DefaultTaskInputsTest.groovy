@@ -110,6 +110,28 @@ class DefaultTaskInputsTest extends Specification {
         ex.message == "Multiple input file properties with name 'alma'"
     }
 
+    def "can declare that task discovers inputs"() {
+        expect:
+        !inputs.discoversInputs
+
+        when:
+        inputs.discoversInputs()
+
+        then:
+        inputs.discoversInputs
+    }
+
+    def "can register compile classpath"() {
+        when:
+        inputs.files("a").withPropertyName("classpath").compileClasspath()
+        inputs.files("b").withPropertyName("source")
+        inputs.files("c").compileClasspath()
+
+        then:
+        inputs.compileClasspathPropertyNames == ['$1', 'classpath'] as Set
+        inputs.fileProperties.keySet().toList() == ['$1', 'classpath', 'source']
+    }
+
     def canRegisterInputProperty() {
         when:
         inputs.property('a', 'value')
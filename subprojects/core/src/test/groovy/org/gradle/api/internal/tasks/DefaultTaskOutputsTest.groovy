@@ -19,6 +19,7 @@ import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.TaskExecutionHistory
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.file.FileResolver
+import org.gradle.api.specs.Spec
 import org.gradle.util.UsesNativeServices
 import spock.lang.Specification
 
@@ -191,6 +192,28 @@ class DefaultTaskOutputsTest extends Specification {
         outputs.upToDateSpec.isSatisfiedBy(task)
     }
 
+    def "caching is disabled by default"() {
+        expect:
+        !outputs.cacheEnabled
+    }
+
+    def "caching is enabled when all cacheIf predicates are satisfied"() {
+        boolean cacheable = true
+
+        when:
+        outputs.cacheIf({ true } as Spec)
+        outputs.cacheIf({ cacheable } as Spec)
+
+        then:
+        outputs.cacheEnabled
+
+        when:
+        cacheable = false
+
+        then:
+        !outputs.cacheEnabled
+    }
+
     public void getPreviousFilesDelegatesToTaskHistory() {
         TaskExecutionHistory history = Mock()
         FileCollection outputFiles = Mock()
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import com.google.common.base.Charsets
+import com.google.common.hash.HashCode
+import com.google.common.hash.Hashing
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class LocalDirectoryTaskOutputCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def cacheDir = temporaryFolder.file("cache")
+
+    def "stores and loads entries"() {
+        def cache = new LocalDirectoryTaskOutputCache(cacheDir, 1024)
+        def key = key("a")
+
+        when:
+        cache.store(key, writer("content"))
+        def loaded = null
+        def found = cache.load(key, { input -> loaded = input.text } as TaskOutputReader)
+
+        then:
+        found
+        loaded == "content"
+        cacheDir.file(key.toString()).file
+    }
+
+    def "reports missing entries"() {
+        def cache = new LocalDirectoryTaskOutputCache(cacheDir, 1024)
+        def reader = Mock(TaskOutputReader)
+
+        when:
+        def found = cache.load(key("missing"), reader)
+
+        then:
+        !found
+        0 * reader._
+    }
+
+    def "evicts least recently used entries when size limit is exceeded"() {
+        def cache = new LocalDirectoryTaskOutputCache(cacheDir, 20)
+
+        when:
+        cache.store(key("a"), writer("0123456789"))
+        cacheDir.file(key("a").toString()).lastModified = 1000
+        cache.store(key("b"), writer("0123456789"))
+        cacheDir.file(key("b").toString()).lastModified = 2000
+        cache.store(key("c"), writer("0123456789"))
+
+        then:
+        !cacheDir.file(key("a").toString()).exists()
+        cacheDir.file(key("b").toString()).exists()
+        cacheDir.file(key("c").toString()).exists()
+    }
+
+    def "does not leave temporary files behind"() {
+        def cache = new LocalDirectoryTaskOutputCache(cacheDir, 1024)
+
+        when:
+        cache.store(key("a"), { output -> throw new IOException("broken") } as TaskOutputWriter)
+
+        then:
+        thrown(IOException)
+        cacheDir.list().length == 0
+    }
+
+    private static HashCode key(String value) {
+        Hashing.md5().hashString(value, Charsets.UTF_8)
+    }
+
+    private static TaskOutputWriter writer(String content) {
+        { output -> output << content } as TaskOutputWriter
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ZipTaskOutputPackerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def packer = new ZipTaskOutputPacker()
+
+    def "restores output files and directories"() {
+        def outputFile = temporaryFolder.file("build/output.txt")
+        def outputDir = temporaryFolder.file("build/classes")
+        outputFile.text = "output"
+        outputDir.file("org/gradle/A.class").text = "A"
+        outputDir.file("org/gradle/B.class").text = "B"
+        outputDir.file("empty").createDir()
+        def roots = new TreeMap([file: outputFile, dir: outputDir])
+        def packed = new ByteArrayOutputStream()
+
+        when:
+        packer.pack(roots, packed)
+        outputFile.text = "changed"
+        outputDir.file("org/gradle/B.class").delete()
+        outputDir.file("org/gradle/C.class").text = "stale"
+        packer.unpack(roots, new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        outputFile.text == "output"
+        outputDir.file("org/gradle/A.class").text == "A"
+        outputDir.file("org/gradle/B.class").text == "B"
+        !outputDir.file("org/gradle/C.class").exists()
+        outputDir.file("empty").isDirectory()
+    }
+
+    def "removes outputs that did not exist when packed"() {
+        def outputFile = temporaryFolder.file("build/output.txt")
+        def roots = new TreeMap([file: outputFile])
+        def packed = new ByteArrayOutputStream()
+
+        when:
+        packer.pack(roots, packed)
+        outputFile.text = "created later"
+        packer.unpack(roots, new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        !outputFile.exists()
+    }
+
+    def "fails to unpack entries for unknown properties"() {
+        def outputFile = temporaryFolder.file("build/output.txt")
+        outputFile.text = "output"
+        def packed = new ByteArrayOutputStream()
+        packer.pack(new TreeMap([file: outputFile]), packed)
+
+        when:
+        packer.unpack(new TreeMap([other: outputFile]), new ByteArrayInputStream(packed.toByteArray()))
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Cached entry 'file' does not belong to any output property."
+    }
+}
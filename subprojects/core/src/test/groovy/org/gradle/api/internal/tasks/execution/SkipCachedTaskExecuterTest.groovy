@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import com.google.common.hash.HashCode
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.api.internal.tasks.cache.TaskOutputCache
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker
+import spock.lang.Specification
+
+class SkipCachedTaskExecuterTest extends Specification {
+    def delegate = Mock(TaskExecuter)
+    def outputs = Mock(TaskOutputsInternal)
+    def task = Mock(TaskInternal)
+    def taskState = Mock(TaskStateInternal)
+    def taskContext = Mock(TaskExecutionContext)
+    def taskArtifactState = Mock(TaskArtifactState)
+    def cache = Mock(TaskOutputCache)
+    def packer = Mock(TaskOutputPacker)
+    def outputFiles = Mock(FileCollection)
+    def outputFile = new File("output")
+    def cacheKey = HashCode.fromInt(123)
+
+    def executer = new SkipCachedTaskExecuter(cache, packer, delegate)
+
+    def "skips task when cached outputs are found"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> true
+        1 * task.outputs >> outputs
+        1 * outputs.fileProperties >> new TreeMap([output: outputFiles])
+        1 * outputFiles.files >> ([outputFile] as Set)
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+
+        then:
+        1 * cache.load(cacheKey, _) >> true
+        _ * cache.description >> "cache"
+        1 * taskState.cached()
+        0 * _
+    }
+
+    def "executes task and stores outputs when no cached outputs are found"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> true
+        1 * task.outputs >> outputs
+        1 * outputs.fileProperties >> new TreeMap([output: outputFiles])
+        1 * outputFiles.files >> ([outputFile] as Set)
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.failure >> null
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.hasDiscoveredInputs() >> false
+
+        then:
+        1 * cache.store(cacheKey, _)
+        _ * cache.description >> "cache"
+        0 * _
+    }
+
+    def "does not store outputs when task fails"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> true
+        1 * task.outputs >> outputs
+        1 * outputs.fileProperties >> new TreeMap([output: outputFiles])
+        1 * outputFiles.files >> ([outputFile] as Set)
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.failure >> new RuntimeException()
+        _ * cache.description >> "cache"
+        0 * _
+    }
+
+    def "does not store outputs when task registered discovered inputs"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> true
+        1 * task.outputs >> outputs
+        1 * outputs.fileProperties >> new TreeMap([output: outputFiles])
+        1 * outputFiles.files >> ([outputFile] as Set)
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.failure >> null
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.hasDiscoveredInputs() >> true
+        _ * cache.description >> "cache"
+        0 * _
+    }
+
+    def "executes task without caching when caching is not enabled for the task"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+
+    def "executes task without caching when no cache key can be calculated"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> true
+        1 * task.outputs >> outputs
+        1 * outputs.fileProperties >> new TreeMap([output: outputFiles])
+        1 * outputFiles.files >> ([outputFile] as Set)
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> null
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+
+    def "executes task when cached outputs cannot be loaded"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheEnabled >> true
+        1 * task.outputs >> outputs
+        1 * outputs.fileProperties >> new TreeMap([output: outputFiles])
+        1 * outputFiles.files >> ([outputFile] as Set)
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * cache.load(cacheKey, _) >> { throw new IOException("broken") }
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.failure >> null
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.hasDiscoveredInputs() >> false
+        1 * cache.store(cacheKey, _)
+        _ * cache.description >> "cache"
+        0 * _
+    }
+}
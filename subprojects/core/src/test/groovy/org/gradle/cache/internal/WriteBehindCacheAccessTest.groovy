@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CacheAccess
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.concurrent.StoppableExecutor
+import spock.lang.Specification
+
+class WriteBehindCacheAccessTest extends Specification {
+    def cacheAccess = Mock(CacheAccess)
+    def executor = Mock(StoppableExecutor)
+    def backingCache = Mock(PersistentIndexedCache)
+    def writeBehind = new WriteBehindCacheAccess("test cache", cacheAccess, executor)
+    def cache = writeBehind.decorate(backingCache)
+    def scheduled = []
+
+    def setup() {
+        _ * cacheAccess.useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        _ * executor.execute(_) >> { Runnable action -> scheduled << action }
+    }
+
+    def "queues updates and writes them from background thread"() {
+        when:
+        cache.put("a", "1")
+        cache.put("b", "2")
+
+        then:
+        0 * backingCache._
+        scheduled.size() == 1
+
+        when:
+        scheduled[0].run()
+
+        then:
+        1 * backingCache.put("a", "1")
+
+        then:
+        1 * backingCache.put("b", "2")
+        0 * backingCache._
+    }
+
+    def "readers see pending updates"() {
+        when:
+        cache.put("a", "1")
+        cache.remove("b")
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == null
+        0 * backingCache._
+
+        when:
+        def value = cache.get("c")
+
+        then:
+        1 * backingCache.get("c") >> "3"
+        value == "3"
+    }
+
+    def "reads from backing cache once pending update has been written"() {
+        given:
+        cache.put("a", "1")
+        writeBehind.flush()
+
+        when:
+        def value = cache.get("a")
+
+        then:
+        1 * backingCache.get("a") >> "1"
+        value == "1"
+    }
+
+    def "flush writes pending updates in order and skips superseded updates"() {
+        given:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.put("a", "3")
+        cache.remove("c")
+
+        when:
+        writeBehind.flush()
+
+        then:
+        1 * backingCache.put("b", "2")
+
+        then:
+        1 * backingCache.put("a", "3")
+
+        then:
+        1 * backingCache.remove("c")
+        0 * backingCache._
+
+        when:
+        scheduled[0].run()
+
+        then:
+        0 * backingCache._
+    }
+
+    def "schedules another background write for updates made after pending updates are written"() {
+        when:
+        cache.put("a", "1")
+        scheduled[0].run()
+        cache.put("b", "2")
+
+        then:
+        scheduled.size() == 2
+    }
+
+    def "rethrows failure to write update from next flush"() {
+        def failure = new RuntimeException("broken")
+
+        given:
+        backingCache.put("a", "1") >> { throw failure }
+
+        when:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        scheduled[0].run()
+
+        then:
+        1 * backingCache.put("b", "2")
+
+        when:
+        writeBehind.flush()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        when:
+        writeBehind.flush()
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "stop writes pending updates and stops executor"() {
+        given:
+        cache.put("a", "1")
+
+        when:
+        writeBehind.stop()
+
+        then:
+        1 * backingCache.put("a", "1")
+
+        then:
+        1 * executor.stop()
+    }
+}
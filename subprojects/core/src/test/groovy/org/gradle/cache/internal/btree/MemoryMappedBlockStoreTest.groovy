@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class MemoryMappedBlockStoreTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheFile = tmpDir.file("cache.bin")
+    def serializer = new DefaultSerializer<String>()
+
+    def "persists entries across region boundaries"() {
+        def cache = mappedCache(1024)
+
+        when:
+        (1..500).each { cache.put("key_$it", "value_$it") }
+        cache.reset()
+
+        then:
+        (1..500).every { cache.get("key_$it") == "value_$it" }
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "truncates file to content size on close"() {
+        def cache = mappedCache(1024)
+
+        when:
+        cache.put("key", "value")
+        cache.close()
+
+        then:
+        cacheFile.length() < 1024
+    }
+
+    def "does not take padding for content when reopened after the store was not closed"() {
+        def closedFile = tmpDir.file("closed.bin")
+        def closedStore = openStore(closedFile)
+        def store = openStore(cacheFile)
+        def blocks = (1..20).collect { new TestPayload(value: "block_$it") }
+
+        when:
+        blocks.each { closedStore.write(attach(closedStore, new TestPayload(value: it.value))) }
+        closedStore.close()
+        blocks.each { store.write(attach(store, it)) }
+        // Do not close the store, as if the process had crashed
+        def reopened = openStore(cacheFile)
+        def added = attach(reopened, new TestPayload(value: "added"))
+        reopened.write(added)
+
+        then:
+        cacheFile.length() > closedFile.length()
+        added.pos.pos == closedFile.length()
+        blocks.every { reopened.read(it.pos, TestPayload).value == it.value }
+        reopened.read(added.pos, TestPayload).value == "added"
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "can read cache written by file backed store and vice versa"() {
+        when:
+        def fileCache = fileBackedCache()
+        (1..100).each { fileCache.put("key_$it", "value_$it") }
+        fileCache.close()
+        def cache = mappedCache(512)
+        (101..200).each { cache.put("key_$it", "value_$it") }
+        cache.close()
+        fileCache = fileBackedCache()
+
+        then:
+        (1..200).every { fileCache.get("key_$it") == "value_$it" }
+        fileCache.verify()
+
+        cleanup:
+        fileCache.close()
+    }
+
+    def "blocks can be read concurrently"() {
+        def store = new MemoryMappedBlockStore(cacheFile, 256)
+        store.open({} as Runnable, { type -> new TestPayload() } as BlockStore.Factory)
+        def blocks = (1..200).collect { new TestPayload(value: "block_$it") }
+        blocks.each { store.attach(it); store.write(it) }
+        def reader = { blocks.every { store.read(it.pos, TestPayload).value == it.value } } as Callable<Boolean>
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def results = executor.invokeAll([reader] * 8)
+
+        then:
+        results*.get().every()
+
+        cleanup:
+        executor.shutdown()
+        store.close()
+    }
+
+    private static MemoryMappedBlockStore openStore(File file) {
+        def store = new MemoryMappedBlockStore(file, 256)
+        store.open({} as Runnable, { type -> new TestPayload() } as BlockStore.Factory)
+        return store
+    }
+
+    private static TestPayload attach(BlockStore store, TestPayload payload) {
+        store.attach(payload)
+        return payload
+    }
+
+    private BTreePersistentIndexedCache<String, String> mappedCache(int regionSize) {
+        new BTreePersistentIndexedCache<String, String>(cacheFile, serializer, serializer, (short) 4, 100, new MemoryMappedBlockStore(cacheFile, regionSize), 10)
+    }
+
+    private BTreePersistentIndexedCache<String, String> fileBackedCache() {
+        new BTreePersistentIndexedCache<String, String>(cacheFile, serializer, serializer, (short) 4, 100)
+    }
+
+    static class TestPayload extends BlockPayload {
+        String value
+
+        @Override
+        protected int getSize() {
+            return 2 + value.getBytes("UTF-8").length
+        }
+
+        @Override
+        protected int getType() {
+            return 0x55
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) throws Exception {
+            value = inputStream.readUTF()
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) throws Exception {
+            outputStream.writeUTF(value)
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.Task
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.initialization.BuildCancellationToken
+import spock.lang.Specification
+
+import static org.gradle.util.TestUtil.createChildProject
+import static org.gradle.util.TestUtil.createRootProject
+
+class DefaultTaskExecutionPlanPrioritySchedulingTest extends Specification {
+    DefaultTaskExecutionPlan executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false, true)
+    ProjectInternal root = createRootProject()
+
+    private void addToGraphAndPopulate(Task... tasks) {
+        executionPlan.addToTaskGraph(Arrays.asList(tasks))
+        executionPlan.determineExecutionPlan()
+    }
+
+    def "starts the task with the longest chain of dependents first"() {
+        given:
+        def a = root.task("a")
+        def d = root.task("d")
+        def c = root.task("c").dependsOn(d)
+        def b = root.task("b").dependsOn(c)
+
+        when:
+        addToGraphAndPopulate(a, b)
+
+        then:
+        executedTasks == [d, c, a, b]
+    }
+
+    def "ranks tasks by critical path across projects"() {
+        given:
+        def p1 = createChildProject(root, "p1")
+        def p2 = createChildProject(root, "p2")
+        def short1 = p1.task("a")
+        def long1 = p2.task("z")
+        def long2 = p2.task("y").dependsOn(long1)
+        def long3 = p1.task("x").dependsOn(long2)
+
+        when:
+        addToGraphAndPopulate(short1, long3)
+        def first = executionPlan.taskToExecute
+        def second = executionPlan.taskToExecute
+
+        then:
+        first.task == long1
+        second.task == short1
+
+        when:
+        executionPlan.taskComplete(first)
+        executionPlan.taskComplete(second)
+
+        then:
+        executedTasks == [long2, long3]
+    }
+
+    def "does not hand out a task until its dependencies have completed"() {
+        given:
+        def p1 = createChildProject(root, "p1")
+        def p2 = createChildProject(root, "p2")
+        def a = p1.task("a")
+        def b = p2.task("b").dependsOn(a)
+
+        when:
+        addToGraphAndPopulate(b)
+        def first = executionPlan.taskToExecute
+
+        then:
+        first.task == a
+        first.isComplete() == false
+
+        when:
+        executionPlan.taskComplete(first)
+
+        then:
+        executedTasks == [b]
+    }
+
+    def "honours must run after ordering"() {
+        given:
+        def a = root.task("a")
+        def c = root.task("c")
+        def b = root.task("b").mustRunAfter(a).dependsOn(c)
+
+        when:
+        addToGraphAndPopulate(a, b)
+
+        then:
+        executedTasks == [a, c, b]
+    }
+
+    def "skips dependents of a failed task and completes"() {
+        given:
+        def a = root.task("a")
+        def b = root.task("b").dependsOn(a)
+        def failure = new RuntimeException("broken")
+
+        when:
+        addToGraphAndPopulate(b)
+        def first = executionPlan.taskToExecute
+        first.executionFailure = failure
+        executionPlan.taskComplete(first)
+
+        then:
+        executionPlan.taskToExecute == null
+
+        when:
+        executionPlan.awaitCompletion()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+    }
+
+    def "runs finalizer once finalized task has completed"() {
+        given:
+        def f = root.task("f")
+        def a = root.task("a").finalizedBy(f)
+
+        when:
+        addToGraphAndPopulate(a)
+
+        then:
+        executedTasks == [a, f]
+    }
+
+    List<Task> getExecutedTasks() {
+        def tasks = []
+        def taskInfo
+        while ((taskInfo = executionPlan.taskToExecute) != null) {
+            tasks << taskInfo.task
+            executionPlan.taskComplete(taskInfo)
+        }
+        return tasks
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.execution.taskgraph
+
+import groovy.json.JsonSlurper
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.TimeProvider
+import spock.lang.Specification
+
+import static org.gradle.util.TestUtil.createRootProject
+
+class TaskExecutionAnalysisTest extends Specification {
+    long now = 100
+    DefaultTaskExecutionPlan executionPlan = new DefaultTaskExecutionPlan(Stub(BuildCancellationToken), false, false, { now } as TimeProvider)
+    ProjectInternal root = createRootProject()
+
+    def "calculates critical path and worker usage"() {
+        given:
+        def a = root.task("a")
+        def y = root.task("y")
+        def z = root.task("z").dependsOn(y)
+        executionPlan.addToTaskGraph([a, z])
+        executionPlan.determineExecutionPlan()
+
+        when:
+        def startTime = now
+        executeAll()
+        def analysis = TaskExecutionAnalysis.analyze(executionPlan.taskInfos, startTime, now)
+
+        then:
+        analysis.tasks*.path == [":a", ":y", ":z"]
+        analysis.criticalPath*.path == [":y", ":z"]
+
+        and:
+        analysis.tasks*.readyTime == [100, 100, 130]
+        analysis.tasks*.startTime == [100, 120, 140]
+        analysis.tasks*.endTime == [110, 130, 150]
+        analysis.criticalPathWaitTime == 30
+
+        and:
+        analysis.workers.size() == 1
+        def worker = analysis.workers[0]
+        worker.name == Thread.currentThread().name
+        worker.taskCount == 3
+        worker.busyTime == analysis.tasks*.duration.sum()
+        worker.idleTime == analysis.endTime - analysis.startTime - worker.busyTime
+    }
+
+    def "records when a task becomes ready after the task it must run after"() {
+        given:
+        def a = root.task("a")
+        def b = root.task("b").mustRunAfter(a)
+        executionPlan.addToTaskGraph([a, b])
+        executionPlan.determineExecutionPlan()
+
+        when:
+        executeAll()
+        def analysis = TaskExecutionAnalysis.analyze(executionPlan.taskInfos, 100, now)
+
+        then:
+        analysis.tasks*.path == [":a", ":b"]
+        analysis.tasks*.readyTime == [100, 110]
+        analysis.tasks[1].waitTime == 10
+    }
+
+    def "ignores tasks that were not executed"() {
+        given:
+        def a = root.task("a")
+        def b = root.task("b").dependsOn(a)
+        executionPlan.addToTaskGraph([b])
+        executionPlan.determineExecutionPlan()
+
+        when:
+        def taskInfo = executionPlan.taskToExecute
+        taskInfo.executionFailure = new RuntimeException()
+        executionPlan.taskComplete(taskInfo)
+        def analysis = TaskExecutionAnalysis.analyze(executionPlan.taskInfos, 0, now)
+
+        then:
+        analysis.tasks*.path == [":a"]
+        analysis.tasks[0].failed
+        analysis.criticalPath*.path == [":a"]
+    }
+
+    def "writes analysis as json"() {
+        given:
+        def a = root.task("a")
+        def b = root.task("b").dependsOn(a)
+        executionPlan.addToTaskGraph([b])
+        executionPlan.determineExecutionPlan()
+        def startTime = now
+        executeAll()
+        def analysis = TaskExecutionAnalysis.analyze(executionPlan.taskInfos, startTime, now)
+
+        when:
+        def writer = new StringWriter()
+        analysis.writeJson(writer)
+        def json = new JsonSlurper().parseText(writer.toString())
+
+        then:
+        json.startTimestamp == startTime
+        json.tasks*.path == [":a", ":b"]
+        json.tasks*.worker == [Thread.currentThread().name] * 2
+        json.tasks.every { it.readyTime <= it.startTime && it.startTime <= it.endTime && !it.failed }
+        json.criticalPath.tasks == [":a", ":b"]
+        json.criticalPath.waitTime == analysis.criticalPathWaitTime
+        json.workers*.name == [Thread.currentThread().name]
+        json.workers[0].tasks == 2
+    }
+
+    private void executeAll() {
+        def taskInfo
+        while ((taskInfo = executionPlan.taskToExecute) != null) {
+            now += 10
+            executionPlan.taskComplete(taskInfo)
+            now += 10
+        }
+    }
+}
@@ -72,6 +72,22 @@ class DefaultBuildOperationExecutorTest extends ConcurrentSpec {
         }
     }
 
+    def "makes operation descriptor available to listeners"() {
+        def descriptor = new Object()
+        def operationDetails = BuildOperationDetails.displayName("<some-operation>").operationDescriptor(descriptor).build()
+
+        when:
+        operationExecutor.run(operationDetails, Mock(Runnable))
+
+        then:
+        1 * listener.started(_, _) >> { BuildOperationInternal operation, OperationStartEvent start ->
+            assert operation.operationDescriptor.is(descriptor)
+        }
+        1 * listener.finished(_, _) >> { BuildOperationInternal operation, OperationResult opResult ->
+            assert operation.operationDescriptor.is(descriptor)
+        }
+    }
+
     def "fires events when operation starts and fails"() {
         def action = Mock(Factory)
         def operationDetails = BuildOperationDetails.displayName("<some-operation>").progressDisplayName("<some-op>").build()
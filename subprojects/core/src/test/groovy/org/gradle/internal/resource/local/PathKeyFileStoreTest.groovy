@@ -18,6 +18,7 @@ package org.gradle.internal.resource.local
 
 import org.gradle.api.Action
 import org.gradle.api.GradleException
+import org.gradle.internal.hash.HashUtil
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
@@ -61,6 +62,18 @@ class PathKeyFileStoreTest extends Specification {
         fsBase.file("b").text == "def"
     }
 
+    def "uses known sha1 of moved file"() {
+        def sha1 = HashUtil.sha1("other".bytes)
+
+        when:
+        def entry = store.move("a", createFile("abc"), sha1)
+
+        then:
+        fsBase.file("a").text == "abc"
+        entry.file == fsBase.file("a")
+        entry.sha1 == sha1
+    }
+
     def "can add to filestore"() {
         when:
         store.add("a", { File f -> f.text = "abc"} as Action<File>)
@@ -29,6 +29,7 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
     private final ComponentArtifactIdentifier artifactId;
     private Factory<File> artifactSource;
     private File file;
+    private RuntimeException failure;
 
     public DefaultResolvedArtifact(ResolvedModuleVersion owner, IvyArtifactName artifact, ComponentArtifactIdentifier artifactId, Factory<File> artifactSource) {
         this.owner = owner;
@@ -85,10 +86,29 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         return artifact.getClassifier();
     }
 
-    public File getFile() {
+    /**
+     * Returns true when the file for this artifact has been resolved, or could not be resolved.
+     */
+    public synchronized boolean isResolved() {
+        return file != null || failure != null;
+    }
+
+    /**
+     * Returns the file for this artifact, resolving it on first use. A failure to resolve the file is kept and thrown again, rather than resolving the file again.
+     */
+    public synchronized File getFile() {
+        if (failure != null) {
+            throw failure;
+        }
         if (file == null) {
-            file = artifactSource.create();
-            artifactSource = null;
+            try {
+                file = artifactSource.create();
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            } finally {
+                artifactSource = null;
+            }
         }
         return file;
     }
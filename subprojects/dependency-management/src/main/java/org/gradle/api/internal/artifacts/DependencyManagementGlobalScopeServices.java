@@ -20,6 +20,7 @@ import org.gradle.api.internal.artifacts.component.ComponentIdentifierFactory;
 import org.gradle.api.internal.artifacts.component.DefaultComponentIdentifierFactory;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.*;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.*;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
@@ -58,6 +59,10 @@ class DependencyManagementGlobalScopeServices {
         return new DefaultConfigurationComponentMetaDataBuilder(dependenciesConverter);
     }
 
+    InMemoryModuleDescriptorCache createInMemoryModuleDescriptorCache() {
+        return new InMemoryModuleDescriptorCache();
+    }
+
     ResourceConnectorFactory createFileConnectorFactory() {
         return new FileConnectorFactory();
     }
@@ -20,6 +20,8 @@ import com.google.common.collect.Sets;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.ComponentMetadataDetails;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.dsl.ComponentMetadataHandler;
@@ -167,6 +169,47 @@ public class DefaultComponentMetadataHandler implements ComponentMetadataHandler
         }
     }
 
+    /**
+     * Describes the rules in the order in which they are applied, so that a change to the rules can be detected. Each rule is described by the module it
+     * applies to and by the description of the type that implements it, as returned by the given transformer. Returns null when some rule can't be described.
+     */
+    @Nullable
+    public String describeRules(Transformer<String, Class<?>> implementationDescriber) {
+        StringBuilder description = new StringBuilder();
+        for (SpecRuleAction<? super ComponentMetadataDetails> rule : rules) {
+            Spec<?> spec = rule.getSpec();
+            if (spec instanceof ComponentMetadataDetailsMatchingSpec) {
+                ModuleIdentifier target = ((ComponentMetadataDetailsMatchingSpec) spec).target;
+                description.append(target.getGroup()).append(':').append(target.getName());
+            } else if (spec == Specs.satisfyAll()) {
+                description.append('*');
+            } else {
+                return null;
+            }
+            Class<?> implementation = getImplementationType(rule.getAction());
+            String implementationDescription = implementation == null ? null : implementationDescriber.transform(implementation);
+            if (implementationDescription == null) {
+                return null;
+            }
+            description.append("->").append(implementationDescription).append(';');
+        }
+        return description.toString();
+    }
+
+    @Nullable
+    private static Class<?> getImplementationType(RuleAction<?> action) {
+        if (action instanceof ClosureBackedRuleAction) {
+            return ((ClosureBackedRuleAction<?>) action).getClosure().getClass();
+        }
+        if (action instanceof NoInputsRuleAction) {
+            return ((NoInputsRuleAction<?>) action).getAction().getClass();
+        }
+        if (action instanceof RuleSourceBackedRuleAction) {
+            return ((RuleSourceBackedRuleAction<?, ?>) action).getInstance().getClass();
+        }
+        return null;
+    }
+
     static class ComponentMetadataDetailsMatchingSpec implements Spec<ComponentMetadataDetails> {
         private ModuleIdentifier target;
 
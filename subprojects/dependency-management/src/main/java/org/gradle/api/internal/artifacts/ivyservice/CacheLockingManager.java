@@ -44,6 +44,13 @@ public interface CacheLockingManager extends ArtifactCacheMetaData, CacheAccess
      */
     File getFileStoreDirectory();
 
+    /**
+     * Returns the root directory for the store of resources that are not artifacts, such as Maven meta-data files.
+     *
+     * @return Resources store location
+     */
+    File getResourcesStoreDirectory();
+
     /**
      * Returns the root directory for the meta-data file store.
      *
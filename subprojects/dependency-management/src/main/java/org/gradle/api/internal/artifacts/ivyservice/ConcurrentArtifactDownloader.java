@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads the files for a batch of resolved artifacts concurrently, before they are handed to the consumer one at a time.
+ *
+ * <p>Each artifact resolves its file as usual, taking the artifact cache lock for any cache access. The number of concurrent downloads from each remote
+ * repository is limited by {@link org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CacheLockReleasingModuleComponentsRepository}. The calling
+ * thread, which must hold the cache lock, releases it while waiting for the downloads to complete.</p>
+ *
+ * <p>An artifact that cannot be downloaded keeps the failure, which is reported when the consumer asks for its file. The artifact is not downloaded again.</p>
+ */
+public class ConcurrentArtifactDownloader implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentArtifactDownloader.class);
+
+    public static final String PARALLEL_DOWNLOAD_PROPERTY = "org.gradle.resolution.parallelDownload";
+    public static final String MAX_DOWNLOADS_PER_REPOSITORY_PROPERTY = "org.gradle.resolution.parallelDownload.maxPerRepository";
+    public static final int DEFAULT_MAX_DOWNLOADS_PER_REPOSITORY = 4;
+    private static final int MAX_CONCURRENT_DOWNLOADS = 16;
+
+    private final ExecutorFactory executorFactory;
+    private final CacheLockingManager cacheLockingManager;
+    private StoppableExecutor executor;
+
+    public ConcurrentArtifactDownloader(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager) {
+        this.executorFactory = executorFactory;
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
+    /**
+     * Returns the maximum number of concurrent downloads from a single remote repository.
+     */
+    public static int getMaxDownloadsPerRepository() {
+        if (!Boolean.getBoolean(PARALLEL_DOWNLOAD_PROPERTY)) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(1, Integer.getInteger(MAX_DOWNLOADS_PER_REPOSITORY_PROPERTY, DEFAULT_MAX_DOWNLOADS_PER_REPOSITORY));
+    }
+
+    /**
+     * Resolves the files for the given artifacts and waits for them to be available.
+     */
+    public void download(String displayName, Collection<? extends ResolvedArtifact> artifacts) {
+        List<ResolvedArtifact> unresolved = new ArrayList<ResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (!(artifact instanceof DefaultResolvedArtifact) || !((DefaultResolvedArtifact) artifact).isResolved()) {
+                unresolved.add(artifact);
+            }
+        }
+        if (unresolved.size() < 2) {
+            return;
+        }
+
+        StoppableExecutor executor = getExecutor();
+        final List<Future<?>> results = new ArrayList<Future<?>>(unresolved.size());
+        for (final ResolvedArtifact artifact : unresolved) {
+            results.add(executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        artifact.getFile();
+                    } catch (RuntimeException e) {
+                        // Kept by the artifact, and rethrown when the consumer asks for the file
+                        LOGGER.debug("Could not download {}.", artifact, e);
+                    }
+                }
+            }));
+        }
+        cacheLockingManager.longRunningOperation("Download artifacts for " + displayName, new Runnable() {
+            public void run() {
+                for (Future<?> result : results) {
+                    try {
+                        result.get();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    } catch (ExecutionException e) {
+                        LOGGER.debug("Could not download artifact.", e.getCause());
+                    }
+                }
+            }
+        });
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Artifact download", MAX_CONCURRENT_DOWNLOADS);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
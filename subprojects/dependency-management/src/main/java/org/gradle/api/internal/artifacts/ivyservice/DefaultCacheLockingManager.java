@@ -77,6 +77,10 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
         return createCacheRelativeDir(CacheLayout.FILE_STORE);
     }
 
+    public File getResourcesStoreDirectory() {
+        return createCacheRelativeDir(CacheLayout.RESOURCES);
+    }
+
     public File createMetaDataStore() {
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
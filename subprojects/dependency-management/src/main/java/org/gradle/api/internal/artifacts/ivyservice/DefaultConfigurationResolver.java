@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ResolveException;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
@@ -53,10 +54,22 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final CacheLockingManager cacheLockingManager;
     private final ResolutionResultsStoreFactory storeFactory;
     private final boolean buildProjectDependencies;
+    private final ConcurrentArtifactDownloader artifactDownloader;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
                                         GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
                                         ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies) {
+        this(resolver, repositories, metadataHandler, cacheLockingManager, storeFactory, buildProjectDependencies, null);
+    }
+
+    /**
+     * @param artifactDownloader Used to download the artifacts of each resolved configuration concurrently, or null to download them one at a time.
+     */
+    public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
+                                        GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
+                                        ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies,
+                                        @Nullable ConcurrentArtifactDownloader artifactDownloader) {
+        this.artifactDownloader = artifactDownloader;
         this.resolver = resolver;
         this.repositories = repositories;
         this.metadataHandler = metadataHandler;
@@ -70,7 +83,7 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         StoreSet stores = storeFactory.createStoreSet();
 
         BinaryStore oldModelStore = stores.nextBinaryStore();
-        Store<TransientConfigurationResults> oldModelCache = stores.oldModelCache();
+        Store<TransientConfigurationResultsData> oldModelCache = stores.oldModelCache();
         TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, oldModelCache);
         DefaultResolvedConfigurationBuilder oldModelBuilder = new DefaultResolvedConfigurationBuilder(oldTransientModelBuilder);
         ResolvedConfigurationDependencyGraphVisitor oldModelVisitor = new ResolvedConfigurationDependencyGraphVisitor(oldModelBuilder);
@@ -107,7 +120,7 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
                 new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults);
 
         DefaultLenientConfiguration result = new DefaultLenientConfiguration(
-            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory);
+            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory, artifactDownloader);
         results.withResolvedConfiguration(new DefaultResolvedConfiguration(result));
     }
 }
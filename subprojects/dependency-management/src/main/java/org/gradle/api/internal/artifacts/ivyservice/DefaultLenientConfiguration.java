@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.*;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifacts;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
@@ -35,9 +36,20 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
     private final Set<UnresolvedDependency> unresolvedDependencies;
     private final ResolvedArtifacts artifactResults;
     private final Factory<TransientConfigurationResults> transientConfigurationResultsFactory;
+    private final ConcurrentArtifactDownloader artifactDownloader;
 
     public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
                                        ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
+        this(configuration, cacheLockingManager, unresolvedDependencies, artifactResults, transientConfigurationResultsLoader, null);
+    }
+
+    /**
+     * @param artifactDownloader Used to download the files of the artifacts concurrently before handing them out, or null to download each file when it is first required.
+     */
+    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
+                                       ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader,
+                                       @Nullable ConcurrentArtifactDownloader artifactDownloader) {
+        this.artifactDownloader = artifactDownloader;
         this.configuration = configuration;
         this.cacheLockingManager = cacheLockingManager;
         this.unresolvedDependencies = unresolvedDependencies;
@@ -72,8 +84,12 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
     }
 
     public Set<ResolvedDependency> getFirstLevelModuleDependencies(Spec<? super Dependency> dependencySpec) {
+        return getFirstLevelModuleDependencies(loadTransientGraphResults(), dependencySpec);
+    }
+
+    private Set<ResolvedDependency> getFirstLevelModuleDependencies(TransientConfigurationResults graphResults, Spec<? super Dependency> dependencySpec) {
         Set<ResolvedDependency> matches = new LinkedHashSet<ResolvedDependency>();
-        for (Map.Entry<ModuleDependency, ResolvedDependency> entry : loadTransientGraphResults().getFirstLevelDependencies().entrySet()) {
+        for (Map.Entry<ModuleDependency, ResolvedDependency> entry : graphResults.getFirstLevelDependencies().entrySet()) {
             if (dependencySpec.isSatisfiedBy(entry.getKey())) {
                 matches.add(entry.getValue());
             }
@@ -100,6 +116,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
+                downloadAll(allArtifacts);
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
                     public boolean isSatisfiedBy(ResolvedArtifact element) {
                         try {
@@ -118,6 +135,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         final Set<File> files = new LinkedHashSet<File>();
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
+                downloadAll(artifacts);
                 for (ResolvedArtifact artifact : artifacts) {
                     File depFile = artifact.getFile();
                     if (depFile != null) {
@@ -129,6 +147,12 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         return files;
     }
 
+    private void downloadAll(Set<ResolvedArtifact> artifacts) {
+        if (artifactDownloader != null) {
+            artifactDownloader.download(configuration.toString(), artifacts);
+        }
+    }
+
     /**
      * Recursive, includes unsuccessfully resolved artifacts
      *
@@ -144,12 +168,14 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact> walker
                 = new CachingDirectedGraphWalker<ResolvedDependency, ResolvedArtifact>(new ResolvedDependencyArtifactsGraph());
 
-        Set<ResolvedDependency> firstLevelModuleDependencies = getFirstLevelModuleDependencies(dependencySpec);
+        // The graph is built each time the results are loaded, so load them once only
+        TransientConfigurationResults graphResults = loadTransientGraphResults();
+        Set<ResolvedDependency> firstLevelModuleDependencies = getFirstLevelModuleDependencies(graphResults, dependencySpec);
 
         Set<ResolvedArtifact> artifacts = new LinkedHashSet<ResolvedArtifact>();
 
         for (ResolvedDependency resolvedDependency : firstLevelModuleDependencies) {
-            artifacts.addAll(resolvedDependency.getParentArtifacts(loadTransientGraphResults().getRoot()));
+            artifacts.addAll(resolvedDependency.getParentArtifacts(graphResults.getRoot()));
             walker.add(resolvedDependency);
         }
 
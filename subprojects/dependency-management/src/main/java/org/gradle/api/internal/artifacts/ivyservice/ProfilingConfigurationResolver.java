@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolveException;
+import org.gradle.api.internal.artifacts.ConfigurationResolver;
+import org.gradle.api.internal.artifacts.ResolverResults;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.ivyservice.profile.ConfigurationResolutionProfile;
+import org.gradle.api.internal.artifacts.ivyservice.profile.DependencyResolutionProfiler;
+import org.gradle.internal.progress.BuildOperationDetails;
+import org.gradle.internal.progress.BuildOperationExecutor;
+
+/**
+ * Runs the resolution of the dependency graph of each configuration as a build operation, and records the time taken to resolve
+ * the dependency graph and the artifacts of each configuration.
+ */
+public class ProfilingConfigurationResolver implements ConfigurationResolver {
+    private final ConfigurationResolver delegate;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final DependencyResolutionProfiler profiler;
+
+    public ProfilingConfigurationResolver(ConfigurationResolver delegate, BuildOperationExecutor buildOperationExecutor, DependencyResolutionProfiler profiler) {
+        this.delegate = delegate;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public void resolve(final ConfigurationInternal configuration, final ResolverResults results) throws ResolveException {
+        final ConfigurationResolutionProfile profile = profiler.getConfiguration(configuration.getPath());
+        BuildOperationDetails operationDetails = BuildOperationDetails.displayName("Resolve " + configuration.getDisplayName()).operationDescriptor(profile).build();
+        buildOperationExecutor.run(operationDetails, new Runnable() {
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    delegate.resolve(configuration, results);
+                } finally {
+                    profile.graphResolved(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void resolveArtifacts(ConfigurationInternal configuration, ResolverResults results) throws ResolveException {
+        long start = System.nanoTime();
+        try {
+            delegate.resolveArtifacts(configuration, results);
+        } finally {
+            profiler.getConfiguration(configuration.getPath()).artifactsResolved(System.nanoTime() - start);
+        }
+    }
+}
@@ -24,15 +24,22 @@ import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
+import java.util.concurrent.Semaphore;
+
 /**
  * A wrapper around a {@link ModuleComponentRepository} that handles releasing the cache lock before making remote calls.
+ * Also limits the number of artifacts that may be downloaded from the repository at the same time.
  */
 public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComponentRepository {
     private final ModuleComponentRepositoryAccess remoteAccess;
 
     public CacheLockReleasingModuleComponentsRepository(ModuleComponentRepository repository, CacheLockingManager cacheLockingManager) {
+        this(repository, cacheLockingManager, Integer.MAX_VALUE);
+    }
+
+    public CacheLockReleasingModuleComponentsRepository(ModuleComponentRepository repository, CacheLockingManager cacheLockingManager, int maxConcurrentDownloads) {
         super(repository);
-        this.remoteAccess = new LockReleasingRepositoryAccess(repository.getName(), repository.getRemoteAccess(), cacheLockingManager);
+        this.remoteAccess = new LockReleasingRepositoryAccess(repository.getName(), repository.getRemoteAccess(), cacheLockingManager, maxConcurrentDownloads);
     }
 
     @Override
@@ -44,16 +51,18 @@ public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComp
         private final String name;
         private final ModuleComponentRepositoryAccess delegate;
         private final CacheLockingManager cacheLockingManager;
+        private final Semaphore downloads;
 
         @Override
         public String toString() {
             return "unlocking > " + delegate.toString();
         }
 
-        private LockReleasingRepositoryAccess(String name, ModuleComponentRepositoryAccess delegate, CacheLockingManager cacheLockingManager) {
+        private LockReleasingRepositoryAccess(String name, ModuleComponentRepositoryAccess delegate, CacheLockingManager cacheLockingManager, int maxConcurrentDownloads) {
             this.name = name;
             this.delegate = delegate;
             this.cacheLockingManager = cacheLockingManager;
+            this.downloads = maxConcurrentDownloads == Integer.MAX_VALUE ? null : new Semaphore(maxConcurrentDownloads, true);
         }
 
         public void listModuleVersions(final DependencyMetadata dependency, final BuildableModuleVersionListingResolveResult result) {
@@ -93,7 +102,17 @@ public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComp
         public void resolveArtifact(final ComponentArtifactMetadata artifact, final ModuleSource moduleSource, final BuildableArtifactResolveResult result) {
             cacheLockingManager.longRunningOperation("Download " + artifact + " using repository " + name, new Runnable() {
                 public void run() {
-                    delegate.resolveArtifact(artifact, moduleSource, result);
+                    // Wait for a download slot only once the cache lock has been released, so that waiting does not block other threads
+                    if (downloads == null) {
+                        delegate.resolveArtifact(artifact, moduleSource, result);
+                        return;
+                    }
+                    downloads.acquireUninterruptibly();
+                    try {
+                        delegate.resolveArtifact(artifact, moduleSource, result);
+                    } finally {
+                        downloads.release();
+                    }
                 }
             });
         }
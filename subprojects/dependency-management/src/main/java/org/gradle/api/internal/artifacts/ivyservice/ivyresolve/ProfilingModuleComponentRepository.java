@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.profile.RepositoryProfile;
+import org.gradle.api.internal.component.ArtifactType;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ComponentUsage;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
+import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
+
+/**
+ * Records the time spent on each request made to the remote access of a repository.
+ */
+public class ProfilingModuleComponentRepository extends BaseModuleComponentRepository {
+    private final ModuleComponentRepositoryAccess remoteAccess;
+
+    public ProfilingModuleComponentRepository(ModuleComponentRepository delegate, RepositoryProfile profile) {
+        super(delegate);
+        this.remoteAccess = new ProfilingRepositoryAccess(delegate.getRemoteAccess(), profile);
+    }
+
+    @Override
+    public ModuleComponentRepositoryAccess getRemoteAccess() {
+        return remoteAccess;
+    }
+
+    private static class ProfilingRepositoryAccess extends BaseModuleComponentRepositoryAccess {
+        private final RepositoryProfile profile;
+
+        public ProfilingRepositoryAccess(ModuleComponentRepositoryAccess delegate, RepositoryProfile profile) {
+            super(delegate);
+            this.profile = profile;
+        }
+
+        @Override
+        public String toString() {
+            return getDelegate().toString();
+        }
+
+        @Override
+        public void listModuleVersions(DependencyMetadata dependency, BuildableModuleVersionListingResolveResult result) {
+            long start = System.nanoTime();
+            try {
+                super.listModuleVersions(dependency, result);
+            } finally {
+                ModuleVersionSelector requested = dependency.getRequested();
+                profile.versionsListed(requested.getGroup() + ":" + requested.getName(), System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void resolveComponentMetaData(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
+            long start = System.nanoTime();
+            try {
+                super.resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
+            } finally {
+                boolean missing = result.getState() == BuildableModuleComponentMetaDataResolveResult.State.Missing;
+                profile.metaDataResolved(moduleComponentIdentifier.getDisplayName(), System.nanoTime() - start, missing);
+            }
+        }
+
+        @Override
+        public void resolveModuleArtifacts(ComponentResolveMetadata component, ArtifactType artifactType, BuildableArtifactSetResolveResult result) {
+            long start = System.nanoTime();
+            try {
+                super.resolveModuleArtifacts(component, artifactType, result);
+            } finally {
+                profile.artifactResolved(component.getComponentId().getDisplayName(), System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void resolveModuleArtifacts(ComponentResolveMetadata component, ComponentUsage componentUsage, BuildableArtifactSetResolveResult result) {
+            long start = System.nanoTime();
+            try {
+                super.resolveModuleArtifacts(component, componentUsage, result);
+            } finally {
+                profile.artifactResolved(component.getComponentId().getDisplayName(), System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void resolveArtifact(ComponentArtifactMetadata artifact, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
+            long start = System.nanoTime();
+            try {
+                super.resolveArtifact(artifact, moduleSource, result);
+            } finally {
+                profile.artifactResolved(artifact.getComponentId().getDisplayName(), System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal;
+import org.gradle.api.internal.artifacts.ivyservice.profile.DependencyResolutionProfiler;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
@@ -30,9 +31,11 @@ public class UserResolverChain implements ComponentResolvers {
     private final RepositoryChainComponentMetaDataResolver componentResolver;
     private final RepositoryChainArtifactResolver artifactResolver;
     private final ComponentSelectionRulesInternal componentSelectionRules;
+    private final DependencyResolutionProfiler profiler;
 
-    public UserResolverChain(VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator, ComponentSelectionRulesInternal componentSelectionRules) {
+    public UserResolverChain(VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator, ComponentSelectionRulesInternal componentSelectionRules, DependencyResolutionProfiler profiler) {
         this.componentSelectionRules = componentSelectionRules;
+        this.profiler = profiler;
         VersionedComponentChooser componentChooser = new DefaultVersionedComponentChooser(versionComparator, versionSelectorScheme, componentSelectionRules);
         ModuleTransformer metaDataFactory = new ModuleTransformer();
         componentIdResolver = new RepositoryChainDependencyToComponentIdResolver(versionSelectorScheme, componentChooser, metaDataFactory);
@@ -57,6 +60,7 @@ public class UserResolverChain implements ComponentResolvers {
     }
 
     public void add(ModuleComponentRepository repository) {
+        repository = new ProfilingModuleComponentRepository(repository, profiler.getRepository(repository.getName()));
         componentIdResolver.add(repository);
         componentResolver.add(repository);
         artifactResolver.add(repository);
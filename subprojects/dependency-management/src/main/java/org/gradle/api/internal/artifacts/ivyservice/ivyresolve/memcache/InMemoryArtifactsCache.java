@@ -35,9 +35,10 @@ class InMemoryArtifactsCache {
         File fromCache = artifacts.get(id);
         if (fromCache != null) {
             result.resolved(fromCache);
-            stats.artifactsServed++;
+            stats.artifactsServed.incrementAndGet();
             return true;
         }
+        stats.artifactsMissed.incrementAndGet();
         return false;
     }
 
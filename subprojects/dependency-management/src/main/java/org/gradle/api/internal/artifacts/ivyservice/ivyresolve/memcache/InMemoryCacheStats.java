@@ -16,14 +16,57 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
-class InMemoryCacheStats {
-    int cacheInstances;
-    int reposWrapped;
-    int metadataServed;
-    int artifactsServed;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts how the in-memory dependency metadata caches have been used during a build. The counters are updated concurrently
+ * when configurations are resolved in parallel.
+ */
+public class InMemoryCacheStats {
+    final AtomicInteger cacheInstances = new AtomicInteger();
+    final AtomicInteger reposWrapped = new AtomicInteger();
+    final AtomicInteger listingsServed = new AtomicInteger();
+    final AtomicInteger listingsMissed = new AtomicInteger();
+    final AtomicInteger metadataServed = new AtomicInteger();
+    final AtomicInteger metadataMissed = new AtomicInteger();
+    final AtomicInteger artifactsServed = new AtomicInteger();
+    final AtomicInteger artifactsMissed = new AtomicInteger();
+
+    public int getCacheInstances() {
+        return cacheInstances.get();
+    }
+
+    public int getReposWrapped() {
+        return reposWrapped.get();
+    }
+
+    public int getListingsServed() {
+        return listingsServed.get();
+    }
+
+    public int getListingsMissed() {
+        return listingsMissed.get();
+    }
+
+    public int getMetadataServed() {
+        return metadataServed.get();
+    }
+
+    public int getMetadataMissed() {
+        return metadataMissed.get();
+    }
+
+    public int getArtifactsServed() {
+        return artifactsServed.get();
+    }
+
+    public int getArtifactsMissed() {
+        return artifactsMissed.get();
+    }
+
     public String toString() {
         return String.format(
-                "Repos cached: %s, cache instances: %s, modules served from cache: %s, artifacts: %s",
-                reposWrapped, cacheInstances, metadataServed, artifactsServed);
+                "Repos cached: %s, cache instances: %s, version listings served from cache: %s (missed: %s), modules: %s (missed: %s), artifacts: %s (missed: %s)",
+                reposWrapped, cacheInstances, listingsServed, listingsMissed, metadataServed, metadataMissed, artifactsServed, artifactsMissed);
     }
 }
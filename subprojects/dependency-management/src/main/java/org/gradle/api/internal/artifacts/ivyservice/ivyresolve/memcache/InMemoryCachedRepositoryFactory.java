@@ -43,11 +43,11 @@ public class InMemoryCachedRepositoryFactory implements Stoppable {
         }
 
         InMemoryModuleComponentRepositoryCaches caches = cachePerRepo.get(input.getId());
-        stats.reposWrapped++;
+        stats.reposWrapped.incrementAndGet();
         if (caches == null) {
             LOG.debug("Creating new in-memory cache for repo '{}' [{}].", input.getName(), input.getId());
             caches = new InMemoryModuleComponentRepositoryCaches(stats);
-            stats.cacheInstances++;
+            stats.cacheInstances.incrementAndGet();
             cachePerRepo.put(input.getId(), caches);
         } else {
             LOG.debug("Reusing in-memory cache for repo '{}' [{}].", input.getName(), input.getId());
@@ -55,6 +55,10 @@ public class InMemoryCachedRepositoryFactory implements Stoppable {
         return new InMemoryCachedModuleComponentRepository(caches, input);
     }
 
+    public InMemoryCacheStats getStats() {
+        return stats;
+    }
+
     public void stop() {
         cachePerRepo.clear();
         LOG.debug("In-memory dependency metadata cache closed. {}", stats);
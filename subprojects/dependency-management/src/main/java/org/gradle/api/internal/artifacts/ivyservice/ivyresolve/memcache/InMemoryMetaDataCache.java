@@ -39,9 +39,11 @@ class InMemoryMetaDataCache {
     public boolean supplyModuleVersions(ModuleVersionSelector requested, BuildableModuleVersionListingResolveResult result) {
         Set<String> versions = moduleVersionListing.get(requested);
         if (versions == null) {
+            stats.listingsMissed.incrementAndGet();
             return false;
         }
         result.listed(versions);
+        stats.listingsServed.incrementAndGet();
         return true;
     }
 
@@ -54,10 +56,11 @@ class InMemoryMetaDataCache {
     boolean supplyMetaData(ModuleComponentIdentifier requested, BuildableModuleComponentMetaDataResolveResult result) {
         CachedModuleVersionResult fromCache = metaData.get(requested);
         if (fromCache == null) {
+            stats.metadataMissed.incrementAndGet();
             return false;
         }
         fromCache.supply(result);
-        stats.metadataServed++;
+        stats.metadataServed.incrementAndGet();
         return true;
     }
 
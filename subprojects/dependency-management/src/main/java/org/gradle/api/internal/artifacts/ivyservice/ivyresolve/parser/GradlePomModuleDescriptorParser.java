@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
@@ -33,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.Collection;
@@ -45,8 +48,11 @@ import java.util.Map;
 public final class GradlePomModuleDescriptorParser extends AbstractModuleDescriptorParser<DefaultMavenModuleResolveMetadata> {
     private static final Logger LOGGER = LoggerFactory.getLogger(GradlePomModuleDescriptorParser.class);
     private static final String DEPENDENCY_IMPORT_SCOPE = "import";
+    private static final int MAX_CACHED_POMS = 500;
     private final VersionSelectorScheme gradleVersionSelectorScheme;
     private final VersionSelectorScheme mavenVersionSelectorScheme;
+    // Parent and imported POMs, which are shared by many modules. Keyed on the local file as well as the id, so that a changed POM is parsed again
+    private final Cache<ParsedPomKey, PomReader> parsedPoms = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_POMS).build();
 
     public GradlePomModuleDescriptorParser(VersionSelectorScheme gradleVersionSelectorScheme) {
         this.gradleVersionSelectorScheme = gradleVersionSelectorScheme;
@@ -197,9 +203,51 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
      */
     private PomReader parseOtherPom(DescriptorParseContext parseContext, ModuleComponentIdentifier parentId) throws IOException, SAXException {
         LocallyAvailableExternalResource localResource = parseContext.getMetaDataArtifact(parentId, ArtifactType.MAVEN_POM);
-        PomReader pomReader = new PomReader(localResource);
+        ParsedPomKey key = new ParsedPomKey(parentId, localResource.getLocalResource().getFile());
+        PomReader pomReader = parsedPoms.getIfPresent(key);
+        if (pomReader != null) {
+            return pomReader;
+        }
+
+        pomReader = new PomReader(localResource);
         GradlePomModuleDescriptorBuilder mdBuilder = new GradlePomModuleDescriptorBuilder(pomReader, gradleVersionSelectorScheme, mavenVersionSelectorScheme);
         doParsePom(parseContext, mdBuilder, pomReader);
+
+        // Resolve the inherited state now, so that the cached reader is not modified when it is later used
+        pomReader.getDependencies();
+        pomReader.getDependencyMgt();
+        parsedPoms.put(key, pomReader);
         return pomReader;
     }
+
+    private static class ParsedPomKey {
+        private final ModuleComponentIdentifier id;
+        private final File file;
+        private final long length;
+        private final long lastModified;
+
+        ParsedPomKey(ModuleComponentIdentifier id, File file) {
+            this.id = id;
+            this.file = file;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            ParsedPomKey other = (ParsedPomKey) obj;
+            return id.equals(other.id) && file.equals(other.file) && length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode() ^ file.hashCode();
+        }
+    }
 }
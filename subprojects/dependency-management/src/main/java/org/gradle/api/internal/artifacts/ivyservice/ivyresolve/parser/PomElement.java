@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.api.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable element of a POM, as read by {@link PomStaxParser}. Holds the name, the text directly contained by the element, and
+ * those child elements that are retained by the parser.
+ */
+public class PomElement {
+    private final String name;
+    private final String text;
+    private final List<PomElement> children;
+
+    PomElement(String name, String text, List<PomElement> children) {
+        this.name = name;
+        this.text = text;
+        this.children = children;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the text directly contained by this element, excluding the text of any child elements. Never null.
+     */
+    public String getText() {
+        return text;
+    }
+
+    public List<PomElement> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Nullable
+    public PomElement getFirstChild(String name) {
+        for (PomElement child : children) {
+            if (child.name.equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    public String getFirstChildText(String name) {
+        PomElement child = getFirstChild(name);
+        return child == null ? null : child.text;
+    }
+
+    @Override
+    public String toString() {
+        return "<" + name + ">";
+    }
+}
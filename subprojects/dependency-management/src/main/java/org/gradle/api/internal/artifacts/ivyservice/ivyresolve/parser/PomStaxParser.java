@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a POM using a streaming parser, retaining only those elements that are used to build the meta-data for a module:
+ * the coordinates, parent, properties, dependencies, dependency management, relocation and profiles. Every other element
+ * is skipped without being materialized.
+ */
+public final class PomStaxParser {
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    private static final ElementFilter DOCUMENT;
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
+
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoader.getSystemClassLoader().getParent());
+        try {
+            INPUT_FACTORY = XMLInputFactory.newInstance();
+            INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+            INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+            INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+            INPUT_FACTORY.setXMLResolver(new M2EntityResolver());
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+
+        ElementFilter text = new ElementFilter();
+
+        ElementFilter exclusion = new ElementFilter().retain(text, "groupId", "artifactId");
+        ElementFilter dependency = new ElementFilter()
+            .retain(text, "groupId", "artifactId", "version", "scope", "type", "classifier", "optional")
+            .retain(new ElementFilter().retain(exclusion, "exclusion"), "exclusions");
+        ElementFilter dependencies = new ElementFilter().retain(dependency, "dependency");
+        ElementFilter dependencyManagement = new ElementFilter().retain(dependencies, "dependencies");
+        ElementFilter properties = new ElementFilter().retainAll(text);
+
+        ElementFilter activation = new ElementFilter()
+            .retain(text, "activeByDefault")
+            .retain(new ElementFilter().retain(text, "name"), "property");
+        ElementFilter profile = new ElementFilter()
+            .retain(text, "id")
+            .retain(activation, "activation")
+            .retain(properties, "properties")
+            .retain(dependencies, "dependencies")
+            .retain(dependencyManagement, "dependencyManagement");
+
+        ElementFilter project = new ElementFilter()
+            .retain(text, "groupId", "artifactId", "version", "packaging", "description")
+            .retain(new ElementFilter().retain(text, "groupId", "artifactId", "version"), "parent")
+            .retain(properties, "properties")
+            .retain(dependencies, "dependencies")
+            .retain(dependencyManagement, "dependencyManagement")
+            .retain(new ElementFilter().retain(new ElementFilter().retain(text, "groupId", "artifactId", "version"), "relocation"), "distributionManagement")
+            .retain(new ElementFilter().retain(profile, "profile"), "profiles");
+
+        // Retain the root element whatever its name, so that the caller can report a meaningful failure
+        DOCUMENT = new ElementFilter().retainAll(project);
+    }
+
+    private PomStaxParser() {
+    }
+
+    /**
+     * Parses the given POM content, returning the root element.
+     */
+    public static PomElement parse(InputStream inputStream, String systemId) throws IOException, XMLStreamException {
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoader.getSystemClassLoader().getParent());
+        try {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(systemId, new PomDomParser.AddDTDFilterInputStream(inputStream));
+            try {
+                while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    // Skip the prolog
+                }
+                PomElement root = readElement(reader, DOCUMENT.getFilter(getName(reader)));
+                while (reader.hasNext()) {
+                    // Read the remainder of the document, so that it is checked for well-formedness
+                    reader.next();
+                }
+                return root;
+            } finally {
+                reader.close();
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    /**
+     * Reads the current element, positioned at its start tag, and leaves the reader positioned at its end tag.
+     */
+    private static PomElement readElement(XMLStreamReader reader, ElementFilter filter) throws XMLStreamException {
+        String name = getName(reader);
+        StringBuilder text = null;
+        List<PomElement> children = null;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    ElementFilter childFilter = filter.getFilter(getName(reader));
+                    if (childFilter == null) {
+                        skipElement(reader);
+                    } else {
+                        if (children == null) {
+                            children = new ArrayList<PomElement>();
+                        }
+                        children.add(readElement(reader, childFilter));
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (text == null) {
+                        text = new StringBuilder();
+                    }
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return new PomElement(name, text == null ? "" : text.toString(), children == null ? Collections.<PomElement>emptyList() : children);
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String getName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        String localName = reader.getLocalName();
+        return prefix == null || prefix.length() == 0 ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * Describes which child elements of an element are retained, and how their own children are filtered.
+     */
+    private static class ElementFilter {
+        private final Map<String, ElementFilter> children = new HashMap<String, ElementFilter>();
+        private ElementFilter anyChild;
+
+        ElementFilter retain(ElementFilter filter, String... names) {
+            for (String name : names) {
+                children.put(name, filter);
+            }
+            return this;
+        }
+
+        ElementFilter retainAll(ElementFilter filter) {
+            anyChild = filter;
+            return this;
+        }
+
+        ElementFilter getFilter(String name) {
+            ElementFilter filter = children.get(name);
+            return filter != null ? filter : anyChild;
+        }
+    }
+
+    private static class M2EntityResolver implements XMLResolver {
+        public Object resolveEntity(String publicId, String systemId, String baseURI, String namespace) throws XMLStreamException {
+            if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+                return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+            }
+            return null;
+        }
+    }
+}
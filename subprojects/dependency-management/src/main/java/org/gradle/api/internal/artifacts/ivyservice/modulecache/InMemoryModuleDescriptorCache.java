@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.internal.component.external.descriptor.ModuleDescriptorState;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.resource.local.LocallyAvailableResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory cache of the module descriptors read from the file store, that lives for the lifetime of the daemon.
+ * Entries are keyed on the descriptor file along with its last modified time and length, so that a descriptor that is rewritten
+ * in the file store is read again. Values are softly referenced and the number of entries is bounded, so that the cache gives way under memory pressure.
+ */
+public class InMemoryModuleDescriptorCache implements Stoppable {
+    public static final String MAX_SIZE_PROPERTY = "org.gradle.resolution.metaDataCacheSize";
+    private static final int DEFAULT_MAX_SIZE = 10000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryModuleDescriptorCache.class);
+
+    private final Cache<File, CachedDescriptor> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public InMemoryModuleDescriptorCache() {
+        this(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+    }
+
+    public InMemoryModuleDescriptorCache(int maxSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).softValues().build();
+    }
+
+    /**
+     * Returns the descriptor previously read from the given resource, or null when the resource has not been read or has changed since.
+     */
+    public ModuleDescriptorState get(LocallyAvailableResource resource) {
+        CachedDescriptor cached = cache.getIfPresent(resource.getFile());
+        if (cached != null && cached.isUpToDate(resource)) {
+            hits.incrementAndGet();
+            return cached.descriptor;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(LocallyAvailableResource resource, ModuleDescriptorState descriptor) {
+        cache.put(resource.getFile(), new CachedDescriptor(resource.getLastModified(), resource.getContentLength(), descriptor));
+    }
+
+    public void invalidate(File file) {
+        cache.invalidate(file);
+    }
+
+    public void stop() {
+        LOGGER.debug("Module descriptor cache closed. Hits: {}, misses: {}", hits.get(), misses.get());
+        cache.invalidateAll();
+    }
+
+    private static class CachedDescriptor {
+        private final long lastModified;
+        private final long length;
+        private final ModuleDescriptorState descriptor;
+
+        private CachedDescriptor(long lastModified, long length, ModuleDescriptorState descriptor) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.descriptor = descriptor;
+        }
+
+        boolean isUpToDate(LocallyAvailableResource resource) {
+            return lastModified == resource.getLastModified() && length == resource.getContentLength();
+        }
+    }
+}
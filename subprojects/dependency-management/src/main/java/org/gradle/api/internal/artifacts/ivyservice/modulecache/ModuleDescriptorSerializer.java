@@ -15,10 +15,13 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
 import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.internal.component.external.descriptor.Artifact;
 import org.gradle.internal.component.external.descriptor.Configuration;
 import org.gradle.internal.component.external.descriptor.DefaultExclude;
@@ -43,7 +46,9 @@ import java.util.Map;
 import java.util.Set;
 
 public class ModuleDescriptorSerializer implements org.gradle.internal.serialize.Serializer<ModuleDescriptorState> {
-
+    // Descriptors read from the cache are held for the life of the daemon, so share the strings and identifiers they are made of
+    private static final StringInterner STRING_INTERNER = new StringInterner();
+    private static final Interner<ModuleComponentIdentifier> COMPONENT_ID_INTERNER = Interners.newWeakInterner();
 
     @Override
     public ModuleDescriptorState read(Decoder decoder) throws EOFException, Exception {
@@ -236,7 +241,7 @@ public class ModuleDescriptorSerializer implements org.gradle.internal.serialize
         }
 
         private void readInfoSection() throws IOException {
-            ModuleComponentIdentifier componentIdentifier = DefaultModuleComponentIdentifier.newId(readString(), readString(), readString());
+            ModuleComponentIdentifier componentIdentifier = COMPONENT_ID_INTERNER.intern(DefaultModuleComponentIdentifier.newId(readString(), readString(), readString()));
             String status = readString();
             boolean generated = readBoolean();
 
@@ -346,11 +351,11 @@ public class ModuleDescriptorSerializer implements org.gradle.internal.serialize
         }
 
         private String readString() throws IOException {
-            return decoder.readString();
+            return STRING_INTERNER.intern(decoder.readString());
         }
 
         private String readNullableString() throws IOException {
-            return decoder.readNullableString();
+            return STRING_INTERNER.intern(decoder.readNullableString());
         }
 
         private boolean readBoolean() throws IOException {
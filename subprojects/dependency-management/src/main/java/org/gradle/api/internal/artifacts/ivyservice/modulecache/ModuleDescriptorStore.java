@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
 import org.gradle.internal.UncheckedException;
@@ -33,33 +34,51 @@ public class ModuleDescriptorStore {
 
     private final PathKeyFileStore metaDataStore;
     private final ModuleDescriptorSerializer moduleDescriptorSerializer;
+    private final InMemoryModuleDescriptorCache inMemoryCache;
 
     public ModuleDescriptorStore(PathKeyFileStore metaDataStore, ModuleDescriptorSerializer moduleDescriptorSerializer) {
+        this(metaDataStore, moduleDescriptorSerializer, null);
+    }
+
+    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, ModuleDescriptorSerializer moduleDescriptorSerializer, @Nullable InMemoryModuleDescriptorCache inMemoryCache) {
         this.metaDataStore = metaDataStore;
         this.moduleDescriptorSerializer = moduleDescriptorSerializer;
+        this.inMemoryCache = inMemoryCache;
     }
 
     public ModuleDescriptorState getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
         String filePath = getFilePath(repository, moduleComponentIdentifier);
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
-            try {
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(resource.getFile()));
-                try {
-                    return moduleDescriptorSerializer.read(decoder);
-                } finally {
-                    decoder.close();
-                }
-            } catch (Exception e) {
-                throw UncheckedException.throwAsUncheckedException(e);
+            if (inMemoryCache == null) {
+                return readModuleDescriptor(resource);
+            }
+            ModuleDescriptorState descriptor = inMemoryCache.get(resource);
+            if (descriptor == null) {
+                descriptor = readModuleDescriptor(resource);
+                inMemoryCache.put(resource, descriptor);
             }
+            return descriptor;
         }
         return null;
     }
 
+    private ModuleDescriptorState readModuleDescriptor(LocallyAvailableResource resource) {
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(resource.getFile()));
+            try {
+                return moduleDescriptorSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, final ModuleDescriptorState moduleDescriptor) {
         String filePath = getFilePath(repository, moduleComponentIdentifier);
-        return metaDataStore.add(filePath, new Action<File>() {
+        LocallyAvailableResource resource = metaDataStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
                     KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(moduleDescriptorFile));
@@ -70,6 +89,10 @@ public class ModuleDescriptorStore {
                 }
             }
         });
+        if (inMemoryCache != null) {
+            inMemoryCache.invalidate(resource.getFile());
+        }
+        return resource;
     }
 
     private String getFilePath(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.profile;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The time taken to resolve a configuration, made up of the time taken to resolve its dependency graph and the time taken to
+ * resolve its artifacts. Used as the descriptor of the build operation that resolves the dependency graph of the configuration.
+ */
+public class ConfigurationResolutionProfile {
+    private final String path;
+    private final AtomicLong graphNanos = new AtomicLong();
+    private final AtomicLong artifactNanos = new AtomicLong();
+
+    public ConfigurationResolutionProfile(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the time taken to resolve the configuration so far.
+     */
+    public long getElapsedNanos() {
+        return graphNanos.get() + artifactNanos.get();
+    }
+
+    public long getGraphNanos() {
+        return graphNanos.get();
+    }
+
+    public long getArtifactNanos() {
+        return artifactNanos.get();
+    }
+
+    public void graphResolved(long nanos) {
+        graphNanos.addAndGet(nanos);
+    }
+
+    public void artifactsResolved(long nanos) {
+        artifactNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "resolve " + path;
+    }
+}
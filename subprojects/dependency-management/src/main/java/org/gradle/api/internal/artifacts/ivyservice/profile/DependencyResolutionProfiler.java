@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.profile;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCacheStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects the timings and counters of the dependency resolution performed during a build, so that it is possible to
+ * see which repositories and modules the time is spent on.
+ */
+@ThreadSafe
+public class DependencyResolutionProfiler {
+    private final ConcurrentMap<String, RepositoryProfile> repositories = new ConcurrentHashMap<String, RepositoryProfile>();
+    private final ConcurrentMap<String, ConfigurationResolutionProfile> configurations = new ConcurrentHashMap<String, ConfigurationResolutionProfile>();
+    private final InMemoryCacheStats inMemoryCacheStats;
+
+    public DependencyResolutionProfiler(InMemoryCacheStats inMemoryCacheStats) {
+        this.inMemoryCacheStats = inMemoryCacheStats;
+    }
+
+    /**
+     * Returns the profile for the repository with the given name, creating it if required.
+     */
+    public RepositoryProfile getRepository(String name) {
+        RepositoryProfile profile = repositories.get(name);
+        if (profile == null) {
+            profile = new RepositoryProfile(name);
+            RepositoryProfile existing = repositories.putIfAbsent(name, profile);
+            if (existing != null) {
+                profile = existing;
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the profiles of the repositories used so far, those that took the most time first.
+     */
+    public List<RepositoryProfile> getRepositories() {
+        List<RepositoryProfile> result = new ArrayList<RepositoryProfile>(repositories.values());
+        Collections.sort(result, new Comparator<RepositoryProfile>() {
+            public int compare(RepositoryProfile o1, RepositoryProfile o2) {
+                return compareDescending(o1.getTotalNanos(), o2.getTotalNanos());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the profile for the configuration with the given path, creating it if required.
+     */
+    public ConfigurationResolutionProfile getConfiguration(String path) {
+        ConfigurationResolutionProfile profile = configurations.get(path);
+        if (profile == null) {
+            profile = new ConfigurationResolutionProfile(path);
+            ConfigurationResolutionProfile existing = configurations.putIfAbsent(path, profile);
+            if (existing != null) {
+                profile = existing;
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the profiles of the configurations resolved so far, those that took the most time first.
+     */
+    public List<ConfigurationResolutionProfile> getConfigurations() {
+        List<ConfigurationResolutionProfile> result = new ArrayList<ConfigurationResolutionProfile>(configurations.values());
+        Collections.sort(result, new Comparator<ConfigurationResolutionProfile>() {
+            public int compare(ConfigurationResolutionProfile o1, ConfigurationResolutionProfile o2) {
+                return compareDescending(o1.getElapsedNanos(), o2.getElapsedNanos());
+            }
+        });
+        return result;
+    }
+
+    public InMemoryCacheStats getInMemoryCacheStats() {
+        return inMemoryCacheStats;
+    }
+
+    static int compareDescending(long left, long right) {
+        return left > right ? -1 : left == right ? 0 : 1;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.profile;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The timings and counters recorded for a single repository. Times are only recorded for requests that go to the
+ * repository itself, rather than being served from the dependency caches.
+ */
+@ThreadSafe
+public class RepositoryProfile {
+    private final String name;
+    private final AtomicLong versionListings = new AtomicLong();
+    private final AtomicLong versionListingNanos = new AtomicLong();
+    private final AtomicLong metaDataRequests = new AtomicLong();
+    private final AtomicLong metaDataNanos = new AtomicLong();
+    private final AtomicLong missingModules = new AtomicLong();
+    private final AtomicLong artifactRequests = new AtomicLong();
+    private final AtomicLong artifactNanos = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> moduleNanos = new ConcurrentHashMap<String, AtomicLong>();
+
+    public RepositoryProfile(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void versionsListed(String module, long nanos) {
+        versionListings.incrementAndGet();
+        versionListingNanos.addAndGet(nanos);
+        addModuleTime(module, nanos);
+    }
+
+    /**
+     * Records a request for the meta-data of a module. A missing module means that the repository was probed for a module
+     * that it does not contain, which usually points to a repository that is declared too early in the list.
+     */
+    public void metaDataResolved(String module, long nanos, boolean missing) {
+        metaDataRequests.incrementAndGet();
+        metaDataNanos.addAndGet(nanos);
+        if (missing) {
+            missingModules.incrementAndGet();
+        }
+        addModuleTime(module, nanos);
+    }
+
+    public void artifactResolved(String module, long nanos) {
+        artifactRequests.incrementAndGet();
+        artifactNanos.addAndGet(nanos);
+        addModuleTime(module, nanos);
+    }
+
+    /**
+     * Records a lookup in the persistent dependency cache for this repository.
+     */
+    public void cacheLookup(boolean hit) {
+        if (hit) {
+            cacheHits.incrementAndGet();
+        } else {
+            cacheMisses.incrementAndGet();
+        }
+    }
+
+    public void downloaded(long bytes) {
+        downloads.incrementAndGet();
+        bytesDownloaded.addAndGet(bytes);
+    }
+
+    private void addModuleTime(String module, long nanos) {
+        AtomicLong total = moduleNanos.get(module);
+        if (total == null) {
+            total = new AtomicLong();
+            AtomicLong existing = moduleNanos.putIfAbsent(module, total);
+            if (existing != null) {
+                total = existing;
+            }
+        }
+        total.addAndGet(nanos);
+    }
+
+    public long getVersionListings() {
+        return versionListings.get();
+    }
+
+    public long getVersionListingNanos() {
+        return versionListingNanos.get();
+    }
+
+    public long getMetaDataRequests() {
+        return metaDataRequests.get();
+    }
+
+    public long getMetaDataNanos() {
+        return metaDataNanos.get();
+    }
+
+    public long getMissingModules() {
+        return missingModules.get();
+    }
+
+    public long getArtifactRequests() {
+        return artifactRequests.get();
+    }
+
+    public long getArtifactNanos() {
+        return artifactNanos.get();
+    }
+
+    public long getTotalNanos() {
+        return versionListingNanos.get() + metaDataNanos.get() + artifactNanos.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public long getDownloads() {
+        return downloads.get();
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    /**
+     * Returns the modules that took the most time to resolve from this repository, slowest first.
+     */
+    public List<ModuleTime> getSlowestModules(int maxCount) {
+        List<ModuleTime> result = new ArrayList<ModuleTime>(moduleNanos.size());
+        for (Map.Entry<String, AtomicLong> entry : moduleNanos.entrySet()) {
+            result.add(new ModuleTime(entry.getKey(), entry.getValue().get()));
+        }
+        Collections.sort(result, new Comparator<ModuleTime>() {
+            public int compare(ModuleTime o1, ModuleTime o2) {
+                return DependencyResolutionProfiler.compareDescending(o1.getNanos(), o2.getNanos());
+            }
+        });
+        return result.size() > maxCount ? new ArrayList<ModuleTime>(result.subList(0, maxCount)) : result;
+    }
+
+    public static class ModuleTime {
+        private final String module;
+        private final long nanos;
+
+        public ModuleTime(String module, long nanos) {
+            this.module = module;
+            this.nanos = nanos;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -22,12 +22,14 @@ import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
 import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
 import org.gradle.api.internal.artifacts.ResolveContext;
 import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingArtifactResolver;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.clientmodule.ClientModuleResolver;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArtifactResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
@@ -36,13 +38,19 @@ import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphRecorder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphSnapshot;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.ConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.internal.Actions;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
 import org.gradle.internal.resolve.resolver.ArtifactResolver;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -61,34 +69,70 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     private final ResolveIvyFactory ivyFactory;
     private final CacheLockingManager cacheLockingManager;
     private final VersionComparator versionComparator;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
+    private final ResolvedGraphCache graphCache;
 
     public DefaultArtifactDependencyResolver(ServiceRegistry serviceRegistry, ResolveIvyFactory ivyFactory, DependencyDescriptorFactory dependencyDescriptorFactory,
-                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator) {
+                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator,
+                                             ComponentMetaDataPrefetcher metaDataPrefetcher, ResolvedGraphCache graphCache) {
         this.serviceRegistry = serviceRegistry;
         this.ivyFactory = ivyFactory;
         this.dependencyDescriptorFactory = dependencyDescriptorFactory;
         this.cacheLockingManager = cacheLockingManager;
         this.versionComparator = versionComparator;
+        this.metaDataPrefetcher = metaDataPrefetcher;
+        this.graphCache = graphCache;
     }
 
     @Override
     public void resolve(final ResolveContext resolveContext, final List<? extends ResolutionAwareRepository> repositories, final GlobalDependencyResolutionRules metadataHandler,
                         final DependencyGraphVisitor graphVisitor, final DependencyArtifactsVisitor artifactsVisitor) {
         LOGGER.debug("Resolving {}", resolveContext);
-        ComponentResolvers componentSource = createComponentSource(resolveContext, repositories, metadataHandler);
-        DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler);
-
+        ComponentResolversChain componentSource = createComponentSource(resolveContext, repositories, metadataHandler);
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        Action<DependencySubstitution> dependencySubstitutionRule =
+            Actions.composite(resolutionStrategy.getDependencySubstitutionRule(), metadataHandler.getDependencySubstitutionRule());
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
         ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new CacheLockingArtifactResolver(cacheLockingManager, componentSource.getArtifactResolver()));
-        DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver);
+
+        DependencyGraphVisitor resultsGraphVisitor = graphVisitor;
+        DependencyArtifactsVisitor resultsArtifactsVisitor = artifactsVisitor;
+        ResolvedGraphRecorder recorder = null;
+        String graphKey = null;
+        if (Boolean.getBoolean(ResolvedGraphCache.GRAPH_CACHE_PROPERTY)) {
+            ComponentResolveMetadata rootComponent = resolveContext.toRootComponentMetaData();
+            ConfigurationMetadata rootConfiguration = rootComponent.getConfiguration(resolveContext.getName());
+            graphKey = graphCache.createKey(rootComponent, rootConfiguration, getResolverIds(resolveContext), createResolvers(repositories), resolutionStrategy,
+                metadataHandler.getComponentMetadataProcessor());
+            if (graphKey != null) {
+                ResolvedGraphSnapshot snapshot = graphCache.get(graphKey);
+                if (snapshot != null && snapshot.isUpToDate(dependencySubstitutionRule, moduleReplacements)) {
+                    LOGGER.debug("Using cached dependency graph for {}", resolveContext);
+                    snapshot.replay(rootConfiguration, graphVisitor, artifactsVisitor, artifactResolver);
+                    return;
+                }
+                recorder = graphCache.createRecorder(graphVisitor, artifactsVisitor, rootConfiguration, moduleReplacements);
+                resultsGraphVisitor = recorder;
+                resultsArtifactsVisitor = recorder;
+            }
+        }
+
+        DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolutionStrategy, dependencySubstitutionRule, metadataHandler);
+        DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(resultsArtifactsVisitor, artifactResolver);
 
         // Resolve the dependency graph
-        builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
-    }
+        builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(resultsGraphVisitor, artifactsGraphVisitor));
 
-    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules globalRules) {
+        if (recorder != null) {
+            ResolvedGraphSnapshot snapshot = recorder.getSnapshot();
+            if (snapshot != null) {
+                graphCache.put(graphKey, snapshot);
+            }
+        }
+    }
 
-        Action<DependencySubstitution> dependencySubstitutionRule =
-            Actions.composite(resolutionStrategy.getDependencySubstitutionRule(), globalRules.getDependencySubstitutionRule());
+    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ResolutionStrategyInternal resolutionStrategy,
+                                                                Action<DependencySubstitution> dependencySubstitutionRule, GlobalDependencyResolutionRules globalRules) {
         DependencyToComponentIdResolver componentIdResolver = new DependencySubstitutionResolver(componentSource.getComponentIdResolver(), dependencySubstitutionRule);
         ComponentMetaDataResolver componentMetaDataResolver = new ClientModuleResolver(componentSource.getComponentResolver(), dependencyDescriptorFactory);
 
@@ -96,7 +140,9 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         ResolveContextToComponentResolver requestResolver = createResolveContextConverter();
         ConflictHandler conflictHandler = createConflictHandler(resolutionStrategy, globalRules);
 
-        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler);
+        ComponentMetaDataPrefetcher prefetcher = Boolean.getBoolean(ComponentMetaDataPrefetcher.PARALLEL_RESOLUTION_PROPERTY) ? metaDataPrefetcher : null;
+
+        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler, prefetcher);
     }
 
     private ComponentResolversChain createComponentSource(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
@@ -112,6 +158,24 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         return new ComponentResolversChain(resolvers);
     }
 
+    private List<String> getResolverIds(ResolveContext resolveContext) {
+        List<String> resolverIds = Lists.newArrayList();
+        for (ResolverProviderFactory factory : allServices(ResolverProviderFactory.class)) {
+            if (factory.canCreate(resolveContext)) {
+                resolverIds.add(factory.getClass().getName());
+            }
+        }
+        return resolverIds;
+    }
+
+    private List<ConfiguredModuleComponentRepository> createResolvers(List<? extends ResolutionAwareRepository> repositories) {
+        List<ConfiguredModuleComponentRepository> resolvers = Lists.newArrayList();
+        for (ResolutionAwareRepository repository : repositories) {
+            resolvers.add(repository.createResolver());
+        }
+        return resolvers;
+    }
+
     private ResolveContextToComponentResolver createResolveContextConverter() {
         return new DefaultResolveContextToComponentResolver();
     }
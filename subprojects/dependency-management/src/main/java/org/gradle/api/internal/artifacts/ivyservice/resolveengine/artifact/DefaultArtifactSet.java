@@ -58,6 +58,27 @@ public class DefaultArtifactSet implements ArtifactSet {
         return id;
     }
 
+    public ModuleVersionIdentifier getOwnerId() {
+        return moduleVersionIdentifier;
+    }
+
+    public ModuleSource getModuleSource() {
+        return moduleSource;
+    }
+
+    /**
+     * Returns the meta-data of the artifacts in this set that are not excluded, without resolving them.
+     */
+    public Set<ComponentArtifactMetadata> getIncludedArtifacts() {
+        Set<ComponentArtifactMetadata> included = new LinkedHashSet<ComponentArtifactMetadata>(artifacts.size());
+        for (ComponentArtifactMetadata artifact : artifacts) {
+            if (!exclusions.excludeArtifact(moduleVersionIdentifier.getModule(), artifact.getName())) {
+                included.add(artifact);
+            }
+        }
+        return included;
+    }
+
     public Set<ResolvedArtifact> getArtifacts() {
         Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(artifacts.size());
         for (ComponentArtifactMetadata artifact : artifacts) {
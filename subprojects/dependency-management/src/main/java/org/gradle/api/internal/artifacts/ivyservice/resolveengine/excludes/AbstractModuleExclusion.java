@@ -22,6 +22,7 @@ import java.util.Collection;
 
 abstract class AbstractModuleExclusion implements ModuleExclusion {
     private static final String WILDCARD = "*";
+    private int hashCode = -1;
 
     protected static boolean isWildcard(String attribute) {
         return WILDCARD.equals(attribute);
@@ -94,7 +95,11 @@ abstract class AbstractModuleExclusion implements ModuleExclusion {
 
     @Override
     public final int hashCode() {
-        return doHashCode();
+        // Exclusions are not changed once created, and are used heavily as hash keys when they are combined
+        if (hashCode == -1) {
+            hashCode = doHashCode();
+        }
+        return hashCode;
     }
 
     protected abstract int doHashCode();
@@ -28,8 +28,56 @@ import java.util.*;
 class IntersectionExclusion extends AbstractCompositeExclusion {
     private final Set<AbstractModuleExclusion> excludeSpecs = new HashSet<AbstractModuleExclusion>();
 
+    // An index of the specs, built once so that each module can be checked with a few hash lookups rather than by visiting every spec
+    private final ExcludeAllModulesSpec excludeAllSpec;
+    private final Map<ModuleIdentifier, ModuleIdExcludeSpec> moduleIdSpecs = new HashMap<ModuleIdentifier, ModuleIdExcludeSpec>();
+    private final Map<String, GroupNameExcludeSpec> groupSpecs = new HashMap<String, GroupNameExcludeSpec>();
+    private final Map<String, ModuleNameExcludeSpec> moduleNameSpecs = new HashMap<String, ModuleNameExcludeSpec>();
+    private final List<AbstractModuleExclusion> otherModuleSpecs = new ArrayList<AbstractModuleExclusion>();
+    private final List<AbstractModuleExclusion> artifactSpecs = new ArrayList<AbstractModuleExclusion>();
+    private final boolean excludesNoModules;
+    private final boolean mergeable;
+
     public IntersectionExclusion(Collection<AbstractModuleExclusion> specs) {
         this.excludeSpecs.addAll(specs);
+
+        ExcludeAllModulesSpec excludeAll = null;
+        boolean excludesNone = true;
+        boolean canMerge = true;
+        for (AbstractModuleExclusion spec : excludeSpecs) {
+            canMerge = canMerge && ModuleExclusions.canMerge(spec);
+            if (spec.mayExcludeArtifacts()) {
+                artifactSpecs.add(spec);
+            }
+            if (spec.excludesNoModules()) {
+                continue;
+            }
+            excludesNone = false;
+            if (spec instanceof ExcludeAllModulesSpec) {
+                excludeAll = (ExcludeAllModulesSpec) spec;
+            } else if (spec instanceof ModuleIdExcludeSpec) {
+                ModuleIdExcludeSpec moduleIdSpec = (ModuleIdExcludeSpec) spec;
+                moduleIdSpecs.put(moduleIdSpec.moduleId, moduleIdSpec);
+            } else if (spec instanceof GroupNameExcludeSpec) {
+                GroupNameExcludeSpec groupSpec = (GroupNameExcludeSpec) spec;
+                groupSpecs.put(groupSpec.group, groupSpec);
+            } else if (spec instanceof ModuleNameExcludeSpec) {
+                ModuleNameExcludeSpec moduleNameSpec = (ModuleNameExcludeSpec) spec;
+                moduleNameSpecs.put(moduleNameSpec.module, moduleNameSpec);
+            } else {
+                otherModuleSpecs.add(spec);
+            }
+        }
+        this.excludeAllSpec = excludeAll;
+        this.excludesNoModules = excludesNone;
+        this.mergeable = canMerge;
+    }
+
+    /**
+     * Returns true when every spec in this intersection is an exact match spec, so that this intersection can be merged with another into a single spec.
+     */
+    boolean isMergeable() {
+        return mergeable;
     }
 
     Collection<AbstractModuleExclusion> getFilters() {
@@ -38,16 +86,43 @@ class IntersectionExclusion extends AbstractCompositeExclusion {
 
     @Override
     protected boolean excludesNoModules() {
-        for (AbstractModuleExclusion excludeSpec : excludeSpecs) {
-            if (!excludeSpec.excludesNoModules()) {
-                return false;
-            }
-        }
-        return true;
+        return excludesNoModules;
+    }
+
+    ExcludeAllModulesSpec getExcludeAllSpec() {
+        return excludeAllSpec;
+    }
+
+    Map<ModuleIdentifier, ModuleIdExcludeSpec> getModuleIdSpecs() {
+        return moduleIdSpecs;
+    }
+
+    Map<String, GroupNameExcludeSpec> getGroupSpecs() {
+        return groupSpecs;
+    }
+
+    Map<String, ModuleNameExcludeSpec> getModuleNameSpecs() {
+        return moduleNameSpecs;
+    }
+
+    List<AbstractModuleExclusion> getArtifactSpecs() {
+        return artifactSpecs;
     }
 
     public boolean excludeModule(ModuleIdentifier element) {
-        for (AbstractModuleExclusion excludeSpec : excludeSpecs) {
+        if (excludeAllSpec != null) {
+            return true;
+        }
+        if (!moduleIdSpecs.isEmpty() && moduleIdSpecs.containsKey(element)) {
+            return true;
+        }
+        if (!groupSpecs.isEmpty() && groupSpecs.containsKey(element.getGroup())) {
+            return true;
+        }
+        if (!moduleNameSpecs.isEmpty() && moduleNameSpecs.containsKey(element.getName())) {
+            return true;
+        }
+        for (AbstractModuleExclusion excludeSpec : otherModuleSpecs) {
             if (excludeSpec.excludeModule(element)) {
                 return true;
             }
@@ -56,7 +131,7 @@ class IntersectionExclusion extends AbstractCompositeExclusion {
     }
 
     public boolean excludeArtifact(ModuleIdentifier module, IvyArtifactName artifact) {
-        for (AbstractModuleExclusion excludeSpec : excludeSpecs) {
+        for (AbstractModuleExclusion excludeSpec : artifactSpecs) {
             if (excludeSpec.excludeArtifact(module, artifact)) {
                 return true;
             }
@@ -65,13 +140,7 @@ class IntersectionExclusion extends AbstractCompositeExclusion {
     }
 
     public boolean mayExcludeArtifacts() {
-        for (AbstractModuleExclusion spec : excludeSpecs) {
-            if (spec.mayExcludeArtifacts()) {
-                return true;
-            }
-        }
-
-        return false;
+        return !artifactSpecs.isEmpty();
     }
 
     /**
@@ -16,16 +16,18 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 
-import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.internal.component.model.Exclude;
 import org.gradle.internal.component.model.IvyArtifactName;
-import org.gradle.util.CollectionUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.AbstractModuleExclusion.isWildcard;
 
@@ -45,10 +47,18 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  *     <li>When a module is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li>
  *     <li>When a module is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li>
  * </ul>
+ *
+ * <p>An instance memoizes the exclusions it creates, and is intended to be used for a single resolution. Equal exclusions are shared, so that the same
+ * combinations of exclusions met on many edges of the graph are calculated once and then found by identity.</p>
  */
 public class ModuleExclusions {
     static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
 
+    private final Map<Exclude, AbstractModuleExclusion> excludeSpecs = new HashMap<Exclude, AbstractModuleExclusion>();
+    private final Map<AbstractModuleExclusion, AbstractModuleExclusion> canonicalExclusions = new HashMap<AbstractModuleExclusion, AbstractModuleExclusion>();
+    private final Map<ExclusionPair, ModuleExclusion> intersections = new HashMap<ExclusionPair, ModuleExclusion>();
+    private final Map<ExclusionPair, ModuleExclusion> unions = new HashMap<ExclusionPair, ModuleExclusion>();
+
     /**
      * Returns a spec that excludes nothing.
      */
@@ -59,7 +69,7 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _any_ of the given exclude rules.
      */
-    public static ModuleExclusion excludeAny(Exclude... excludes) {
+    public ModuleExclusion excludeAny(Exclude... excludes) {
         if (excludes.length == 0) {
             return EXCLUDE_NONE;
         }
@@ -69,16 +79,29 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _any_ of the given exclude rules.
      */
-    public static ModuleExclusion excludeAny(Collection<Exclude> excludes) {
+    public ModuleExclusion excludeAny(Collection<Exclude> excludes) {
         if (excludes.isEmpty()) {
             return EXCLUDE_NONE;
         }
-        return new IntersectionExclusion(CollectionUtils.collect(excludes, new Transformer<AbstractModuleExclusion, Exclude>() {
-            @Override
-            public AbstractModuleExclusion transform(Exclude exclude) {
-                return forExclude(exclude);
+        List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>(excludes.size());
+        for (Exclude exclude : excludes) {
+            AbstractModuleExclusion spec = excludeSpecs.get(exclude);
+            if (spec == null) {
+                spec = forExclude(exclude);
+                excludeSpecs.put(exclude, spec);
             }
-        }));
+            specs.add(spec);
+        }
+        return canonical(new IntersectionExclusion(specs));
+    }
+
+    private AbstractModuleExclusion canonical(AbstractModuleExclusion exclusion) {
+        AbstractModuleExclusion existing = canonicalExclusions.get(exclusion);
+        if (existing != null) {
+            return existing;
+        }
+        canonicalExclusions.put(exclusion, exclusion);
+        return exclusion;
     }
 
     private static AbstractModuleExclusion forExclude(Exclude rule) {
@@ -112,7 +135,7 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _either_ of the given exclude rules.
      */
-    public static ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
+    public ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
         if (one == two) {
             return one;
         }
@@ -123,17 +146,22 @@ public class ModuleExclusions {
             return one;
         }
 
-        List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
-        ((AbstractModuleExclusion) one).unpackIntersection(specs);
-        ((AbstractModuleExclusion) two).unpackIntersection(specs);
-
-        return new IntersectionExclusion(specs);
+        ExclusionPair key = new ExclusionPair(one, two);
+        ModuleExclusion intersection = intersections.get(key);
+        if (intersection == null) {
+            List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
+            ((AbstractModuleExclusion) one).unpackIntersection(specs);
+            ((AbstractModuleExclusion) two).unpackIntersection(specs);
+            intersection = canonical(new IntersectionExclusion(specs));
+            intersections.put(key, intersection);
+        }
+        return intersection;
     }
 
     /**
      * Returns a spec that excludes only those modules and artifacts that are excluded by both of the supplied exclude rules.
      */
-    public static ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
+    public ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
         if (one == two) {
             return one;
         }
@@ -141,6 +169,16 @@ public class ModuleExclusions {
             return EXCLUDE_NONE;
         }
 
+        ExclusionPair key = new ExclusionPair(one, two);
+        ModuleExclusion union = unions.get(key);
+        if (union == null) {
+            union = calculateUnion(one, two);
+            unions.put(key, union);
+        }
+        return union;
+    }
+
+    private ModuleExclusion calculateUnion(ModuleExclusion one, ModuleExclusion two) {
         List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
         ((AbstractModuleExclusion) one).unpackUnion(specs);
         ((AbstractModuleExclusion) two).unpackUnion(specs);
@@ -162,9 +200,9 @@ public class ModuleExclusions {
             }
         }
         if (specs.size() == 1) {
-            return specs.get(0);
+            return canonical(specs.get(0));
         }
-        return new UnionExclusion(specs);
+        return canonical(new UnionExclusion(specs));
     }
 
     /**
@@ -179,28 +217,29 @@ public class ModuleExclusions {
     }
 
     private static AbstractModuleExclusion maybeMergeIntoUnion(IntersectionExclusion one, IntersectionExclusion other) {
-        if (one.getFilters().equals(other.getFilters())) {
+        if (one == other || one.getFilters().equals(other.getFilters())) {
             return one;
         }
 
         // Can only merge exact match rules, so don't try if this or the other spec contains any other type of rule
-        for (AbstractModuleExclusion excludeSpec : one.getFilters()) {
-            if (!canMerge(excludeSpec)) {
-                return null;
-            }
-        }
-        for (AbstractModuleExclusion excludeSpec : other.getFilters()) {
-            if (!canMerge(excludeSpec)) {
-                return null;
-            }
+        if (!one.isMergeable() || !other.isMergeable()) {
+            return null;
         }
 
-        // Merge the exclude rules from both specs into a single union spec.
-        List<AbstractModuleExclusion> merged = new ArrayList<AbstractModuleExclusion>();
-        for (AbstractModuleExclusion thisSpec : one.getFilters()) {
-            for (AbstractModuleExclusion otherSpec : other.getFilters()) {
-                mergeExcludeRules(thisSpec, otherSpec, merged);
-            }
+        // Merge the exclude rules from both specs into a single union spec: the union of 2 intersections excludes those modules and artifacts that are excluded by
+        // some rule from each of them. Rather than combine every pair of rules, find the pairs that exclude something using the index held by each spec.
+        Set<AbstractModuleExclusion> merged = new HashSet<AbstractModuleExclusion>();
+        mergeExcludeRules(one, other, merged);
+        mergeExcludeRules(other, one, merged);
+
+        // Artifact excludes exclude _no_ modules, may exclude some artifacts.
+        // This isn't right: We are losing the artifacts excluded by the other spec
+        // (2 artifact excludes should cancel out unless equal)
+        if (other.getFilters().size() > (other.getExcludeAllSpec() == null ? 0 : 1)) {
+            merged.addAll(one.getArtifactSpecs());
+        }
+        if (!one.getGroupSpecs().isEmpty() || !one.getModuleNameSpecs().isEmpty() || !one.getModuleIdSpecs().isEmpty()) {
+            merged.addAll(other.getArtifactSpecs());
         }
         if (merged.isEmpty()) {
             return ModuleExclusions.EXCLUDE_NONE;
@@ -208,7 +247,7 @@ public class ModuleExclusions {
         return new IntersectionExclusion(merged);
     }
 
-    private static boolean canMerge(AbstractModuleExclusion excludeSpec) {
+    static boolean canMerge(AbstractModuleExclusion excludeSpec) {
         return excludeSpec instanceof ExcludeAllModulesSpec
             || excludeSpec instanceof ArtifactExcludeSpec
             || excludeSpec instanceof GroupNameExcludeSpec
@@ -216,85 +255,71 @@ public class ModuleExclusions {
             || excludeSpec instanceof ModuleIdExcludeSpec;
     }
 
-    // Add exclusions to the list that will exclude modules/artifacts that are excluded by _both_ of the candidate rules.
-    private static void mergeExcludeRules(AbstractModuleExclusion spec1, AbstractModuleExclusion spec2, List<AbstractModuleExclusion> merged) {
-        if (spec1 instanceof ExcludeAllModulesSpec) {
+    // Add exclusions to the set that will exclude modules that are excluded by both a rule from spec1 and a rule from spec2.
+    // Called twice, with the specs swapped, so only needs to look for each combination of rule types in one direction.
+    private static void mergeExcludeRules(IntersectionExclusion spec1, IntersectionExclusion spec2, Set<AbstractModuleExclusion> merged) {
+        if (spec1.getExcludeAllSpec() != null) {
             // spec1 excludes everything: use spec2 excludes
-            merged.add(spec2);
-        } else if (spec2 instanceof ExcludeAllModulesSpec) {
-            // spec2 excludes everything: use spec1 excludes
-            merged.add(spec1);
-        } else if (spec1 instanceof ArtifactExcludeSpec) {
-            // Excludes _no_ modules, may exclude some artifacts.
-            // This isn't right: We are losing the artifacts excluded by spec2
-            // (2 artifact excludes should cancel out unless equal)
-            merged.add(spec1);
-        } else if (spec2 instanceof ArtifactExcludeSpec) {
-            // Excludes _no_ modules, may exclude some artifacts.
-            // This isn't right: We are losing the artifacts excluded by spec2
-            merged.add(spec2);
-        } else if (spec1 instanceof GroupNameExcludeSpec) {
-            // Merge into a single exclusion for Group + Module
-            mergeExcludeRules((GroupNameExcludeSpec) spec1, spec2, merged);
-        } else if (spec2 instanceof GroupNameExcludeSpec) {
-            // Merge into a single exclusion for Group + Module
-            mergeExcludeRules((GroupNameExcludeSpec) spec2, spec1, merged);
-        } else if (spec1 instanceof ModuleNameExcludeSpec) {
-            // Merge into a single exclusion for Group + Module
-            mergeExcludeRules((ModuleNameExcludeSpec) spec1, spec2, merged);
-        } else if (spec2 instanceof ModuleNameExcludeSpec) {
-            // Merge into a single exclusion for Group + Module
-            mergeExcludeRules((ModuleNameExcludeSpec) spec2, spec1, merged);
-        } else if ((spec1 instanceof ModuleIdExcludeSpec) && (spec2 instanceof ModuleIdExcludeSpec)) {
-            // Excludes nothing if the excluded module ids don't match: in that case this rule contributes nothing to the union
-            ModuleIdExcludeSpec moduleSpec1 = (ModuleIdExcludeSpec) spec1;
-            ModuleIdExcludeSpec moduleSpec2 = (ModuleIdExcludeSpec) spec2;
-            if (moduleSpec1.moduleId.equals(moduleSpec2.moduleId)) {
-                merged.add(moduleSpec1);
-            }
-        } else {
-            throw new UnsupportedOperationException(String.format("Cannot calculate intersection of exclude rules: %s, %s", spec1, spec2));
+            merged.addAll(spec2.getFilters());
         }
-    }
 
-    private static void mergeExcludeRules(GroupNameExcludeSpec spec1, AbstractModuleExclusion spec2, List<AbstractModuleExclusion> merged) {
-        if (spec2 instanceof GroupNameExcludeSpec) {
+        for (GroupNameExcludeSpec groupSpec : spec1.getGroupSpecs().values()) {
             // Intersection of 2 group excludes does nothing unless excluded groups match
-            GroupNameExcludeSpec groupNameExcludeSpec = (GroupNameExcludeSpec) spec2;
-            if (spec1.group.equals(groupNameExcludeSpec.group)) {
-                merged.add(spec1);
+            if (spec2.getGroupSpecs().containsKey(groupSpec.group)) {
+                merged.add(groupSpec);
             }
-        } else if (spec2 instanceof ModuleNameExcludeSpec) {
             // Intersection of group & module name exclude only excludes module with matching group + name
-            ModuleNameExcludeSpec moduleNameExcludeSpec = (ModuleNameExcludeSpec) spec2;
-            merged.add(new ModuleIdExcludeSpec(spec1.group, moduleNameExcludeSpec.module));
-        } else if (spec2 instanceof ModuleIdExcludeSpec) {
-            // Intersection of group + module id exclude only excludes the module id if the excluded groups match
-            ModuleIdExcludeSpec moduleIdExcludeSpec = (ModuleIdExcludeSpec) spec2;
-            if (moduleIdExcludeSpec.moduleId.getGroup().equals(spec1.group)) {
-                merged.add(spec2);
+            for (ModuleNameExcludeSpec moduleNameSpec : spec2.getModuleNameSpecs().values()) {
+                merged.add(new ModuleIdExcludeSpec(groupSpec.group, moduleNameSpec.module));
             }
-        } else {
-            throw new UnsupportedOperationException(String.format("Cannot calculate intersection of exclude rules: %s, %s", spec1, spec2));
-         }
-    }
-
-    private static void mergeExcludeRules(ModuleNameExcludeSpec spec1, AbstractModuleExclusion spec2, List<AbstractModuleExclusion> merged) {
-        if (spec2 instanceof ModuleNameExcludeSpec) {
+        }
+        for (ModuleNameExcludeSpec moduleNameSpec : spec1.getModuleNameSpecs().values()) {
             // Intersection of 2 module name excludes does nothing unless excluded module names match
-            ModuleNameExcludeSpec moduleNameExcludeSpec = (ModuleNameExcludeSpec) spec2;
-            if (spec1.module.equals(moduleNameExcludeSpec.module)) {
-                merged.add(spec1);
+            if (spec2.getModuleNameSpecs().containsKey(moduleNameSpec.module)) {
+                merged.add(moduleNameSpec);
             }
-        } else if (spec2 instanceof ModuleIdExcludeSpec) {
+        }
+        for (ModuleIdExcludeSpec moduleIdSpec : spec1.getModuleIdSpecs().values()) {
+            // Intersection of group + module id exclude only excludes the module id if the excluded groups match
             // Intersection of module name & module id exclude only excludes module if the excluded module names match
-            ModuleIdExcludeSpec moduleIdExcludeSpec = (ModuleIdExcludeSpec) spec2;
-            if (moduleIdExcludeSpec.moduleId.getName().equals(spec1.module)) {
-                merged.add(spec2);
+            // Intersection of 2 module id excludes does nothing unless the excluded module ids match
+            if (spec2.getGroupSpecs().containsKey(moduleIdSpec.moduleId.getGroup())
+                || spec2.getModuleNameSpecs().containsKey(moduleIdSpec.moduleId.getName())
+                || spec2.getModuleIdSpecs().containsKey(moduleIdSpec.moduleId)) {
+                merged.add(moduleIdSpec);
             }
-        } else {
-            throw new UnsupportedOperationException(String.format("Cannot calculate intersection of exclude rules: %s, %s", spec1, spec2));
         }
     }
 
+    /**
+     * A pair of exclusions, compared by identity.
+     */
+    private static class ExclusionPair {
+        private final ModuleExclusion left;
+        private final ModuleExclusion right;
+        private final int hashCode;
+
+        private ExclusionPair(ModuleExclusion left, ModuleExclusion right) {
+            this.left = left;
+            this.right = right;
+            this.hashCode = 31 * System.identityHashCode(left) + System.identityHashCode(right);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            ExclusionPair other = (ExclusionPair) o;
+            return left == other.left && right == other.right;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a batch of component meta-data requests concurrently on a bounded pool, so that the dependency graph traversal does not wait for each remote
+ * repository round trip in turn.
+ *
+ * <p>Requests run while holding the artifact cache lock, which the repositories release again for their remote requests. The calling thread, which
+ * must hold the cache lock, releases it while waiting for the requests to complete.</p>
+ *
+ * <p>A failed request is logged and otherwise ignored. The caller is expected to resolve anything that was not prefetched itself, which reports the
+ * failure in the same way as a serial resolve.</p>
+ */
+public class ComponentMetaDataPrefetcher implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentMetaDataPrefetcher.class);
+
+    public static final String PARALLEL_RESOLUTION_PROPERTY = "org.gradle.resolution.parallelMetaData";
+    public static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "org.gradle.resolution.parallelMetaData.maxRequests";
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ExecutorFactory executorFactory;
+    private final int maxConcurrentRequests;
+    private StoppableExecutor executor;
+
+    public ComponentMetaDataPrefetcher(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager, int maxConcurrentRequests) {
+        this.executorFactory = executorFactory;
+        this.cacheLockingManager = cacheLockingManager;
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    }
+
+    /**
+     * Runs the given requests and waits for them to complete.
+     */
+    public void prefetch(List<? extends Runnable> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        if (requests.size() == 1) {
+            // Nothing to overlap with, so run on this thread
+            runQuietly(requests.get(0));
+            return;
+        }
+
+        StoppableExecutor executor = getExecutor();
+        final List<Future<?>> results = new ArrayList<Future<?>>(requests.size());
+        for (final Runnable request : requests) {
+            results.add(executor.submit(new Runnable() {
+                public void run() {
+                    cacheLockingManager.useCache("Prefetch " + request, new Runnable() {
+                        public void run() {
+                            runQuietly(request);
+                        }
+                    });
+                }
+            }));
+        }
+        cacheLockingManager.longRunningOperation("Wait for " + requests.size() + " component meta-data requests", new Runnable() {
+            public void run() {
+                for (Future<?> result : results) {
+                    try {
+                        result.get();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    } catch (ExecutionException e) {
+                        LOGGER.debug("Could not prefetch component meta-data.", e.getCause());
+                    }
+                }
+            }
+        });
+    }
+
+    private static void runQuietly(Runnable request) {
+        try {
+            request.run();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not prefetch {}.", request, e);
+        }
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Component meta-data resolution", maxConcurrentRequests);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
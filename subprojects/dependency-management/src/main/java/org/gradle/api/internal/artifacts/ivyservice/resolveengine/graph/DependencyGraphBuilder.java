@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -58,15 +59,26 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ComponentMetaDataPrefetcher metaDataPrefetcher;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler, null);
+    }
+
+    /**
+     * @param metaDataPrefetcher Used to resolve the meta-data for the targets of the outgoing edges of each node concurrently, or null to resolve each one when it is first required.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ConflictHandler conflictHandler, @Nullable ComponentMetaDataPrefetcher metaDataPrefetcher) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.metaDataPrefetcher = metaDataPrefetcher;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -96,6 +108,9 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                if (metaDataPrefetcher != null) {
+                    prefetchMetaData(resolveState, dependencies);
+                }
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -158,6 +173,58 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the meta-data for the targets of the given edges that require it, concurrently. The edges are not attached to the graph, so that
+     * the traversal and conflict resolution happen in the same order as when resolving serially. The traversal uses the prefetched meta-data when
+     * it first requires the meta-data of each target.
+     */
+    private void prefetchMetaData(ResolveState resolveState, List<DependencyEdge> dependencies) {
+        List<MetaDataRequest> requests = new ArrayList<MetaDataRequest>();
+        Set<ModuleVersionSelectorResolveState> seen = new HashSet<ModuleVersionSelectorResolveState>();
+        Set<ModuleVersionIdentifier> requested = new HashSet<ModuleVersionIdentifier>();
+        for (DependencyEdge dependency : dependencies) {
+            ModuleVersionSelectorResolveState selector = dependency.selector;
+            if (seen.add(selector) && selector.requiresMetaData() && requested.add(selector.idResolveResult.getModuleVersionId())) {
+                requests.add(new MetaDataRequest(selector, resolveState.metaDataResolver));
+            }
+        }
+        metaDataPrefetcher.prefetch(requests);
+        for (MetaDataRequest request : requests) {
+            if (request.completed) {
+                request.selector.prefetchedMetaData = request.result;
+            }
+        }
+    }
+
+    /**
+     * Resolves the meta-data for the target of a selector. Does not modify any state shared with the graph traversal, so it may run on any thread.
+     */
+    private static class MetaDataRequest implements Runnable {
+        final ModuleVersionSelectorResolveState selector;
+        final ComponentMetaDataResolver resolver;
+        final DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+        final ComponentIdentifier componentId;
+        final ComponentOverrideMetadata overrideMetadata;
+        boolean completed;
+
+        MetaDataRequest(ModuleVersionSelectorResolveState selector, ComponentMetaDataResolver resolver) {
+            this.selector = selector;
+            this.resolver = resolver;
+            this.componentId = selector.idResolveResult.getId();
+            this.overrideMetadata = DefaultComponentOverrideMetadata.forDependency(selector.dependencyMetadata);
+        }
+
+        @Override
+        public String toString() {
+            return "meta-data for " + componentId.getDisplayName();
+        }
+
+        public void run() {
+            resolver.resolve(componentId, overrideMetadata, result);
+            completed = true;
+        }
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -193,6 +260,7 @@ public class DependencyGraphBuilder {
         private final ModuleExclusion moduleExclusion;
         private final Set<ConfigurationNode> targetConfigurations = new LinkedHashSet<ConfigurationNode>();
         private ModuleVersionResolveState targetModuleRevision;
+        private ModuleExclusion exclusions;
 
         public DependencyEdge(ConfigurationNode from, DependencyMetadata dependencyMetadata, ModuleExclusion moduleExclusion, ResolveState resolveState) {
             this.from = from;
@@ -271,9 +339,12 @@ public class DependencyGraphBuilder {
         }
 
         public ModuleExclusion getExclusions() {
-            Set<String> hierarchy = from.metaData.getHierarchy();
-            ModuleExclusion edgeExclusions = ModuleExclusions.excludeAny(dependencyMetadata.getExcludes(hierarchy));
-            return ModuleExclusions.intersect(edgeExclusions, moduleExclusion);
+            if (exclusions == null) {
+                Set<String> hierarchy = from.metaData.getHierarchy();
+                ModuleExclusion edgeExclusions = resolveState.moduleExclusions.excludeAny(dependencyMetadata.getExcludes(hierarchy));
+                exclusions = resolveState.moduleExclusions.intersect(edgeExclusions, moduleExclusion);
+            }
+            return exclusions;
         }
 
         public ComponentSelector getRequested() {
@@ -321,6 +392,7 @@ public class DependencyGraphBuilder {
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final ModuleExclusions moduleExclusions = new ModuleExclusions();
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
                             ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
@@ -560,8 +632,11 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetadata), result);
+            BuildableComponentResolveResult result = firstReference.takePrefetchedMetaData();
+            if (result == null) {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetadata), result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -759,10 +834,10 @@ public class DependencyGraphBuilder {
                 resolutionFilter = transitiveEdges.get(0).getExclusions();
                 for (int i = 1; i < transitiveEdges.size(); i++) {
                     DependencyEdge dependencyEdge = transitiveEdges.get(i);
-                    resolutionFilter = ModuleExclusions.union(resolutionFilter, dependencyEdge.getExclusions());
+                    resolutionFilter = resolveState.moduleExclusions.union(resolutionFilter, dependencyEdge.getExclusions());
                 }
             }
-            resolutionFilter = ModuleExclusions.intersect(resolutionFilter, ModuleExclusions.excludeAny(metaData.getExcludes()));
+            resolutionFilter = resolveState.moduleExclusions.intersect(resolutionFilter, resolveState.moduleExclusions.excludeAny(metaData.getExcludes()));
             return resolutionFilter;
         }
 
@@ -828,6 +903,7 @@ public class DependencyGraphBuilder {
         ModuleResolveState targetModule;
         ModuleVersionResolveState targetModuleRevision;
         BuildableComponentIdResolveResult idResolveResult;
+        BuildableComponentResolveResult prefetchedMetaData;
 
         private ModuleVersionSelectorResolveState(DependencyMetadata dependencyMetadata, DependencyToComponentIdResolver resolver, ResolveState resolveState) {
             this.dependencyMetadata = dependencyMetadata;
@@ -864,17 +940,11 @@ public class DependencyGraphBuilder {
             if (targetModuleRevision != null) {
                 return targetModuleRevision;
             }
+            resolveComponentId();
             if (failure != null) {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetadata, idResolveResult);
-            if (idResolveResult.getFailure() != null) {
-                failure = idResolveResult.getFailure();
-                return null;
-            }
-
             targetModuleRevision = resolveState.getRevision(idResolveResult.getModuleVersionId());
             targetModuleRevision.addResolver(this);
             targetModuleRevision.selectionReason = idResolveResult.getSelectionReason();
@@ -884,6 +954,49 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        private void resolveComponentId() {
+            if (idResolveResult != null) {
+                return;
+            }
+            idResolveResult = new DefaultBuildableComponentIdResolveResult();
+            resolver.resolve(dependencyMetadata, idResolveResult);
+            if (idResolveResult.getFailure() != null) {
+                failure = idResolveResult.getFailure();
+            }
+        }
+
+        /**
+         * Resolves the id of the target of this selector, without adding the target to the graph, and determines whether the meta-data for the target
+         * still needs to be resolved.
+         */
+        public boolean requiresMetaData() {
+            if (targetModuleRevision != null || prefetchedMetaData != null) {
+                return false;
+            }
+            resolveComponentId();
+            if (failure != null || idResolveResult.getMetaData() != null) {
+                return false;
+            }
+            ModuleVersionIdentifier id = idResolveResult.getModuleVersionId();
+            ModuleResolveState module = resolveState.modules.get(id.getModule());
+            if (module == null) {
+                return true;
+            }
+            if (module.selected != null && !module.selected.id.equals(id)) {
+                // Will be in conflict with the selected version, so may never be required
+                return false;
+            }
+            ModuleVersionResolveState version = module.versions.get(id);
+            return version == null || version.metaData == null && version.failure == null;
+        }
+
+        @Nullable
+        public BuildableComponentResolveResult takePrefetchedMetaData() {
+            BuildableComponentResolveResult result = prefetchedMetaData;
+            prefetchedMetaData = null;
+            return result;
+        }
+
         public void restart(ModuleVersionResolveState moduleRevision) {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
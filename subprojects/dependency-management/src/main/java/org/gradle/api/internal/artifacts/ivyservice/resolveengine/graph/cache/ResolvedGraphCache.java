@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.base.Joiner;
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.DefaultComponentMetadataHandler;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A persistent cache of resolved dependency graphs, keyed on the inputs to the resolve.
+ *
+ * <p>The key is made up of the root configuration and its dependencies, the repositories, the component resolvers, the component metadata rules
+ * and the conflict resolution strategy. The remaining inputs, the dependency substitution rules and module replacements, are checked against the
+ * snapshot before it is used. Only graphs whose content cannot change for a given key are recorded, so there is no expiry.</p>
+ *
+ * <p>Metadata rules are code, so each rule is identified by the class that implements it and a hash of the class loader that loaded it, which
+ * changes when the build script declaring the rule changes. Graphs are not cached at all when a local repository is used, as modules published
+ * to a local repository replace the existing versions without changing anything that makes up the key.</p>
+ *
+ * <p>The cache is backed by the artifact cache, so must be used while holding the cache lock.</p>
+ */
+public class ResolvedGraphCache {
+    public static final String GRAPH_CACHE_PROPERTY = "org.gradle.resolution.graphCache";
+
+    private final CacheLockingManager cacheLockingManager;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, ResolvedGraphSnapshot> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, VersionSelectorScheme versionSelectorScheme, ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
+                              boolean refreshDependencies) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    private PersistentIndexedCache<String, ResolvedGraphSnapshot> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-graphs", BaseSerializerFactory.STRING_SERIALIZER, new ResolvedGraphSnapshotSerializer());
+        }
+        return cache;
+    }
+
+    /**
+     * Calculates the cache key for resolving the given root configuration, or returns null when the root configuration has dependencies whose
+     * result may change without the key changing, a repository is local or some metadata rule can't be identified.
+     *
+     * @param resolverIds The ids of the component resolvers used in addition to the repositories.
+     */
+    @Nullable
+    public String createKey(ComponentResolveMetadata rootComponent, ConfigurationMetadata rootConfiguration, List<String> resolverIds,
+                            List<? extends ConfiguredModuleComponentRepository> repositories, ResolutionStrategyInternal resolutionStrategy,
+                            ComponentMetadataProcessor componentMetadataProcessor) {
+        for (ConfiguredModuleComponentRepository repository : repositories) {
+            if (repository.isLocal()) {
+                return null;
+            }
+        }
+        String metadataRules = describeMetadataRules(componentMetadataProcessor);
+        if (metadataRules == null) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder();
+        key.append(rootComponent.getId()).append('|').append(rootComponent.getComponentId().getDisplayName()).append('|').append(rootConfiguration.getName());
+        key.append('|').append(rootConfiguration.isTransitive());
+        appendExcludes(key, rootConfiguration.getExcludes());
+        for (DependencyMetadata dependency : rootConfiguration.getDependencies()) {
+            ComponentSelector selector = dependency.getSelector();
+            if (!(selector instanceof ModuleComponentSelector) || dependency.isChanging()
+                || versionSelectorScheme.parseSelector(((ModuleComponentSelector) selector).getVersion()).isDynamic()) {
+                return null;
+            }
+            key.append("|dep:").append(selector.getDisplayName());
+            for (String moduleConfiguration : dependency.getModuleConfigurations()) {
+                key.append(':').append(moduleConfiguration).append("->");
+                Joiner.on(',').appendTo(key, dependency.getDependencyConfigurations(moduleConfiguration, moduleConfiguration));
+            }
+            key.append(':').append(dependency.isTransitive()).append(':').append(dependency.isForce());
+            for (IvyArtifactName artifact : dependency.getArtifacts()) {
+                key.append(":artifact:").append(artifact.getName()).append(',').append(artifact.getType()).append(',').append(artifact.getExtension()).append(',').append(artifact.getClassifier());
+            }
+            appendExcludes(key, dependency.getExcludes(rootConfiguration.getHierarchy()));
+        }
+        for (String resolverId : resolverIds) {
+            key.append("|resolver:").append(resolverId);
+        }
+        for (ConfiguredModuleComponentRepository repository : repositories) {
+            key.append("|repo:").append(repository.getId());
+        }
+        key.append("|rules:").append(metadataRules);
+        key.append("|conflicts:").append(resolutionStrategy.getConflictResolution().getClass().getName());
+        return HashUtil.createHash(key.toString(), "SHA1").asCompactString();
+    }
+
+    @Nullable
+    private String describeMetadataRules(ComponentMetadataProcessor componentMetadataProcessor) {
+        if (componentMetadataProcessor == ComponentMetadataProcessor.NO_OP) {
+            return "";
+        }
+        if (!(componentMetadataProcessor instanceof DefaultComponentMetadataHandler)) {
+            return null;
+        }
+        return ((DefaultComponentMetadataHandler) componentMetadataProcessor).describeRules(new Transformer<String, Class<?>>() {
+            @Override
+            public String transform(Class<?> implementation) {
+                HashCode classLoaderHash = implementation.getClassLoader() == null ? null : classLoaderHierarchyHasher.getStrictHash(implementation.getClassLoader());
+                return classLoaderHash == null ? null : implementation.getName() + "@" + classLoaderHash;
+            }
+        });
+    }
+
+    private static void appendExcludes(StringBuilder key, Iterable<Exclude> excludes) {
+        Set<String> sorted = new TreeSet<String>();
+        for (Exclude exclude : excludes) {
+            sorted.add(exclude.getModuleId() + "," + exclude.getArtifact() + "," + Joiner.on(',').join(exclude.getConfigurations()) + "," + exclude.getMatcher());
+        }
+        for (String exclude : sorted) {
+            key.append(":exclude:").append(exclude);
+        }
+    }
+
+    /**
+     * Returns the graph recorded for the given key, if any.
+     */
+    @Nullable
+    public ResolvedGraphSnapshot get(String key) {
+        if (refreshDependencies) {
+            return null;
+        }
+        return getCache().get(key);
+    }
+
+    public void put(String key, ResolvedGraphSnapshot snapshot) {
+        getCache().put(key, snapshot);
+    }
+
+    public ResolvedGraphRecorder createRecorder(DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, ConfigurationMetadata rootConfiguration,
+                                                ModuleReplacementsData moduleReplacements) {
+        return new ResolvedGraphRecorder(graphVisitor, artifactsVisitor, rootConfiguration, moduleReplacements, versionSelectorScheme);
+    }
+}
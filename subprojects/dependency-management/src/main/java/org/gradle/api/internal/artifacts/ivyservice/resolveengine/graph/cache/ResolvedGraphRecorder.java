@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the events of a dependency graph resolve, while passing them on to the real visitors, so that they can be replayed by a later build.
+ *
+ * <p>A graph is only recorded when its result depends on nothing but the inputs that make up the cache key. This means that every component other
+ * than the root must be an external module that was resolved successfully, using a fixed version, without being forced, substituted or replaced,
+ * and that is not a changing module. When anything else turns up the recorder stops recording and {@link #getSnapshot()} returns null.</p>
+ */
+public class ResolvedGraphRecorder implements DependencyGraphVisitor, DependencyArtifactsVisitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphRecorder.class);
+
+    private final DependencyGraphVisitor graphVisitor;
+    private final DependencyArtifactsVisitor artifactsVisitor;
+    private final ConfigurationMetadata rootConfiguration;
+    private final ModuleReplacementsData moduleReplacements;
+    private final VersionSelectorScheme versionSelectorScheme;
+
+    private final Map<DependencyGraphNode, Integer> nodeIndexes = new IdentityHashMap<DependencyGraphNode, Integer>();
+    private final Map<ResolvedConfigurationIdentifier, Integer> nodeIndexesById = new HashMap<ResolvedConfigurationIdentifier, Integer>();
+    private final List<DependencyGraphNode> nodes = new ArrayList<DependencyGraphNode>();
+    private final Map<DependencyGraphEdge, Integer> edgeIndexes = new IdentityHashMap<DependencyGraphEdge, Integer>();
+    private final List<DependencyGraphEdge> edges = new ArrayList<DependencyGraphEdge>();
+    private final Map<Long, Integer> artifactSetIndexes = new HashMap<Long, Integer>();
+    private final List<ResolvedGraphSnapshot.ArtifactSetSnapshot> artifactSets = new ArrayList<ResolvedGraphSnapshot.ArtifactSetSnapshot>();
+    private final List<ResolvedGraphSnapshot.Event> events = new ArrayList<ResolvedGraphSnapshot.Event>();
+    private DependencyGraphNode root;
+    private String notCacheableReason;
+
+    public ResolvedGraphRecorder(DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, ConfigurationMetadata rootConfiguration,
+                                 ModuleReplacementsData moduleReplacements, VersionSelectorScheme versionSelectorScheme) {
+        this.graphVisitor = graphVisitor;
+        this.artifactsVisitor = artifactsVisitor;
+        this.rootConfiguration = rootConfiguration;
+        this.moduleReplacements = moduleReplacements;
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    public void start(DependencyGraphNode root) {
+        this.root = root;
+        graphVisitor.start(root);
+        if (isRecording()) {
+            events.add(new ResolvedGraphSnapshot.Event(ResolvedGraphSnapshot.START, addNode(root), -1, -1));
+        }
+    }
+
+    public void visitNode(DependencyGraphNode node) {
+        graphVisitor.visitNode(node);
+        if (!isRecording()) {
+            return;
+        }
+        if (node != root) {
+            checkNode(node);
+        }
+        int index = addNode(node);
+        for (DependencyGraphEdge edge : node.getOutgoingEdges()) {
+            addEdge(edge);
+        }
+        events.add(new ResolvedGraphSnapshot.Event(ResolvedGraphSnapshot.NODE, index, -1, -1));
+    }
+
+    public void visitEdge(DependencyGraphNode node) {
+        graphVisitor.visitEdge(node);
+        if (!isRecording()) {
+            return;
+        }
+        int index = addNode(node);
+        for (DependencyGraphEdge edge : node.getIncomingEdges()) {
+            addEdge(edge);
+        }
+        events.add(new ResolvedGraphSnapshot.Event(ResolvedGraphSnapshot.EDGE, index, -1, -1));
+    }
+
+    public void visitArtifacts(ResolvedConfigurationIdentifier parent, ResolvedConfigurationIdentifier child, ArtifactSet artifacts) {
+        artifactsVisitor.visitArtifacts(parent, child, artifacts);
+        if (!isRecording()) {
+            return;
+        }
+        Integer parentIndex = nodeIndexesById.get(parent);
+        Integer childIndex = nodeIndexesById.get(child);
+        if (parentIndex == null || childIndex == null) {
+            stopRecording("artifacts of an unvisited node");
+            return;
+        }
+        Integer artifactSetIndex = addArtifactSet(artifacts);
+        if (artifactSetIndex != null) {
+            events.add(new ResolvedGraphSnapshot.Event(ResolvedGraphSnapshot.ARTIFACTS, childIndex, parentIndex, artifactSetIndex));
+        }
+    }
+
+    public void finish(DependencyGraphNode root) {
+        graphVisitor.finish(root);
+        if (isRecording()) {
+            events.add(new ResolvedGraphSnapshot.Event(ResolvedGraphSnapshot.FINISH, addNode(root), -1, -1));
+        }
+    }
+
+    public void finishArtifacts() {
+        artifactsVisitor.finishArtifacts();
+    }
+
+    /**
+     * Returns the recorded graph, or null when the graph cannot be reused by a later build.
+     */
+    public ResolvedGraphSnapshot getSnapshot() {
+        if (!isRecording()) {
+            LOGGER.debug("Not caching dependency graph for {}: {}", rootConfiguration, notCacheableReason);
+            return null;
+        }
+
+        List<DependencyMetadata> rootDependencies = rootConfiguration.getDependencies();
+        List<ResolvedGraphSnapshot.EdgeSnapshot> edgeSnapshots = new ArrayList<ResolvedGraphSnapshot.EdgeSnapshot>(edges.size());
+        for (DependencyGraphEdge edge : edges) {
+            Integer from = nodeIndexes.get(edge.getFrom());
+            if (from == null) {
+                LOGGER.debug("Not caching dependency graph for {}: edge from an unvisited node", rootConfiguration);
+                return null;
+            }
+            int rootDependency = -1;
+            ModuleDependency moduleDependency = edge.getModuleDependency();
+            if (moduleDependency != null) {
+                rootDependency = indexOf(rootDependencies, moduleDependency);
+                if (rootDependency < 0) {
+                    LOGGER.debug("Not caching dependency graph for {}: unknown dependency {}", rootConfiguration, moduleDependency);
+                    return null;
+                }
+            }
+            edgeSnapshots.add(new ResolvedGraphSnapshot.EdgeSnapshot(from, (ModuleComponentSelector) edge.getRequested(), edge.getSelected(), edge.getReason(), rootDependency));
+        }
+
+        List<ResolvedGraphSnapshot.NodeSnapshot> nodeSnapshots = new ArrayList<ResolvedGraphSnapshot.NodeSnapshot>(nodes.size());
+        for (DependencyGraphNode node : nodes) {
+            nodeSnapshots.add(new ResolvedGraphSnapshot.NodeSnapshot(node.getNodeId().getConfiguration(), node.getSelection(), edgeIndexes(node.getIncomingEdges()), edgeIndexes(node.getOutgoingEdges())));
+        }
+        return new ResolvedGraphSnapshot(nodeSnapshots, edgeSnapshots, artifactSets, events);
+    }
+
+    private boolean isRecording() {
+        return notCacheableReason == null;
+    }
+
+    private void stopRecording(String reason) {
+        if (notCacheableReason == null) {
+            notCacheableReason = reason;
+        }
+    }
+
+    private void checkNode(DependencyGraphNode node) {
+        if (!(node.getComponentId() instanceof ModuleComponentIdentifier)) {
+            stopRecording(node.getComponentId() + " is not an external module");
+            return;
+        }
+        ConfigurationMetadata metaData = node.getMetaData();
+        if (metaData == null || metaData.getComponent().isChanging()) {
+            stopRecording(node.getComponentId() + " is a changing module");
+            return;
+        }
+        ComponentSelectionReason reason = node.getSelection().getSelectionReason();
+        if (reason.isForced() || reason.isSelectedByRule()) {
+            stopRecording(node.getComponentId() + " was " + reason.getDescription());
+        }
+    }
+
+    private int addNode(DependencyGraphNode node) {
+        Integer index = nodeIndexes.get(node);
+        if (index == null) {
+            index = nodes.size();
+            nodes.add(node);
+            nodeIndexes.put(node, index);
+            nodeIndexesById.put(node.getNodeId(), index);
+        }
+        return index;
+    }
+
+    private void addEdge(DependencyGraphEdge edge) {
+        if (edgeIndexes.containsKey(edge)) {
+            return;
+        }
+        if (edge.getFailure() != null) {
+            stopRecording("could not resolve " + edge.getRequested());
+            return;
+        }
+        ComponentSelector requested = edge.getRequested();
+        if (!(requested instanceof ModuleComponentSelector)) {
+            stopRecording(requested + " is not an external module");
+            return;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) requested;
+        if (versionSelectorScheme.parseSelector(moduleSelector.getVersion()).isDynamic()) {
+            stopRecording(requested + " uses a dynamic version");
+            return;
+        }
+        if (moduleReplacements.getReplacementFor(DefaultModuleIdentifier.newId(moduleSelector.getGroup(), moduleSelector.getModule())) != null) {
+            stopRecording(requested + " has a module replacement");
+            return;
+        }
+        edgeIndexes.put(edge, edges.size());
+        edges.add(edge);
+    }
+
+    private Integer addArtifactSet(ArtifactSet artifacts) {
+        Integer index = artifactSetIndexes.get(artifacts.getId());
+        if (index != null) {
+            return index;
+        }
+        if (!(artifacts instanceof DefaultArtifactSet)) {
+            stopRecording("unsupported artifact set " + artifacts);
+            return null;
+        }
+        DefaultArtifactSet artifactSet = (DefaultArtifactSet) artifacts;
+        List<ModuleComponentArtifactIdentifier> artifactIds = new ArrayList<ModuleComponentArtifactIdentifier>();
+        for (ComponentArtifactMetadata artifact : artifactSet.getIncludedArtifacts()) {
+            if (!(artifact instanceof ModuleComponentArtifactMetadata)) {
+                stopRecording(artifact + " is not an external module artifact");
+                return null;
+            }
+            artifactIds.add(((ModuleComponentArtifactMetadata) artifact).getId());
+        }
+        index = artifactSets.size();
+        artifactSets.add(new ResolvedGraphSnapshot.ArtifactSetSnapshot(artifactSet.getId(), artifactSet.getOwnerId(), artifactSet.getModuleSource(), artifactIds));
+        artifactSetIndexes.put(artifactSet.getId(), index);
+        return index;
+    }
+
+    private List<Integer> edgeIndexes(Iterable<? extends DependencyGraphEdge> edges) {
+        List<Integer> indexes = new ArrayList<Integer>();
+        for (DependencyGraphEdge edge : edges) {
+            indexes.add(edgeIndexes.get(edge));
+        }
+        return indexes;
+    }
+
+    private static int indexOf(List<DependencyMetadata> dependencies, ModuleDependency moduleDependency) {
+        for (int i = 0; i < dependencies.size(); i++) {
+            DependencyMetadata dependency = dependencies.get(i);
+            if (dependency instanceof DslOriginDependencyMetadata && ((DslOriginDependencyMetadata) dependency).getSource() == moduleDependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.DependencySubstitution;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DefaultDependencySubstitution;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetadata;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The recorded outcome of resolving a dependency graph: the nodes and edges of the graph, the artifact sets attached to each edge and the order in
+ * which the graph visitors were notified of them. Replaying a snapshot notifies the visitors of the same sequence of events, without traversing the
+ * graph or loading any component meta-data.
+ *
+ * <p>Only graphs made up entirely of successfully resolved external modules with fixed versions are recorded. See {@link ResolvedGraphRecorder}.</p>
+ */
+public class ResolvedGraphSnapshot {
+    static final byte START = 1;
+    static final byte NODE = 2;
+    static final byte EDGE = 3;
+    static final byte ARTIFACTS = 4;
+    static final byte FINISH = 5;
+
+    final List<NodeSnapshot> nodes;
+    final List<EdgeSnapshot> edges;
+    final List<ArtifactSetSnapshot> artifactSets;
+    final List<Event> events;
+
+    ResolvedGraphSnapshot(List<NodeSnapshot> nodes, List<EdgeSnapshot> edges, List<ArtifactSetSnapshot> artifactSets, List<Event> events) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.artifactSets = artifactSets;
+        this.events = events;
+    }
+
+    /**
+     * Returns true when the given rules would have no effect on the recorded graph. The rules are not part of the cache key, as they are arbitrary
+     * code, so they are instead checked against each requested module before the snapshot is reused.
+     */
+    public boolean isUpToDate(Action<? super DependencySubstitution> substitutionRule, ModuleReplacementsData moduleReplacements) {
+        for (EdgeSnapshot edge : edges) {
+            ModuleComponentSelector requested = edge.requested;
+            if (moduleReplacements.getReplacementFor(DefaultModuleIdentifier.newId(requested.getGroup(), requested.getModule())) != null) {
+                return false;
+            }
+            DefaultDependencySubstitution substitution = new DefaultDependencySubstitution(requested, edge.getRequestedModuleVersion());
+            try {
+                substitutionRule.execute(substitution);
+            } catch (Throwable e) {
+                // Let a full resolve report the failure
+                return false;
+            }
+            if (substitution.isUpdated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Notifies the given visitors of the recorded graph, in the same order as the original resolve did.
+     */
+    public void replay(ConfigurationMetadata rootConfiguration, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor, ArtifactResolver artifactResolver) {
+        List<DependencyMetadata> rootDependencies = rootConfiguration.getDependencies();
+
+        ReplayedNode[] replayedNodes = new ReplayedNode[nodes.size()];
+        for (int i = 0; i < replayedNodes.length; i++) {
+            NodeSnapshot node = nodes.get(i);
+            replayedNodes[i] = new ReplayedNode(new ResolvedConfigurationIdentifier(node.selection.getId(), node.configuration), node.selection);
+        }
+        ReplayedEdge[] replayedEdges = new ReplayedEdge[edges.size()];
+        for (int i = 0; i < replayedEdges.length; i++) {
+            EdgeSnapshot edge = edges.get(i);
+            ModuleDependency moduleDependency = null;
+            if (edge.rootDependency >= 0) {
+                moduleDependency = ((DslOriginDependencyMetadata) rootDependencies.get(edge.rootDependency)).getSource();
+            }
+            replayedEdges[i] = new ReplayedEdge(replayedNodes[edge.from], edge, moduleDependency);
+        }
+        for (int i = 0; i < replayedNodes.length; i++) {
+            NodeSnapshot node = nodes.get(i);
+            for (Integer edge : node.incomingEdges) {
+                replayedNodes[i].incomingEdges.add(replayedEdges[edge]);
+            }
+            for (Integer edge : node.outgoingEdges) {
+                replayedNodes[i].outgoingEdges.add(replayedEdges[edge]);
+            }
+        }
+
+        Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+        ArtifactSet[] replayedArtifactSets = new ArtifactSet[artifactSets.size()];
+        for (int i = 0; i < replayedArtifactSets.length; i++) {
+            ArtifactSetSnapshot artifactSet = artifactSets.get(i);
+            Set<ComponentArtifactMetadata> artifacts = new LinkedHashSet<ComponentArtifactMetadata>(artifactSet.artifacts.size());
+            for (ModuleComponentArtifactIdentifier artifact : artifactSet.artifacts) {
+                artifacts.add(new DefaultModuleComponentArtifactMetadata(artifact));
+            }
+            replayedArtifactSets[i] = new DefaultArtifactSet(artifactSet.ownerId, artifactSet.moduleSource, ModuleExclusions.excludeNone(), artifacts, artifactResolver, allResolvedArtifacts, artifactSet.id);
+        }
+
+        for (Event event : events) {
+            switch (event.type) {
+                case START:
+                    graphVisitor.start(replayedNodes[event.node]);
+                    break;
+                case NODE:
+                    graphVisitor.visitNode(replayedNodes[event.node]);
+                    break;
+                case EDGE:
+                    graphVisitor.visitEdge(replayedNodes[event.node]);
+                    break;
+                case ARTIFACTS:
+                    artifactsVisitor.visitArtifacts(replayedNodes[event.parent].getNodeId(), replayedNodes[event.node].getNodeId(), replayedArtifactSets[event.artifactSet]);
+                    break;
+                case FINISH:
+                    graphVisitor.finish(replayedNodes[event.node]);
+                    artifactsVisitor.finishArtifacts();
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected event type " + event.type);
+            }
+        }
+    }
+
+    static class NodeSnapshot {
+        final String configuration;
+        final ModuleVersionSelection selection;
+        final List<Integer> incomingEdges;
+        final List<Integer> outgoingEdges;
+
+        NodeSnapshot(String configuration, ModuleVersionSelection selection, List<Integer> incomingEdges, List<Integer> outgoingEdges) {
+            this.configuration = configuration;
+            this.selection = selection;
+            this.incomingEdges = incomingEdges;
+            this.outgoingEdges = outgoingEdges;
+        }
+    }
+
+    static class EdgeSnapshot {
+        final int from;
+        final ModuleComponentSelector requested;
+        final ModuleVersionIdentifier selected;
+        final ComponentSelectionReason reason;
+        final int rootDependency;
+
+        EdgeSnapshot(int from, ModuleComponentSelector requested, ModuleVersionIdentifier selected, ComponentSelectionReason reason, int rootDependency) {
+            this.from = from;
+            this.requested = requested;
+            this.selected = selected;
+            this.reason = reason;
+            this.rootDependency = rootDependency;
+        }
+
+        ModuleVersionSelector getRequestedModuleVersion() {
+            return DefaultModuleVersionSelector.newSelector(requested.getGroup(), requested.getModule(), requested.getVersion());
+        }
+    }
+
+    static class ArtifactSetSnapshot {
+        final long id;
+        final ModuleVersionIdentifier ownerId;
+        final ModuleSource moduleSource;
+        final List<ModuleComponentArtifactIdentifier> artifacts;
+
+        ArtifactSetSnapshot(long id, ModuleVersionIdentifier ownerId, ModuleSource moduleSource, List<ModuleComponentArtifactIdentifier> artifacts) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.moduleSource = moduleSource;
+            this.artifacts = artifacts;
+        }
+    }
+
+    static class Event {
+        final byte type;
+        final int node;
+        final int parent;
+        final int artifactSet;
+
+        Event(byte type, int node, int parent, int artifactSet) {
+            this.type = type;
+            this.node = node;
+            this.parent = parent;
+            this.artifactSet = artifactSet;
+        }
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final ResolvedConfigurationIdentifier id;
+        private final ModuleVersionSelection selection;
+        private final Set<DependencyGraphEdge> incomingEdges = new LinkedHashSet<DependencyGraphEdge>();
+        private final Set<DependencyGraphEdge> outgoingEdges = new LinkedHashSet<DependencyGraphEdge>();
+
+        ReplayedNode(ResolvedConfigurationIdentifier id, ModuleVersionSelection selection) {
+            this.id = id;
+            this.selection = selection;
+        }
+
+        @Override
+        public String toString() {
+            return id.toString();
+        }
+
+        public ResolvedConfigurationIdentifier getNodeId() {
+            return id;
+        }
+
+        public ModuleVersionIdentifier toId() {
+            return selection.getId();
+        }
+
+        public ComponentIdentifier getComponentId() {
+            return selection.getComponentId();
+        }
+
+        public ModuleVersionSelection getSelection() {
+            return selection;
+        }
+
+        public Set<DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        public Set<DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        public ConfigurationMetadata getMetaData() {
+            // Only external modules are recorded, and the meta-data of these is not needed to assemble the results
+            return null;
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge {
+        private final ReplayedNode from;
+        private final EdgeSnapshot edge;
+        private final ModuleDependency moduleDependency;
+
+        ReplayedEdge(ReplayedNode from, EdgeSnapshot edge, ModuleDependency moduleDependency) {
+            this.from = from;
+            this.edge = edge;
+            this.moduleDependency = moduleDependency;
+        }
+
+        public DependencyGraphNode getFrom() {
+            return from;
+        }
+
+        public ModuleVersionSelector getRequestedModuleVersion() {
+            return edge.getRequestedModuleVersion();
+        }
+
+        public ModuleExclusion getExclusions() {
+            return ModuleExclusions.excludeNone();
+        }
+
+        public Set<ComponentArtifactMetadata> getArtifacts(ConfigurationMetadata metaData) {
+            return Collections.emptySet();
+        }
+
+        public ModuleDependency getModuleDependency() {
+            return moduleDependency;
+        }
+
+        public ComponentSelector getRequested() {
+            return edge.requested;
+        }
+
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        public ModuleVersionIdentifier getSelected() {
+            return edge.selected;
+        }
+
+        public ComponentSelectionReason getReason() {
+            return edge.reason;
+        }
+    }
+}
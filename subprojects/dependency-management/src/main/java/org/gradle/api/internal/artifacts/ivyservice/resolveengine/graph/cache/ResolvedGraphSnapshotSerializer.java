@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasonSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelectionSerializer;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactIdentifierSerializer;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ResolvedGraphSnapshotSerializer implements Serializer<ResolvedGraphSnapshot> {
+    private final ModuleVersionSelectionSerializer moduleVersionSelectionSerializer = new ModuleVersionSelectionSerializer();
+    private final ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer();
+    private final ComponentSelectionReasonSerializer componentSelectionReasonSerializer = new ComponentSelectionReasonSerializer();
+    private final ModuleVersionIdentifierSerializer moduleVersionIdentifierSerializer = new ModuleVersionIdentifierSerializer();
+    private final ModuleVersionArtifactIdentifierSerializer artifactIdentifierSerializer = new ModuleVersionArtifactIdentifierSerializer();
+    private final DefaultSerializer<ModuleSource> moduleSourceSerializer = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+
+    public void write(Encoder encoder, ResolvedGraphSnapshot value) throws Exception {
+        encoder.writeSmallInt(value.nodes.size());
+        for (ResolvedGraphSnapshot.NodeSnapshot node : value.nodes) {
+            encoder.writeString(node.configuration);
+            moduleVersionSelectionSerializer.write(encoder, node.selection);
+            writeIndexes(encoder, node.incomingEdges);
+            writeIndexes(encoder, node.outgoingEdges);
+        }
+        encoder.writeSmallInt(value.edges.size());
+        for (ResolvedGraphSnapshot.EdgeSnapshot edge : value.edges) {
+            encoder.writeSmallInt(edge.from);
+            componentSelectorSerializer.write(encoder, edge.requested);
+            moduleVersionIdentifierSerializer.write(encoder, edge.selected);
+            componentSelectionReasonSerializer.write(encoder, edge.reason);
+            encoder.writeInt(edge.rootDependency);
+        }
+        encoder.writeSmallInt(value.artifactSets.size());
+        for (ResolvedGraphSnapshot.ArtifactSetSnapshot artifactSet : value.artifactSets) {
+            encoder.writeLong(artifactSet.id);
+            moduleVersionIdentifierSerializer.write(encoder, artifactSet.ownerId);
+            moduleSourceSerializer.write(encoder, artifactSet.moduleSource);
+            encoder.writeSmallInt(artifactSet.artifacts.size());
+            for (ModuleComponentArtifactIdentifier artifact : artifactSet.artifacts) {
+                artifactIdentifierSerializer.write(encoder, artifact);
+            }
+        }
+        encoder.writeSmallInt(value.events.size());
+        for (ResolvedGraphSnapshot.Event event : value.events) {
+            encoder.writeByte(event.type);
+            encoder.writeSmallInt(event.node);
+            if (event.type == ResolvedGraphSnapshot.ARTIFACTS) {
+                encoder.writeSmallInt(event.parent);
+                encoder.writeSmallInt(event.artifactSet);
+            }
+        }
+    }
+
+    public ResolvedGraphSnapshot read(Decoder decoder) throws Exception {
+        int nodeCount = decoder.readSmallInt();
+        List<ResolvedGraphSnapshot.NodeSnapshot> nodes = new ArrayList<ResolvedGraphSnapshot.NodeSnapshot>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            String configuration = decoder.readString();
+            ModuleVersionSelection selection = moduleVersionSelectionSerializer.read(decoder);
+            List<Integer> incomingEdges = readIndexes(decoder);
+            List<Integer> outgoingEdges = readIndexes(decoder);
+            nodes.add(new ResolvedGraphSnapshot.NodeSnapshot(configuration, selection, incomingEdges, outgoingEdges));
+        }
+        int edgeCount = decoder.readSmallInt();
+        List<ResolvedGraphSnapshot.EdgeSnapshot> edges = new ArrayList<ResolvedGraphSnapshot.EdgeSnapshot>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int from = decoder.readSmallInt();
+            ModuleComponentSelector requested = (ModuleComponentSelector) componentSelectorSerializer.read(decoder);
+            ModuleVersionIdentifier selected = moduleVersionIdentifierSerializer.read(decoder);
+            ComponentSelectionReason reason = componentSelectionReasonSerializer.read(decoder);
+            int rootDependency = decoder.readInt();
+            edges.add(new ResolvedGraphSnapshot.EdgeSnapshot(from, requested, selected, reason, rootDependency));
+        }
+        int artifactSetCount = decoder.readSmallInt();
+        List<ResolvedGraphSnapshot.ArtifactSetSnapshot> artifactSets = new ArrayList<ResolvedGraphSnapshot.ArtifactSetSnapshot>(artifactSetCount);
+        for (int i = 0; i < artifactSetCount; i++) {
+            long id = decoder.readLong();
+            ModuleVersionIdentifier ownerId = moduleVersionIdentifierSerializer.read(decoder);
+            ModuleSource moduleSource = moduleSourceSerializer.read(decoder);
+            int artifactCount = decoder.readSmallInt();
+            List<ModuleComponentArtifactIdentifier> artifacts = new ArrayList<ModuleComponentArtifactIdentifier>(artifactCount);
+            for (int j = 0; j < artifactCount; j++) {
+                artifacts.add(artifactIdentifierSerializer.read(decoder));
+            }
+            artifactSets.add(new ResolvedGraphSnapshot.ArtifactSetSnapshot(id, ownerId, moduleSource, artifacts));
+        }
+        int eventCount = decoder.readSmallInt();
+        List<ResolvedGraphSnapshot.Event> events = new ArrayList<ResolvedGraphSnapshot.Event>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            byte type = decoder.readByte();
+            int node = decoder.readSmallInt();
+            int parent = -1;
+            int artifactSet = -1;
+            if (type == ResolvedGraphSnapshot.ARTIFACTS) {
+                parent = decoder.readSmallInt();
+                artifactSet = decoder.readSmallInt();
+            }
+            events.add(new ResolvedGraphSnapshot.Event(type, node, parent, artifactSet));
+        }
+        return new ResolvedGraphSnapshot(nodes, edges, artifactSets, events);
+    }
+
+    private void writeIndexes(Encoder encoder, List<Integer> indexes) throws Exception {
+        encoder.writeSmallInt(indexes.size());
+        for (Integer index : indexes) {
+            encoder.writeSmallInt(index);
+        }
+    }
+
+    private List<Integer> readIndexes(Decoder decoder) throws Exception {
+        int count = decoder.readSmallInt();
+        List<Integer> indexes = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            indexes.add(decoder.readSmallInt());
+        }
+        return indexes;
+    }
+}
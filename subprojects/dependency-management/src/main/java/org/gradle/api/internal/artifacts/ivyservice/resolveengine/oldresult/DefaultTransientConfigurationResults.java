@@ -18,21 +18,65 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult;
 
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ResolvedDependency;
+import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static com.google.common.collect.Sets.newHashSet;
+
+/**
+ * Builds the {@link ResolvedDependency} graph from the compact results on first access, so that the graph is only
+ * held in memory for as long as the caller keeps hold of these results.
+ */
 public class DefaultTransientConfigurationResults implements TransientConfigurationResults {
+    private final TransientConfigurationResultsData data;
+    private final ResolvedContentsMapping mapping;
 
-    final Map<ModuleDependency, ResolvedDependency> firstLevelDependencies = new LinkedHashMap<ModuleDependency, ResolvedDependency>();
-    ResolvedDependency root;
+    private Map<ModuleDependency, ResolvedDependency> firstLevelDependencies;
+    private ResolvedDependency root;
+
+    public DefaultTransientConfigurationResults(TransientConfigurationResultsData data, ResolvedContentsMapping mapping) {
+        this.data = data;
+        this.mapping = mapping;
+    }
 
-    public Map<ModuleDependency, ResolvedDependency> getFirstLevelDependencies() {
+    public synchronized Map<ModuleDependency, ResolvedDependency> getFirstLevelDependencies() {
+        materialize();
         return firstLevelDependencies;
     }
 
-    public ResolvedDependency getRoot() {
+    public synchronized ResolvedDependency getRoot() {
+        materialize();
         return root;
     }
 
+    private void materialize() {
+        if (root != null) {
+            return;
+        }
+        ResolvedConfigurationIdentifier[] ids = data.getNodes();
+        DefaultResolvedDependency[] nodes = new DefaultResolvedDependency[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nodes[i] = new DefaultResolvedDependency(ids[i].getId(), ids[i].getConfiguration());
+        }
+
+        int[] parents = data.getParents();
+        int[] children = data.getChildren();
+        long[] artifacts = data.getArtifacts();
+        for (int i = 0; i < parents.length; i++) {
+            DefaultResolvedDependency parent = nodes[parents[i]];
+            DefaultResolvedDependency child = nodes[children[i]];
+            parent.addChild(child);
+            child.addParentSpecificArtifacts(parent, newHashSet(mapping.getArtifacts(artifacts[i])));
+        }
+
+        Map<ModuleDependency, ResolvedDependency> firstLevel = new LinkedHashMap<ModuleDependency, ResolvedDependency>();
+        for (int index : data.getFirstLevelDependencies()) {
+            firstLevel.put(mapping.getModuleDependency(ids[index]), nodes[index]);
+        }
+        firstLevelDependencies = firstLevel;
+        root = nodes[data.getRoot()];
+    }
 }
@@ -17,7 +17,8 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult;
 
-import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
 import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifierSerializer;
 import org.gradle.api.internal.cache.BinaryStore;
@@ -30,13 +31,13 @@ import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.Clock;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import static com.google.common.collect.Sets.newHashSet;
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
-//TODO SF unit coverage
 public class TransientConfigurationResultsBuilder {
 
     private final static Logger LOG = Logging.getLogger(TransientConfigurationResultsBuilder.class);
@@ -49,57 +50,76 @@ public class TransientConfigurationResultsBuilder {
     private final Object lock = new Object();
 
     private BinaryStore binaryStore;
-    private Store<TransientConfigurationResults> cache;
+    private Store<TransientConfigurationResultsData> cache;
     private final ResolvedConfigurationIdentifierSerializer resolvedConfigurationIdentifierSerializer = new ResolvedConfigurationIdentifierSerializer();
     private BinaryStore.BinaryData binaryData;
+    // Nodes are written in full once, and referred to by their index after that
+    private Map<ResolvedConfigurationIdentifier, Integer> nodeIndexes = new HashMap<ResolvedConfigurationIdentifier, Integer>();
+    private int nodeCount;
 
-    public TransientConfigurationResultsBuilder(BinaryStore binaryStore, Store<TransientConfigurationResults> cache) {
+    public TransientConfigurationResultsBuilder(BinaryStore binaryStore, Store<TransientConfigurationResultsData> cache) {
         this.binaryStore = binaryStore;
         this.cache = cache;
     }
 
-    private void writeId(final byte type, final ResolvedConfigurationIdentifier... ids) {
+    private void writeIndexes(final byte type, final int... indexes) {
         binaryStore.write(new BinaryStore.WriteAction() {
             public void write(Encoder encoder) throws IOException {
                 encoder.writeByte(type);
-                for (ResolvedConfigurationIdentifier id : ids) {
-                    resolvedConfigurationIdentifierSerializer.write(encoder, id);
+                for (int index : indexes) {
+                    encoder.writeSmallInt(index);
                 }
             }
         });
     }
 
-    public void resolvedDependency(ResolvedConfigurationIdentifier id) {
-        writeId(NEW_DEP, id);
+    private int indexOf(ResolvedConfigurationIdentifier id, String kind) {
+        Integer index = nodeIndexes.get(id);
+        if (index == null) {
+            throw new IllegalStateException(String.format("Unexpected %s id %s. Seen ids: %s", kind, id, nodeIndexes.keySet()));
+        }
+        return index;
+    }
+
+    public void resolvedDependency(final ResolvedConfigurationIdentifier id) {
+        nodeIndexes.put(id, nodeCount++);
+        binaryStore.write(new BinaryStore.WriteAction() {
+            public void write(Encoder encoder) throws IOException {
+                encoder.writeByte(NEW_DEP);
+                resolvedConfigurationIdentifierSerializer.write(encoder, id);
+            }
+        });
     }
 
     public void done(ResolvedConfigurationIdentifier id) {
-        writeId(ROOT, id);
+        writeIndexes(ROOT, indexOf(id, "root"));
         LOG.debug("Flushing resolved configuration data in {}. Wrote root {}.", binaryStore, id);
         binaryData = binaryStore.done();
+        nodeIndexes = null;
     }
 
     public void firstLevelDependency(ResolvedConfigurationIdentifier id) {
-        writeId(FIRST_LVL, id);
+        writeIndexes(FIRST_LVL, indexOf(id, "first level"));
     }
 
     public void parentChildMapping(ResolvedConfigurationIdentifier parent, ResolvedConfigurationIdentifier child, final long artifactId) {
-        writeId(PARENT_CHILD, parent, child);
+        writeIndexes(PARENT_CHILD, indexOf(parent, "parent dependency"), indexOf(child, "child dependency"));
         binaryStore.write(new BinaryStore.WriteAction() {
             public void write(Encoder encoder) throws IOException {
-                encoder.writeLong(artifactId);
+                encoder.writeSmallLong(artifactId);
             }
         });
     }
 
-    public TransientConfigurationResults load(final ResolvedContentsMapping mapping) {
+    public TransientConfigurationResults load(ResolvedContentsMapping mapping) {
+        TransientConfigurationResultsData data;
         synchronized (lock) {
-            return cache.load(new Factory<TransientConfigurationResults>() {
-                public TransientConfigurationResults create() {
+            data = cache.load(new Factory<TransientConfigurationResultsData>() {
+                public TransientConfigurationResultsData create() {
                     try {
-                        return binaryData.read(new BinaryStore.ReadAction<TransientConfigurationResults>() {
-                            public TransientConfigurationResults read(Decoder decoder) throws IOException {
-                                return deserialize(decoder, mapping);
+                        return binaryData.read(new BinaryStore.ReadAction<TransientConfigurationResultsData>() {
+                            public TransientConfigurationResultsData read(Decoder decoder) throws IOException {
+                                return deserialize(decoder);
                             }
                         });
                     } finally {
@@ -112,54 +132,39 @@ public class TransientConfigurationResultsBuilder {
                 }
             });
         }
+        return new DefaultTransientConfigurationResults(data, mapping);
     }
 
-    private TransientConfigurationResults deserialize(Decoder decoder, ResolvedContentsMapping mapping) {
+    private TransientConfigurationResultsData deserialize(Decoder decoder) {
         Clock clock = new Clock();
-        Map<ResolvedConfigurationIdentifier, DefaultResolvedDependency> allDependencies = new HashMap<ResolvedConfigurationIdentifier, DefaultResolvedDependency>();
-        DefaultTransientConfigurationResults results = new DefaultTransientConfigurationResults();
+        List<ResolvedConfigurationIdentifier> nodes = new ArrayList<ResolvedConfigurationIdentifier>();
+        List<Integer> firstLevelDependencies = new ArrayList<Integer>();
+        List<Integer> parents = new ArrayList<Integer>();
+        List<Integer> children = new ArrayList<Integer>();
+        List<Long> artifacts = new ArrayList<Long>();
         int valuesRead = 0;
         byte type = -1;
         try {
             while (true) {
                 type = decoder.readByte();
-                ResolvedConfigurationIdentifier id;
                 valuesRead++;
                 switch (type) {
                     case NEW_DEP:
-                        id = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        allDependencies.put(id, new DefaultResolvedDependency(id.getId(), id.getConfiguration()));
+                        nodes.add(resolvedConfigurationIdentifierSerializer.read(decoder));
                         break;
                     case ROOT:
-                        id = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        results.root = allDependencies.get(id);
-                        if (results.root == null) {
-                            throw new IllegalStateException(String.format("Unexpected root id %s. Seen ids: %s", id, allDependencies.keySet()));
-                        }
+                        int root = readIndex(decoder, nodes, "root");
                         //root should be the last
                         LOG.debug("Loaded resolved configuration results ({}) from {}", clock.getTime(), binaryStore);
-                        return results;
+                        return new TransientConfigurationResultsData(nodes.toArray(new ResolvedConfigurationIdentifier[0]), root,
+                                Ints.toArray(firstLevelDependencies), Ints.toArray(parents), Ints.toArray(children), Longs.toArray(artifacts));
                     case FIRST_LVL:
-                        id = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        DefaultResolvedDependency dependency = allDependencies.get(id);
-                        if (dependency == null) {
-                            throw new IllegalStateException(String.format("Unexpected first level id %s. Seen ids: %s", id, allDependencies.keySet()));
-                        }
-                        results.firstLevelDependencies.put(mapping.getModuleDependency(id), dependency);
+                        firstLevelDependencies.add(readIndex(decoder, nodes, "first level"));
                         break;
                     case PARENT_CHILD:
-                        ResolvedConfigurationIdentifier parentId = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        ResolvedConfigurationIdentifier childId = resolvedConfigurationIdentifierSerializer.read(decoder);
-                        DefaultResolvedDependency parent = allDependencies.get(parentId);
-                        DefaultResolvedDependency child = allDependencies.get(childId);
-                        if (parent == null) {
-                            throw new IllegalStateException(String.format("Unexpected parent dependency id %s. Seen ids: %s", parentId, allDependencies.keySet()));
-                        }
-                        if (child == null) {
-                            throw new IllegalStateException(String.format("Unexpected child dependency id %s. Seen ids: %s", childId, allDependencies.keySet()));
-                        }
-                        parent.addChild(child);
-                        child.addParentSpecificArtifacts(parent, newHashSet(mapping.getArtifacts(decoder.readLong())));
+                        parents.add(readIndex(decoder, nodes, "parent dependency"));
+                        children.add(readIndex(decoder, nodes, "child dependency"));
+                        artifacts.add(decoder.readSmallLong());
                         break;
                     default:
                         throw new IOException("Unknown value type read from stream: " + type);
@@ -169,4 +174,12 @@ public class TransientConfigurationResultsBuilder {
             throw new RuntimeException("Problems loading the resolved configuration. Read " + valuesRead + " values, last was: " + type, e);
         }
     }
+
+    private static int readIndex(Decoder decoder, List<ResolvedConfigurationIdentifier> nodes, String kind) throws IOException {
+        int index = decoder.readSmallInt();
+        if (index >= nodes.size()) {
+            throw new IllegalStateException(String.format("Unexpected %s index %s. Seen %s ids.", kind, index, nodes.size()));
+        }
+        return index;
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult;
+
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+
+/**
+ * The shape of a resolved configuration graph as read back from the binary store, held as plain arrays.
+ * Nodes are referred to by their index in {@link #getNodes()}. No {@link org.gradle.api.artifacts.ResolvedDependency}
+ * instances are created until the graph is materialized by {@link DefaultTransientConfigurationResults}.
+ */
+public class TransientConfigurationResultsData {
+    private final ResolvedConfigurationIdentifier[] nodes;
+    private final int root;
+    private final int[] firstLevelDependencies;
+    private final int[] parents;
+    private final int[] children;
+    private final long[] artifacts;
+
+    TransientConfigurationResultsData(ResolvedConfigurationIdentifier[] nodes, int root, int[] firstLevelDependencies, int[] parents, int[] children, long[] artifacts) {
+        this.nodes = nodes;
+        this.root = root;
+        this.firstLevelDependencies = firstLevelDependencies;
+        this.parents = parents;
+        this.children = children;
+        this.artifacts = artifacts;
+    }
+
+    public ResolvedConfigurationIdentifier[] getNodes() {
+        return nodes;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public int[] getFirstLevelDependencies() {
+        return firstLevelDependencies;
+    }
+
+    /**
+     * The parent node of each edge. {@link #getChildren()} and {@link #getArtifacts()} are indexed the same way.
+     */
+    public int[] getParents() {
+        return parents;
+    }
+
+    public int[] getChildren() {
+        return children;
+    }
+
+    public long[] getArtifacts() {
+        return artifacts;
+    }
+}
@@ -17,7 +17,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
-import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsData;
 import org.gradle.api.internal.cache.Store;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.logging.Logger;
@@ -38,7 +38,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
     private final TemporaryFileProvider temp;
     private int maxSize;
 
-    private CachedStoreFactory<TransientConfigurationResults> oldModelCache;
+    private CachedStoreFactory<TransientConfigurationResultsData> oldModelCache;
     private CachedStoreFactory<ResolvedComponentResult> newModelCache;
 
     private AtomicInteger storeSetBaseId = new AtomicInteger(0);
@@ -71,9 +71,9 @@ public class ResolutionResultsStoreFactory implements Closeable {
         return store;
     }
 
-    private synchronized CachedStoreFactory<TransientConfigurationResults> getOldModelCache() {
+    private synchronized CachedStoreFactory<TransientConfigurationResultsData> getOldModelCache() {
         if (oldModelCache == null) {
-            oldModelCache = new CachedStoreFactory<TransientConfigurationResults>("Resolution result");
+            oldModelCache = new CachedStoreFactory<TransientConfigurationResultsData>("Resolution result");
             cleanUpLater.add(oldModelCache);
         }
         return oldModelCache;
@@ -101,7 +101,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
                 return getNewModelCache().createCachedStore(storeSetId);
             }
 
-            public Store<TransientConfigurationResults> oldModelCache() {
+            public Store<TransientConfigurationResultsData> oldModelCache() {
                 return getOldModelCache().createCachedStore(storeSetId);
             }
         };
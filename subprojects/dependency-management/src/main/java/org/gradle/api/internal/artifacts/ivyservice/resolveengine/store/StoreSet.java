@@ -16,7 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
-import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsData;
 import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
 
@@ -25,5 +25,5 @@ public interface StoreSet {
 
     Store<ResolvedComponentResult> newModelCache();
 
-    Store<TransientConfigurationResults> oldModelCache();
+    Store<TransientConfigurationResultsData> oldModelCache();
 }
@@ -45,12 +45,14 @@ public class DefaultMavenArtifactRepository extends AbstractAuthenticationSuppor
     private List<Object> additionalUrls = new ArrayList<Object>();
     private final LocallyAvailableResourceFinder<ModuleComponentArtifactMetadata> locallyAvailableResourceFinder;
     private final FileStore<ModuleComponentArtifactMetadata> artifactFileStore;
+    private final FileStore<String> resourcesFileStore;
     private final MetaDataParser<DefaultMavenModuleResolveMetadata> pomParser;
 
     public DefaultMavenArtifactRepository(FileResolver fileResolver, RepositoryTransportFactory transportFactory,
                                           LocallyAvailableResourceFinder<ModuleComponentArtifactMetadata> locallyAvailableResourceFinder,
                                           Instantiator instantiator,
                                           FileStore<ModuleComponentArtifactMetadata> artifactFileStore,
+                                          FileStore<String> resourcesFileStore,
                                           MetaDataParser<DefaultMavenModuleResolveMetadata> pomParser,
                                           AuthenticationContainer authenticationContainer) {
         super(instantiator, authenticationContainer);
@@ -58,6 +60,7 @@ public class DefaultMavenArtifactRepository extends AbstractAuthenticationSuppor
         this.transportFactory = transportFactory;
         this.locallyAvailableResourceFinder = locallyAvailableResourceFinder;
         this.artifactFileStore = artifactFileStore;
+        this.resourcesFileStore = resourcesFileStore;
         this.pomParser = pomParser;
     }
 
@@ -109,7 +112,7 @@ public class DefaultMavenArtifactRepository extends AbstractAuthenticationSuppor
 
     private MavenResolver createResolver(URI rootUri) {
         RepositoryTransport transport = getTransport(rootUri.getScheme());
-        return new MavenResolver(getName(), rootUri, transport, locallyAvailableResourceFinder, artifactFileStore, pomParser);
+        return new MavenResolver(getName(), rootUri, transport, locallyAvailableResourceFinder, artifactFileStore, resourcesFileStore, pomParser);
     }
 
     public MetaDataParser<DefaultMavenModuleResolveMetadata> getPomParser() {
@@ -120,6 +123,10 @@ public class DefaultMavenArtifactRepository extends AbstractAuthenticationSuppor
         return artifactFileStore;
     }
 
+    protected FileStore<String> getResourcesFileStore() {
+        return resourcesFileStore;
+    }
+
     protected RepositoryTransport getTransport(String scheme) {
         return transportFactory.createTransport(scheme, getName(), getConfiguredAuthentication());
     }
@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.repositories.resolver;
 
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
 import org.gradle.internal.component.model.ModuleDescriptorArtifactMetadata;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resolve.result.ResourceAwareResolveResult;
 import org.gradle.internal.resource.ExternalResourceName;
 import org.gradle.internal.resource.ResourceExceptions;
@@ -84,8 +85,8 @@ class DefaultExternalResourceArtifactResolver implements ExternalResourceArtifac
             LocallyAvailableResourceCandidates localCandidates = locallyAvailableResourceFinder.findCandidates(artifact);
             try {
                 LocallyAvailableExternalResource resource = resourceAccessor.getResource(location.getUri(), new CacheAwareExternalResourceAccessor.ResourceFileStore() {
-                    public LocallyAvailableResource moveIntoCache(File downloadedResource) {
-                        return fileStore.move(artifact, downloadedResource);
+                    public LocallyAvailableResource moveIntoCache(File downloadedResource, HashValue sha1) {
+                        return fileStore.move(artifact, downloadedResource, sha1);
                     }
                 }, localCandidates);
                 if (resource != null) {
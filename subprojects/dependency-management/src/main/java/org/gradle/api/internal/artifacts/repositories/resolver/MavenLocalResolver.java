@@ -38,8 +38,9 @@ public class MavenLocalResolver extends MavenResolver {
     public MavenLocalResolver(String name, URI rootUri, RepositoryTransport transport,
                               LocallyAvailableResourceFinder<ModuleComponentArtifactMetadata> locallyAvailableResourceFinder,
                               FileStore<ModuleComponentArtifactMetadata> artifactFileStore,
+                              FileStore<String> resourcesFileStore,
                               MetaDataParser<DefaultMavenModuleResolveMetadata> pomParser) {
-        super(name, rootUri, transport, locallyAvailableResourceFinder, artifactFileStore, pomParser);
+        super(name, rootUri, transport, locallyAvailableResourceFinder, artifactFileStore, resourcesFileStore, pomParser);
     }
 
     @Override
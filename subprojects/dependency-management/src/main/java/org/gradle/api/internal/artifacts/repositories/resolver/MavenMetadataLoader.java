@@ -21,24 +21,34 @@ import org.apache.ivy.util.XMLHelper;
 import org.gradle.api.resources.MissingResourceException;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.ErroringAction;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.ExternalResource;
-import org.gradle.internal.resource.transport.ExternalResourceRepository;
+import org.gradle.internal.resource.local.FileStore;
+import org.gradle.internal.resource.local.LocallyAvailableResource;
+import org.gradle.internal.resource.transfer.CacheAwareExternalResourceAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 
+/**
+ * Loads {@code maven-metadata.xml} files. These are kept in the resources store and recorded in the cached external resource index,
+ * so that checking a file again is a meta-data request that compares the ETag or Last-Modified value, rather than a download.
+ */
 class MavenMetadataLoader {
     private static final Logger LOGGER = LoggerFactory.getLogger(MavenMetadataLoader.class);
 
-    private final ExternalResourceRepository repository;
+    private final CacheAwareExternalResourceAccessor cacheAwareExternalResourceAccessor;
+    private final FileStore<String> resourcesFileStore;
 
-    public MavenMetadataLoader(ExternalResourceRepository repository) {
-        this.repository = repository;
+    public MavenMetadataLoader(CacheAwareExternalResourceAccessor cacheAwareExternalResourceAccessor, FileStore<String> resourcesFileStore) {
+        this.cacheAwareExternalResourceAccessor = cacheAwareExternalResourceAccessor;
+        this.resourcesFileStore = resourcesFileStore;
     }
 
     public MavenMetadata load(URI metadataLocation) throws ResourceException {
@@ -53,8 +63,12 @@ class MavenMetadataLoader {
         return metadata;
     }
 
-    private void parseMavenMetadataInfo(final URI metadataLocation, final MavenMetadata metadata) {
-        ExternalResource resource = repository.getResource(metadataLocation);
+    private void parseMavenMetadataInfo(final URI metadataLocation, final MavenMetadata metadata) throws IOException {
+        ExternalResource resource = cacheAwareExternalResourceAccessor.getResource(metadataLocation, new CacheAwareExternalResourceAccessor.ResourceFileStore() {
+            public LocallyAvailableResource moveIntoCache(File downloadedResource, HashValue sha1) {
+                return resourcesFileStore.move(metadataLocation.toString(), downloadedResource, sha1);
+            }
+        }, null);
         if (resource == null) {
             throw new MissingResourceException(metadataLocation, String.format("Maven meta-data not available: %s", metadataLocation));
         }
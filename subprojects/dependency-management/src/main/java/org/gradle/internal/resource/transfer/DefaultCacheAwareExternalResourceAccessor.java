@@ -22,11 +22,13 @@ import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.profile.RepositoryProfile;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultExternalResourceCachePolicy;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.ExternalResourceCachePolicy;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.ExternalResource;
@@ -47,6 +49,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExternalResourceAccessor {
 
@@ -57,14 +62,16 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
     private final BuildCommencedTimeProvider timeProvider;
     private final TemporaryFileProvider temporaryFileProvider;
     private final CacheLockingManager cacheLockingManager;
+    private final RepositoryProfile profile;
     private final ExternalResourceCachePolicy externalResourceCachePolicy = new DefaultExternalResourceCachePolicy();
 
-    public DefaultCacheAwareExternalResourceAccessor(ExternalResourceRepository delegate, CachedExternalResourceIndex<String> cachedExternalResourceIndex, BuildCommencedTimeProvider timeProvider, TemporaryFileProvider temporaryFileProvider, CacheLockingManager cacheLockingManager) {
+    public DefaultCacheAwareExternalResourceAccessor(ExternalResourceRepository delegate, CachedExternalResourceIndex<String> cachedExternalResourceIndex, BuildCommencedTimeProvider timeProvider, TemporaryFileProvider temporaryFileProvider, CacheLockingManager cacheLockingManager, RepositoryProfile profile) {
         this.delegate = delegate;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
         this.timeProvider = timeProvider;
         this.temporaryFileProvider = temporaryFileProvider;
         this.cacheLockingManager = cacheLockingManager;
+        this.profile = profile;
     }
 
     public LocallyAvailableExternalResource getResource(final URI location, final ResourceFileStore fileStore, @Nullable LocallyAvailableResourceCandidates localCandidates) throws IOException {
@@ -100,8 +107,9 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
 
             if (isUnchanged) {
                 LOGGER.info("Cached resource {} is up-to-date (lastModified: {}).", location, cached.getExternalLastModified());
-                // TODO - update the index with the new remote meta-data
-                return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), cached.getExternalResourceMetaData());
+                // Record the current ETag and Last-Modified values, and when they were checked, so that the resource is not checked again in this build
+                cachedExternalResourceIndex.store(location.toString(), cached.getCachedFile(), remoteMetaData);
+                return new DefaultLocallyAvailableExternalResource(location, new DefaultLocallyAvailableResource(cached.getCachedFile()), remoteMetaData);
             }
         }
 
@@ -167,7 +175,7 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
             if (!localChecksum.equals(remoteChecksum)) {
                 return null;
             }
-            return moveIntoCache(source, destination, fileStore, remoteMetaData);
+            return moveIntoCache(source, destination, localChecksum, fileStore, remoteMetaData);
         } finally {
             destination.delete();
         }
@@ -180,7 +188,7 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
 
         final File destination = temporaryFileProvider.createTemporaryFile("gradle_download", "bin");
         try {
-            final DownloadToFileAction downloadAction = new DownloadToFileAction(destination);
+            final DownloadToFileAction downloadAction = new DownloadToFileAction(source, destination);
             try {
                 try {
                     LOGGER.debug("Downloading {} to {}", source, destination);
@@ -194,16 +202,17 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
             } catch (Exception e) {
                 throw ResourceExceptions.getFailed(source, e);
             }
-            return moveIntoCache(source, destination, fileStore, downloadAction.metaData);
+            profile.downloaded(destination.length());
+            return moveIntoCache(source, destination, downloadAction.sha1, fileStore, downloadAction.metaData);
         } finally {
             destination.delete();
         }
     }
 
-    private LocallyAvailableExternalResource moveIntoCache(final URI source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
+    private LocallyAvailableExternalResource moveIntoCache(final URI source, final File destination, final HashValue sha1, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
         return cacheLockingManager.useCache("Store " + source, new Factory<LocallyAvailableExternalResource>() {
             public LocallyAvailableExternalResource create() {
-                LocallyAvailableResource cachedResource = fileStore.moveIntoCache(destination);
+                LocallyAvailableResource cachedResource = fileStore.moveIntoCache(destination, sha1);
                 File fileInFileStore = cachedResource.getFile();
                 cachedExternalResourceIndex.store(source.toString(), fileInFileStore, metaData);
                 return new DefaultLocallyAvailableExternalResource(source, cachedResource, metaData);
@@ -215,24 +224,45 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         return timeProvider.getCurrentTime() - cached.getCachedAt();
     }
 
+    /**
+     * Copies the content of a resource to a file, calculating the SHA1 of the content as it is copied. When the resource meta-data
+     * includes a SHA1, the content is verified against it. The SHA1 is handed to the file store, so that the file is not read a second time.
+     */
     private static class DownloadToFileAction implements ExternalResource.ContentAction<Object> {
+        private final URI source;
         private final File destination;
         private ExternalResourceMetaData metaData;
+        private HashValue sha1;
 
-        public DownloadToFileAction(File destination) {
+        public DownloadToFileAction(URI source, File destination) {
+            this.source = source;
             this.destination = destination;
         }
 
         @Override
         public Object execute(InputStream inputStream, ExternalResourceMetaData metaData) throws IOException {
             this.metaData = metaData;
+            MessageDigest messageDigest = createSha1Digest();
             FileOutputStream outputStream = new FileOutputStream(destination);
             try {
-                IOUtils.copyLarge(inputStream, outputStream);
+                IOUtils.copyLarge(new DigestInputStream(inputStream, messageDigest), outputStream);
             } finally {
                 outputStream.close();
             }
+            sha1 = new HashValue(messageDigest.digest());
+            HashValue expectedSha1 = metaData == null ? null : metaData.getSha1();
+            if (expectedSha1 != null && !expectedSha1.equals(sha1)) {
+                throw new ResourceException(source, String.format("Checksum mismatch for resource '%s': expected SHA1 %s but was %s.", source, expectedSha1.asHexString(), sha1.asHexString()));
+            }
             return null;
         }
+
+        private static MessageDigest createSha1Digest() {
+            try {
+                return MessageDigest.getInstance("SHA1");
+            } catch (NoSuchAlgorithmException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
     }
 }
@@ -33,6 +33,10 @@ public class ClosureBackedRuleAction<T> implements RuleAction<T> {
         this.inputTypes = parseInputTypes(closure);
     }
 
+    public Closure getClosure() {
+        return closure;
+    }
+
     public List<Class<?>> getInputTypes() {
         return inputTypes;
     }
@@ -41,6 +41,17 @@ class CacheLayoutTest extends Specification {
         cacheLayout.getPath(new File('some/dir')) == new File('some/dir/files-2.1')
     }
 
+    def "use resources store layout"() {
+        when:
+        CacheLayout cacheLayout = CacheLayout.RESOURCES
+
+        then:
+        cacheLayout.key == 'resources-2.1'
+        cacheLayout.version == VersionNumber.parse("2.1.0")
+        cacheLayout.formattedVersion == '2.1'
+        cacheLayout.getPath(new File('some/dir')) == new File('some/dir/resources-2.1')
+    }
+
     def "use metadata store layout"() {
         when:
         CacheLayout cacheLayout = CacheLayout.META_DATA
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.internal.Factory
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.ArtifactResolveException
+import spock.lang.Specification
+
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+class ConcurrentArtifactDownloaderTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def cacheLockingManager = Mock(CacheLockingManager)
+    def downloader = new ConcurrentArtifactDownloader(executorFactory, cacheLockingManager)
+
+    def cleanup() {
+        downloader.stop()
+        executorFactory.stop()
+    }
+
+    def "downloads the files of the artifacts concurrently while the cache lock is released"() {
+        def barrier = new CyclicBarrier(3)
+        def artifacts = (1..3).collect { i ->
+            artifact({ barrier.await(10, TimeUnit.SECONDS); new File("file$i") } as Factory<File>)
+        }
+
+        when:
+        downloader.download("config", artifacts)
+
+        then:
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> action.run() }
+        artifacts.every { it.resolved }
+        artifacts*.file == [new File("file1"), new File("file2"), new File("file3")]
+    }
+
+    def "does not download artifacts that are already resolved"() {
+        def source = Mock(Factory)
+        def resolved = artifact(source)
+        def others = (1..2).collect { i -> artifact({ new File("file$i") } as Factory<File>) }
+
+        given:
+        1 * source.create() >> new File("file")
+        resolved.file
+
+        when:
+        downloader.download("config", [resolved] + others)
+
+        then:
+        0 * source._
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> action.run() }
+        others.every { it.resolved }
+    }
+
+    def "keeps the failure of an artifact that cannot be downloaded"() {
+        def failure = new ArtifactResolveException("broken")
+        def source = Mock(Factory)
+        def broken = artifact(source)
+        def other = artifact({ new File("file") } as Factory<File>)
+
+        when:
+        downloader.download("config", [broken, other])
+
+        then:
+        1 * source.create() >> { throw failure }
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> action.run() }
+        broken.resolved
+        other.file == new File("file")
+
+        when:
+        broken.file
+
+        then:
+        def e = thrown(ArtifactResolveException)
+        e.is(failure)
+        0 * source._
+    }
+
+    private DefaultResolvedArtifact artifact(Factory<File> source) {
+        return new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), Stub(ComponentArtifactIdentifier), source)
+    }
+}
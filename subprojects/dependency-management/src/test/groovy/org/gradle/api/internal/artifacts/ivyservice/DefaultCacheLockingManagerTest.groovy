@@ -52,6 +52,26 @@ class DefaultCacheLockingManagerTest extends Specification {
         _ * persistentCache.baseDir >> testCacheDir
     }
 
+    def "Create resources store"() {
+        given:
+        TestFile testCacheDir = temporaryFolder.file("test/cache")
+
+        when:
+        CacheLockingManager cacheLockingManager = new DefaultCacheLockingManager(cacheRepository)
+        File resourcesStore = cacheLockingManager.getResourcesStoreDirectory()
+
+        then:
+        resourcesStore == new File(testCacheDir, CacheLayout.RESOURCES.key)
+
+        and:
+        1 * cacheRepository.store(CacheLayout.ROOT.getKey()) >> directoryCacheBuilder
+        1 * directoryCacheBuilder.withDisplayName("artifact cache") >> directoryCacheBuilder
+        1 * directoryCacheBuilder.withCrossVersionCache() >> directoryCacheBuilder
+        1 * directoryCacheBuilder.withLockOptions(mode(FileLockManager.LockMode.None)) >> directoryCacheBuilder
+        1 * directoryCacheBuilder.open() >> persistentCache
+        _ * persistentCache.baseDir >> testCacheDir
+    }
+
     def "Create metadata store"() {
         given:
         TestFile testCacheDir = temporaryFolder.file("test/cache")
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.internal.artifacts.ConfigurationResolver
+import org.gradle.api.internal.artifacts.ResolverResults
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCacheStats
+import org.gradle.api.internal.artifacts.ivyservice.profile.ConfigurationResolutionProfile
+import org.gradle.api.internal.artifacts.ivyservice.profile.DependencyResolutionProfiler
+import org.gradle.internal.progress.BuildOperationDetails
+import org.gradle.internal.progress.BuildOperationExecutor
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ProfilingConfigurationResolverTest extends Specification {
+    def delegate = Mock(ConfigurationResolver)
+    def executor = Mock(BuildOperationExecutor)
+    def profiler = new DependencyResolutionProfiler(new InMemoryCacheStats())
+    def configuration = Stub(ConfigurationInternal) {
+        getPath() >> ":compile"
+        getDisplayName() >> "configuration ':compile'"
+    }
+    def results = Stub(ResolverResults)
+    def resolver = new ProfilingConfigurationResolver(delegate, executor, profiler)
+
+    def "resolves configuration as a build operation and records the time taken"() {
+        when:
+        resolver.resolve(configuration, results)
+
+        then:
+        1 * executor.run(_, _) >> { BuildOperationDetails details, Runnable action ->
+            assert details.displayName == "Resolve configuration ':compile'"
+            assert details.operationDescriptor instanceof ConfigurationResolutionProfile
+            action.run()
+        }
+        1 * delegate.resolve(configuration, results)
+        0 * delegate._
+
+        and:
+        profiler.configurations.size() == 1
+        profiler.configurations[0].path == ":compile"
+    }
+
+    def "records the time taken when resolution fails"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        resolver.resolve(configuration, results)
+
+        then:
+        1 * executor.run(_, _) >> { BuildOperationDetails details, Runnable action -> action.run() }
+        1 * delegate.resolve(configuration, results) >> { throw failure }
+
+        and:
+        def e = thrown(RuntimeException)
+        e == failure
+        profiler.configurations*.path == [":compile"]
+    }
+
+    def "records the time taken to resolve artifacts against the configuration"() {
+        when:
+        resolver.resolve(configuration, results)
+        resolver.resolveArtifacts(configuration, results)
+
+        then:
+        1 * executor.run(_, _) >> { BuildOperationDetails details, Runnable action -> action.run() }
+        1 * delegate.resolve(configuration, results)
+        1 * delegate.resolveArtifacts(configuration, results) >> { Thread.sleep(10) }
+        0 * delegate._
+
+        and:
+        profiler.configurations.size() == 1
+        def profile = profiler.configurations[0]
+        profile.artifactNanos >= TimeUnit.MILLISECONDS.toNanos(10)
+        profile.elapsedNanos == profile.graphNanos + profile.artifactNanos
+    }
+
+    def "records the time taken when artifact resolution fails"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        resolver.resolveArtifacts(configuration, results)
+
+        then:
+        1 * delegate.resolveArtifacts(configuration, results) >> { Thread.sleep(10); throw failure }
+        0 * executor._
+
+        and:
+        def e = thrown(RuntimeException)
+        e == failure
+        profiler.configurations*.path == [":compile"]
+        profiler.configurations[0].artifactNanos > 0
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.internal.component.model.ComponentArtifactMetadata
+import org.gradle.internal.component.model.ModuleSource
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class CacheLockReleasingModuleComponentsRepositoryTest extends Specification {
+    def remoteAccess = Mock(ModuleComponentRepositoryAccess)
+    def delegate = Stub(ModuleComponentRepository) {
+        getName() >> "repo"
+        getRemoteAccess() >> remoteAccess
+    }
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> action.run() }
+    }
+    def executor = Executors.newFixedThreadPool(6)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "limits the number of artifacts downloaded from the repository at the same time"() {
+        def access = new CacheLockReleasingModuleComponentsRepository(delegate, cacheLockingManager, 2).remoteAccess
+        def artifact = Stub(ComponentArtifactMetadata)
+        def moduleSource = Stub(ModuleSource)
+        def result = Stub(BuildableArtifactResolveResult)
+        def active = new AtomicInteger()
+        def maxActive = new AtomicInteger()
+
+        when:
+        def downloads = (1..12).collect {
+            executor.submit({ access.resolveArtifact(artifact, moduleSource, result) } as Runnable)
+        }
+        downloads*.get()
+
+        then:
+        12 * remoteAccess.resolveArtifact(artifact, moduleSource, result) >> {
+            def count = active.incrementAndGet()
+            synchronized (maxActive) {
+                maxActive.set(Math.max(maxActive.get(), count))
+            }
+            Thread.sleep(50)
+            active.decrementAndGet()
+        }
+        maxActive.get() == 2
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePoli
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache
+import org.gradle.api.internal.artifacts.ivyservice.profile.RepositoryProfile
 import org.gradle.api.internal.component.ArtifactType
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata
@@ -48,8 +49,9 @@ class CachingModuleComponentRepositoryTest extends Specification {
     def artifactAtRepositoryCache = Mock(CachedArtifactIndex)
     def cachePolicy = Stub(CachePolicy)
     def metadataProcessor = Stub(ComponentMetadataProcessor)
+    def profile = new RepositoryProfile("repo")
     def repo = new CachingModuleComponentRepository(realRepo, moduleResolutionCache, moduleDescriptorCache, moduleArtifactsCache, artifactAtRepositoryCache,
-            cachePolicy, new BuildCommencedTimeProvider(), metadataProcessor)
+            cachePolicy, new BuildCommencedTimeProvider(), metadataProcessor, profile)
 
     @Unroll
     def "artifact last modified date is cached - lastModified = #lastModified"() {
@@ -149,4 +151,37 @@ class CachingModuleComponentRepositoryTest extends Specification {
         }
         0 * _
     }
+
+    def "records a cache miss when component metadata is not in the cache"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def prescribedMetaData = Mock(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, prescribedMetaData, result)
+
+        then:
+        1 * moduleDescriptorCache.getCachedModuleDescriptor(realRepo, componentId) >> null
+        !result.hasResult()
+        profile.cacheMisses == 1
+        profile.cacheHits == 0
+    }
+
+    def "does not record a cache lookup when component metadata can be determined locally"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def prescribedMetaData = Mock(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        given:
+        realLocalAccess.resolveComponentMetaData(componentId, prescribedMetaData, result) >> {
+            result.resolved(Mock(MutableModuleComponentResolveMetadata))
+        }
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, prescribedMetaData, result)
+
+        then:
+        profile.cacheMisses == 0
+        profile.cacheHits == 0
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ivyservice.profile.RepositoryProfile
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult
+import spock.lang.Specification
+
+class ProfilingModuleComponentRepositoryTest extends Specification {
+    def localAccess = Mock(ModuleComponentRepositoryAccess)
+    def remoteAccess = Mock(ModuleComponentRepositoryAccess)
+    def delegate = Stub(ModuleComponentRepository) {
+        getName() >> "repo"
+        getLocalAccess() >> localAccess
+        getRemoteAccess() >> remoteAccess
+    }
+    def profile = new RepositoryProfile("repo")
+    def repository = new ProfilingModuleComponentRepository(delegate, profile)
+
+    def "does not profile local access"() {
+        expect:
+        repository.localAccess == localAccess
+    }
+
+    def "records meta-data requests and missing modules"() {
+        def found = DefaultModuleComponentIdentifier.newId("org", "found", "1.0")
+        def missing = DefaultModuleComponentIdentifier.newId("org", "missing", "1.0")
+        def foundResult = new DefaultBuildableModuleComponentMetaDataResolveResult()
+        def missingResult = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repository.remoteAccess.resolveComponentMetaData(found, Stub(ComponentOverrideMetadata), foundResult)
+        repository.remoteAccess.resolveComponentMetaData(missing, Stub(ComponentOverrideMetadata), missingResult)
+
+        then:
+        1 * remoteAccess.resolveComponentMetaData(found, _, foundResult)
+        1 * remoteAccess.resolveComponentMetaData(missing, _, missingResult) >> { missingResult.missing() }
+
+        and:
+        profile.metaDataRequests == 2
+        profile.missingModules == 1
+        profile.getSlowestModules(10)*.module as Set == ["org:found:1.0", "org:missing:1.0"] as Set
+        profile.getSlowestModules(1).size() == 1
+    }
+
+    def "records version listings"() {
+        def dependency = Stub(DependencyMetadata) {
+            getRequested() >> new DefaultModuleVersionSelector("org", "module", "1.+")
+        }
+        def result = new DefaultBuildableModuleVersionListingResolveResult()
+
+        when:
+        repository.remoteAccess.listModuleVersions(dependency, result)
+
+        then:
+        1 * remoteAccess.listModuleVersions(dependency, result) >> { result.listed(["1.0"] as Set) }
+
+        and:
+        profile.versionListings == 1
+        profile.getSlowestModules(10)*.module == ["org:module"]
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import spock.lang.Specification
+
+import javax.xml.stream.XMLStreamException
+
+class PomStaxParserTest extends Specification {
+    def "retains only the elements used to build the module meta-data"() {
+        when:
+        def project = parse """
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <properties>
+        <some.property>value</some.property>
+    </properties>
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>plugin-group</groupId>
+            </plugin>
+        </plugins>
+    </build>
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <exclusions>
+                <exclusion>
+                    <groupId>group-three</groupId>
+                    <artifactId>artifact-three</artifactId>
+                </exclusion>
+            </exclusions>
+            <systemPath>ignored</systemPath>
+        </dependency>
+    </dependencies>
+</project>
+"""
+
+        then:
+        project.name == "project"
+        project.children*.name == ["groupId", "artifactId", "version", "properties", "dependencies"]
+        project.getFirstChildText("groupId") == "group-one"
+        project.getFirstChild("properties").children*.name == ["some.property"]
+        project.getFirstChild("properties").getFirstChildText("some.property") == "value"
+
+        def dependency = project.getFirstChild("dependencies").getFirstChild("dependency")
+        dependency.children*.name == ["groupId", "artifactId", "exclusions"]
+        dependency.getFirstChild("exclusions").getFirstChild("exclusion").getFirstChildText("artifactId") == "artifact-three"
+    }
+
+    def "text includes entities and CDATA sections but not the text of child elements"() {
+        when:
+        def project = parse """<?xml version="1.0" encoding="UTF-8"?>
+<project>
+    <description>one &amp; two &copy; <![CDATA[<three>]]></description>
+    <properties>
+        <nested>outer<inner>ignored</inner></nested>
+    </properties>
+</project>
+"""
+
+        then:
+        project.getFirstChildText("description") == "one & two © <three>"
+        project.getFirstChild("properties").getFirstChildText("nested") == "outer"
+        project.getFirstChild("properties").getFirstChild("nested").children.empty
+        project.getFirstChildText("groupId") == null
+    }
+
+    def "retains the root element whatever its name"() {
+        expect:
+        parse("<someothertag><project/></someothertag>").name == "someothertag"
+    }
+
+    def "fails when POM is not well formed"() {
+        when:
+        parse("<project><groupId>group-one</project>")
+
+        then:
+        thrown(XMLStreamException)
+    }
+
+    private static PomElement parse(String content) {
+        return PomStaxParser.parse(new ByteArrayInputStream(content.getBytes("UTF-8")), "pom.xml")
+    }
+}
@@ -67,4 +67,53 @@ class ModuleDescriptorStoreTest extends Specification {
         };
         1 * serializer.write(_, descriptor)
     }
+
+    def "reuses descriptor read from unchanged file when in-memory cache is used"() {
+        setup:
+        def cachingStore = new ModuleDescriptorStore(pathKeyFileStore, serializer, new InMemoryModuleDescriptorCache(10))
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = new MutableModuleDescriptorState(moduleComponentIdentifier)
+        def lastModified = 1000
+        _ * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        _ * fileStoreEntry.file >> descriptorFile
+        _ * fileStoreEntry.lastModified >> { lastModified }
+        _ * fileStoreEntry.contentLength >> 12
+
+        when:
+        def first = cachingStore.getModuleDescriptor(repository, moduleComponentIdentifier)
+        def second = cachingStore.getModuleDescriptor(repository, moduleComponentIdentifier)
+
+        then:
+        1 * serializer.read(_) >> descriptor
+        first.is(descriptor)
+        second.is(descriptor)
+
+        when:
+        lastModified = 2000
+        def third = cachingStore.getModuleDescriptor(repository, moduleComponentIdentifier)
+
+        then:
+        1 * serializer.read(_) >> descriptor
+        third.is(descriptor)
+    }
+
+    def "discards in-memory descriptor when descriptor is written"() {
+        setup:
+        def cachingStore = new ModuleDescriptorStore(pathKeyFileStore, serializer, new InMemoryModuleDescriptorCache(10))
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = new MutableModuleDescriptorState(moduleComponentIdentifier)
+        _ * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        _ * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> fileStoreEntry
+        _ * fileStoreEntry.file >> descriptorFile
+        _ * fileStoreEntry.lastModified >> 1000
+        _ * fileStoreEntry.contentLength >> 12
+
+        when:
+        cachingStore.getModuleDescriptor(repository, moduleComponentIdentifier)
+        cachingStore.putModuleDescriptor(repository, moduleComponentIdentifier, descriptor)
+        cachingStore.getModuleDescriptor(repository, moduleComponentIdentifier)
+
+        then:
+        2 * serializer.read(_) >> descriptor
+    }
 }
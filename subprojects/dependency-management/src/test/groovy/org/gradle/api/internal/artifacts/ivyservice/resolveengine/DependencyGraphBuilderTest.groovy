@@ -26,6 +26,7 @@ import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentMetaDataPrefetcher
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder
@@ -50,6 +51,7 @@ import org.gradle.internal.component.local.model.DefaultLocalComponentMetadata
 import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
 import org.gradle.internal.component.local.model.DslOriginDependencyMetadataWrapper
 import org.gradle.internal.component.model.*
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.resolve.ModuleVersionNotFoundException
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.internal.resolve.resolver.ArtifactResolver
@@ -61,6 +63,9 @@ import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult
 import org.gradle.internal.resolve.result.BuildableComponentResolveResult
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
 
@@ -939,6 +944,42 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "resolves the meta-data for the dependencies of a node concurrently when prefetching"() {
+        given:
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        [a, b, c].each { selectorResolvesTo(dependsOn(root, it.id), it.componentId, it.id) }
+        selectorResolvesTo(dependsOn(a, d.id), d.componentId, d.id)
+        def components = [a, b, c, d].collectEntries { [it.componentId, it] }
+        def inFlight = new CountDownLatch(3)
+        def resolver = { ComponentIdentifier id, ComponentOverrideMetadata requestMetaData, BuildableComponentResolveResult result ->
+            if (id != d.componentId) {
+                // Wait for the meta-data for the other dependencies of the root to be requested
+                inFlight.countDown()
+                assert inFlight.await(20, TimeUnit.SECONDS)
+            }
+            result.resolved(components[id])
+        } as ComponentMetaDataResolver
+        def cacheLockingManager = [
+            useCache: { String operation, Runnable action -> action.run() },
+            longRunningOperation: { String operation, Runnable action -> action.run() }
+        ] as CacheLockingManager
+        def prefetcher = new ComponentMetaDataPrefetcher(new DefaultExecutorFactory(), cacheLockingManager, 4)
+        builder = new DependencyGraphBuilder(idResolver, resolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), prefetcher)
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        modules(result) == ids(a, b, c, d)
+
+        cleanup:
+        prefetcher?.stop()
+    }
+
     def revision(String name, String revision = '1.0') {
         // TODO Shouldn't really be using the local component implementation here
         def id = newId("group", name, revision)
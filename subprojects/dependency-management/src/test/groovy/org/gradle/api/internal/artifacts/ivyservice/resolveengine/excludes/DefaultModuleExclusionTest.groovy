@@ -22,9 +22,9 @@ import org.gradle.internal.component.model.Exclude
 import spock.lang.Specification
 import spock.lang.Unroll
 
-import static ModuleExclusions.excludeAny
-
 class DefaultModuleExclusionTest extends Specification {
+    def moduleExclusions = new ModuleExclusions()
+
     def "accepts all modules default"() {
         def spec = excludeAny()
 
@@ -48,7 +48,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "does not accept module that matches single module exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         spec.excludeModule(moduleId('org', 'module'))
@@ -68,7 +68,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts module that doesn't match single module exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeModule(moduleId('org', 'module'))
@@ -86,8 +86,8 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "module exclude rule selects the same modules as itself (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
-        def same = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
+        def same = excludeAny(rule)
         def all = excludeAny()
         def otherRule = excludeAny(excludeRule('*', 'other'))
         def artifactRule = excludeAny(excludeRule('*', 'other', 'thing', '*', '*'))
@@ -111,7 +111,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts module for every artifact exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeModule(moduleId('org', 'module'))
@@ -127,7 +127,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts artifact for every module exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeArtifact(moduleId('org', 'module'), artifactName('name', 'jar', 'jar'))
@@ -148,7 +148,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "does not accept artifact that matches single artifact exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         spec.excludeArtifact(moduleId('org', 'module'), artifactName('mylib', 'jar', 'jar'))
@@ -170,7 +170,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts artifact that doesn't match single artifact exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeArtifact(moduleId('org', 'module'), artifactName('mylib', 'jar', 'jar'))
@@ -210,8 +210,8 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "artifact exclude rule accepts the same modules as other rules that accept all modules (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
-        def sameRule = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
+        def sameRule = excludeAny(rule)
         def otherRule = excludeAny(excludeRule('*', '*', 'thing', '*', '*'))
         def all = ModuleExclusions.excludeNone()
         def moduleRule = excludeAny(excludeRule('*', 'module'))
@@ -329,6 +329,36 @@ class DefaultModuleExclusionTest extends Specification {
         union(spec2, spec) == spec2
     }
 
+    def "shares equal specs and memoizes their combinations"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = excludeGroupRule("org2")
+        def rule3 = excludeModuleRule("module3")
+        def spec = excludeAny(rule1, rule2)
+        def spec2 = excludeAny(rule3)
+
+        expect:
+        excludeAny(rule1, rule2).is(spec)
+        excludeAny(rule2, rule1).is(spec)
+        intersect(spec, spec2).is(intersect(spec, spec2))
+        intersect(spec, spec2).is(excludeAny(rule1, rule2, rule3))
+        union(spec, spec2).is(union(spec, spec2))
+    }
+
+    def "indexed intersection excludes the same modules as each of its rules"() {
+        def spec = excludeAny(excludeRule("org", "module"), excludeGroupRule("org2"), excludeModuleRule("module3"), regexpExcludeRule("org4", "mod.*"), excludeArtifactRule("a", "jar", "jar"))
+
+        expect:
+        spec.excludeModule(moduleId("org", "module"))
+        !spec.excludeModule(moduleId("org", "module2"))
+        spec.excludeModule(moduleId("org2", "anything"))
+        spec.excludeModule(moduleId("any", "module3"))
+        spec.excludeModule(moduleId("org4", "module4"))
+        !spec.excludeModule(moduleId("org4", "other"))
+        spec.mayExcludeArtifacts()
+        spec.excludeArtifact(moduleId("any", "any"), artifactName("a", "jar", "jar"))
+        !spec.excludeArtifact(moduleId("any", "any"), artifactName("b", "jar", "jar"))
+    }
+
     def "union of a spec with itself returns the original spec"() {
         def rule1 = excludeRule("org", "module")
         def rule2 = excludeRule("org", "module2")
@@ -732,4 +762,16 @@ class DefaultModuleExclusionTest extends Specification {
     def regexpExcludeArtifactRule(String name, String type, String ext) {
         regexpExcludeRule("*", "*", name, type, ext)
     }
+
+    def excludeAny(Exclude... rules) {
+        moduleExclusions.excludeAny(rules)
+    }
+
+    def union(ModuleExclusion one, ModuleExclusion two) {
+        moduleExclusions.union(one, two)
+    }
+
+    def intersect(ModuleExclusion one, ModuleExclusion two) {
+        moduleExclusions.intersect(one, two)
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import com.google.common.hash.HashCode
+import org.gradle.api.artifacts.ComponentMetadataDetails
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.dsl.DefaultComponentMetadataHandler
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.reflect.DirectInstantiator
+import spock.lang.Specification
+
+class ResolvedGraphCacheTest extends Specification {
+    def classLoaderHierarchyHasher = Mock(ClassLoaderHierarchyHasher)
+    def cache = new ResolvedGraphCache(Stub(CacheLockingManager), new DefaultVersionSelectorScheme(new DefaultVersionComparator()), classLoaderHierarchyHasher, false)
+    def rootComponent = Stub(ComponentResolveMetadata) {
+        getId() >> DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+        getComponentId() >> DefaultModuleComponentIdentifier.newId("org", "root", "1.0")
+    }
+    def rootConfiguration = Stub(ConfigurationMetadata) {
+        getName() >> "compile"
+        getDependencies() >> []
+        getExcludes() >> []
+    }
+    def resolutionStrategy = Stub(ResolutionStrategyInternal)
+    def remoteRepository = repository("remote", false)
+
+    def "does not create key when a repository is local"() {
+        expect:
+        createKey([remoteRepository], ComponentMetadataProcessor.NO_OP) != null
+        createKey([remoteRepository, repository("local", true)], ComponentMetadataProcessor.NO_OP) == null
+    }
+
+    def "key includes repositories"() {
+        expect:
+        createKey([remoteRepository], ComponentMetadataProcessor.NO_OP) == createKey([repository("remote", false)], ComponentMetadataProcessor.NO_OP)
+        createKey([remoteRepository], ComponentMetadataProcessor.NO_OP) != createKey([repository("other", false)], ComponentMetadataProcessor.NO_OP)
+    }
+
+    def "key includes component metadata rules"() {
+        def rules = new DefaultComponentMetadataHandler(DirectInstantiator.INSTANCE)
+        def moduleRules = new DefaultComponentMetadataHandler(DirectInstantiator.INSTANCE)
+        def rule = { ComponentMetadataDetails details -> details.changing = true }
+        classLoaderHierarchyHasher.getStrictHash(rule.class.classLoader) >>> [HashCode.fromInt(1), HashCode.fromInt(1), HashCode.fromInt(2)]
+
+        when:
+        rules.all(rule)
+        moduleRules.withModule("org:lib", rule)
+
+        then:
+        def key = createKey([remoteRepository], rules)
+        key != createKey([remoteRepository], ComponentMetadataProcessor.NO_OP)
+        key != createKey([remoteRepository], moduleRules)
+
+        and:
+        // The class loader of the rule has changed
+        key != createKey([remoteRepository], rules)
+    }
+
+    def "does not create key when the class loader of a component metadata rule can not be hashed"() {
+        def rules = new DefaultComponentMetadataHandler(DirectInstantiator.INSTANCE)
+        rules.all { ComponentMetadataDetails details -> details.changing = true }
+        classLoaderHierarchyHasher.getStrictHash(_) >> null
+
+        expect:
+        createKey([remoteRepository], rules) == null
+    }
+
+    private String createKey(List<ConfiguredModuleComponentRepository> repositories, ComponentMetadataProcessor metadataProcessor) {
+        return cache.createKey(rootComponent, rootConfiguration, [], repositories, resolutionStrategy, metadataProcessor)
+    }
+
+    private ConfiguredModuleComponentRepository repository(String id, boolean local) {
+        return Stub(ConfiguredModuleComponentRepository) {
+            getId() >> id
+            isLocal() >> local
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.Actions
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetadata
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.component.model.ModuleSource
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ArtifactResolver
+import org.gradle.internal.serialize.SerializerSpec
+
+class ResolvedGraphRecorderTest extends SerializerSpec {
+    def graphVisitor = Mock(DependencyGraphVisitor)
+    def artifactsVisitor = Mock(DependencyArtifactsVisitor)
+    def moduleDependency = Mock(ModuleDependency)
+    def rootConfiguration = Stub(ConfigurationMetadata) {
+        getDependencies() >> [Stub(DslOriginDependencyMetadata) { getSource() >> moduleDependency }]
+    }
+    def recorder = new ResolvedGraphRecorder(Stub(DependencyGraphVisitor), Stub(DependencyArtifactsVisitor), rootConfiguration, ModuleReplacementsData.NO_OP,
+        new DefaultVersionSelectorScheme(new DefaultVersionComparator()))
+    def incomingEdges = [:]
+    def outgoingEdges = [:]
+    def root = node("root", "1.0", VersionSelectionReasons.ROOT)
+
+    def "replays recorded graph to visitors"() {
+        def a = node("a", "1.0")
+        def edge = edge(root, a, "1.0")
+        def artifactSet = artifactSet(a, 12)
+
+        given:
+        record(a, artifactSet)
+
+        when:
+        def snapshot = serialize(recorder.snapshot, new ResolvedGraphSnapshotSerializer())
+        snapshot.replay(rootConfiguration, graphVisitor, artifactsVisitor, Stub(ArtifactResolver))
+
+        then:
+        1 * graphVisitor.start({ it.nodeId == root.nodeId })
+        then:
+        1 * graphVisitor.visitNode({ it.nodeId == root.nodeId && it.outgoingEdges*.selected == [edge.selected] })
+        then:
+        1 * graphVisitor.visitNode({ it.nodeId == a.nodeId && it.selection.selectionReason == VersionSelectionReasons.REQUESTED })
+        then:
+        1 * graphVisitor.visitEdge({ it.nodeId == root.nodeId })
+        then:
+        1 * graphVisitor.visitEdge({ it.nodeId == a.nodeId && it.incomingEdges*.moduleDependency == [moduleDependency] && it.incomingEdges*.from*.nodeId == [root.nodeId] })
+        then:
+        1 * artifactsVisitor.visitArtifacts(root.nodeId, a.nodeId, { it.id == 12 && it.artifacts*.name == ["a"] })
+        then:
+        1 * graphVisitor.finish({ it.nodeId == root.nodeId })
+        then:
+        1 * artifactsVisitor.finishArtifacts()
+    }
+
+    def "does not record graph with failed dependency"() {
+        def a = node("a", "1.0")
+        edge(root, a, "1.0", new ModuleVersionResolveException(DefaultModuleComponentSelector.newSelector("org", "a", "1.0"), "broken"))
+
+        when:
+        record(a, artifactSet(a, 12))
+
+        then:
+        recorder.snapshot == null
+    }
+
+    def "does not record graph with dynamic version"() {
+        def a = node("a", "1.0")
+        edge(root, a, "1.+")
+
+        when:
+        record(a, artifactSet(a, 12))
+
+        then:
+        recorder.snapshot == null
+    }
+
+    def "does not record graph with changing module"() {
+        def a = node("a", "1.0", VersionSelectionReasons.REQUESTED, true)
+        edge(root, a, "1.0")
+
+        when:
+        record(a, artifactSet(a, 12))
+
+        then:
+        recorder.snapshot == null
+    }
+
+    def "snapshot is out of date when a dependency substitution rule applies to a requested module"() {
+        def a = node("a", "1.0")
+        edge(root, a, "1.0")
+        record(a, artifactSet(a, 12))
+        def snapshot = recorder.snapshot
+
+        expect:
+        snapshot.isUpToDate(Actions.doNothing(), ModuleReplacementsData.NO_OP)
+        !snapshot.isUpToDate({ it.useTarget("org:b:1.0") }, ModuleReplacementsData.NO_OP)
+        !snapshot.isUpToDate(Actions.doNothing(), { it.name == "a" ? it : null } as ModuleReplacementsData)
+    }
+
+    private void record(DependencyGraphNode a, DefaultArtifactSet artifactSet) {
+        recorder.start(root)
+        recorder.visitNode(root)
+        recorder.visitNode(a)
+        recorder.visitEdge(root)
+        recorder.visitEdge(a)
+        recorder.visitArtifacts(root.nodeId, a.nodeId, artifactSet)
+        recorder.finish(root)
+        recorder.finishArtifacts()
+    }
+
+    private DependencyGraphNode node(String name, String version, def reason = VersionSelectionReasons.REQUESTED, boolean changing = false) {
+        def id = DefaultModuleVersionIdentifier.newId("org", name, version)
+        def componentId = DefaultModuleComponentIdentifier.newId("org", name, version)
+        def component = Stub(ComponentResolveMetadata) {
+            isChanging() >> changing
+        }
+        def incoming = new LinkedHashSet()
+        def outgoing = new LinkedHashSet()
+        def node = Stub(DependencyGraphNode) {
+            getNodeId() >> new ResolvedConfigurationIdentifier(id, "default")
+            toId() >> id
+            getComponentId() >> componentId
+            getSelection() >> new DefaultModuleVersionSelection(id, reason, componentId)
+            getMetaData() >> Stub(ConfigurationMetadata) { getComponent() >> component }
+            getIncomingEdges() >> incoming
+            getOutgoingEdges() >> outgoing
+        }
+        incomingEdges[name] = incoming
+        outgoingEdges[name] = outgoing
+        return node
+    }
+
+    private DependencyGraphEdge edge(DependencyGraphNode from, DependencyGraphNode to, String requestedVersion, ModuleVersionResolveException failure = null) {
+        def edge = Stub(DependencyGraphEdge) {
+            getFrom() >> from
+            getRequested() >> DefaultModuleComponentSelector.newSelector(to.toId().group, to.toId().name, requestedVersion)
+            getSelected() >> to.toId()
+            getReason() >> VersionSelectionReasons.REQUESTED
+            getFailure() >> failure
+            getModuleDependency() >> (from == root ? moduleDependency : null)
+        }
+        outgoingEdges[from.toId().name] << edge
+        incomingEdges[to.toId().name] << edge
+        return edge
+    }
+
+    private DefaultArtifactSet artifactSet(DependencyGraphNode node, long id) {
+        def artifact = new DefaultModuleComponentArtifactMetadata(node.componentId, new DefaultIvyArtifactName(node.toId().name, "jar", "jar"))
+        return new DefaultArtifactSet(node.toId(), new TestModuleSource(), ModuleExclusions.excludeNone(), [artifact] as Set, Stub(ArtifactResolver), [:], id)
+    }
+
+    static class TestModuleSource implements ModuleSource {
+    }
+}
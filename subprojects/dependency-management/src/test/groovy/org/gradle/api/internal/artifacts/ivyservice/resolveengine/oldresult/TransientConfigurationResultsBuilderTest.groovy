@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult
+
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyBinaryStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyStore
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+
+class TransientConfigurationResultsBuilderTest extends Specification {
+
+    def builder = new TransientConfigurationResultsBuilder(new DummyBinaryStore(), new DummyStore())
+    def mapping = Mock(ResolvedContentsMapping)
+
+    def root = id("root")
+    def a = id("a")
+    def b = id("b")
+    def c = id("c")
+
+    def "reads back the resolved dependency graph"() {
+        def artifact1 = Stub(ResolvedArtifact)
+        def artifact2 = Stub(ResolvedArtifact)
+        def moduleDependency = Stub(ModuleDependency)
+
+        given:
+        [root, a, b, c].each { builder.resolvedDependency(it) }
+        builder.firstLevelDependency(a)
+        builder.parentChildMapping(root, a, 1)
+        builder.parentChildMapping(a, b, 2)
+        builder.parentChildMapping(a, c, 3)
+        builder.parentChildMapping(b, c, 3)
+        builder.done(root)
+
+        mapping.getModuleDependency(a) >> moduleDependency
+        mapping.getArtifacts(1) >> ([] as Set)
+        mapping.getArtifacts(2) >> ([artifact1] as Set)
+        mapping.getArtifacts(3) >> ([artifact2] as Set)
+
+        when:
+        def results = builder.load(mapping)
+
+        then:
+        results.root.name == "org:root:1.0"
+        results.root.children*.name == ["org:a:1.0"]
+        results.firstLevelDependencies.size() == 1
+        results.firstLevelDependencies[moduleDependency].is(results.root.children.first())
+
+        def resultA = results.root.children.first()
+        resultA.children*.name == ["org:b:1.0", "org:c:1.0"]
+        def resultB = resultA.children.find { it.name == "org:b:1.0" }
+        def resultC = resultA.children.find { it.name == "org:c:1.0" }
+        resultB.getParentArtifacts(resultA) == [artifact1] as Set
+        resultC.parents == [resultA, resultB] as Set
+        resultC.getParentArtifacts(resultB) == [artifact2] as Set
+    }
+
+    def "builds the graph only when it is first accessed"() {
+        given:
+        builder.resolvedDependency(root)
+        builder.resolvedDependency(a)
+        builder.firstLevelDependency(a)
+        builder.parentChildMapping(root, a, 1)
+        builder.done(root)
+
+        when:
+        def results = builder.load(mapping)
+
+        then:
+        0 * mapping._
+
+        when:
+        results.root
+
+        then:
+        1 * mapping.getArtifacts(1) >> ([] as Set)
+        1 * mapping.getModuleDependency(a) >> Stub(ModuleDependency)
+
+        when:
+        results.firstLevelDependencies
+
+        then:
+        0 * mapping._
+    }
+
+    def "fails when a mapping refers to an unknown dependency"() {
+        given:
+        builder.resolvedDependency(root)
+
+        when:
+        builder.parentChildMapping(root, a, 1)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message.startsWith("Unexpected child dependency id ${a}")
+    }
+
+    private static ResolvedConfigurationIdentifier id(String name) {
+        new ResolvedConfigurationIdentifier(newId("org", name, "1.0"), "default")
+    }
+}
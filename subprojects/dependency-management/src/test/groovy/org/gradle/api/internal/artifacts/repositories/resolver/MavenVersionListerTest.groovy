@@ -24,8 +24,12 @@ import org.gradle.api.resources.MissingResourceException
 import org.gradle.api.resources.ResourceException
 import org.gradle.internal.UncheckedException
 import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.hash.HashUtil
 import org.gradle.internal.resolve.result.DefaultResourceAwareResolveResult
-import org.gradle.internal.resource.ExternalResource
+import org.gradle.internal.resource.local.FileStore
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource
+import org.gradle.internal.resource.local.LocallyAvailableResource
+import org.gradle.internal.resource.transfer.CacheAwareExternalResourceAccessor
 import org.gradle.internal.resource.transport.ExternalResourceRepository
 import org.xml.sax.SAXParseException
 import spock.lang.Specification
@@ -38,14 +42,15 @@ class MavenVersionListerTest extends Specification {
     def moduleVersion = new DefaultModuleVersionIdentifier(module, "1.0")
     def artifact = new DefaultIvyArtifactName("testproject", "jar", "jar")
 
-    def repository = Mock(ExternalResourceRepository)
+    def resourceAccessor = Mock(CacheAwareExternalResourceAccessor)
+    def resourcesFileStore = Mock(FileStore)
     def pattern = pattern("testRepo/" + MavenPattern.M2_PATTERN)
     def metaDataResource = new URI('testRepo/org/acme/testproject/maven-metadata.xml')
 
-    final MavenVersionLister lister = new MavenVersionLister(repository)
+    final MavenVersionLister lister = new MavenVersionLister(new MavenMetadataLoader(resourceAccessor, resourcesFileStore))
 
     def "visit parses maven-metadata.xml"() {
-        ExternalResource resource = Mock()
+        LocallyAvailableExternalResource resource = Mock()
 
         when:
         def versions = []
@@ -57,7 +62,7 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> resource
+        1 * resourceAccessor.getResource(metaDataResource, _, null) >> resource
         1 * resource.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -69,13 +74,13 @@ class MavenVersionListerTest extends Specification {
 </metadata>""".bytes))
         }
         1 * resource.close()
-        0 * repository._
+        0 * resourceAccessor._
         0 * resource._
     }
 
     def "visit builds union of versions"() {
-        ExternalResource resource1 = Mock()
-        ExternalResource resource2 = Mock()
+        LocallyAvailableExternalResource resource1 = Mock()
+        LocallyAvailableExternalResource resource2 = Mock()
         def pattern1 = pattern("prefix1/" + MavenPattern.M2_PATTERN)
         def pattern2 = pattern("prefix2/" + MavenPattern.M2_PATTERN)
         def location1 = new URI('prefix1/org/acme/testproject/maven-metadata.xml')
@@ -92,7 +97,7 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [location1.toString(), location2.toString()]
 
         and:
-        1 * repository.getResource(location1) >> resource1
+        1 * resourceAccessor.getResource(location1, _, null) >> resource1
         1 * resource1.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -103,7 +108,7 @@ class MavenVersionListerTest extends Specification {
     </versioning>
 </metadata>""".bytes))
         }
-        1 * repository.getResource(location2) >> resource2
+        1 * resourceAccessor.getResource(location2, _, null) >> resource2
         1 * resource2.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -117,7 +122,7 @@ class MavenVersionListerTest extends Specification {
     }
 
     def "visit ignores duplicate patterns"() {
-        ExternalResource resource = Mock()
+        LocallyAvailableExternalResource resource = Mock()
 
         when:
         def versions = []
@@ -130,7 +135,7 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> resource
+        1 * resourceAccessor.getResource(metaDataResource, _, null) >> resource
         1 * resource.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -142,7 +147,7 @@ class MavenVersionListerTest extends Specification {
 </metadata>""".bytes))
         }
         1 * resource.close()
-        0 * repository._
+        0 * resourceAccessor._
         0 * resource._
     }
 
@@ -159,12 +164,12 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> null
-        0 * repository._
+        1 * resourceAccessor.getResource(metaDataResource, _, null) >> null
+        0 * resourceAccessor._
     }
 
     def "visit throws ResourceException when maven-metadata cannot be parsed"() {
-        ExternalResource resource = Mock()
+        LocallyAvailableExternalResource resource = Mock()
 
         when:
         def versionList = lister.newVisitor(module, [], result)
@@ -181,9 +186,9 @@ class MavenVersionListerTest extends Specification {
 
         and:
         1 * resource.close()
-        1 * repository.getResource(metaDataResource) >> resource;
+        1 * resourceAccessor.getResource(metaDataResource, _, null) >> resource;
         1 * resource.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("yo".bytes)) }
-        0 * repository._
+        0 * resourceAccessor._
     }
 
     def "visit throws ResourceException when maven-metadata cannot be loaded"() {
@@ -202,8 +207,28 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> { throw failure }
-        0 * repository._
+        1 * resourceAccessor.getResource(metaDataResource, _, null) >> { throw failure }
+        0 * resourceAccessor._
+    }
+
+    def "stores maven-metadata.xml in the resources store"() {
+        def downloaded = new File("downloaded")
+        def stored = Stub(LocallyAvailableResource)
+        def sha1 = HashUtil.sha1("content".bytes)
+
+        when:
+        def versionList = lister.newVisitor(module, [], result)
+        versionList.visit(pattern, artifact)
+
+        then:
+        thrown(MissingResourceException)
+
+        and:
+        1 * resourceAccessor.getResource(metaDataResource, _, null) >> { URI uri, CacheAwareExternalResourceAccessor.ResourceFileStore fileStore, candidates ->
+            assert fileStore.moveIntoCache(downloaded, sha1) == stored
+            null
+        }
+        1 * resourcesFileStore.move(metaDataResource.toString(), downloaded, sha1) >> stored
     }
 
     def pattern(String pattern) {
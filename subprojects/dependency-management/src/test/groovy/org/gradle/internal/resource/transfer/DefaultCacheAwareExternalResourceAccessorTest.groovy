@@ -18,7 +18,9 @@ package org.gradle.internal.resource.transfer
 
 import org.gradle.api.Transformer
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.profile.RepositoryProfile
 import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.api.resources.ResourceException
 import org.gradle.internal.hash.HashUtil
 import org.gradle.internal.resource.ExternalResource
 import org.gradle.internal.resource.cached.CachedExternalResource
@@ -45,7 +47,8 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         createTemporaryFile(_, _, _) >> tempFile
     }
     final cacheLockingManager = Mock(CacheLockingManager)
-    final cache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager)
+    final profile = new RepositoryProfile("repo")
+    final cache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, profile)
 
     def "returns null when the request resource is not cached and does not exist in the remote repository"() {
         def uri = new URI("scheme:thing")
@@ -98,6 +101,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         then:
         result.localResource.file == cachedFile
         result.metaData == metaData
+        profile.downloads == 1
 
         and:
         1 * index.lookup("scheme:thing") >> null
@@ -108,17 +112,48 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         1 * remoteResource.withContent(_) >> { ExternalResource.ContentAction a ->
             a.execute(new ByteArrayInputStream(), metaData)
         }
+        1 * metaData.sha1 >> null
         1 * remoteResource.close()
 
         and:
         1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
             return factory.create()
         }
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, HashUtil.sha1(new byte[0])) >> localResource
         1 * index.store("scheme:thing", cachedFile, metaData)
         0 * _._
     }
 
+    def "verifies the sha1 of the downloaded content when provided by the remote repository"() {
+        def uri = new URI("scheme:thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def remoteResource = Mock(ExternalResource)
+        def metaData = Mock(ExternalResourceMetaData)
+        def content = "content".bytes
+
+        when:
+        cache.getResource(uri, fileStore, localCandidates)
+
+        then:
+        def e = thrown(ResourceException)
+        e.location == uri
+        e.message.startsWith("Checksum mismatch for resource 'scheme:thing'")
+
+        and:
+        1 * index.lookup("scheme:thing") >> null
+        1 * localCandidates.isNone() >> true
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.getResource(uri) >> remoteResource
+        1 * remoteResource.withContent(_) >> { ExternalResource.ContentAction a ->
+            a.execute(new ByteArrayInputStream(content), metaData)
+        }
+        _ * metaData.sha1 >> HashUtil.sha1("other content".bytes)
+        1 * remoteResource.close()
+        0 * fileStore._
+        0 * index.store(_, _, _)
+    }
+
     def "reuses cached resource if it has not expired"() {
         def uri = new URI("scheme:thing")
         def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
@@ -142,6 +177,35 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
     }
 
+    def "reuses cached resource and records the remote meta-data when it is unchanged in the remote repository"() {
+        def uri = new URI("scheme:thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def cachedMetaData = Stub(ExternalResourceMetaData) {
+            getEtag() >> "abc"
+        }
+        def remoteMetaData = Stub(ExternalResourceMetaData) {
+            getEtag() >> "abc"
+        }
+        def cachedResource = Stub(CachedExternalResource)
+
+        when:
+        def result = cache.getResource(uri, fileStore, null)
+
+        then:
+        result.localResource.file == cachedFile
+        result.metaData == remoteMetaData
+
+        and:
+        1 * index.lookup("scheme:thing") >> cachedResource
+        _ * timeProvider.currentTime >> 24000L
+        _ * cachedResource.cachedAt >> 23000L
+        _ * cachedResource.cachedFile >> cachedFile
+        _ * cachedResource.externalResourceMetaData >> cachedMetaData
+        1 * repository.getResourceMetaData(uri) >> remoteMetaData
+        1 * index.store("scheme:thing", cachedFile, remoteMetaData)
+        0 * _._
+    }
+
     def "will use sha1 from metadata for finding candidates if available"() {
         given:
         def localCandidates = Mock(LocallyAvailableResourceCandidates)
@@ -183,7 +247,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
             return factory.create()
         }
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, sha1) >> localResource
         1 * index.store("scheme:thing", cachedFile, remoteMetaData)
         0 * _._
     }
@@ -230,7 +294,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
             return factory.create()
         }
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, sha1) >> localResource
         1 * index.store("scheme:thing", cachedFile, remoteMetaData)
         0 * _._
     }
@@ -274,7 +338,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
             return factory.create()
         }
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, HashUtil.sha1(new byte[0])) >> localResource
         1 * index.store("scheme:thing", cachedFile, remoteMetaData)
         0 * _._
     }
@@ -328,7 +392,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         1 * cacheLockingManager.useCache(_, _) >> { String description, org.gradle.internal.Factory factory ->
             return factory.create()
         }
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, sha1) >> localResource
         1 * index.store("scheme:thing", cachedFile, remoteMetaData)
         0 * _._
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks.diagnostics;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Incubating;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.internal.artifacts.ivyservice.profile.DependencyResolutionProfiler;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.diagnostics.internal.DependencyResolutionProfileReportRenderer;
+import org.gradle.api.tasks.diagnostics.internal.ProjectReportGenerator;
+import org.gradle.api.tasks.diagnostics.internal.ReportGenerator;
+import org.gradle.initialization.BuildClientMetaData;
+import org.gradle.internal.logging.text.StyledTextOutputFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Displays where the time spent resolving dependencies in the current build has gone: the time taken to resolve each
+ * configuration, and for each repository the time spent on requests, the number of probes for modules that the
+ * repository does not contain, the dependency cache hits and misses and the amount of data downloaded.
+ * <p>
+ * The report covers all dependency resolution performed in the build before the task runs. The configurations given
+ * by {@link #getConfigurations()} are resolved first, so that they are included in the report.
+ *
+ * @since 3.0
+ */
+@Incubating
+public class DependencyResolutionProfileReportTask extends DefaultTask {
+    private Set<Configuration> configurations = new LinkedHashSet<Configuration>();
+    private int maxModules = 10;
+
+    public DependencyResolutionProfileReportTask() {
+        getOutputs().upToDateWhen(new Spec<Task>() {
+            public boolean isSatisfiedBy(Task element) {
+                return false;
+            }
+        });
+    }
+
+    @Inject
+    protected BuildClientMetaData getClientMetaData() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected StyledTextOutputFactory getTextOutputFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected DependencyResolutionProfiler getDependencyResolutionProfiler() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the configurations to resolve before generating the report. Defaults to none.
+     */
+    @Internal
+    public Set<Configuration> getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * Sets the configurations to resolve before generating the report.
+     */
+    public void setConfigurations(Set<Configuration> configurations) {
+        this.configurations = configurations;
+    }
+
+    /**
+     * Returns the number of modules to list for each repository, slowest first. Defaults to 10.
+     */
+    @Internal
+    public int getMaxModules() {
+        return maxModules;
+    }
+
+    /**
+     * Sets the number of modules to list for each repository.
+     */
+    public void setMaxModules(int maxModules) {
+        this.maxModules = maxModules;
+    }
+
+    @TaskAction
+    public void generate() {
+        for (Configuration configuration : configurations) {
+            configuration.getIncoming().getResolutionResult().getRoot();
+        }
+
+        final DependencyResolutionProfileReportRenderer renderer = new DependencyResolutionProfileReportRenderer();
+        ProjectReportGenerator projectReportGenerator = new ProjectReportGenerator() {
+            @Override
+            public void generateReport(Project project) throws IOException {
+                renderer.render(getDependencyResolutionProfiler(), maxModules);
+            }
+        };
+
+        ReportGenerator reportGenerator = new ReportGenerator(renderer, getClientMetaData(), null,
+            getTextOutputFactory(), projectReportGenerator);
+        reportGenerator.generateReport(Collections.singleton(getProject()));
+    }
+}
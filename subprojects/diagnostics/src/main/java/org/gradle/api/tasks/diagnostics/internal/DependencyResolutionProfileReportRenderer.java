@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks.diagnostics.internal;
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCacheStats;
+import org.gradle.api.internal.artifacts.ivyservice.profile.ConfigurationResolutionProfile;
+import org.gradle.api.internal.artifacts.ivyservice.profile.DependencyResolutionProfiler;
+import org.gradle.api.internal.artifacts.ivyservice.profile.RepositoryProfile;
+import org.gradle.internal.logging.text.StyledTextOutput;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.gradle.util.Clock.prettyTime;
+
+/**
+ * Renders the timings and counters collected by a {@link DependencyResolutionProfiler}.
+ */
+public class DependencyResolutionProfileReportRenderer extends TextReportRenderer {
+
+    public void render(DependencyResolutionProfiler profiler, int maxModules) {
+        StyledTextOutput output = getTextOutput();
+
+        List<ConfigurationResolutionProfile> configurations = profiler.getConfigurations();
+        getBuilder().subheading("Configurations");
+        if (configurations.isEmpty()) {
+            output.println("No configurations have been resolved.");
+        }
+        for (ConfigurationResolutionProfile configuration : configurations) {
+            output.formatln("%s: %s", configuration.getPath(), time(configuration.getElapsedNanos()));
+            output.formatln("    dependency graph: %s, artifacts: %s", time(configuration.getGraphNanos()), time(configuration.getArtifactNanos()));
+        }
+        output.println();
+
+        List<RepositoryProfile> repositories = profiler.getRepositories();
+        getBuilder().subheading("Repositories");
+        if (repositories.isEmpty()) {
+            output.println("No repositories have been used.");
+        }
+        for (RepositoryProfile repository : repositories) {
+            output.formatln("%s: %s", repository.getName(), time(repository.getTotalNanos()));
+            output.formatln("    version listings: %d (%s)", repository.getVersionListings(), time(repository.getVersionListingNanos()));
+            output.formatln("    module meta-data requests: %d, missing modules: %d (%s)", repository.getMetaDataRequests(), repository.getMissingModules(), time(repository.getMetaDataNanos()));
+            output.formatln("    artifact requests: %d (%s)", repository.getArtifactRequests(), time(repository.getArtifactNanos()));
+            output.formatln("    cache hits: %d, cache misses: %d", repository.getCacheHits(), repository.getCacheMisses());
+            output.formatln("    downloads: %d (%s)", repository.getDownloads(), bytes(repository.getBytesDownloaded()));
+            List<RepositoryProfile.ModuleTime> slowestModules = repository.getSlowestModules(maxModules);
+            if (!slowestModules.isEmpty()) {
+                output.println("    slowest modules:");
+                for (RepositoryProfile.ModuleTime module : slowestModules) {
+                    output.formatln("        %s: %s", module.getModule(), time(module.getNanos()));
+                }
+            }
+        }
+        output.println();
+
+        InMemoryCacheStats stats = profiler.getInMemoryCacheStats();
+        getBuilder().subheading("In-memory cache");
+        output.formatln("version listings served: %d, missed: %d", stats.getListingsServed(), stats.getListingsMissed());
+        output.formatln("module meta-data served: %d, missed: %d", stats.getMetadataServed(), stats.getMetadataMissed());
+        output.formatln("artifacts served: %d, missed: %d", stats.getArtifactsServed(), stats.getArtifactsMissed());
+    }
+
+    private static String time(long nanos) {
+        return prettyTime(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+        }
+        if (bytes >= 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return bytes + " bytes";
+    }
+}
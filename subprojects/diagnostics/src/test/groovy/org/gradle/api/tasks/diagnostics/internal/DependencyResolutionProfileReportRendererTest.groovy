@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks.diagnostics.internal
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCacheStats
+import org.gradle.api.internal.artifacts.ivyservice.profile.DependencyResolutionProfiler
+import org.gradle.internal.logging.text.TestStyledTextOutput
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class DependencyResolutionProfileReportRendererTest extends Specification {
+    private final TestStyledTextOutput writer = new TestStyledTextOutput().ignoreStyle()
+    private final DependencyResolutionProfileReportRenderer renderer = new DependencyResolutionProfileReportRenderer()
+    private final DependencyResolutionProfiler profiler = new DependencyResolutionProfiler(new InMemoryCacheStats())
+
+    def setup() {
+        renderer.output = writer
+    }
+
+    def "renders empty profile"() {
+        when:
+        renderer.render(profiler, 10)
+
+        then:
+        writer.value == '''Configurations
+--------------
+No configurations have been resolved.
+
+Repositories
+------------
+No repositories have been used.
+
+In-memory cache
+---------------
+version listings served: 0, missed: 0
+module meta-data served: 0, missed: 0
+artifacts served: 0, missed: 0
+'''
+    }
+
+    def "renders configurations and repositories slowest first"() {
+        profiler.getConfiguration(":compile").graphResolved(TimeUnit.MILLISECONDS.toNanos(500))
+        def runtime = profiler.getConfiguration(":runtime")
+        runtime.graphResolved(TimeUnit.MILLISECONDS.toNanos(1000))
+        runtime.artifactsResolved(TimeUnit.MILLISECONDS.toNanos(1500))
+
+        def fast = profiler.getRepository("fast")
+        fast.artifactResolved("org:a:1.0", TimeUnit.MILLISECONDS.toNanos(100))
+        def slow = profiler.getRepository("slow")
+        slow.metaDataResolved("org:a:1.0", TimeUnit.MILLISECONDS.toNanos(1000), true)
+        slow.metaDataResolved("org:b:1.0", TimeUnit.MILLISECONDS.toNanos(500), false)
+        slow.cacheLookup(true)
+        slow.cacheLookup(false)
+        slow.downloaded(100)
+
+        when:
+        renderer.render(profiler, 1)
+
+        then:
+        writer.value == '''Configurations
+--------------
+:runtime: 2.5 secs
+    dependency graph: 1.0 secs, artifacts: 1.5 secs
+:compile: 0.5 secs
+    dependency graph: 0.5 secs, artifacts: 0.0 secs
+
+Repositories
+------------
+slow: 1.5 secs
+    version listings: 0 (0.0 secs)
+    module meta-data requests: 2, missing modules: 1 (1.5 secs)
+    artifact requests: 0 (0.0 secs)
+    cache hits: 1, cache misses: 1
+    downloads: 1 (100 bytes)
+    slowest modules:
+        org:a:1.0: 1.0 secs
+fast: 0.1 secs
+    version listings: 0 (0.0 secs)
+    module meta-data requests: 0, missing modules: 0 (0.0 secs)
+    artifact requests: 1 (0.1 secs)
+    cache hits: 0, cache misses: 0
+    downloads: 0 (0 bytes)
+    slowest modules:
+        org:a:1.0: 0.1 secs
+
+In-memory cache
+---------------
+version listings served: 0, missed: 0
+module meta-data served: 0, missed: 0
+artifacts served: 0, missed: 0
+'''
+    }
+}
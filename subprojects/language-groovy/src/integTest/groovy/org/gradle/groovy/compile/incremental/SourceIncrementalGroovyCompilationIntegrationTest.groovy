@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.groovy.compile.incremental
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+import spock.lang.Unroll
+
+class SourceIncrementalGroovyCompilationIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture outputs
+
+    def setup() {
+        outputs = new CompilationOutputsFixture(file("build/classes"))
+
+        buildFile << """
+            apply plugin: 'groovy'
+
+            dependencies {
+                compile localGroovy()
+            }
+
+            compileGroovy.options.incremental = true
+        """
+    }
+
+    private File source(String extension, String... classBodies) {
+        File out
+        for (String body : classBodies) {
+            def className = (body =~ /(?s).*?class (\w+) .*/)[0][1]
+            assert className: "unable to find class name"
+            def f = file("src/main/groovy/${className}.${extension}")
+            f.createFile()
+            f.text = body
+            out = f
+        }
+        out
+    }
+
+    private File groovy(String... classBodies) {
+        source("groovy", classBodies)
+    }
+
+    private File java(String... classBodies) {
+        source("java", classBodies)
+    }
+
+    def "recompiles only the changed class and its dependents"() {
+        groovy "class A {}", "class B extends A {}", "class C {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        groovy "class A { /* change */ }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+    }
+
+    def "recompiles the inner classes of a changed class"() {
+        groovy """class A {
+            class InnerA {}
+        }"""
+        groovy "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        groovy """class A {
+            class InnerA { /* change */ }
+        }"""
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'A$InnerA'
+    }
+
+    def "change to a source file with a secondary class triggers full rebuild"() {
+        groovy """class A {}
+            class SecondaryA {}"""
+        groovy "class B {}", "class C {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        groovy """class A { /* change */ }
+            class SecondaryA {}"""
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'SecondaryA', 'B', 'C'
+    }
+
+    def "removal of a source file with a secondary class triggers full rebuild"() {
+        def a = groovy """class A {}
+            class SecondaryA {}"""
+        groovy "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        assert a.delete()
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'B'
+        outputs.deletedClasses 'A', 'SecondaryA'
+    }
+
+    def "change to a java class recompiles the groovy classes that depend on it"() {
+        java "public class J {}"
+        groovy "class A extends J {}", "class B {}"
+        java "public class K {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        java "public class J { /* change */ }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'J', 'A'
+    }
+
+    def "change to a groovy class recompiles the java classes that depend on it"() {
+        groovy "class A {}", "class B {}"
+        java "public class J extends A {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        groovy "class A { /* change */ }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'J'
+    }
+
+    @Unroll
+    def "change to a configuration script named '#scriptName' triggers full rebuild"() {
+        groovy "class A {}", "class B {}"
+        def script = file(scriptName)
+        script.text = "configuration.debug = true"
+        buildFile << "compileGroovy.groovyOptions.configurationScript = file('$scriptName')"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        script.text = "configuration.debug = false"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+
+        where:
+        scriptName << ["config.groovy", "config.script"]
+    }
+
+    def "change to a directory on the groovy classpath triggers full rebuild"() {
+        groovy "class A {}", "class B {}"
+        file("groovy-lib/some.properties").text = "a=1"
+        buildFile << "compileGroovy.groovyClasspath += files('groovy-lib')"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        file("groovy-lib/some.properties").text = "a=2"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+    }
+}
@@ -16,8 +16,12 @@
 
 package org.gradle.api.tasks.compile;
 
+import com.google.common.collect.ImmutableSet;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.changedetection.changes.IncrementalTaskInputsInternal;
+import org.gradle.api.internal.changedetection.state.CacheAccessingFileSnapshotter;
+import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.compile.CleaningGroovyCompiler;
 import org.gradle.api.internal.tasks.compile.DefaultGroovyJavaJointCompileSpec;
@@ -27,31 +31,115 @@ import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompileSpec;
 import org.gradle.api.internal.tasks.compile.JavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.internal.tasks.compile.daemon.InProcessCompilerDaemonFactory;
+import org.gradle.api.internal.tasks.compile.incremental.IncrementalCompilerFactory;
+import org.gradle.api.internal.tasks.compile.incremental.cache.CompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.cache.DefaultCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.cache.CacheRepository;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.util.GFileUtils;
+import org.gradle.util.SingleMessageLogger;
 
+import javax.inject.Inject;
 import java.io.File;
+import java.util.Set;
 
 /**
  * Compiles Groovy source files, and optionally, Java source files.
+ *
+ * <pre autoTested=''>
+ *     apply plugin: 'groovy'
+ *     compileGroovy {
+ *         //enable incremental compilation
+ *         options.incremental = true
+ *     }
+ * </pre>
  */
 public class GroovyCompile extends AbstractCompile {
+    private static final Set<String> SUPPORTED_INCREMENTAL_FILE_EXTENSIONS = ImmutableSet.of("java", "groovy");
+
     private Compiler<GroovyJavaJointCompileSpec> compiler;
     private FileCollection groovyClasspath;
     private final CompileOptions compileOptions = new CompileOptions();
     private final GroovyCompileOptions groovyCompileOptions = new GroovyCompileOptions();
 
-    @Override
     @TaskAction
+    protected void compile(IncrementalTaskInputs inputs) {
+        if (!compileOptions.isIncremental()) {
+            compile();
+            return;
+        }
+
+        SingleMessageLogger.incubatingFeatureUsed("Incremental groovy compilation");
+
+        checkGroovyClasspathIsNonEmpty();
+        DefaultGroovyJavaJointCompileSpec spec = createSpec();
+        Compiler<GroovyJavaJointCompileSpec> compiler = getCompiler(spec);
+        if (!(compiler instanceof CleaningGroovyCompiler)) {
+            getLogger().lifecycle("{} - is not incremental. A custom compiler is used.", getPath());
+            performCompilation(spec, compiler);
+            return;
+        }
+        if (!SUPPORTED_INCREMENTAL_FILE_EXTENSIONS.containsAll(groovyCompileOptions.getFileExtensions())) {
+            getLogger().lifecycle("{} - is not incremental. Only .java and .groovy source files can be compiled incrementally.", getPath());
+            performCompilation(spec, compiler);
+            return;
+        }
+
+        CompileCaches compileCaches = new DefaultCompileCaches(getCacheRepository(), this, getGeneralCompileCaches());
+        IncrementalCompilerFactory<GroovyJavaJointCompileSpec> factory = new IncrementalCompilerFactory<GroovyJavaJointCompileSpec>(
+                getFileOperations(), getPath(), (CleaningGroovyCompiler) compiler, source, compileCaches, (IncrementalTaskInputsInternal) inputs, getBuildOperationProcessor(),
+                getFileSnapshotter(), true, getFullRebuildInputs());
+        performCompilation(spec, factory.createCompiler());
+    }
+
+    /**
+     * The inputs that can change how every class is compiled. Changes to these recompile everything.
+     */
+    private FileCollection getFullRebuildInputs() {
+        File configurationScript = groovyCompileOptions.getConfigurationScript();
+        if (configurationScript == null) {
+            return getGroovyClasspath();
+        }
+        return getFileOperations().files(getGroovyClasspath(), configurationScript);
+    }
+
+    @Inject protected FileOperations getFileOperations() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject protected GeneralCompileCaches getGeneralCompileCaches() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject protected CacheRepository getCacheRepository() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject protected BuildOperationProcessor getBuildOperationProcessor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject protected CacheAccessingFileSnapshotter getFileSnapshotter() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
     protected void compile() {
         checkGroovyClasspathIsNonEmpty();
         DefaultGroovyJavaJointCompileSpec spec = createSpec();
-        WorkResult result = getCompiler(spec).execute(spec);
+        performCompilation(spec, getCompiler(spec));
+    }
+
+    private void performCompilation(GroovyJavaJointCompileSpec spec, Compiler<GroovyJavaJointCompileSpec> compiler) {
+        WorkResult result = compiler.execute(spec);
         setDidWork(result.getDidWork());
     }
 
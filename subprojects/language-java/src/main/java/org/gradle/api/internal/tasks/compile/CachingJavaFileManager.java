@@ -0,0 +1,373 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.UncheckedIOException;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A file manager that lists the jars of the classpath from a {@link JarIndexCache}, instead of having javac open and scan every jar for each compilation.
+ * Like javac, every regular file of the classpath is treated as an archive, whatever its name. Classpath directories are still handled by the standard file manager. The jars are only opened when javac reads a class from them, and are closed
+ * again when the compilation finishes, so that they are not locked between builds. The same goes for the class loaders created to load annotation processors from the classpath.
+ */
+class CachingJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private static final Set<String> CLASSPATH_OPTIONS = ImmutableSet.of("-classpath", "-cp", "--class-path");
+
+    private final JarIndexCache jarIndexCache;
+    private final Map<File, ZipFile> openJars = new HashMap<File, ZipFile>();
+    private final Map<File, JarIndex> archiveIndexes = new HashMap<File, JarIndex>();
+    private final List<ClassLoader> classLoaders = new ArrayList<ClassLoader>();
+    private List<File> classpath = Collections.emptyList();
+    private Charset encoding = Charset.defaultCharset();
+    private boolean directoriesConfigured;
+
+    CachingJavaFileManager(StandardJavaFileManager fileManager, JarIndexCache jarIndexCache) {
+        super(fileManager);
+        this.jarIndexCache = jarIndexCache;
+    }
+
+    @Override
+    public int isSupportedOption(String option) {
+        return CLASSPATH_OPTIONS.contains(option) ? 1 : super.isSupportedOption(option);
+    }
+
+    @Override
+    public boolean handleOption(String current, Iterator<String> remaining) {
+        if (CLASSPATH_OPTIONS.contains(current) && remaining.hasNext()) {
+            classpath = parseClasspath(remaining.next());
+            return true;
+        }
+        if (current.equals("-encoding") && remaining.hasNext()) {
+            String value = remaining.next();
+            encoding = Charset.forName(value);
+            return super.handleOption(current, Collections.singletonList(value).iterator());
+        }
+        return super.handleOption(current, remaining);
+    }
+
+    private static List<File> parseClasspath(String path) {
+        List<File> files = new ArrayList<File>();
+        for (String element : path.split(File.pathSeparator)) {
+            if (element.length() > 0) {
+                files.add(new File(element));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns the index of the given classpath entry, or null when it is not an archive. As with javac, a file that cannot be read as an archive
+     * is ignored, unless it is named like one.
+     */
+    private synchronized JarIndex getArchiveIndex(File file) {
+        if (archiveIndexes.containsKey(file)) {
+            return archiveIndexes.get(file);
+        }
+        JarIndex index = null;
+        if (file.isFile()) {
+            try {
+                index = jarIndexCache.getIndex(file);
+            } catch (UncheckedIOException e) {
+                if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip")) {
+                    throw e;
+                }
+            }
+        }
+        archiveIndexes.put(file, index);
+        return index;
+    }
+
+    /**
+     * Hands the directories of the classpath to the standard file manager. This is done on first use, after javac has passed all of its options to the file manager.
+     */
+    private void configureDirectories() {
+        if (directoriesConfigured) {
+            return;
+        }
+        List<File> directories = new ArrayList<File>();
+        for (File file : classpath) {
+            if (file.isDirectory()) {
+                directories.add(file);
+            }
+        }
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_PATH, directories);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        directoriesConfigured = true;
+    }
+
+    @Override
+    public boolean hasLocation(Location location) {
+        if (location == StandardLocation.CLASS_PATH) {
+            return !classpath.isEmpty();
+        }
+        return super.hasLocation(location);
+    }
+
+    @Override
+    public ClassLoader getClassLoader(Location location) {
+        if (location != StandardLocation.CLASS_PATH) {
+            return super.getClassLoader(location);
+        }
+        // Annotation processors are loaded from the classpath when no processor path is given
+        URL[] urls = new URL[classpath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = classpath.get(i).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        ClassLoader classLoader = new URLClassLoader(urls, fileManager.getClass().getClassLoader());
+        synchronized (this) {
+            classLoaders.add(classLoader);
+        }
+        return classLoader;
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+        if (location != StandardLocation.CLASS_PATH) {
+            return super.list(location, packageName, kinds, recurse);
+        }
+        configureDirectories();
+        Iterable<JavaFileObject> directoryFiles = super.list(location, packageName, kinds, recurse);
+        String directory = packageName.replace('.', '/');
+        List<JavaFileObject> files = new ArrayList<JavaFileObject>();
+        // Keep the classpath order, so that javac picks the same class as it would without this file manager
+        for (File file : classpath) {
+            JarIndex index = getArchiveIndex(file);
+            if (index != null) {
+                for (String entryName : index.list(directory, recurse)) {
+                    JarEntryFileObject entry = new JarEntryFileObject(file, entryName);
+                    if (kinds.contains(entry.getKind())) {
+                        files.add(entry);
+                    }
+                }
+            } else if (file.isDirectory()) {
+                String prefix = file.getAbsolutePath() + File.separator;
+                for (JavaFileObject directoryFile : directoryFiles) {
+                    if (new File(directoryFile.toUri()).getAbsolutePath().startsWith(prefix)) {
+                        files.add(directoryFile);
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof JarEntryFileObject) {
+            return ((JarEntryFileObject) file).getBinaryName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof JarEntryFileObject || b instanceof JarEntryFileObject) {
+            return a.equals(b);
+        }
+        return super.isSameFile(a, b);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForInput(Location location, String className, JavaFileObject.Kind kind) throws IOException {
+        if (location != StandardLocation.CLASS_PATH) {
+            return super.getJavaFileForInput(location, className, kind);
+        }
+        FileObject file = findOnClasspath(className.replace('.', '/') + kind.extension);
+        return file instanceof JavaFileObject ? (JavaFileObject) file : null;
+    }
+
+    @Override
+    public FileObject getFileForInput(Location location, String packageName, String relativeName) throws IOException {
+        if (location != StandardLocation.CLASS_PATH) {
+            return super.getFileForInput(location, packageName, relativeName);
+        }
+        return findOnClasspath(packageName.length() == 0 ? relativeName : packageName.replace('.', '/') + "/" + relativeName);
+    }
+
+    private FileObject findOnClasspath(String path) {
+        for (File file : classpath) {
+            JarIndex index = getArchiveIndex(file);
+            if (index != null) {
+                if (index.contains(path)) {
+                    return new JarEntryFileObject(file, path);
+                }
+            } else if (file.isDirectory()) {
+                File candidate = new File(file, path);
+                if (candidate.isFile()) {
+                    return fileManager.getJavaFileObjects(candidate).iterator().next();
+                }
+            }
+        }
+        return null;
+    }
+
+    private synchronized ZipFile openJar(File jar) throws IOException {
+        ZipFile zipFile = openJars.get(jar);
+        if (zipFile == null) {
+            zipFile = new ZipFile(jar);
+            openJars.put(jar, zipFile);
+        }
+        return zipFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                for (ZipFile zipFile : openJars.values()) {
+                    zipFile.close();
+                }
+                openJars.clear();
+                // URLClassLoader is only closeable from Java 7
+                for (ClassLoader classLoader : classLoaders) {
+                    if (classLoader instanceof Closeable) {
+                        ((Closeable) classLoader).close();
+                    }
+                }
+                classLoaders.clear();
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    private class JarEntryFileObject extends SimpleJavaFileObject {
+        private final File jar;
+        private final String entryName;
+        private final URI entryUri;
+
+        JarEntryFileObject(File jar, String entryName) {
+            // SimpleJavaFileObject only accepts hierarchical URIs, so the opaque jar URI of the entry is returned from toUri() instead
+            super(jar.toURI(), kindOf(entryName));
+            this.jar = jar;
+            this.entryName = entryName;
+            this.entryUri = URI.create("jar:" + jar.toURI() + "!/" + entryName);
+        }
+
+        @Override
+        public URI toUri() {
+            return entryUri;
+        }
+
+        String getBinaryName() {
+            String name = entryName.substring(0, entryName.length() - getKind().extension.length());
+            return name.replace('/', '.');
+        }
+
+        @Override
+        public String getName() {
+            return jar.getPath() + "(" + entryName + ")";
+        }
+
+        @Override
+        public boolean isNameCompatible(String simpleName, Kind kind) {
+            return getKind() == kind && (entryName.endsWith("/" + simpleName + kind.extension) || entryName.equals(simpleName + kind.extension));
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            ZipFile zipFile = openJar(jar);
+            ZipEntry entry = zipFile.getEntry(entryName);
+            if (entry == null) {
+                throw new IOException("Entry '" + entryName + "' not found in jar '" + jar + "'.");
+            }
+            return zipFile.getInputStream(entry);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            InputStream inputStream = openInputStream();
+            byte[] content;
+            try {
+                content = ByteStreams.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            CodingErrorAction errorAction = ignoreEncodingErrors ? CodingErrorAction.REPLACE : CodingErrorAction.REPORT;
+            return encoding.newDecoder().onMalformedInput(errorAction).onUnmappableCharacter(errorAction).decode(ByteBuffer.wrap(content));
+        }
+
+        @Override
+        public long getLastModified() {
+            return jar.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof JarEntryFileObject)) {
+                return false;
+            }
+            JarEntryFileObject other = (JarEntryFileObject) obj;
+            return jar.equals(other.jar) && entryName.equals(other.entryName);
+        }
+
+        @Override
+        public int hashCode() {
+            return jar.hashCode() * 31 + entryName.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    private static JavaFileObject.Kind kindOf(String name) {
+        for (JavaFileObject.Kind kind : JavaFileObject.Kind.values()) {
+            if (kind != JavaFileObject.Kind.OTHER && name.endsWith(kind.extension)) {
+                return kind;
+            }
+        }
+        return JavaFileObject.Kind.OTHER;
+    }
+}
@@ -27,11 +27,20 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
     private final File daemonWorkingDir;
     private final CompilerDaemonFactory compilerDaemonFactory;
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    private final JarIndexCache jarIndexCache;
 
     public DefaultJavaCompilerFactory(File daemonWorkingDir, CompilerDaemonFactory compilerDaemonFactory, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(daemonWorkingDir, compilerDaemonFactory, javaHomeBasedJavaCompilerFactory, null);
+    }
+
+    /**
+     * @param jarIndexCache the cache to use for in-process compilation, or null when in-process compilation should not cache the classpath jars.
+     */
+    public DefaultJavaCompilerFactory(File daemonWorkingDir, CompilerDaemonFactory compilerDaemonFactory, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, JarIndexCache jarIndexCache) {
         this.daemonWorkingDir = daemonWorkingDir;
         this.compilerDaemonFactory = compilerDaemonFactory;
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.jarIndexCache = jarIndexCache;
     }
 
     @Override
@@ -54,11 +63,11 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
             return new CommandLineJavaCompiler();
         }
 
-        Compiler<JavaCompileSpec> compiler = new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory);
         if (ForkingJavaCompileSpec.class.isAssignableFrom(type) && !jointCompilation) {
-            return new DaemonJavaCompiler(daemonWorkingDir, compiler, compilerDaemonFactory);
+            return new DaemonJavaCompiler(daemonWorkingDir, new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory), compilerDaemonFactory);
         }
 
-        return compiler;
+        // Joint compilation runs in the Groovy compiler daemon, where the cache is not available
+        return new JdkJavaCompiler(javaHomeBasedJavaCompilerFactory, jointCompilation ? null : jarIndexCache);
     }
 }
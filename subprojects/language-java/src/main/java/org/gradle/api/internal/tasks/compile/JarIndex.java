@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An immutable listing of the files in a jar, grouped by the directory they are in.
+ */
+class JarIndex {
+    private final Map<String, List<String>> entriesByDirectory;
+
+    private JarIndex(Map<String, List<String>> entriesByDirectory) {
+        this.entriesByDirectory = entriesByDirectory;
+    }
+
+    static JarIndex read(File jar) throws IOException {
+        Map<String, List<String>> entriesByDirectory = new HashMap<String, List<String>>();
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = entry.getName();
+                int separator = name.lastIndexOf('/');
+                String directory = separator < 0 ? "" : name.substring(0, separator);
+                List<String> directoryEntries = entriesByDirectory.get(directory);
+                if (directoryEntries == null) {
+                    directoryEntries = new ArrayList<String>();
+                    entriesByDirectory.put(directory, directoryEntries);
+                }
+                directoryEntries.add(name);
+            }
+        } finally {
+            zipFile.close();
+        }
+        return new JarIndex(entriesByDirectory);
+    }
+
+    /**
+     * Returns the names of the entries in the given directory, and in its subdirectories when recursing.
+     */
+    List<String> list(String directory, boolean recurse) {
+        if (!recurse) {
+            List<String> entries = entriesByDirectory.get(directory);
+            return entries == null ? Collections.<String>emptyList() : entries;
+        }
+        List<String> entries = new ArrayList<String>();
+        String prefix = directory.length() == 0 ? "" : directory + "/";
+        for (Map.Entry<String, List<String>> entry : entriesByDirectory.entrySet()) {
+            if (entry.getKey().equals(directory) || entry.getKey().startsWith(prefix)) {
+                entries.addAll(entry.getValue());
+            }
+        }
+        return entries;
+    }
+
+    boolean contains(String entryName) {
+        int separator = entryName.lastIndexOf('/');
+        String directory = separator < 0 ? "" : entryName.substring(0, separator);
+        return list(directory, false).contains(entryName);
+    }
+}
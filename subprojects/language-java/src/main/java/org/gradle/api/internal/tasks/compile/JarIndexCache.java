@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Caches the listings of classpath jars for in-process Java compilation, so that compile tasks in the same process do not have to open and
+ * scan the same jars again. Listings are keyed by the hash of the jar content, so identical jars share a listing and a changed jar is
+ * listed again. The hash of a jar is only recalculated when its length or modification time changes.
+ */
+public class JarIndexCache {
+    /**
+     * Enables the jar index cache for Java compilation that runs in the build process.
+     */
+    public static final String ENABLE_PROPERTY = "org.gradle.java.compile.cacheJarIndexes";
+
+    private static final int MAX_JARS = 10000;
+
+    private final Cache<File, JarFileState> jarStates = CacheBuilder.newBuilder().maximumSize(MAX_JARS).build();
+    private final Cache<HashValue, JarIndex> indexes = CacheBuilder.newBuilder().maximumSize(MAX_JARS).build();
+
+    JarIndex getIndex(File jar) {
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+        JarFileState state = jarStates.getIfPresent(jar);
+        if (state == null || state.length != length || state.lastModified != lastModified) {
+            state = new JarFileState(length, lastModified, HashUtil.createHash(jar, "MD5"));
+            jarStates.put(jar, state);
+        }
+        JarIndex index = indexes.getIfPresent(state.hash);
+        if (index == null) {
+            try {
+                index = JarIndex.read(jar);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read jar '" + jar + "'.", e);
+            }
+            indexes.put(state.hash, index);
+        }
+        return index;
+    }
+
+    private static class JarFileState {
+        final long length;
+        final long lastModified;
+        final HashValue hash;
+
+        JarFileState(long length, long lastModified, HashValue hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -66,6 +66,7 @@ class IncrementalCompilationInitializer {
             //the stale class might be a source class that was deleted
             //it's no harm to include it in sourceToCompile anyway
             sourceToCompile.include(path.concat(".java"));
+            sourceToCompile.include(path.concat(".groovy"));
         }
     }
 }
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.compile.incremental;
 
 import org.gradle.api.Action;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarChangeProcessor;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot;
@@ -25,16 +26,24 @@ import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpe
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.api.tasks.incremental.InputFileDetails;
 
+import java.io.File;
+import java.util.Set;
+
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class RecompilationSpecProvider {
 
     private final SourceToNameConverter sourceToNameConverter;
     private final FileOperations fileOperations;
+    private final FileCollection fullRebuildInputs;
 
-    public RecompilationSpecProvider(SourceToNameConverter sourceToNameConverter, FileOperations fileOperations) {
+    /**
+     * @param fullRebuildInputs inputs that may change how any class is compiled, such as the compiler itself. A change to these files, or to files in these directories, recompiles everything.
+     */
+    public RecompilationSpecProvider(SourceToNameConverter sourceToNameConverter, FileOperations fileOperations, FileCollection fullRebuildInputs) {
         this.sourceToNameConverter = sourceToNameConverter;
         this.fileOperations = fileOperations;
+        this.fullRebuildInputs = fullRebuildInputs;
     }
 
     public RecompilationSpec provideRecompilationSpec(IncrementalTaskInputs inputs, PreviousCompilation previousCompilation, JarClasspathSnapshot jarClasspathSnapshot) {
@@ -43,7 +52,7 @@ public class RecompilationSpecProvider {
         JavaChangeProcessor javaChangeProcessor = new JavaChangeProcessor(previousCompilation, sourceToNameConverter);
         ClassChangeProcessor classChangeProcessor = new ClassChangeProcessor(previousCompilation);
         JarChangeProcessor jarChangeProcessor = new JarChangeProcessor(fileOperations, jarClasspathSnapshot, previousCompilation);
-        InputChangeAction action = new InputChangeAction(spec, javaChangeProcessor, classChangeProcessor, jarChangeProcessor);
+        InputChangeAction action = new InputChangeAction(spec, sourceToNameConverter, fullRebuildInputs.getFiles(), javaChangeProcessor, classChangeProcessor, jarChangeProcessor);
 
         //go!
         inputs.outOfDate(action);
@@ -57,12 +66,17 @@ public class RecompilationSpecProvider {
 
     private static class InputChangeAction implements Action<InputFileDetails> {
         private final RecompilationSpec spec;
+        private final SourceToNameConverter sourceToNameConverter;
+        private final Set<File> fullRebuildInputs;
         private final JavaChangeProcessor javaChangeProcessor;
         private final ClassChangeProcessor classChangeProcessor;
         private final JarChangeProcessor jarChangeProcessor;
 
-        public InputChangeAction(RecompilationSpec spec, JavaChangeProcessor javaChangeProcessor, ClassChangeProcessor classChangeProcessor, JarChangeProcessor jarChangeProcessor) {
+        public InputChangeAction(RecompilationSpec spec, SourceToNameConverter sourceToNameConverter, Set<File> fullRebuildInputs,
+                                 JavaChangeProcessor javaChangeProcessor, ClassChangeProcessor classChangeProcessor, JarChangeProcessor jarChangeProcessor) {
             this.spec = spec;
+            this.sourceToNameConverter = sourceToNameConverter;
+            this.fullRebuildInputs = fullRebuildInputs;
             this.javaChangeProcessor = javaChangeProcessor;
             this.classChangeProcessor = classChangeProcessor;
             this.jarChangeProcessor = jarChangeProcessor;
@@ -73,13 +87,34 @@ public class RecompilationSpecProvider {
             if (spec.getFullRebuildCause() != null) {
                 return;
             }
-            if (hasExtension(input.getFile(), ".java")) {
-                javaChangeProcessor.processChange(input, spec);
-            } else if (hasExtension(input.getFile(), ".class")) {
+            File file = input.getFile();
+            if (isFullRebuildInput(file)) {
+                spec.setFullRebuildCause(null, file);
+            } else if (hasExtension(file, ".java") || hasExtension(file, ".groovy")) {
+                if (sourceToNameConverter.isInSourceDirs(file)) {
+                    javaChangeProcessor.processChange(input, spec);
+                } else {
+                    // A source file on the classpath, which the compiler may read in place of a class
+                    spec.setFullRebuildCause(null, file);
+                }
+            } else if (hasExtension(file, ".class")) {
                 classChangeProcessor.processChange(input, spec);
-            } else if (hasExtension(input.getFile(), ".jar")) {
+            } else if (hasExtension(file, ".jar")) {
                 jarChangeProcessor.processChange(input, spec);
             }
         }
+
+        private boolean isFullRebuildInput(File file) {
+            if (fullRebuildInputs.contains(file)) {
+                return true;
+            }
+            String path = file.getAbsolutePath();
+            for (File input : fullRebuildInputs) {
+                if (path.startsWith(input.getAbsolutePath() + File.separator)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
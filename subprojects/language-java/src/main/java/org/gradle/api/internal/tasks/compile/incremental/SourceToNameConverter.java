@@ -32,17 +32,28 @@ public class SourceToNameConverter {
     }
 
     public String getClassName(File javaSourceClass) {
+        String className = findClassName(javaSourceClass);
+        if (className == null) {
+            throw new IllegalArgumentException(format("Unable to find source class: '%s' because it does not belong to any of the source dirs: '%s'",
+                    javaSourceClass, sourceDirs.getSourceRoots()));
+        }
+        return className;
+    }
+
+    public boolean isInSourceDirs(File file) {
+        return findClassName(file) != null;
+    }
+
+    private String findClassName(File javaSourceClass) {
         List<File> dirs = sourceDirs.getSourceRoots();
         for (File sourceDir : dirs) {
             if (javaSourceClass.getAbsolutePath().startsWith(sourceDir.getAbsolutePath())) { //perf tweak only
                 String relativePath = GFileUtils.relativePath(sourceDir, javaSourceClass);
                 if (!relativePath.startsWith("..")) {
-                    return relativePath.replaceAll("/", ".").replaceAll("\\.java$", "");
+                    return relativePath.replaceAll("/", ".").replaceAll("\\.(java|groovy)$", "");
                 }
             }
         }
-        throw new IllegalArgumentException(format("Unable to find source java class: '%s' because it does not belong to any of the source dirs: '%s'",
-                javaSourceClass, dirs));
-
+        return null;
     }
 }
\ No newline at end of file
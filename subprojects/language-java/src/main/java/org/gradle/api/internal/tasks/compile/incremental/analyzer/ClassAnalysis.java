@@ -22,10 +22,12 @@ public class ClassAnalysis {
 
     private final Set<String> classDependencies;
     private final boolean dependencyToAll;
+    private final String sourceFileClassName;
 
-    public ClassAnalysis(Set<String> classDependencies, boolean dependencyToAll) {
+    public ClassAnalysis(Set<String> classDependencies, boolean dependencyToAll, String sourceFileClassName) {
         this.classDependencies = classDependencies;
         this.dependencyToAll = dependencyToAll;
+        this.sourceFileClassName = sourceFileClassName;
     }
 
     public Set<String> getClassDependencies() {
@@ -35,4 +37,11 @@ public class ClassAnalysis {
     public boolean isDependencyToAll() {
         return dependencyToAll;
     }
+
+    /**
+     * The name of the class that the source file of this class is named after, or null when the source file is named after this class or its outermost class.
+     */
+    public String getSourceFileClassName() {
+        return sourceFileClassName;
+    }
 }
@@ -33,12 +33,14 @@ public class ClassAnalysisSerializer implements Serializer<ClassAnalysis> {
     public ClassAnalysis read(Decoder decoder) throws Exception {
         boolean relatedToAll = decoder.readBoolean();
         Set<String> classes = setSerializer.read(decoder);
-        return new ClassAnalysis(classes, relatedToAll);
+        String sourceFileClassName = decoder.readNullableString();
+        return new ClassAnalysis(classes, relatedToAll, sourceFileClassName);
     }
 
     @Override
     public void write(Encoder encoder, ClassAnalysis value) throws Exception {
         encoder.writeBoolean(value.isDependencyToAll());
         setSerializer.write(encoder, value.getClassDependencies());
+        encoder.writeNullableString(value.getSourceFileClassName());
     }
 }
@@ -24,6 +24,8 @@ class ClassDependenciesVisitor extends ClassVisitor {
 
     private final static int API = Opcodes.ASM5;
     boolean dependentToAll;
+    String sourceFileClassName;
+    private String className;
 
     public ClassDependenciesVisitor() {
         super(API);
@@ -31,11 +33,30 @@ class ClassDependenciesVisitor extends ClassVisitor {
 
     @Override
     public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        className = name;
         if (isAnnotationType(interfaces)) {
             dependentToAll = true;
         }
     }
 
+    @Override
+    public void visitSource(String source, String debug) {
+        if (source == null) {
+            return;
+        }
+        // Groovy, and Java for non-public classes, allow a source file to contain classes that it is not named after.
+        // Remember the class the source file is named after, so that a change to the source file can be detected as a change to this class
+        int packageEnd = className.lastIndexOf('/');
+        String simpleName = className.substring(packageEnd + 1);
+        int nestedStart = simpleName.indexOf('$');
+        String outermostName = nestedStart > 0 ? simpleName.substring(0, nestedStart) : simpleName;
+        int extensionStart = source.lastIndexOf('.');
+        String sourceName = extensionStart > 0 ? source.substring(0, extensionStart) : source;
+        if (!sourceName.equals(outermostName)) {
+            sourceFileClassName = (className.substring(0, packageEnd + 1) + sourceName).replace('/', '.');
+        }
+    }
+
     private boolean isAnnotationType(String[] interfaces) {
         return interfaces.length == 1 && interfaces[0].equals("java/lang/annotation/Annotation");
     }
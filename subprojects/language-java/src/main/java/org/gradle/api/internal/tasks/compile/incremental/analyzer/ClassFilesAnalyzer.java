@@ -22,6 +22,7 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAcc
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 
 import java.io.File;
+import java.util.Collections;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -57,6 +58,10 @@ public class ClassFilesAnalyzer implements FileVisitor {
 
         ClassAnalysis analysis = analyzer.getClassAnalysis(className, file);
         accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+        if (analysis.getSourceFileClassName() != null) {
+            //the classes of a source file cannot be determined from its name, so a change to the source file requires a full rebuild
+            accumulator.addClass(analysis.getSourceFileClassName(), true, Collections.<String>emptySet());
+        }
     }
 
     public ClassSetAnalysisData getAnalysis() {
@@ -30,15 +30,28 @@ import java.util.HashSet;
 import java.util.Set;
 
 public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
+    private final boolean readSourceFile;
+
+    public DefaultClassDependenciesAnalyzer() {
+        this(false);
+    }
+
+    /**
+     * @param readSourceFile whether to record the source file each class was compiled from. This needs the debug attributes of the class to be read,
+     * so it is only done where a source file can declare classes that it is not named after, as with Groovy.
+     */
+    public DefaultClassDependenciesAnalyzer(boolean readSourceFile) {
+        this.readSourceFile = readSourceFile;
+    }
 
     public ClassAnalysis getClassAnalysis(String className, InputStream input) throws IOException {
         ClassRelevancyFilter filter = new ClassRelevancyFilter(className);
         ClassReader reader = new Java9ClassReader(ByteStreams.toByteArray(input));
         ClassDependenciesVisitor visitor = new ClassDependenciesVisitor();
-        reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        reader.accept(visitor, readSourceFile ? ClassReader.SKIP_FRAMES : ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
 
         Set<String> classDependencies = getClassDependencies(filter, reader);
-        return new ClassAnalysis(classDependencies, visitor.dependentToAll);
+        return new ClassAnalysis(classDependencies, visitor.dependentToAll, visitor.sourceFileClassName);
     }
 
     private Set<String> getClassDependencies(ClassRelevancyFilter filter, ClassReader reader) {
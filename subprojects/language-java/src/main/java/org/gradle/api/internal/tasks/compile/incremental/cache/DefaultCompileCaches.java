@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.cache;
+
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysisCache;
+import org.gradle.api.internal.tasks.compile.incremental.deps.LocalClassSetAnalysisStore;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotCache;
+import org.gradle.api.internal.tasks.compile.incremental.jar.LocalJarClasspathSnapshotStore;
+import org.gradle.cache.CacheRepository;
+
+/**
+ * The caches used by the incremental compilation of a compile task.
+ */
+public class DefaultCompileCaches implements CompileCaches {
+    private final CacheRepository repository;
+    private final Object task;
+    private final GeneralCompileCaches generalCaches;
+
+    public DefaultCompileCaches(CacheRepository repository, Object task, GeneralCompileCaches generalCaches) {
+        this.repository = repository;
+        this.task = task;
+        this.generalCaches = generalCaches;
+    }
+
+    public ClassAnalysisCache getClassAnalysisCache() {
+        return generalCaches.getClassAnalysisCache();
+    }
+
+    public JarSnapshotCache getJarSnapshotCache() {
+        return generalCaches.getJarSnapshotCache();
+    }
+
+    public LocalJarClasspathSnapshotStore getLocalJarClasspathSnapshotStore() {
+        return new LocalJarClasspathSnapshotStore(repository, task);
+    }
+
+    public LocalClassSetAnalysisStore getLocalClassSetAnalysisStore() {
+        return new LocalClassSetAnalysisStore(repository, task);
+    }
+}
@@ -30,7 +30,10 @@ public class ClassDependentsAccumulator {
 
     public void addClass(String className, boolean dependencyToAll, Iterable<String> classDependencies) {
         if (className.startsWith(packagePrefix)) {
-            rememberClass(className).setDependencyToAll(dependencyToAll);
+            DefaultDependentsSet d = rememberClass(className);
+            if (dependencyToAll) {
+                d.setDependencyToAll(true);
+            }
         }
         for (String dependency : classDependencies) {
             if (!dependency.equals(className) && dependency.startsWith(packagePrefix)) {
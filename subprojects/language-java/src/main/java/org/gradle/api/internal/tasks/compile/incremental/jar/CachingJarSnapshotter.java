@@ -16,42 +16,35 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
-import org.gradle.api.internal.changedetection.state.FileSnapshot;
-import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
-import org.gradle.api.internal.hash.Hasher;
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
 import org.gradle.internal.Factory;
 import org.gradle.internal.hash.HashValue;
 
+/**
+ * Caches jar snapshots by the hash of the jar content, so that a jar is analyzed only once no matter where it is located or which project uses it.
+ * The hash recorded in the task's input snapshot is not used, as a compile classpath is snapshotted by the ABI of its classes only. Instead, the
+ * content hash is taken from a caching file snapshotter, which only reads a jar again when its length or timestamp has changed.
+ */
 public class CachingJarSnapshotter implements JarSnapshotter {
 
     private final DefaultJarSnapshotter snapshotter;
-    private final Hasher hasher;
+    private final FileSnapshotter fileSnapshotter;
     private final JarSnapshotCache cache;
-    private final FilesSnapshotSet inputFilesSnapshot;
 
-    public CachingJarSnapshotter(Hasher hasher, ClassDependenciesAnalyzer analyzer, JarSnapshotCache cache, FilesSnapshotSet inputFilesSnapshot) {
-        this.inputFilesSnapshot = inputFilesSnapshot;
-        this.snapshotter = new DefaultJarSnapshotter(hasher, analyzer);
-        this.hasher = hasher;
+    public CachingJarSnapshotter(FileSnapshotter fileSnapshotter, DefaultClassDependenciesAnalyzer analyzer, JarSnapshotCache cache) {
+        this.snapshotter = new DefaultJarSnapshotter(analyzer);
+        this.fileSnapshotter = fileSnapshotter;
         this.cache = cache;
     }
 
     @Override
     public JarSnapshot createSnapshot(final JarArchive jarArchive) {
-        final HashValue hash = getHash(jarArchive);
+        final HashValue hash = fileSnapshotter.hash(jarArchive.file);
         return cache.get(hash, new Factory<JarSnapshot>() {
             public JarSnapshot create() {
                 return snapshotter.createSnapshot(hash, jarArchive);
             }
         });
     }
-
-    private HashValue getHash(JarArchive jarArchive) {
-        FileSnapshot s = inputFilesSnapshot.findSnapshot(jarArchive.file);
-        if (s != null) {
-            return s.getHash();
-        }
-        return hasher.hash(jarArchive.file);
-    }
 }
@@ -15,45 +15,72 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
-import org.gradle.api.file.FileTree;
-import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
-import org.gradle.api.internal.hash.Hasher;
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.hash.HashValue;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+/**
+ * Creates jar snapshots by streaming the class entries of the jar, without extracting them to disk.
+ * Instances are thread-safe, so that several jars can be snapshotted at the same time.
+ */
 class DefaultJarSnapshotter {
 
-    private final Hasher hasher;
-    private final ClassDependenciesAnalyzer analyzer;
+    private final DefaultClassDependenciesAnalyzer analyzer;
 
-    public DefaultJarSnapshotter(Hasher hasher, ClassDependenciesAnalyzer analyzer) {
-        this.hasher = hasher;
+    public DefaultJarSnapshotter(DefaultClassDependenciesAnalyzer analyzer) {
         this.analyzer = analyzer;
     }
 
     public JarSnapshot createSnapshot(HashValue hash, JarArchive jarArchive) {
-        return createSnapshot(hash, jarArchive.contents, new ClassFilesAnalyzer(analyzer));
+        return createSnapshot(hash, jarArchive.file);
     }
 
-    JarSnapshot createSnapshot(HashValue hash, FileTree classes, final ClassFilesAnalyzer analyzer) {
-        final Map<String, HashValue> hashes = new HashMap<String, HashValue>();
-        classes.visit(new FileVisitor() {
-            public void visitDir(FileVisitDetails dirDetails) {
+    JarSnapshot createSnapshot(HashValue hash, File jar) {
+        Map<String, HashValue> hashes = new HashMap<String, HashValue>();
+        ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator("");
+        if (jar.isFile()) {
+            try {
+                visitClasses(jar, hashes, accumulator);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create snapshot of jar '" + jar + "'.", e);
             }
+        }
+        return new JarSnapshot(new JarSnapshotData(hash, hashes, new ClassSetAnalysisData(accumulator.getDependentsMap())));
+    }
 
-            public void visitFile(FileVisitDetails fileDetails) {
-                analyzer.visitFile(fileDetails);
-                String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
-                HashValue classHash = hasher.hash(fileDetails.getFile());
-                hashes.put(className, classHash);
+    private void visitClasses(File jar, Map<String, HashValue> hashes, ClassDependentsAccumulator accumulator) throws IOException {
+        InputStream input = new FileInputStream(jar);
+        try {
+            ZipInputStream zip = new ZipInputStream(new BufferedInputStream(input));
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                String className = entry.getName().replaceAll("/", ".").replaceAll("\\.class$", "");
+                byte[] classBytes = ByteStreams.toByteArray(zip);
+                ClassAnalysis analysis = analyzer.getClassAnalysis(className, new ByteArrayInputStream(classBytes));
+                accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+                hashes.put(className, HashUtil.createHash(new ByteArrayInputStream(classBytes), "MD5"));
             }
-        });
-
-        return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAnalysis()));
+        } finally {
+            input.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -33,6 +33,10 @@ public class JarChangeDependentsFinder {
     }
 
     public DependentsSet getActualDependents(InputFileDetails jarChangeDetails, JarArchive jarArchive) {
+        if (!jarChangeDetails.isRemoved() && jarClasspathSnapshot.getSnapshot(jarArchive) == null) {
+            //the jar is an input of the task but not on the compile classpath, for example the Groovy compiler classpath
+            return new DependencyToAll("'" + jarArchive.file.getName() + "' is not on the compile classpath");
+        }
         if (jarChangeDetails.isAdded()) {
             if (jarClasspathSnapshot.isAnyClassDuplicated(jarArchive)) {
                 //at least one of the classes from the new jar is already present in jar classpath
@@ -16,30 +16,42 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
 import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class JarClasspathSnapshotFactory {
 
     private final JarSnapshotter jarSnapshotter;
+    private final BuildOperationProcessor buildOperationProcessor;
 
-    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter) {
+    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter, BuildOperationProcessor buildOperationProcessor) {
         this.jarSnapshotter = jarSnapshotter;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     JarClasspathSnapshot createSnapshot(Iterable<JarArchive> jarArchives) {
+        List<JarArchive> jars = Lists.newArrayList(jarArchives);
+        JarSnapshot[] snapshots = snapshotJars(jars);
+
         Map<File, JarSnapshot> jarSnapshots = new HashMap<File, JarSnapshot>();
         Map<File, HashValue> jarHashes = new HashMap<File, HashValue>();
         Set<String> allClasses = new HashSet<String>();
         Set<String> duplicateClasses = new HashSet<String>();
 
-        for (JarArchive jar : jarArchives) {
-            JarSnapshot snapshot = jarSnapshotter.createSnapshot(jar);
+        for (int i = 0; i < jars.size(); i++) {
+            JarArchive jar = jars.get(i);
+            JarSnapshot snapshot = snapshots[i];
             jarSnapshots.put(jar.file, snapshot);
             jarHashes.put(jar.file, snapshot.getHash());
             for (String c : snapshot.getClasses()) {
@@ -51,4 +63,40 @@ public class JarClasspathSnapshotFactory {
         JarClasspathSnapshotData jarClasspathSnapshotData = new JarClasspathSnapshotData(jarHashes, duplicateClasses);
         return new JarClasspathSnapshot(jarSnapshots, jarClasspathSnapshotData);
     }
+
+    private JarSnapshot[] snapshotJars(final List<JarArchive> jars) {
+        final JarSnapshot[] snapshots = new JarSnapshot[jars.size()];
+        // Jars are snapshotted concurrently, the results are collected in classpath order
+        buildOperationProcessor.run(new Action<BuildOperationQueue<JarSnapshotOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<JarSnapshotOperation> queue) {
+                for (int i = 0; i < jars.size(); i++) {
+                    queue.add(new JarSnapshotOperation(jars.get(i), snapshots, i));
+                }
+            }
+        });
+        return snapshots;
+    }
+
+    private class JarSnapshotOperation implements RunnableBuildOperation {
+        private final JarArchive jar;
+        private final JarSnapshot[] snapshots;
+        private final int index;
+
+        JarSnapshotOperation(JarArchive jar, JarSnapshot[] snapshots, int index) {
+            this.jar = jar;
+            this.snapshots = snapshots;
+            this.index = index;
+        }
+
+        @Override
+        public String getDescription() {
+            return "creating jar snapshot of ".concat(jar.file.getName());
+        }
+
+        @Override
+        public void run() {
+            snapshots[index] = jarSnapshotter.createSnapshot(jar);
+        }
+    }
 }
@@ -23,6 +23,9 @@ import org.gradle.internal.hash.HashValue;
 import java.io.File;
 import java.util.Map;
 
+/**
+ * Machine-wide cache of jar snapshots, keyed by the hash of the jar content.
+ */
 public interface JarSnapshotCache extends Cache<HashValue, JarSnapshot>, Stoppable {
     Map<File, JarSnapshot> getJarSnapshots(Map<File, HashValue> jarHashes);
 }
\ No newline at end of file
@@ -17,26 +17,39 @@
 package org.gradle.language.java.internal;
 
 import org.gradle.StartParameter;
+import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.tasks.DefaultJavaToolChain;
 import org.gradle.api.internal.tasks.compile.DefaultJavaCompilerFactory;
+import org.gradle.api.internal.tasks.compile.JarIndexCache;
 import org.gradle.api.internal.tasks.compile.JavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.JavaHomeBasedJavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerClientsManager;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonStarter;
 import org.gradle.internal.Factory;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+import org.gradle.internal.environment.GradleBuildEnvironment;
+import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal;
 import org.gradle.process.internal.ExecActionFactory;
+import org.gradle.process.internal.JavaExecHandleFactory;
+import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
 import javax.tools.JavaCompiler;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
+        registration.addProvider(new GlobalScopeCompileServices());
     }
 
     @Override
@@ -57,9 +70,35 @@ public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
         registration.addProvider(new ProjectScopeCompileServices());
     }
 
+    private static class GlobalScopeCompileServices {
+        CompilerClientsManager createCompilerClientsManager(GradleBuildEnvironment environment) {
+            long maxIdleTimeMillis = TimeUnit.MINUTES.toMillis(Integer.getInteger(CompilerClientsManager.MAX_IDLE_TIME_PROPERTY, CompilerClientsManager.DEFAULT_MAX_IDLE_TIME_MINUTES));
+            int maxMemoryMb = Integer.getInteger(CompilerClientsManager.MAX_MEMORY_PROPERTY, CompilerClientsManager.DEFAULT_MAX_MEMORY_MB);
+            if (!environment.isLongLivingProcess()) {
+                return new CompilerClientsManager(false, maxIdleTimeMillis, maxMemoryMb, new TrueTimeProvider());
+            }
+            ScheduledExecutorService expiryExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryImpl("Compiler daemon expiry"));
+            return new CompilerClientsManager(true, maxIdleTimeMillis, maxMemoryMb, new TrueTimeProvider(), expiryExecutor);
+        }
+
+        JarIndexCache createJarIndexCache() {
+            return new JarIndexCache();
+        }
+    }
+
     private static class BuildSessionScopeCompileServices {
-        CompilerDaemonManager createCompilerDaemonManager(WorkerProcessFactory workerFactory, StartParameter startParameter) {
-            return new CompilerDaemonManager(new CompilerClientsManager(new CompilerDaemonStarter(workerFactory, startParameter)));
+        CompilerDaemonManager createCompilerDaemonManager(CompilerClientsManager clientsManager, StartParameter startParameter, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
+                                                          TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory) {
+            // Compiler daemons can be reused by later build sessions, so number them from the pool rather than from the worker factory of this session
+            WorkerProcessFactory workerFactory = new DefaultWorkerProcessFactory(
+                startParameter.getLogLevel(),
+                messagingServer,
+                classPathRegistry,
+                clientsManager.getWorkerIdGenerator(),
+                startParameter.getGradleUserHomeDir(),
+                temporaryFileProvider,
+                execHandleFactory);
+            return new CompilerDaemonManager(clientsManager, new CompilerDaemonStarter(workerFactory, startParameter));
         }
 
         Factory<JavaCompiler> createJavaHomeBasedJavaCompilerFactory() {
@@ -68,8 +107,8 @@ public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
     }
 
     private static class ProjectScopeCompileServices {
-        JavaCompilerFactory createJavaCompilerFactory(GradleInternal gradle, CompilerDaemonManager compilerDaemonManager, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
-            return new DefaultJavaCompilerFactory(gradle.getRootProject().getProjectDir(), compilerDaemonManager, javaHomeBasedJavaCompilerFactory);
+        JavaCompilerFactory createJavaCompilerFactory(GradleInternal gradle, CompilerDaemonManager compilerDaemonManager, Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, JarIndexCache jarIndexCache) {
+            return new DefaultJavaCompilerFactory(gradle.getRootProject().getProjectDir(), compilerDaemonManager, javaHomeBasedJavaCompilerFactory, Boolean.getBoolean(JarIndexCache.ENABLE_PROPERTY) ? jarIndexCache : null);
         }
 
         JavaToolChainInternal createJavaToolChain(JavaCompilerFactory compilerFactory, ExecActionFactory execActionFactory) {
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.JavaFileObject
+import javax.tools.ToolProvider
+
+import static javax.tools.StandardLocation.CLASS_PATH
+
+class CachingJavaFileManagerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def compiler = ToolProvider.getSystemJavaCompiler()
+    def jarIndexCache = new JarIndexCache()
+    def fileManagers = []
+
+    def cleanup() {
+        fileManagers*.close()
+    }
+
+    def "compiles against a class in a jar"() {
+        def jar = jarOf(temp.file("lib.jar"), "package org.a; public class A {}")
+        def source = temp.file("src/B.java") << "class B extends org.a.A {}"
+        def output = temp.createDir("out")
+
+        expect:
+        compile(compiler, fileManager(jar), source, output)
+        output.file("B.class").file
+    }
+
+    def "compiles against the changed content of a jar"() {
+        def jar = jarOf(temp.file("lib.jar"), "package org.a; public class A {}")
+        def source = temp.file("src/B.java") << "class B extends org.a.C {}"
+        def output = temp.createDir("out")
+
+        expect:
+        !compile(compiler, fileManager(jar), source, output)
+
+        when:
+        jar.delete()
+        jarOf(jar, "package org.a; public class A {}", "package org.a; public class C {}")
+        jar.lastModified = jar.lastModified() + 2000
+
+        then:
+        compile(compiler, fileManager(jar), source, output)
+        output.file("B.class").file
+    }
+
+    def "lists classpath entries in classpath order"() {
+        def dir1 = temp.createDir("dir1")
+        dir1.file("org/a/A.class").createFile()
+        def contents = temp.createDir("contents")
+        contents.file("org/a/A.class").createFile()
+        contents.file("org/a/B.class").createFile()
+        contents.file("org/a/b/D.class").createFile()
+        def jar = contents.zipTo(temp.file("lib.jar"))
+        def dir2 = temp.createDir("dir2")
+        dir2.file("org/a/C.class").createFile()
+        def fileManager = fileManager(dir1, jar, dir2)
+
+        when:
+        def files = fileManager.list(CLASS_PATH, "org.a", [JavaFileObject.Kind.CLASS] as Set, false) as List
+
+        then:
+        files.size() == 4
+        files[0].toUri() == dir1.file("org/a/A.class").toURI()
+        files[1..2]*.toUri()*.toString() as Set == ["jar:${jar.toURI()}!/org/a/A.class".toString(), "jar:${jar.toURI()}!/org/a/B.class".toString()] as Set
+        files[3].toUri() == dir2.file("org/a/C.class").toURI()
+        files.collect { fileManager.inferBinaryName(CLASS_PATH, it) } as Set == ["org.a.A", "org.a.B", "org.a.C"] as Set
+
+        when:
+        files = fileManager.list(CLASS_PATH, "org.a", [JavaFileObject.Kind.CLASS] as Set, true) as List
+
+        then:
+        files.collect { fileManager.inferBinaryName(CLASS_PATH, it) }.contains("org.a.b.D")
+    }
+
+    def "finds a class in the first classpath entry that contains it"() {
+        def dir = temp.createDir("dir")
+        dir.file("org/a/A.class").createFile()
+        def contents = temp.createDir("contents")
+        contents.file("org/a/A.class").createFile()
+        def jar = contents.zipTo(temp.file("lib.jar"))
+
+        expect:
+        fileManager(dir, jar).getJavaFileForInput(CLASS_PATH, "org.a.A", JavaFileObject.Kind.CLASS).toUri() == dir.file("org/a/A.class").toURI()
+        fileManager(jar, dir).getJavaFileForInput(CLASS_PATH, "org.a.A", JavaFileObject.Kind.CLASS).toUri().toString() == "jar:${jar.toURI()}!/org/a/A.class"
+        fileManager(jar, dir).getJavaFileForInput(CLASS_PATH, "org.a.Missing", JavaFileObject.Kind.CLASS) == null
+    }
+
+    def "reads resources from archives of any name"() {
+        def contents = temp.createDir("contents")
+        contents.file("org/a/messages.properties") << "greeting=hello"
+        def archive = contents.zipTo(temp.file("lib.bundle"))
+        def fileManager = fileManager(archive)
+
+        when:
+        def resource = fileManager.getFileForInput(CLASS_PATH, "org.a", "messages.properties")
+
+        then:
+        resource.getCharContent(false).toString() == "greeting=hello"
+        resource.openInputStream().withStream { it.text } == "greeting=hello"
+    }
+
+    def "ignores a classpath file that is not an archive"() {
+        def notes = temp.file("notes.txt") << "not an archive"
+        def dir = temp.createDir("dir")
+        dir.file("org/a/A.class").createFile()
+        def fileManager = fileManager(notes, dir)
+
+        expect:
+        fileManager.list(CLASS_PATH, "org.a", [JavaFileObject.Kind.CLASS] as Set, false)*.toUri() == [dir.file("org/a/A.class").toURI()]
+    }
+
+    def "closes the jars of annotation processors loaded from the classpath"() {
+        def processor = '''
+            package org.a;
+            import java.util.Set;
+            import javax.annotation.processing.*;
+            import javax.lang.model.SourceVersion;
+            import javax.lang.model.element.TypeElement;
+            import javax.tools.StandardLocation;
+            @SupportedAnnotationTypes("*")
+            public class GeneratingProcessor extends AbstractProcessor {
+                private boolean generated;
+                public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+                    if (!generated) {
+                        generated = true;
+                        try {
+                            processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "generated.txt").openWriter().close();
+                        } catch (java.io.IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return false;
+                }
+                public SourceVersion getSupportedSourceVersion() {
+                    return SourceVersion.latestSupported();
+                }
+            }
+        '''
+        def jar = jarOf(temp.file("processor.jar"), ["META-INF/services/javax.annotation.processing.Processor": "org.a.GeneratingProcessor"], processor)
+        def source = temp.file("src/B.java") << "class B {}"
+        def output = temp.createDir("out")
+        def fileManager = fileManager(jar)
+
+        when:
+        def loader = fileManager.getClassLoader(CLASS_PATH)
+        compile(compiler, fileManager, source, output)
+
+        then:
+        output.file("generated.txt").file
+        loader.getResource("org/a/GeneratingProcessor.class") != null
+
+        when:
+        fileManager.close()
+
+        then:
+        loader.getResource("org/a/GeneratingProcessor.class") == null
+        jar.delete()
+    }
+
+    private CachingJavaFileManager fileManager(File... classpath) {
+        def fileManager = new CachingJavaFileManager(compiler.getStandardFileManager(null, null, null), jarIndexCache)
+        fileManager.handleOption("-classpath", [classpath.collect { it.absolutePath }.join(File.pathSeparator)].iterator())
+        fileManagers << fileManager
+        return fileManager
+    }
+
+    private TestFile jarOf(TestFile jar, String... sources) {
+        return jarOf(jar, [:], sources)
+    }
+
+    private TestFile jarOf(TestFile jar, Map<String, String> resources, String... sources) {
+        def sourceDir = temp.createDir("lib-src-${jar.name}-${System.nanoTime()}")
+        def classesDir = temp.createDir("lib-classes-${jar.name}-${System.nanoTime()}")
+        def files = sources.collect { String source ->
+            def className = (source =~ /class (\w+)/)[0][1]
+            sourceDir.file("org/a/${className}.java") << source
+        }
+        assert compiler.run(null, null, null, (["-d", classesDir.absolutePath] + files*.absolutePath) as String[]) == 0
+        resources.each { path, content -> classesDir.file(path) << content }
+        classesDir.zipTo(jar)
+        return jar
+    }
+
+    private boolean compile(JavaCompiler compiler, CachingJavaFileManager fileManager, File source, File output) {
+        def options = ["-d", output.absolutePath]
+        def sourceFileManager = compiler.getStandardFileManager(null, null, null)
+        fileManagers << sourceFileManager
+        def units = sourceFileManager.getJavaFileObjectsFromFiles([source])
+        return compiler.getTask(new StringWriter(), fileManager, null, options, null, units).call()
+    }
+}
@@ -65,6 +65,16 @@ class DefaultJavaCompilerFactoryTest extends Specification {
         compiler instanceof JdkJavaCompiler
     }
 
+    def "uses jar index cache only for in-process compiler"() {
+        def jarIndexCache = new JarIndexCache()
+        def factory = new DefaultJavaCompilerFactory(new File("daemon-work-dir"), Mock(CompilerDaemonFactory), javaCompilerFinder, jarIndexCache)
+
+        expect:
+        factory.create(JavaCompileSpec).delegate.jarIndexCache == jarIndexCache
+        factory.create(TestForkingJavaCompileSpec).delegate.delegate.jarIndexCache == null
+        factory.createForJointCompilation(JavaCompileSpec).jarIndexCache == null
+    }
+
     private static class TestCommandLineJavaSpec extends DefaultJavaCompileSpec implements CommandLineJavaCompileSpec {
     }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+class JarIndexCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    @Subject cache = new JarIndexCache()
+
+    def "lists the entries of a jar"() {
+        def jar = temp.file("lib.jar")
+        def contents = temp.createDir("contents")
+        contents.file("org/a/A.class").createFile()
+        contents.file("org/a/b/B.class").createFile()
+        contents.file("Root.class").createFile()
+        contents.zipTo(jar)
+
+        when:
+        def index = cache.getIndex(jar)
+
+        then:
+        index.list("org/a", false) == ["org/a/A.class"]
+        index.list("org/a", true) as Set == ["org/a/A.class", "org/a/b/B.class"] as Set
+        index.list("", false) == ["Root.class"]
+        index.list("org/c", true).empty
+        index.contains("org/a/b/B.class")
+        !index.contains("org/a/B.class")
+    }
+
+    def "jars with the same content share an index"() {
+        def contents = temp.createDir("contents")
+        contents.file("org/a/A.class").createFile()
+        def jar1 = temp.file("lib1.jar")
+        def jar2 = temp.file("lib2.jar")
+        contents.zipTo(jar1)
+        jar2.copyFrom(jar1)
+
+        expect:
+        cache.getIndex(jar1).is(cache.getIndex(jar2))
+        cache.getIndex(jar1).is(cache.getIndex(jar1))
+    }
+
+    def "indexes a jar again when it changes"() {
+        def jar = temp.file("lib.jar")
+        def contents = temp.createDir("contents")
+        contents.file("org/a/A.class").createFile()
+        contents.zipTo(jar)
+
+        expect:
+        cache.getIndex(jar).list("org/a", false) == ["org/a/A.class"]
+
+        when:
+        contents.file("org/a/B.class").createFile()
+        jar.delete()
+        contents.zipTo(jar)
+        jar.lastModified = jar.lastModified() + 2000
+
+        then:
+        cache.getIndex(jar).list("org/a", false) as Set == ["org/a/A.class", "org/a/B.class"] as Set
+    }
+}
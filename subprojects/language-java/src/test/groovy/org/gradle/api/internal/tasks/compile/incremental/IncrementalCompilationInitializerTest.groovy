@@ -44,6 +44,8 @@ class IncrementalCompilationInitializerTest extends Specification {
 
         1 * sourceToCompile.include('Bar.java')
         1 * sourceToCompile.include('com/Foo.java')
+        1 * sourceToCompile.include('Bar.groovy')
+        1 * sourceToCompile.include('com/Foo.groovy')
 
         0 * _
     }
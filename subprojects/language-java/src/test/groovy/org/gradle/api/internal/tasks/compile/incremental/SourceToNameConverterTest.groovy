@@ -40,4 +40,13 @@ class SourceToNameConverterTest extends Specification {
         when: converter.getClassName(temp.file("src/main/unknown/Xxx.java"))
         then: thrown(IllegalArgumentException)
     }
+
+    def "knows groovy source class relative path"() {
+        expect:
+        converter.getClassName(temp.file("src/main/java/Foo.groovy")) == "Foo"
+        converter.getClassName(temp.file("src/main/java/org/bar/Bar.groovy")) == "org.bar.Bar"
+
+        when: converter.getClassName(temp.file("src/main/unknown/Xxx.groovy"))
+        then: thrown(IllegalArgumentException)
+    }
 }
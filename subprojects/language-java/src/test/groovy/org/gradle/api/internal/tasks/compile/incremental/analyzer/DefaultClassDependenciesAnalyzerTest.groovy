@@ -71,7 +71,22 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(SomeSourceAnnotation).dependencyToAll
     }
 
+    def "knows the class a source file is named after when it declares other classes"() {
+        analyzer = new DefaultClassDependenciesAnalyzer(true)
+
+        expect:
+        analyze(HasSecondaryClass).sourceFileClassName == null
+        analyze(HasSecondaryClass.Nested).sourceFileClassName == null
+        analyze(DefaultClassDependenciesAnalyzerTest).sourceFileClassName == null
+        analyze(Class.forName(HasSecondaryClass.package.name + ".SecondaryClass")).sourceFileClassName == HasSecondaryClass.name
+    }
+
+    def "does not read the source file of classes unless asked to"() {
+        expect:
+        analyze(Class.forName(HasSecondaryClass.package.name + ".SecondaryClass")).sourceFileClassName == null
+    }
+
     InputStream classStream(Class aClass) {
-        aClass.getResourceAsStream(aClass.getSimpleName() + ".class")
+        aClass.getResourceAsStream("/" + aClass.name.replace('.', '/') + ".class")
     }
 }
@@ -53,6 +53,14 @@ class ClassDependentsAccumulatorTest extends Specification {
         accumulator.dependentsMap.x.dependentClasses == ['d'] as Set
     }
 
+    def "class stays dependency to all when it is added again"() {
+        accumulator.addClass("a", true, [])
+        accumulator.addClass("a", false, ["b"])
+
+        expect:
+        accumulator.dependentsMap.a.dependencyToAll
+    }
+
     def "creates keys for all encountered classes"() {
         accumulator.addClass("a", false, ["x"])
         accumulator.addClass("b", true,  ["a", "b"])
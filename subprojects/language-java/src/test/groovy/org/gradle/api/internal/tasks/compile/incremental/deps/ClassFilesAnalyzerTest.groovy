@@ -55,8 +55,21 @@ class ClassFilesAnalyzerTest extends Specification {
         }
         when: analyzer.visitFile(details)
         then:
-        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true)
+        1 * classAnalyzer.getClassAnalysis("org.foo.Foo", new File("Foo.class")) >> new ClassAnalysis(new HashSet(["A"]), true, null)
         1 * accumulator.addClass("org.foo.Foo", true, new HashSet(["A"]))
         0 * _
     }
+
+    def "marks the class a source file is named after as dependency to all when the source file contains other classes"() {
+        def details = Stub(FileVisitDetails) {
+            getPath() >> "org/foo/Bar.class"
+            getFile() >> new File("Bar.class")
+        }
+        when: analyzer.visitFile(details)
+        then:
+        1 * classAnalyzer.getClassAnalysis("org.foo.Bar", new File("Bar.class")) >> new ClassAnalysis(new HashSet(["A"]), false, "org.foo.Foo")
+        1 * accumulator.addClass("org.foo.Bar", false, new HashSet(["A"]))
+        1 * accumulator.addClass("org.foo.Foo", true, [] as Set)
+        0 * _
+    }
 }
@@ -14,56 +14,58 @@
  * limitations under the License.
  */
 
-
-
 package org.gradle.api.internal.tasks.compile.incremental.jar
 
-import org.gradle.api.internal.file.TestFiles
-import org.gradle.api.internal.file.collections.DirectoryFileTree
-import org.gradle.api.internal.file.collections.FileTreeAdapter
-import org.gradle.api.internal.hash.Hasher
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
-import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer
-import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer
 import org.gradle.internal.hash.HashUtil
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
-import org.gradle.util.UsesNativeServices
 import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
-@UsesNativeServices
 class DefaultJarSnapshotterTest extends Specification {
 
     @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
-    def hasher = Mock(Hasher)
+    def analyzer = Mock(DefaultClassDependenciesAnalyzer)
 
-    @Subject snapshotter = new DefaultJarSnapshotter(hasher, Mock(ClassDependenciesAnalyzer))
+    @Subject snapshotter = new DefaultJarSnapshotter(analyzer)
 
     def "creates snapshot for an empty jar"() {
+        def jar = temp.file("empty.jar")
+        temp.createDir("empty").zipTo(jar)
+
         expect:
-        def snapshot = snapshotter.createSnapshot(HashUtil.createHash("foo", "md5"), new JarArchive(new File("a.jar"), new FileTreeAdapter(new DirectoryFileTree(new File("missing"))), TestFiles.resolver().getPatternSetFactory()))
+        def snapshot = snapshotter.createSnapshot(HashUtil.createHash("foo", "md5"), jar)
         snapshot.hashes.isEmpty()
         snapshot.analysis
     }
 
-    def "creates snapshot of a jar with classes"() {
-        def f1 = temp.createFile("foo/Foo.class")
-        def f2 = temp.createFile("foo/com/Foo2.class")
-        def analyzer = Mock(ClassFilesAnalyzer)
+    def "creates snapshot for a missing jar"() {
+        expect:
+        def snapshot = snapshotter.createSnapshot(HashUtil.createHash("foo", "md5"), temp.file("missing.jar"))
+        snapshot.hashes.isEmpty()
+        snapshot.analysis
+    }
+
+    def "creates snapshot of a jar with classes by reading its entries"() {
+        temp.file("foo/Foo.class").text = "foo"
+        temp.file("foo/com/Foo2.class").text = "foo2"
+        temp.file("foo/META-INF/MANIFEST.MF").text = "Manifest-Version: 1.0"
+        def jar = temp.file("foo.jar")
+        temp.file("foo").zipTo(jar)
 
         when:
-        def snapshot = snapshotter.createSnapshot(HashUtil.createHash("foo", "md5"), new FileTreeAdapter(new DirectoryFileTree(temp.file("foo"))), analyzer)
+        def snapshot = snapshotter.createSnapshot(HashUtil.createHash("foo", "md5"), jar)
 
         then:
-        2 * analyzer.visitFile(_)
-        1 * hasher.hash(f1)
-        1 * hasher.hash(f2)
-        1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
+        1 * analyzer.getClassAnalysis("Foo", _ as InputStream) >> new ClassAnalysis(["com.Foo2"] as Set, false, null)
+        1 * analyzer.getClassAnalysis("com.Foo2", _ as InputStream) >> new ClassAnalysis([] as Set, false, null)
         0 * _._
 
         and:
-        snapshot.hashes.keySet() == ["Foo", "com.Foo2"] as Set
-        snapshot.analysis
+        snapshot.hash == HashUtil.createHash("foo", "md5")
+        snapshot.hashes == ["Foo": HashUtil.createHash("foo", "MD5"), "com.Foo2": HashUtil.createHash("foo2", "MD5")]
+        snapshot.analysis.getRelevantDependents("com.Foo2").dependentClasses == ["Foo"] as Set
     }
 }
@@ -18,14 +18,23 @@ package org.gradle.api.internal.tasks.compile.incremental.jar
 
 import org.gradle.api.file.FileTree
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashValue
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
 class JarClasspathSnapshotFactoryTest extends Specification {
 
     def snapshotter = Mock(JarSnapshotter)
-    @Subject factory = new JarClasspathSnapshotFactory(snapshotter)
+    def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(), new DefaultExecutorFactory(), 4)
+    @Subject factory = new JarClasspathSnapshotFactory(snapshotter, buildOperationProcessor)
 
     def "creates classpath snapshot with correct duplicate classes"() {
         def jar1 = Stub(JarArchive); def jar2 = Stub(JarArchive); def jar3 = Stub(JarArchive)
@@ -64,4 +73,40 @@ class JarClasspathSnapshotFactoryTest extends Specification {
         s.data.jarHashes[new File("f1")] == new HashValue("123")
         s.data.jarHashes[new File("f2")] == new HashValue("234")
     }
+
+    def "snapshots each jar of the classpath concurrently"() {
+        def jars = (1..10).collect { new JarArchive(new File("f$it"), Stub(FileTree), TestFiles.resolver().getPatternSetFactory()) }
+        def snapshots = jars.collectEntries { jar ->
+            [jar, Stub(JarSnapshot) {
+                getHash() >> new HashValue(jar.file.name.substring(1))
+                getClasses() >> ["Common"]
+            }]
+        }
+
+        def running = new AtomicInteger()
+        def overlapped = new AtomicBoolean()
+        def overlapping = new CountDownLatch(2)
+
+        when:
+        def s = factory.createSnapshot(jars)
+
+        then:
+        10 * snapshotter.createSnapshot(_) >> { JarArchive jar ->
+            running.incrementAndGet()
+            // Wait for a second jar to be snapshotted at the same time, which never happens when the jars are snapshotted one after the other
+            overlapping.countDown()
+            overlapping.await(10, TimeUnit.SECONDS)
+            if (running.get() > 1) {
+                overlapped.set(true)
+            }
+            running.decrementAndGet()
+            snapshots[jar]
+        }
+
+        overlapped.get()
+
+        s.data.jarHashes.size() == 10
+        (1..10).every { s.data.jarHashes[new File("f$it")] == new HashValue("$it") }
+        s.data.duplicateClasses == ["Common"] as Set
+    }
 }
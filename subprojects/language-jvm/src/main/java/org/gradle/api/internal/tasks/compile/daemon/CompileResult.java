@@ -23,10 +23,19 @@ import java.io.Serializable;
 public class CompileResult implements WorkResult, Serializable {
     private final boolean didWork;
     private final Throwable exception;
+    private final int tenuredHeapUsage;
 
     public CompileResult(boolean didWork, @Nullable Throwable exception) {
+        this(didWork, exception, -1);
+    }
+
+    /**
+     * @param tenuredHeapUsage The percentage of the tenured heap of the compiler process still in use after the last garbage collection, or -1 when unknown.
+     */
+    public CompileResult(boolean didWork, @Nullable Throwable exception, int tenuredHeapUsage) {
         this.didWork = didWork;
         this.exception = exception;
+        this.tenuredHeapUsage = tenuredHeapUsage;
     }
 
     @Override
@@ -39,6 +48,10 @@ public class CompileResult implements WorkResult, Serializable {
         return exception;
     }
 
+    public int getTenuredHeapUsage() {
+        return tenuredHeapUsage;
+    }
+
     public boolean isSuccess() {
         return exception == null;
     }
@@ -15,40 +15,114 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.TimeProvider;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.id.LongIdGenerator;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-public class CompilerClientsManager {
+/**
+ * Keeps track of the compiler daemons started by this process.
+ * <p>
+ * In a long living process, such as the Gradle daemon, idle compiler daemons are kept across builds so that later builds run on compilers
+ * that are already warmed up. A retained compiler daemon is stopped when it has been idle for longer than the maximum idle time, when the idle
+ * daemons need to make room for a new one to stay within the memory cap, or as soon as it is released in an unhealthy state.
+ * Idle daemons are checked for expiry whenever the pool is used, at the end of each build session and, when an executor is provided, periodically
+ * while idle daemons are retained.
+ * <p>
+ * As retained compiler daemons outlive the build session that started them, the workers are numbered using a generator that lives as long as this pool.
+ */
+public class CompilerClientsManager implements Stoppable {
+
+    /**
+     * The number of minutes an idle compiler daemon is kept in a long living process.
+     */
+    public static final String MAX_IDLE_TIME_PROPERTY = "org.gradle.compiler.daemon.maxIdleTime";
+    public static final int DEFAULT_MAX_IDLE_TIME_MINUTES = 60;
+
+    /**
+     * The total maximum heap size, in megabytes, of the compiler daemons above which idle daemons are stopped.
+     */
+    public static final String MAX_MEMORY_PROPERTY = "org.gradle.compiler.daemon.maxMemory";
+    public static final int DEFAULT_MAX_MEMORY_MB = 2048;
+
+    /**
+     * The heap size accounted for a compiler daemon that was started without a maximum heap size.
+     */
+    static final int DEFAULT_HEAP_SIZE_MB = 512;
+
+    /**
+     * The longest interval between two periodic checks for expired idle daemons.
+     */
+    static final long MAX_EXPIRY_CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonManager.class);
 
     private final Object lock = new Object();
     private final List<CompilerDaemonClient> allClients = new ArrayList<CompilerDaemonClient>();
+    // least recently released first
     private final List<CompilerDaemonClient> idleClients = new ArrayList<CompilerDaemonClient>();
+    private final Map<CompilerDaemonClient, Long> idleSince = new HashMap<CompilerDaemonClient, Long>();
 
-    private CompilerDaemonStarter compilerDaemonStarter;
+    private final boolean retainIdleClients;
+    private final long maxIdleTimeMillis;
+    private final int maxMemoryMb;
+    private final TimeProvider timeProvider;
+    private final ScheduledExecutorService expiryExecutor;
+    private final IdGenerator<Long> workerIdGenerator = new LongIdGenerator();
+    private ScheduledFuture<?> expiryCheck;
 
-    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter) {
-        this.compilerDaemonStarter = compilerDaemonStarter;
+    public CompilerClientsManager(boolean retainIdleClients, long maxIdleTimeMillis, int maxMemoryMb, TimeProvider timeProvider) {
+        this(retainIdleClients, maxIdleTimeMillis, maxMemoryMb, timeProvider, null);
     }
 
-    public CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+    /**
+     * @param expiryExecutor The executor to periodically stop expired idle daemons with, or null to only check for expiry when the pool is used.
+     * The executor is shut down when this pool is stopped.
+     */
+    public CompilerClientsManager(boolean retainIdleClients, long maxIdleTimeMillis, int maxMemoryMb, TimeProvider timeProvider, ScheduledExecutorService expiryExecutor) {
+        this.retainIdleClients = retainIdleClients;
+        this.maxIdleTimeMillis = maxIdleTimeMillis;
+        this.maxMemoryMb = maxMemoryMb;
+        this.timeProvider = timeProvider;
+        this.expiryExecutor = expiryExecutor;
     }
 
-    CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<CompilerDaemonClient> clients) {
+    /**
+     * Returns the generator to number the compiler daemon workers with, which is shared by all build sessions.
+     */
+    public IdGenerator<Long> getWorkerIdGenerator() {
+        return workerIdGenerator;
+    }
+
+    public CompilerDaemonClient reserveIdleClient(File workingDir, LogLevel logLevel, DaemonForkOptions forkOptions) {
+        stopExpiredClients();
+        return reserveIdleClient(workingDir, logLevel, forkOptions, idleClients);
+    }
+
+    CompilerDaemonClient reserveIdleClient(File workingDir, LogLevel logLevel, DaemonForkOptions forkOptions, List<CompilerDaemonClient> clients) {
         synchronized (lock) {
-            Iterator<CompilerDaemonClient> it = clients.iterator();
-            while(it.hasNext()) {
-                CompilerDaemonClient candidate = it.next();
-                if(candidate.isCompatibleWith(forkOptions)) {
+            // prefer the most recently used client, as it is the warmest one
+            ListIterator<CompilerDaemonClient> it = clients.listIterator(clients.size());
+            while (it.hasPrevious()) {
+                CompilerDaemonClient candidate = it.previous();
+                if (candidate.isCompatibleWith(workingDir, logLevel, forkOptions)) {
                     it.remove();
+                    idleSince.remove(candidate);
                     return candidate;
                 }
             }
@@ -56,7 +130,8 @@ public class CompilerClientsManager {
         }
     }
 
-    public CompilerDaemonClient reserveNewClient(File workingDir, DaemonForkOptions forkOptions) {
+    public CompilerDaemonClient reserveNewClient(CompilerDaemonStarter compilerDaemonStarter, File workingDir, DaemonForkOptions forkOptions) {
+        makeRoomFor(heapSizeMb(forkOptions.getMaxHeapSizeMb()));
         //allow the daemon to be started concurrently
         CompilerDaemonClient client = compilerDaemonStarter.startDaemon(workingDir, forkOptions);
         synchronized (lock) {
@@ -66,17 +141,120 @@ public class CompilerClientsManager {
     }
 
     public void release(CompilerDaemonClient client) {
+        if (!client.isHealthy()) {
+            synchronized (lock) {
+                allClients.remove(client);
+            }
+            client.stop();
+            LOGGER.info("Stopped unhealthy compiler daemon.");
+            return;
+        }
         synchronized (lock) {
             idleClients.add(client);
+            idleSince.put(client, timeProvider.getCurrentTime());
+            scheduleExpiryCheck();
+        }
+    }
+
+    private void scheduleExpiryCheck() {
+        if (expiryExecutor == null || expiryCheck != null || !retainIdleClients) {
+            return;
+        }
+        long interval = Math.max(1, Math.min(maxIdleTimeMillis, MAX_EXPIRY_CHECK_INTERVAL_MILLIS));
+        expiryCheck = expiryExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    stopExpiredClients();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not stop expired compiler daemons.", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called at the end of a build session. Stops all compiler daemons unless idle daemons are retained across builds.
+     */
+    public void buildSessionFinished() {
+        if (!retainIdleClients) {
+            stopAllClients();
+            return;
+        }
+        stopExpiredClients();
+        makeRoomFor(0);
+    }
+
+    void stopExpiredClients() {
+        List<CompilerDaemonClient> expired = new ArrayList<CompilerDaemonClient>();
+        synchronized (lock) {
+            long now = timeProvider.getCurrentTime();
+            Iterator<CompilerDaemonClient> it = idleClients.iterator();
+            while (it.hasNext()) {
+                CompilerDaemonClient client = it.next();
+                if (now - idleSince.get(client) > maxIdleTimeMillis) {
+                    it.remove();
+                    idleSince.remove(client);
+                    allClients.remove(client);
+                    expired.add(client);
+                }
+            }
+        }
+        stopClients(expired, "expired");
+    }
+
+    private void makeRoomFor(int requiredMemoryMb) {
+        List<CompilerDaemonClient> evicted = new ArrayList<CompilerDaemonClient>();
+        synchronized (lock) {
+            int usedMemoryMb = requiredMemoryMb;
+            for (CompilerDaemonClient client : allClients) {
+                usedMemoryMb += heapSizeMb(client.getMaxHeapSizeMb());
+            }
+            while (usedMemoryMb > maxMemoryMb && !idleClients.isEmpty()) {
+                CompilerDaemonClient client = idleClients.remove(0);
+                idleSince.remove(client);
+                allClients.remove(client);
+                evicted.add(client);
+                usedMemoryMb -= heapSizeMb(client.getMaxHeapSizeMb());
+            }
         }
+        stopClients(evicted, "least recently used");
+    }
+
+    private static int heapSizeMb(int maxHeapSizeMb) {
+        return maxHeapSizeMb > 0 ? maxHeapSizeMb : DEFAULT_HEAP_SIZE_MB;
+    }
+
+    private static void stopClients(List<CompilerDaemonClient> clients, String reason) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        CompositeStoppable.stoppable(clients).stop();
+        LOGGER.info("Stopped {} {} compiler daemon(s).", clients.size(), reason);
     }
 
     public void stop() {
+        try {
+            stopAllClients();
+        } finally {
+            if (expiryExecutor != null) {
+                expiryExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void stopAllClients() {
         synchronized (lock) {
             LOGGER.debug("Stopping {} compiler daemon(s).", allClients.size());
             CompositeStoppable.stoppable(allClients).stop();
             LOGGER.info("Stopped {} compiler daemon(s).", allClients.size());
             allClients.clear();
+            idleClients.clear();
+            idleSince.clear();
+            if (expiryCheck != null) {
+                expiryCheck.cancel(false);
+                expiryCheck = null;
+            }
         }
     }
-}
\ No newline at end of file
+}
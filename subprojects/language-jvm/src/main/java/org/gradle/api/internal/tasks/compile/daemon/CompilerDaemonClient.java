@@ -15,16 +15,33 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.language.base.internal.compile.CompileSpec;
 import org.gradle.language.base.internal.compile.Compiler;
 
+import java.io.File;
+
 class CompilerDaemonClient implements CompilerDaemon, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(CompilerDaemonClient.class);
+
+    /**
+     * A compiler daemon with more of its tenured heap in use after garbage collection is considered unhealthy and is not reused.
+     */
+    static final int MAX_HEALTHY_TENURED_HEAP_USAGE = 90;
+
     private final DaemonForkOptions forkOptions;
+    private final File workingDir;
+    private final LogLevel logLevel;
     private final CompilerDaemonWorker workerProcess;
+    private volatile boolean healthy = true;
 
-    public CompilerDaemonClient(DaemonForkOptions forkOptions, CompilerDaemonWorker workerProcess) {
+    public CompilerDaemonClient(DaemonForkOptions forkOptions, File workingDir, LogLevel logLevel, CompilerDaemonWorker workerProcess) {
         this.forkOptions = forkOptions;
+        this.workingDir = workingDir;
+        this.logLevel = logLevel;
         this.workerProcess = workerProcess;
     }
 
@@ -32,13 +49,42 @@ class CompilerDaemonClient implements CompilerDaemon, Stoppable {
     public <T extends CompileSpec> CompileResult execute(Compiler<T> compiler, T spec) {
         // currently we just allow a single compilation thread at a time (per compiler daemon)
         // one problem to solve when allowing multiple threads is how to deal with memory requirements specified by compile tasks
-        return workerProcess.execute(compiler, spec);
+        boolean completed = false;
+        try {
+            CompileResult result = workerProcess.execute(compiler, spec);
+            if (result.getTenuredHeapUsage() > MAX_HEALTHY_TENURED_HEAP_USAGE) {
+                LOGGER.info("Compiler daemon has {}% of its tenured heap in use and will not be reused.", result.getTenuredHeapUsage());
+                healthy = false;
+            }
+            completed = true;
+            return result;
+        } finally {
+            if (!completed) {
+                // the daemon process failed or could not be reached
+                healthy = false;
+            }
+        }
     }
 
     public boolean isCompatibleWith(DaemonForkOptions required) {
         return forkOptions.isCompatibleWith(required);
     }
 
+    public boolean isCompatibleWith(File workingDir, LogLevel logLevel, DaemonForkOptions required) {
+        return this.workingDir.equals(workingDir) && this.logLevel == logLevel && isCompatibleWith(required);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * The maximum heap size of the daemon in megabytes, or -1 when not specified.
+     */
+    public int getMaxHeapSizeMb() {
+        return forkOptions.getMaxHeapSizeMb();
+    }
+
     @Override
     public void stop() {
         workerProcess.stop();
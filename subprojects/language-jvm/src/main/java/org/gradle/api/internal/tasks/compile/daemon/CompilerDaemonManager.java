@@ -22,24 +22,27 @@ import org.gradle.language.base.internal.compile.CompileSpec;
 import java.io.File;
 
 /**
- * Controls the lifecycle of the compiler daemon and provides access to it.
+ * Controls the lifecycle of the compiler daemon and provides access to it. Compiler daemons are shared with later build sessions
+ * through the {@link CompilerClientsManager}.
  */
 @ThreadSafe
 public class CompilerDaemonManager implements CompilerDaemonFactory, Stoppable {
 
     private CompilerClientsManager clientsManager;
+    private CompilerDaemonStarter compilerDaemonStarter;
 
-    public CompilerDaemonManager(CompilerClientsManager clientsManager) {
+    public CompilerDaemonManager(CompilerClientsManager clientsManager, CompilerDaemonStarter compilerDaemonStarter) {
         this.clientsManager = clientsManager;
+        this.compilerDaemonStarter = compilerDaemonStarter;
     }
 
     @Override
     public CompilerDaemon getDaemon(final File workingDir, final DaemonForkOptions forkOptions) {
         return new CompilerDaemon() {
             public <T extends CompileSpec> CompileResult execute(org.gradle.language.base.internal.compile.Compiler<T> compiler, T spec) {
-                CompilerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
+                CompilerDaemonClient client = clientsManager.reserveIdleClient(workingDir, compilerDaemonStarter.getLogLevel(), forkOptions);
                 if (client == null) {
-                    client = clientsManager.reserveNewClient(workingDir, forkOptions);
+                    client = clientsManager.reserveNewClient(compilerDaemonStarter, workingDir, forkOptions);
                 }
                 try {
                     return client.execute(compiler, spec);
@@ -52,6 +55,6 @@ public class CompilerDaemonManager implements CompilerDaemonFactory, Stoppable {
 
     @Override
     public void stop() {
-        clientsManager.stop();
+        clientsManager.buildSessionFinished();
     }
 }
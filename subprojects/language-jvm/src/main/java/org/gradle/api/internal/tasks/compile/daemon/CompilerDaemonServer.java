@@ -21,6 +21,11 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.language.base.internal.compile.CompileSpec;
 import org.gradle.language.base.internal.compile.Compiler;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
 public class CompilerDaemonServer implements CompilerDaemonProtocol {
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonServer.class);
 
@@ -30,10 +35,26 @@ public class CompilerDaemonServer implements CompilerDaemonProtocol {
             LOGGER.info("Executing {} in compiler daemon.", compiler);
             WorkResult result = compiler.execute(spec);
             LOGGER.info("Successfully executed {} in compiler daemon.", compiler);
-            return new CompileResult(result.getDidWork(), null);
+            return new CompileResult(result.getDidWork(), null, getTenuredHeapUsage());
         } catch (Throwable t) {
             LOGGER.info("Exception executing {} in compiler daemon: {}.", compiler, t);
-            return new CompileResult(true, t);
+            return new CompileResult(true, t, getTenuredHeapUsage());
+        }
+    }
+
+    /**
+     * Returns the percentage of the tenured heap that was still in use after its last collection, so that the client can retire
+     * a compiler daemon that is running out of memory. The tenured pool is the only heap pool that supports a usage threshold.
+     */
+    private static int getTenuredHeapUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null && usage.getMax() > 0) {
+                    return (int) (usage.getUsed() * 100 / usage.getMax());
+                }
+            }
         }
+        return -1;
     }
 }
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.tasks.compile.daemon;
 
 import org.gradle.StartParameter;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.process.internal.JavaExecHandleBuilder;
@@ -35,12 +36,16 @@ public class CompilerDaemonStarter {
         this.startParameter = startParameter;
     }
 
+    public LogLevel getLogLevel() {
+        return startParameter.getLogLevel();
+    }
+
     public CompilerDaemonClient startDaemon(File workingDir, DaemonForkOptions forkOptions) {
         LOG.debug("Starting Gradle compiler daemon with fork options {}.", forkOptions);
         Clock clock = new Clock();
         MultiRequestWorkerProcessBuilder<CompilerDaemonWorker> builder = workerFactory.multiRequestWorker(CompilerDaemonWorker.class, CompilerDaemonProtocol.class, CompilerDaemonServer.class);
         builder.setBaseName("Gradle Compiler Daemon");
-        builder.setLogLevel(startParameter.getLogLevel()); // NOTE: might make sense to respect per-compile-task log level
+        builder.setLogLevel(getLogLevel()); // NOTE: might make sense to respect per-compile-task log level
         builder.applicationClasspath(forkOptions.getClasspath());
         builder.sharedPackages(forkOptions.getSharedPackages());
         JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
@@ -51,7 +56,7 @@ public class CompilerDaemonStarter {
         CompilerDaemonWorker worker = builder.build();
         worker.start();
 
-        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, worker);
+        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, workingDir, getLogLevel(), worker);
 
         LOG.info("Started Gradle compiler daemon ({}) with fork options {}.", clock.getTime(), forkOptions);
 
@@ -16,48 +16,73 @@
 
 package org.gradle.api.internal.tasks.compile.daemon
 
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.TimeProvider
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
 class CompilerClientsManagerTest extends ConcurrentSpecification {
 
     def workingDir = new File("some-dir")
+    def logLevel = LogLevel.LIFECYCLE
 
     def options = Stub(DaemonForkOptions)
     def starter = Stub(CompilerDaemonStarter)
+    def timeProvider = Stub(TimeProvider)
+    def maxIdleTime = 1000
+    def maxMemory = 2048
+    def retainIdleClients = true
+
+    @Subject manager = createManager()
 
-    @Subject manager = new CompilerClientsManager(starter)
+    def createManager() {
+        new CompilerClientsManager(retainIdleClients, maxIdleTime, maxMemory, timeProvider)
+    }
 
     def "does not reserve idle client when no clients"() {
         expect:
-        manager.reserveIdleClient(options) == null
+        manager.reserveIdleClient(workingDir, logLevel, options) == null
     }
 
     def "does not reserve idle client when no matching client found"() {
         def noMatch = Stub(CompilerDaemonClient) {
-            isCompatibleWith(_) >> false
+            isCompatibleWith(_, _, _) >> false
         }
 
         expect:
-        manager.reserveIdleClient(options, [noMatch]) == null
+        manager.reserveIdleClient(workingDir, logLevel, options, [noMatch]) == null
     }
 
     def "reserves idle client when match found"() {
-        def noMatch = Stub(CompilerDaemonClient) { isCompatibleWith(_) >> false }
-        def match = Stub(CompilerDaemonClient) { isCompatibleWith(_) >> true }
+        def noMatch = Stub(CompilerDaemonClient) { isCompatibleWith(_, _, _) >> false }
+        def match = Stub(CompilerDaemonClient) { isCompatibleWith(workingDir, logLevel, options) >> true }
         def input = [noMatch, match]
 
         expect:
-        manager.reserveIdleClient(options, input) == match
+        manager.reserveIdleClient(workingDir, logLevel, options, input) == match
         input == [noMatch] //match removed from input
     }
 
+    def "prefers the most recently used idle client"() {
+        def older = Stub(CompilerDaemonClient) { isCompatibleWith(_, _, _) >> true }
+        def newer = Stub(CompilerDaemonClient) { isCompatibleWith(_, _, _) >> true }
+        def input = [older, newer]
+
+        expect:
+        manager.reserveIdleClient(workingDir, logLevel, options, input) == newer
+        input == [older]
+    }
+
     def "reserves new client"() {
         def newClient = Stub(CompilerDaemonClient)
         starter.startDaemon(workingDir, options) >> newClient
 
         when:
-        def client = manager.reserveNewClient(workingDir, options)
+        def client = manager.reserveNewClient(starter, workingDir, options)
 
         then:
         newClient == client
@@ -69,8 +94,8 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
         starter.startDaemon(workingDir, options) >>> [client1, client2]
 
         when:
-        manager.reserveNewClient(workingDir, options)
-        manager.reserveNewClient(workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
         manager.stop()
 
         then:
@@ -79,19 +104,156 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
     }
 
     def "clients can be released for further use"() {
-        def client = Mock(CompilerDaemonClient) { isCompatibleWith(_) >> true }
+        def client = healthyClient()
+        starter.startDaemon(workingDir, options) >> client
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+
+        then:
+        manager.reserveIdleClient(workingDir, logLevel, options) == null
+
+        when:
+        manager.release(client)
+
+        then:
+        manager.reserveIdleClient(workingDir, logLevel, options) == client
+    }
+
+    def "unhealthy clients are stopped when released"() {
+        def client = Mock(CompilerDaemonClient) {
+            isHealthy() >> false
+            isCompatibleWith(_, _, _) >> true
+        }
+        starter.startDaemon(workingDir, options) >> client
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.release(client)
+
+        then:
+        1 * client.stop()
+
+        and:
+        manager.reserveIdleClient(workingDir, logLevel, options) == null
+        manager.allClients.empty
+    }
+
+    def "idle clients are kept across build sessions until they expire"() {
+        def client = healthyClient()
+        starter.startDaemon(workingDir, options) >> client
+        timeProvider.getCurrentTime() >>> [0, 500, 1001]
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.release(client)
+        manager.buildSessionFinished()
+
+        then:
+        0 * client.stop()
+
+        when:
+        manager.buildSessionFinished()
+
+        then:
+        1 * client.stop()
+        manager.allClients.empty
+    }
+
+    def "periodically stops idle clients once they expire"() {
+        def expiryExecutor = Mock(ScheduledExecutorService)
+        manager = new CompilerClientsManager(true, maxIdleTime, maxMemory, timeProvider, expiryExecutor)
+        def client = healthyClient()
         starter.startDaemon(workingDir, options) >> client
+        timeProvider.getCurrentTime() >>> [0, 500, 1001]
+        Runnable expiryCheck = null
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.release(client)
+
+        then:
+        1 * expiryExecutor.scheduleWithFixedDelay(_, 1000, 1000, TimeUnit.MILLISECONDS) >> { Runnable check, long delay, long interval, TimeUnit unit ->
+            expiryCheck = check
+            Stub(ScheduledFuture)
+        }
 
         when:
-        manager.reserveNewClient(workingDir, options)
+        expiryCheck.run()
 
         then:
-        manager.reserveIdleClient(options) == null
+        0 * client.stop()
+
+        when:
+        expiryCheck.run()
+
+        then:
+        1 * client.stop()
+        manager.allClients.empty
+
+        when:
+        manager.stop()
+
+        then:
+        1 * expiryExecutor.shutdownNow()
+    }
+
+    def "stops all clients at the end of the build session when idle clients are not retained"() {
+        retainIdleClients = false
+        manager = createManager()
+        def client = healthyClient()
+        starter.startDaemon(workingDir, options) >> client
 
         when:
+        manager.reserveNewClient(starter, workingDir, options)
         manager.release(client)
+        manager.buildSessionFinished()
+
+        then:
+        1 * client.stop()
+        manager.allClients.empty
+    }
+
+    def "stops least recently used idle clients to stay within the memory cap"() {
+        def client1 = healthyClient(1024)
+        def client2 = healthyClient(1024)
+        def client3 = healthyClient(1024)
+        starter.startDaemon(workingDir, options) >>> [client1, client2, client3]
+        options.getMaxHeapSizeMb() >> 1024
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.release(client1)
+        manager.release(client2)
+        manager.reserveNewClient(starter, workingDir, options)
 
         then:
-        manager.reserveIdleClient(options) == client
+        1 * client1.stop()
+        0 * client2.stop()
+        manager.allClients == [client2, client3]
+    }
+
+    def "does not stop busy clients to stay within the memory cap"() {
+        def client1 = healthyClient(2048)
+        def client2 = healthyClient(2048)
+        starter.startDaemon(workingDir, options) >>> [client1, client2]
+        options.getMaxHeapSizeMb() >> 2048
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
+
+        then:
+        0 * client1.stop()
+        manager.allClients == [client1, client2]
+    }
+
+    def healthyClient(int maxHeapSizeMb = -1) {
+        Mock(CompilerDaemonClient) {
+            isHealthy() >> true
+            isCompatibleWith(_, _, _) >> true
+            getMaxHeapSizeMb() >> maxHeapSizeMb
+        }
     }
 }
@@ -64,6 +64,7 @@ public abstract class AbstractNativeCompileTask extends DefaultTask {
     public AbstractNativeCompileTask() {
         includes = getProject().files();
         source = getProject().files();
+        getInputs().discoversInputs();
         getInputs().property("outputType", new Callable<String>() {
             @Override
             public String call() throws Exception {
@@ -70,6 +70,7 @@ public class WindowsResourceCompile extends DefaultTask {
     public WindowsResourceCompile() {
         includes = getProject().files();
         source = getProject().files();
+        getInputs().discoversInputs();
         getInputs().property("outputType", new Callable<String>() {
             @Override
             public String call() throws Exception {
@@ -31,6 +31,11 @@ class ParallelBuildPerformanceTest extends AbstractCrossBuildPerformanceTest {
                 tasksToRun("clean", "build").args("--parallel", "--max-workers=2")
             }
         }
+        runner.buildSpec {
+            projectName("multi").displayName("parallel with critical path scheduling").invocation {
+                tasksToRun("clean", "build").args("--parallel", "--max-workers=2", "-Dorg.gradle.parallel.priority=true")
+            }
+        }
         runner.baseline {
             projectName("multi").displayName("serial").invocation {
                 tasksToRun("clean", "build")
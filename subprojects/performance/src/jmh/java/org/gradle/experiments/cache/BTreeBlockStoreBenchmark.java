@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.experiments.cache;
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.btree.BlockStore;
+import org.gradle.cache.internal.btree.FileBackedBlockStore;
+import org.gradle.cache.internal.btree.MemoryMappedBlockStore;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the block stores available to {@link BTreePersistentIndexedCache} on a large cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class BTreeBlockStoreBenchmark {
+    private static final int KEY_SAMPLE_SIZE = 4096;
+
+    @Param({"file", "mapped"})
+    String store;
+
+    @Param({"100", "10000"})
+    int cachedIndexBlocks;
+
+    @Param({"1000000"})
+    int entries;
+
+    private File cacheFile;
+    private BTreePersistentIndexedCache<String, String> cache;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        cacheFile = File.createTempFile("btree-benchmark", ".bin");
+        cacheFile.delete();
+        cache = openCache();
+        for (int i = 0; i < entries; i++) {
+            cache.put(key(i), value(i));
+        }
+        // Start the measurements with a cold index block cache
+        cache.reset();
+
+        Random random = new Random(42);
+        keys = new String[KEY_SAMPLE_SIZE];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(random.nextInt(entries));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) {
+        bh.consume(cache.get(nextKey()));
+    }
+
+    @Benchmark
+    public void put() {
+        String key = nextKey();
+        cache.put(key, key);
+    }
+
+    private String nextKey() {
+        return keys[next++ % KEY_SAMPLE_SIZE];
+    }
+
+    private BTreePersistentIndexedCache<String, String> openCache() {
+        BlockStore backingStore = store.equals("mapped") ? new MemoryMappedBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER,
+            (short) 512, 512, backingStore, cachedIndexBlocks);
+    }
+
+    private static String key(int i) {
+        return "/some/project/path/src/main/java/org/gradle/File" + i + ".java";
+    }
+
+    private static String value(int i) {
+        return "value-" + i;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.cache;
+
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups and updates of a {@link BTreePersistentIndexedCache} with its default settings, at several cache sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final int KEY_SAMPLE_SIZE = 4096;
+
+    @Param({"1000", "100000", "1000000"})
+    int entries;
+
+    private File cacheFile;
+    private BTreePersistentIndexedCache<String, String> cache;
+    private String[] existingKeys;
+    private String[] missingKeys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        cacheFile = File.createTempFile("btree-benchmark", ".bin");
+        cacheFile.delete();
+        cache = new BTreePersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER);
+        for (int i = 0; i < entries; i++) {
+            cache.put(key(i), value(i));
+        }
+
+        Random random = new Random(42);
+        existingKeys = new String[KEY_SAMPLE_SIZE];
+        missingKeys = new String[KEY_SAMPLE_SIZE];
+        for (int i = 0; i < KEY_SAMPLE_SIZE; i++) {
+            existingKeys[i] = key(random.nextInt(entries));
+            missingKeys[i] = key(entries + random.nextInt(entries));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public void getExisting(Blackhole bh) {
+        bh.consume(cache.get(existingKeys[next++ % KEY_SAMPLE_SIZE]));
+    }
+
+    @Benchmark
+    public void getMissing(Blackhole bh) {
+        bh.consume(cache.get(missingKeys[next++ % KEY_SAMPLE_SIZE]));
+    }
+
+    @Benchmark
+    public void putExisting() {
+        String key = existingKeys[next++ % KEY_SAMPLE_SIZE];
+        cache.put(key, key);
+    }
+
+    private static String key(int i) {
+        return "/some/project/path/src/main/java/org/gradle/File" + i + ".java";
+    }
+
+    private static String value(int i) {
+        return "value-" + i;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.changedetection;
+
+import com.google.common.io.Files;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.hash.Murmur3Hasher;
+import org.gradle.cache.internal.MapBackedInMemoryStore;
+import org.gradle.internal.Factory;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures {@link CachingFileSnapshotter} for files whose hashes are already cached, and for files that have changed since they were cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CachingFileSnapshotterBenchmark {
+    @Param({"md5", "murmur3"})
+    String hasher;
+
+    @Param({"1000"})
+    int files;
+
+    @Param({"1024", "65536"})
+    int fileSize;
+
+    private File rootDir;
+    private MapBackedInMemoryStore store;
+    private CachingFileSnapshotter snapshotter;
+    private List<File> sourceFiles;
+    private List<FileTreeElement> cachedFiles;
+    private long modificationCount;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        rootDir = Files.createTempDir();
+        NativeServices.initialize(new File(rootDir, "native"));
+        sourceFiles = ChangeDetectionFixtures.createSourceTree(rootDir, files, fileSize);
+
+        store = new MapBackedInMemoryStore();
+        snapshotter = hasher.equals("murmur3")
+            ? new CachingFileSnapshotter(new Murmur3Hasher(), Murmur3Hasher.CACHE_SCHEMA_VERSION, store, new StringInterner(), null)
+            : new CachingFileSnapshotter(new DefaultHasher(), DefaultHasher.CACHE_SCHEMA_VERSION, store, new StringInterner(), null);
+        cachedFiles = fileDetails(0);
+        snapshotAll(cachedFiles);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        snapshotter.stop();
+        GFileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public void hit(Blackhole bh) {
+        bh.consume(snapshotAll(cachedFiles));
+    }
+
+    @Benchmark
+    public void miss(Blackhole bh) {
+        // Report a different modification time on each invocation, so that every file needs to be hashed again
+        bh.consume(snapshotAll(fileDetails(++modificationCount)));
+    }
+
+    private Object snapshotAll(final List<FileTreeElement> fileDetails) {
+        return store.useCache("snapshot files", new Factory<Object>() {
+            @Override
+            public Object create() {
+                return snapshotter.snapshotAll(fileDetails);
+            }
+        });
+    }
+
+    private List<FileTreeElement> fileDetails(long lastModifiedOffset) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        List<FileTreeElement> fileDetails = new ArrayList<FileTreeElement>(sourceFiles.size());
+        for (File file : sourceFiles) {
+            fileDetails.add(new DefaultFileVisitDetails(file, new RelativePath(true, file.getName()), new AtomicBoolean(), fileSystem, fileSystem, false, lastModifiedOffset, fileSize));
+        }
+        return fileDetails;
+    }
+}
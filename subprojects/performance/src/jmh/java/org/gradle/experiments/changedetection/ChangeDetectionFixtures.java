@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.changedetection;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.io.Files;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.CacheBackedFileSnapshotRepository;
+import org.gradle.api.internal.changedetection.state.CacheBackedTaskHistoryRepository;
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.changedetection.state.CachingTreeVisitor;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter;
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
+import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess;
+import org.gradle.api.internal.changedetection.state.TaskExecution;
+import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
+import org.gradle.api.internal.changedetection.state.TreeSnapshotRepository;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.internal.MapBackedInMemoryStore;
+import org.gradle.internal.Factory;
+import org.gradle.internal.id.RandomLongIdGenerator;
+import org.gradle.internal.serialize.DefaultSerializerRegistry;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.testfixtures.ProjectBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Creates source trees and snapshots them with the same change detection services as a build, for the benchmarks in this package.
+ */
+class ChangeDetectionFixtures {
+    private ChangeDetectionFixtures() {
+    }
+
+    /**
+     * Writes a source tree with the given number of files of the given size, 100 files per directory, with deterministic content.
+     */
+    static List<File> createSourceTree(File rootDir, int count, int fileSize) throws IOException {
+        Random random = new Random(42);
+        byte[] content = new byte[fileSize];
+        List<File> files = new ArrayList<File>(count);
+        for (int i = 0; i < count; i++) {
+            File file = new File(rootDir, "src/main/java/org/gradle/package" + (i / 100) + "/File" + i + ".java");
+            if (i % 100 == 0 && !file.getParentFile().mkdirs()) {
+                throw new IOException("Could not create directory " + file.getParentFile());
+            }
+            random.nextBytes(content);
+            Files.write(content, file);
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Rewrites every {@code interval}th file of the given source tree with one more byte of content, so that its cached hash is no longer used.
+     */
+    static void modifySourceTree(List<File> files, int interval, int fileSize) throws IOException {
+        Random random = new Random(43);
+        byte[] content = new byte[fileSize + 1];
+        for (int i = 0; i < files.size(); i += interval) {
+            random.nextBytes(content);
+            Files.write(content, files.get(i));
+        }
+    }
+
+    /**
+     * An in-memory task artifact cache that keeps track of the serializers of the caches created in it.
+     */
+    static class InMemoryTaskArtifactStateCacheAccess extends MapBackedInMemoryStore implements TaskArtifactStateCacheAccess {
+        private final Map<String, Serializer<?>> serializers = new HashMap<String, Serializer<?>>();
+        private final Map<String, PersistentIndexedCache<?, ?>> caches = new HashMap<String, PersistentIndexedCache<?, ?>>();
+
+        @Override
+        public <K, V> PersistentIndexedCache<K, V> createCache(String name, Class<K> keyType, Serializer<V> valueSerializer) {
+            PersistentIndexedCache<K, V> cache = super.createCache(name, keyType, valueSerializer);
+            serializers.put(name, valueSerializer);
+            caches.put(name, cache);
+            return cache;
+        }
+
+        @SuppressWarnings("unchecked")
+        <V> Serializer<V> getSerializer(String cacheName) {
+            return (Serializer<V>) serializers.get(cacheName);
+        }
+
+        @SuppressWarnings("unchecked")
+        <K, V> V get(String cacheName, final K key) {
+            final PersistentIndexedCache<K, V> cache = (PersistentIndexedCache<K, V>) caches.get(cacheName);
+            return useCache("get", new Factory<V>() {
+                @Override
+                public V create() {
+                    return cache.get(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * The change detection services of a build, backed by an in-memory task artifact cache.
+     */
+    static class Snapshotting {
+        final InMemoryTaskArtifactStateCacheAccess cacheAccess = new InMemoryTaskArtifactStateCacheAccess();
+        final StringInterner stringInterner = new StringInterner();
+        final CachingFileSnapshotter fileSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+        final TreeSnapshotRepository treeSnapshotRepository = new TreeSnapshotRepository(cacheAccess, stringInterner);
+
+        /**
+         * Creates a snapshotter that walks the directory trees again, as in a new build, but shares the file hashes cached by earlier snapshots.
+         */
+        DefaultFileCollectionSnapshotter createSnapshotter() {
+            return new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, new IdentityFileResolver(), new CachingTreeVisitor(), treeSnapshotRepository);
+        }
+
+        FileCollectionSnapshot snapshot(File dir) {
+            DefaultFileCollectionSnapshotter snapshotter = createSnapshotter();
+            return snapshotter.snapshot(snapshotter.preCheck(new FileTreeAdapter(new DirectoryFileTree(dir)), false));
+        }
+
+        Serializer<FileCollectionSnapshot> fileSnapshotSerializer() {
+            DefaultSerializerRegistry serializerRegistry = new DefaultSerializerRegistry();
+            createSnapshotter().registerSerializers(serializerRegistry);
+            return serializerRegistry.build(FileCollectionSnapshot.class);
+        }
+    }
+
+    /**
+     * The history of a single task, as it is stored in the task history cache.
+     */
+    static class StoredTaskHistory {
+        final Serializer<Object> taskHistorySerializer;
+        final Object taskHistory;
+        final Serializer<FileCollectionSnapshot> fileSnapshotSerializer;
+        final FileCollectionSnapshot inputFilesSnapshot;
+
+        private StoredTaskHistory(Serializer<Object> taskHistorySerializer, Object taskHistory, Serializer<FileCollectionSnapshot> fileSnapshotSerializer, FileCollectionSnapshot inputFilesSnapshot) {
+            this.taskHistorySerializer = taskHistorySerializer;
+            this.taskHistory = taskHistory;
+            this.fileSnapshotSerializer = fileSnapshotSerializer;
+            this.inputFilesSnapshot = inputFilesSnapshot;
+        }
+    }
+
+    /**
+     * Records an execution of a task with the given number of input and output files through {@link CacheBackedTaskHistoryRepository}.
+     */
+    static StoredTaskHistory storeTaskHistory(File projectDir, int inputFiles, int outputFiles) throws IOException {
+        File sourceDir = new File(projectDir, "src");
+        File outputDir = new File(projectDir, "build/classes/main");
+        createSourceTree(sourceDir, inputFiles, 64);
+        createSourceTree(outputDir, outputFiles, 64);
+
+        Snapshotting snapshotting = new Snapshotting();
+        Serializer<FileCollectionSnapshot> fileSnapshotSerializer = snapshotting.fileSnapshotSerializer();
+        CacheBackedFileSnapshotRepository snapshotRepository = new CacheBackedFileSnapshotRepository(snapshotting.cacheAccess, fileSnapshotSerializer, new RandomLongIdGenerator(), snapshotting.treeSnapshotRepository);
+        CacheBackedTaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(snapshotting.cacheAccess, snapshotRepository, snapshotting.stringInterner);
+
+        TaskInternal task = (TaskInternal) ProjectBuilder.builder().withProjectDir(projectDir).build().getTasks().create("compileJava");
+        task.getOutputs().dir(outputDir);
+
+        FileCollectionSnapshot inputFilesSnapshot = snapshotting.snapshot(sourceDir);
+        TaskHistoryRepository.History history = taskHistoryRepository.getHistory(task);
+        TaskExecution execution = history.getCurrentExecution();
+        execution.setTaskClass("org.gradle.api.tasks.compile.JavaCompile");
+        execution.setTaskClassLoaderHash(HashCode.fromLong(1));
+        execution.setTaskActionsClassLoaderHash(HashCode.fromLong(2));
+        Map<String, Object> inputProperties = new HashMap<String, Object>();
+        inputProperties.put("sourceCompatibility", "1.6");
+        inputProperties.put("options.encoding", "UTF-8");
+        execution.setInputProperties(inputProperties);
+        execution.setInputFilesSnapshot(ImmutableMap.of("source", inputFilesSnapshot));
+        execution.setOutputFilesSnapshot(ImmutableMap.of("destinationDir", snapshotting.snapshot(outputDir)));
+        execution.setDiscoveredInputFilesSnapshot(snapshotting.createSnapshotter().emptySnapshot());
+        execution.setInputFilesHash(HashCode.fromLong(3));
+        execution.setOutputFilesHash(HashCode.fromLong(4));
+        history.update();
+
+        Serializer<Object> taskHistorySerializer = snapshotting.cacheAccess.getSerializer("taskArtifacts");
+        Object taskHistory = snapshotting.cacheAccess.get("taskArtifacts", task.getPath());
+        return new StoredTaskHistory(taskHistorySerializer, taskHistory, fileSnapshotSerializer, inputFilesSnapshot);
+    }
+}
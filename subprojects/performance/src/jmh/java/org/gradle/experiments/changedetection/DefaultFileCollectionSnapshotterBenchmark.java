@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.changedetection;
+
+import com.google.common.io.Files;
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures snapshotting a source tree with {@link DefaultFileCollectionSnapshotter}, with the hashes of all files already cached, as for an up-to-date task.
+ *
+ * <p>Larger trees can be measured by passing the number of files as a JMH parameter, for example {@code -p files=1000000}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DefaultFileCollectionSnapshotterBenchmark {
+    @Param({"1000", "10000"})
+    int files;
+
+    private File rootDir;
+    private File sourceDir;
+    private ChangeDetectionFixtures.Snapshotting snapshotting;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        rootDir = Files.createTempDir();
+        NativeServices.initialize(new File(rootDir, "native"));
+        sourceDir = new File(rootDir, "project");
+        ChangeDetectionFixtures.createSourceTree(sourceDir, files, 64);
+        snapshotting = new ChangeDetectionFixtures.Snapshotting();
+
+        // Populate the file hash cache
+        snapshotting.snapshot(sourceDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        GFileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public void snapshotSourceTree(Blackhole bh) {
+        bh.consume(snapshotting.snapshot(sourceDir));
+    }
+}
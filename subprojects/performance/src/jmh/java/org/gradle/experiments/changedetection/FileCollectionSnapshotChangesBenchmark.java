@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.changedetection;
+
+import com.google.common.io.Files;
+import org.gradle.api.internal.changedetection.rules.TaskStateChange;
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterating the changes between two snapshots of the same file collection, as done to check whether a task is up-to-date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class FileCollectionSnapshotChangesBenchmark {
+    @Param({"1000", "10000"})
+    int files;
+
+    /**
+     * One in how many files has changed, or 0 for no changes.
+     */
+    @Param({"0", "1000", "10"})
+    int changeInterval;
+
+    private File rootDir;
+    private FileCollectionSnapshot previous;
+    private FileCollectionSnapshot current;
+
+    @Setup(Level.Trial)
+    public void createSnapshots() throws IOException {
+        rootDir = Files.createTempDir();
+        NativeServices.initialize(new File(rootDir, "native"));
+        File sourceDir = new File(rootDir, "project");
+        List<File> sourceFiles = ChangeDetectionFixtures.createSourceTree(sourceDir, files, 64);
+
+        ChangeDetectionFixtures.Snapshotting snapshotting = new ChangeDetectionFixtures.Snapshotting();
+        previous = snapshotting.snapshot(sourceDir);
+        if (changeInterval > 0) {
+            ChangeDetectionFixtures.modifySourceTree(sourceFiles, changeInterval, 64);
+        }
+        current = snapshotting.snapshot(sourceDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        GFileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public void firstChange(Blackhole bh) {
+        Iterator<TaskStateChange> changes = iterateChanges();
+        bh.consume(changes.hasNext());
+    }
+
+    @Benchmark
+    public void allChanges(Blackhole bh) {
+        Iterator<TaskStateChange> changes = iterateChanges();
+        while (changes.hasNext()) {
+            bh.consume(changes.next());
+        }
+    }
+
+    private Iterator<TaskStateChange> iterateChanges() {
+        return current.iterateContentChangesSince(previous, "Input", Collections.<FileCollectionSnapshot.ChangeFilter>emptySet());
+    }
+}
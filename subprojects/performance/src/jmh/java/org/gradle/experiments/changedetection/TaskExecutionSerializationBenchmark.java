@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.changedetection;
+
+import com.google.common.io.Files;
+import org.gradle.api.internal.changedetection.state.TaskExecution;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading the history of a {@link TaskExecution} and its file snapshots with the Kryo backed encoder and decoder, as done by the task history cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TaskExecutionSerializationBenchmark {
+    @Param({"100", "10000"})
+    int inputFiles;
+
+    private File rootDir;
+    private ChangeDetectionFixtures.StoredTaskHistory stored;
+    private byte[] encodedTaskHistory;
+    private byte[] encodedInputFilesSnapshot;
+
+    @Setup(Level.Trial)
+    public void createTaskHistory() throws Exception {
+        rootDir = Files.createTempDir();
+        NativeServices.initialize(new File(rootDir, "native"));
+        stored = ChangeDetectionFixtures.storeTaskHistory(new File(rootDir, "project"), inputFiles, inputFiles / 2);
+        encodedTaskHistory = encode(stored.taskHistorySerializer, stored.taskHistory);
+        encodedInputFilesSnapshot = encode(stored.fileSnapshotSerializer, stored.inputFilesSnapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        GFileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public void writeTaskHistory(Blackhole bh) throws Exception {
+        bh.consume(encode(stored.taskHistorySerializer, stored.taskHistory));
+    }
+
+    @Benchmark
+    public void readTaskHistory(Blackhole bh) throws Exception {
+        bh.consume(decode(stored.taskHistorySerializer, encodedTaskHistory));
+    }
+
+    @Benchmark
+    public void roundTripTaskHistory(Blackhole bh) throws Exception {
+        bh.consume(decode(stored.taskHistorySerializer, encode(stored.taskHistorySerializer, stored.taskHistory)));
+    }
+
+    @Benchmark
+    public void writeInputFilesSnapshot(Blackhole bh) throws Exception {
+        bh.consume(encode(stored.fileSnapshotSerializer, stored.inputFilesSnapshot));
+    }
+
+    @Benchmark
+    public void readInputFilesSnapshot(Blackhole bh) throws Exception {
+        // Include the cost of decoding the file snapshots, which happens lazily on first access
+        bh.consume(decode(stored.fileSnapshotSerializer, encodedInputFilesSnapshot).getSnapshots().size());
+    }
+
+    private static <T> byte[] encode(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static <T> T decode(Serializer<T> serializer, byte[] encoded) throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(encoded)));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.experiments.resolution;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.PatternMatchers;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.Exclude;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates exclude rules the way {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder} does, over a large layered graph
+ * where many edges declare excludes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ModuleExclusionsBenchmark {
+    private static final String[] NO_CONFIGURATIONS = new String[0];
+
+    @Param({"5000"})
+    int nodes;
+
+    @Param({"0", "4"})
+    int excludesPerEdge;
+
+    @Param({"5"})
+    int dependenciesPerNode;
+
+    private ModuleIdentifier[] moduleIds;
+    private int[][] dependencies;
+    private List<List<Exclude>> edgeExcludes;
+    private List<List<Exclude>> nodeExcludes;
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        Random random = new Random(42);
+        List<Exclude> rules = new ArrayList<Exclude>();
+        for (int i = 0; i < 200; i++) {
+            switch (i % 4) {
+                case 0:
+                    rules.add(new DefaultExclude("org" + i, "module" + i, NO_CONFIGURATIONS, PatternMatchers.EXACT));
+                    break;
+                case 1:
+                    rules.add(new DefaultExclude("org" + i, "*", NO_CONFIGURATIONS, PatternMatchers.EXACT));
+                    break;
+                case 2:
+                    rules.add(new DefaultExclude("*", "module" + i, NO_CONFIGURATIONS, PatternMatchers.EXACT));
+                    break;
+                default:
+                    rules.add(new DefaultExclude("*", "*", "artifact" + i, "jar", "jar", NO_CONFIGURATIONS, PatternMatchers.EXACT));
+            }
+        }
+
+        moduleIds = new ModuleIdentifier[nodes];
+        dependencies = new int[nodes][];
+        edgeExcludes = new ArrayList<List<Exclude>>(nodes * dependenciesPerNode);
+        nodeExcludes = new ArrayList<List<Exclude>>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            moduleIds[i] = DefaultModuleIdentifier.newId("org" + (i % 300), "module" + i);
+            nodeExcludes.add(pick(rules, random.nextInt(3) == 0 ? excludesPerEdge : 0, random));
+            // Only depend on later nodes, so that the nodes can be visited in order
+            int count = Math.min(dependenciesPerNode, nodes - i - 1);
+            dependencies[i] = new int[count];
+            for (int j = 0; j < count; j++) {
+                dependencies[i][j] = i + 1 + random.nextInt(nodes - i - 1);
+                edgeExcludes.add(pick(rules, random.nextInt(excludesPerEdge + 1), random));
+            }
+        }
+    }
+
+    private static List<Exclude> pick(List<Exclude> rules, int count, Random random) {
+        List<Exclude> picked = new ArrayList<Exclude>(count);
+        // Draw from a small window, so that combinations repeat as they do when many modules declare the same excludes
+        int window = random.nextInt(rules.size() / 10) * 10;
+        for (int i = 0; i < count; i++) {
+            picked.add(rules.get(window + random.nextInt(10)));
+        }
+        return picked;
+    }
+
+    @Benchmark
+    public void resolveGraph(Blackhole bh) {
+        ModuleExclusions moduleExclusions = new ModuleExclusions();
+        ModuleExclusion[] incoming = new ModuleExclusion[nodes];
+        incoming[0] = ModuleExclusions.excludeNone();
+        int edge = 0;
+        for (int i = 0; i < nodes; i++) {
+            if (incoming[i] == null) {
+                edge += dependencies[i].length;
+                continue;
+            }
+            ModuleExclusion nodeExclusion = moduleExclusions.intersect(incoming[i], moduleExclusions.excludeAny(nodeExcludes.get(i)));
+            for (int target : dependencies[i]) {
+                ModuleExclusion edgeExclusion = moduleExclusions.intersect(moduleExclusions.excludeAny(edgeExcludes.get(edge++)), nodeExclusion);
+                if (nodeExclusion.excludeModule(moduleIds[target])) {
+                    continue;
+                }
+                // A module reached by several paths is excluded only if excluded on all of them
+                incoming[target] = incoming[target] == null ? edgeExclusion : moduleExclusions.union(incoming[target], edgeExclusion);
+                bh.consume(edgeExclusion.excludesSameModulesAs(incoming[target]));
+            }
+        }
+        bh.consume(incoming);
+    }
+}
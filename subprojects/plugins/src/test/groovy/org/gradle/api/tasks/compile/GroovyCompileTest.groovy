@@ -19,6 +19,7 @@ package org.gradle.api.tasks.compile
 import org.gradle.api.InvalidUserDataException
 import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.ConventionTask
+import org.gradle.api.internal.changedetection.changes.IncrementalTaskInputsInternal
 import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompileSpec
 import org.gradle.api.tasks.WorkResult
 import org.gradle.language.base.internal.compile.Compiler
@@ -65,6 +66,19 @@ public class GroovyCompileTest extends AbstractCompileTest {
         doingWork << [true, false]
     }
 
+    def "compiles everything when incremental compilation is requested with a custom compiler"() {
+        given:
+        setUpMocksAndAttributes(testObj, NON_EMPTY_CLASSPATH)
+        testObj.options.incremental = true
+
+        when:
+        testObj.compile(Stub(IncrementalTaskInputsInternal))
+
+        then:
+        1 * groovyCompilerMock.execute(_ as GroovyJavaJointCompileSpec) >> new ExpectedWorkResult(true)
+        testObj.didWork
+    }
+
     def "moan if groovy classpath is empty"() {
         given:
         setUpMocksAndAttributes(testObj, EMPTY_CLASSPATH)
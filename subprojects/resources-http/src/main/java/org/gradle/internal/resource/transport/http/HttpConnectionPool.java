@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of HTTP connections shared by all of the HTTP clients in the process, so that a connection to a repository host is kept alive and reused
+ * by later requests, regardless of which repository or build they are made for. This avoids a new TCP connection and TLS handshake per client.
+ *
+ * <p>The number of connections per host, and so the number of concurrent requests to a host, is bounded. A request made while all connections to
+ * its host are in use waits for one to be released.</p>
+ */
+public class HttpConnectionPool implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "org.gradle.internal.http.maxConnectionsPerHost";
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+    public static final String KEEP_ALIVE_PROPERTY = "org.gradle.internal.http.keepAliveMillis";
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 16;
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final int maxConnectionsPerHost;
+    private final int maxConnections;
+    private final long keepAliveMillis;
+    // Keyed on the SSL context, which is recreated when the SSL system properties change
+    private final Map<SSLContext, PoolingHttpClientConnectionManager> connectionManagers = new IdentityHashMap<SSLContext, PoolingHttpClientConnectionManager>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    public HttpConnectionPool() {
+        this(Integer.getInteger(MAX_CONNECTIONS_PER_HOST_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_HOST),
+            Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS),
+            Long.getLong(KEEP_ALIVE_PROPERTY, DEFAULT_KEEP_ALIVE_MILLIS));
+    }
+
+    public HttpConnectionPool(int maxConnectionsPerHost, int maxConnections, long keepAliveMillis) {
+        this.maxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+        this.maxConnections = Math.max(this.maxConnectionsPerHost, maxConnections);
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    /**
+     * Configures the given builder to use the connections of this pool. The builder's own SSL socket factory is replaced by one using the given
+     * SSL context.
+     */
+    public void configure(HttpClientBuilder builder, SSLContext sslContext) {
+        builder.setConnectionManager(getConnectionManager(sslContext));
+        builder.setConnectionManagerShared(true);
+        builder.setKeepAliveStrategy(new BoundedKeepAliveStrategy(keepAliveMillis));
+        builder.addInterceptorLast(new HttpRequestInterceptor() {
+            public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+                requestCount.incrementAndGet();
+            }
+        });
+    }
+
+    private synchronized PoolingHttpClientConnectionManager getConnectionManager(SSLContext sslContext) {
+        PoolingHttpClientConnectionManager connectionManager = connectionManagers.get(sslContext);
+        if (connectionManager == null) {
+            Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext, new DefaultHostnameVerifier(null)))
+                .build();
+            connectionManager = new PoolingHttpClientConnectionManager(socketFactories, new CountingConnectionFactory());
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+            connectionManagers.put(sslContext, connectionManager);
+        } else {
+            // Drop connections left over from earlier builds that the server will have closed by now
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS);
+        }
+        return connectionManager;
+    }
+
+    /**
+     * Returns the number of requests made using connections from this pool.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of connections opened by this pool. Each request made beyond these reused an existing connection.
+     */
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (requestCount.get() > 0) {
+            LOGGER.debug("HTTP connection pool made {} requests using {} connections.", requestCount.get(), connectionCount.get());
+        }
+        for (PoolingHttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            connectionManager.shutdown();
+        }
+        connectionManagers.clear();
+    }
+
+    private class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+        @Override
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            connectionCount.incrementAndGet();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        }
+    }
+
+    /**
+     * Honours the keep-alive timeout sent by the server, up to the given maximum. Connections are kept for the maximum when the server sends none.
+     */
+    private static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAliveMillis;
+
+        BoundedKeepAliveStrategy(long maxKeepAliveMillis) {
+            this.maxKeepAliveMillis = maxKeepAliveMillis;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+        }
+    }
+}
@@ -31,9 +31,13 @@ import java.util.Set;
 
 public class HttpConnectorFactory implements ResourceConnectorFactory {
     private SslContextFactory sslContextFactory;
+    private final HttpConnectionPool connectionPool;
+    private final HttpDirectoryListingCache listingCache;
 
-    public HttpConnectorFactory(SslContextFactory sslContextFactory) {
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionPool connectionPool, HttpDirectoryListingCache listingCache) {
         this.sslContextFactory = sslContextFactory;
+        this.connectionPool = connectionPool;
+        this.listingCache = listingCache;
     }
 
     @Override
@@ -52,9 +56,9 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
 
     @Override
     public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecification connectionDetails) {
-        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(connectionDetails.getAuthentications(), sslContextFactory));
+        HttpClientHelper http = new HttpClientHelper(new DefaultHttpSettings(connectionDetails.getAuthentications(), sslContextFactory), connectionPool);
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
-        HttpResourceLister lister = new HttpResourceLister(accessor);
+        HttpResourceLister lister = new HttpResourceLister(accessor, listingCache);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
         return new DefaultExternalResourceConnector(accessor, lister, uploader);
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.api.Nullable;
+import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Remembers HTTP directory listings along with the ETag and Last-Modified values they were served with, so that a listing can be
+ * checked again with a conditional request and reused without being parsed again when the server reports that it has not changed.
+ * Shared by all HTTP repositories in the process.
+ */
+public class HttpDirectoryListingCache {
+    public static final String MAX_SIZE_PROPERTY = "org.gradle.internal.http.directoryListingCacheSize";
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final Cache<URI, Listing> listings;
+
+    public HttpDirectoryListingCache() {
+        this(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+    }
+
+    HttpDirectoryListingCache(int maxSize) {
+        listings = CacheBuilder.newBuilder().maximumSize(maxSize).softValues().build();
+    }
+
+    @Nullable
+    public Listing get(URI directory) {
+        return listings.getIfPresent(directory);
+    }
+
+    /**
+     * Remembers the given listing, when the server provided enough information to check it again with a conditional request.
+     */
+    public void put(URI directory, ExternalResourceMetaData metaData, List<String> names) {
+        if (metaData.getEtag() == null && metaData.getLastModified() == null) {
+            listings.invalidate(directory);
+            return;
+        }
+        listings.put(directory, new Listing(metaData.getEtag(), metaData.getLastModified(), names));
+    }
+
+    public static class Listing {
+        private final String etag;
+        private final Date lastModified;
+        private final List<String> names;
+
+        private Listing(@Nullable String etag, @Nullable Date lastModified, List<String> names) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.names = Collections.unmodifiableList(new ArrayList<String>(names));
+        }
+
+        @Nullable
+        public String getEtag() {
+            return etag;
+        }
+
+        @Nullable
+        public Date getLastModified() {
+            return lastModified;
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+    }
+}
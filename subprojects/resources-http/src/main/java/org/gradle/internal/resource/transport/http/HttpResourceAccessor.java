@@ -28,15 +28,22 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
-import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class HttpResourceAccessor implements ExternalResourceAccessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
 
-    private final List<HttpResponseResource> openResources = new ArrayList<HttpResponseResource>();
+    // Tracked per thread, as requests may be made concurrently and each thread abandons only its own resources
+    private final ThreadLocal<List<HttpResponseResource>> openResources = new ThreadLocal<List<HttpResponseResource>>() {
+        @Override
+        protected List<HttpResponseResource> initialValue() {
+            return new CopyOnWriteArrayList<HttpResponseResource>();
+        }
+    };
 
     public HttpResourceAccessor(HttpClientHelper http) {
         this.http = http;
@@ -57,6 +64,25 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
         return null;
     }
 
+    /**
+     * Same as {@link #openResource(URI)}, except that the server is asked to respond with 304 (Not Modified) when the resource still has the given
+     * ETag, or has not been modified since the given date. Check {@link HttpResponseResource#getStatusCode()} of the result.
+     */
+    @Nullable
+    public HttpResponseResource openResourceIfModified(final URI uri, @Nullable String etag, @Nullable Date lastModified) {
+        abortOpenResources();
+        String location = uri.toString();
+        LOGGER.debug("Constructing external resource: {} (ETag: {}, Last-Modified: {})", location, etag, lastModified);
+
+        HttpResponse response = http.performConditionalGet(location, etag, lastModified);
+        if (response != null) {
+            HttpResponseResource resource = wrapResponse(uri, response);
+            return recordOpenGetResource(resource);
+        }
+
+        return null;
+    }
+
     /**
      * Same as #getResource except that it always gives access to the response body,
      * irrespective of the returned HTTP status code. Never returns {@code null}.
@@ -87,11 +113,12 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     }
 
     private HttpResponseResource recordOpenGetResource(HttpResponseResource httpResource) {
-        openResources.add(httpResource);
+        openResources.get().add(httpResource);
         return httpResource;
     }
 
     private void abortOpenResources() {
+        List<HttpResponseResource> openResources = this.openResources.get();
         for (Closeable openResource : openResources) {
             LOGGER.warn("Forcing close on abandoned resource: {}", openResource);
             try {
@@ -104,11 +131,12 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     }
 
     private HttpResponseResource wrapResponse(URI uri, HttpResponse response) {
+        final List<HttpResponseResource> openResources = this.openResources.get();
         return new HttpResponseResource("GET", uri, response) {
             @Override
             public void close() throws IOException {
                 super.close();
-                HttpResourceAccessor.this.openResources.remove(this);
+                openResources.remove(this);
             }
         };
     }
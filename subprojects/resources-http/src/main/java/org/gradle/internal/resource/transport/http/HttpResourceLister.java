@@ -16,38 +16,65 @@
 
 package org.gradle.internal.resource.transport.http;
 
+import org.apache.http.HttpStatus;
+import org.gradle.api.Nullable;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.internal.resource.ResourceExceptions;
 import org.gradle.internal.resource.transfer.ExternalResourceLister;
-import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 public class HttpResourceLister implements ExternalResourceLister {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceLister.class);
+
     private HttpResourceAccessor accessor;
+    private final HttpDirectoryListingCache listingCache;
 
     public HttpResourceLister(HttpResourceAccessor accessor) {
+        this(accessor, null);
+    }
+
+    /**
+     * Creates a lister that checks the listings in the given cache with a conditional request, or always fetches listings when the cache is null.
+     */
+    public HttpResourceLister(HttpResourceAccessor accessor, @Nullable HttpDirectoryListingCache listingCache) {
         this.accessor = accessor;
+        this.listingCache = listingCache;
     }
 
     public List<String> list(final URI directory) {
-        final ExternalResourceReadResponse response = accessor.openResource(directory);
+        HttpDirectoryListingCache.Listing cached = listingCache == null ? null : listingCache.get(directory);
+        final HttpResponseResource response = cached == null
+            ? accessor.openResource(directory)
+            : accessor.openResourceIfModified(directory, cached.getEtag(), cached.getLastModified());
         if (response == null) {
             return null;
         }
         try {
             try {
+                if (cached != null && response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    LOGGER.debug("HTTP directory listing for '{}' is unchanged.", directory);
+                    return new ArrayList<String>(cached.getNames());
+                }
                 String contentType = response.getMetaData().getContentType();
                 ApacheDirectoryListingParser directoryListingParser = new ApacheDirectoryListingParser();
                 InputStream inputStream = response.openStream();
+                List<String> names;
                 try {
-                    return directoryListingParser.parse(directory, inputStream, contentType);
+                    names = directoryListingParser.parse(directory, inputStream, contentType);
                 } catch (Exception e) {
                     throw new ResourceException(directory, String.format("Unable to parse HTTP directory listing for '%s'.", directory), e);
                 }
+                if (listingCache != null) {
+                    listingCache.put(directory, response.getMetaData(), names);
+                }
+                return names;
             } finally {
                 response.close();
             }
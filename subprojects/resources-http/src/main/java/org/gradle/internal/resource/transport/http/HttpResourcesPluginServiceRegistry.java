@@ -48,8 +48,16 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
             return new DefaultSslContextFactory();
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory) {
-            return new HttpConnectorFactory(sslContextFactory);
+        HttpConnectionPool createHttpConnectionPool() {
+            return new HttpConnectionPool();
+        }
+
+        HttpDirectoryListingCache createHttpDirectoryListingCache() {
+            return new HttpDirectoryListingCache();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionPool connectionPool, HttpDirectoryListingCache listingCache) {
+            return new HttpConnectorFactory(sslContextFactory, connectionPool, listingCache);
         }
     }
 
@@ -17,8 +17,10 @@
 package org.gradle.internal.resource.transport.http
 
 import org.apache.http.HttpResponse
+import org.apache.http.HttpVersion
 import org.apache.http.client.methods.HttpGet
 import org.apache.http.client.methods.HttpRequestBase
+import org.apache.http.message.BasicStatusLine
 import org.apache.http.ssl.SSLContexts
 import org.gradle.util.SetSystemProperties
 import org.junit.Rule
@@ -43,6 +45,28 @@ class HttpClientHelperTest extends Specification {
         e.cause.message == "ouch"
     }
 
+    def "conditional GET sends the ETag and Last-Modified values and returns a 304 response"() {
+        def response = Stub(HttpResponse) {
+            getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, 304, "Not Modified")
+        }
+        HttpRequestBase request = null
+        def client = new HttpClientHelper(httpSettings) {
+            @Override
+            protected HttpResponse executeGetOrHead(HttpRequestBase method) {
+                request = method
+                return response
+            }
+        }
+
+        when:
+        def result = client.performConditionalGet("http://gradle.org", '"abc"', new Date(0))
+
+        then:
+        result == response
+        request.getFirstHeader("If-None-Match").value == '"abc"'
+        request.getFirstHeader("If-Modified-Since").value == "Thu, 01 Jan 1970 00:00:00 GMT"
+    }
+
     private HttpSettings getHttpSettings() {
         return Stub(HttpSettings) {
             getProxySettings() >> Mock(HttpProxySettings)
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.transport.http
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.ssl.SSLContexts
+import org.apache.http.util.EntityUtils
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class HttpConnectionPoolTest extends Specification {
+    def sslContext = SSLContexts.createDefault()
+    def inFlight = new AtomicInteger()
+    def maxInFlight = new AtomicInteger()
+    def serverExecutor = Executors.newFixedThreadPool(8)
+    HttpServer server
+    HttpConnectionPool pool
+
+    def setup() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/", new HttpHandler() {
+            void handle(HttpExchange exchange) {
+                def count = inFlight.incrementAndGet()
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(count, maxInFlight.get()))
+                }
+                Thread.sleep(50)
+                def content = "content".bytes
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.write(content)
+                inFlight.decrementAndGet()
+                exchange.close()
+            }
+        })
+        server.executor = serverExecutor
+        server.start()
+    }
+
+    def cleanup() {
+        pool?.stop()
+        server.stop(0)
+        serverExecutor.shutdownNow()
+    }
+
+    def "reuses connection to a host across clients"() {
+        pool = new HttpConnectionPool(4, 8, 30000)
+        def first = new HttpClientHelper(httpSettings, pool)
+        def second = new HttpClientHelper(httpSettings, pool)
+
+        when:
+        3.times {
+            get(first, "/repo1/thing.pom")
+            get(second, "/repo2/thing.jar")
+        }
+
+        then:
+        pool.requestCount == 6
+        pool.connectionCount == 1
+
+        cleanup:
+        first.close()
+        second.close()
+    }
+
+    def "limits the number of concurrent requests to a host"() {
+        pool = new HttpConnectionPool(2, 8, 30000)
+        def client = new HttpClientHelper(httpSettings, pool)
+        def executor = Executors.newFixedThreadPool(6)
+
+        when:
+        def results = (1..6).collect { index ->
+            executor.submit({ get(client, "/thing-${index}.jar") } as Callable)
+        }
+        results*.get()
+
+        then:
+        pool.requestCount == 6
+        pool.connectionCount == 2
+        maxInFlight.get() == 2
+
+        cleanup:
+        executor.shutdownNow()
+        client.close()
+    }
+
+    private String get(HttpClientHelper client, String path) {
+        def response = client.performGet("http://127.0.0.1:${server.address.port}${path}")
+        return EntityUtils.toString(response.entity)
+    }
+
+    private HttpSettings getHttpSettings() {
+        return Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> sslContext
+            }
+        }
+    }
+}
@@ -37,6 +37,68 @@ class HttpResourceListerTest extends Specification {
         1 * externalResource.close()
     }
 
+    def "reuses cached listing when the server reports that it is unchanged"() {
+        def listingCache = new HttpDirectoryListingCache()
+        def lister = new HttpResourceLister(accessorMock, listingCache)
+        def uri = new URI("http://testrepo/")
+        def lastModified = new Date(1000)
+        HttpResponseResource unchanged = Mock()
+
+        when:
+        def first = lister.list(uri)
+
+        then:
+        1 * accessorMock.openResource(uri) >> externalResource
+        1 * externalResource.openStream() >> new ByteArrayInputStream("<a href='child'/>".bytes)
+        _ * externalResource.metaData >> metaData
+        _ * metaData.getContentType() >> "text/html"
+        _ * metaData.getEtag() >> '"abc"'
+        _ * metaData.getLastModified() >> lastModified
+        1 * externalResource.close()
+        first == ["child"]
+
+        when:
+        def second = lister.list(uri)
+
+        then:
+        1 * accessorMock.openResourceIfModified(uri, '"abc"', lastModified) >> unchanged
+        _ * unchanged.statusCode >> 304
+        0 * unchanged.openStream()
+        1 * unchanged.close()
+        second == ["child"]
+    }
+
+    def "fetches listing again when the server reports that it has changed"() {
+        def listingCache = new HttpDirectoryListingCache()
+        def lister = new HttpResourceLister(accessorMock, listingCache)
+        def uri = new URI("http://testrepo/")
+        HttpResponseResource changed = Mock()
+        ExternalResourceMetaData changedMetaData = Stub() {
+            getContentType() >> "text/html"
+            getEtag() >> '"def"'
+        }
+
+        given:
+        externalResource.openStream() >> new ByteArrayInputStream("<a href='child'/>".bytes)
+        externalResource.metaData >> metaData
+        metaData.getContentType() >> "text/html"
+        metaData.getEtag() >> '"abc"'
+        accessorMock.openResource(uri) >> externalResource
+        lister.list(uri)
+
+        when:
+        def result = lister.list(uri)
+
+        then:
+        1 * accessorMock.openResourceIfModified(uri, '"abc"', null) >> changed
+        _ * changed.statusCode >> 200
+        _ * changed.metaData >> changedMetaData
+        1 * changed.openStream() >> new ByteArrayInputStream("<a href='other'/>".bytes)
+        1 * changed.close()
+        result == ["other"]
+        listingCache.get(uri).etag == '"def"'
+    }
+
     def "list returns null if HttpAccessor returns null"(){
         setup:
         accessorMock.openResource(new URI("http://testrepo/"))  >> null
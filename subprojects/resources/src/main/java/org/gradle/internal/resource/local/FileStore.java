@@ -16,6 +16,7 @@
 package org.gradle.internal.resource.local;
 
 import org.gradle.api.Action;
+import org.gradle.internal.hash.HashValue;
 
 import java.io.File;
 
@@ -23,6 +24,11 @@ public interface FileStore<K> {
 
     LocallyAvailableResource move(K key, File source);
 
+    /**
+     * Moves the given file into the store, when the SHA1 of its content is already known.
+     */
+    LocallyAvailableResource move(K key, File source, HashValue sha1);
+
     LocallyAvailableResource copy(K key, File source);
 
     void moveFilestore(File destination);